@@ -0,0 +1,73 @@
+/*
+ * This code was written by Bear Giles <bgiles@coyotesong.com> and he
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Any contributions made by others are licensed to this project under
+ * one or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright (c) 2013 Bear Giles <bgiles@coyotesong.com>
+ */
+package com.invariantproperties.sandbox.student.business;
+
+import java.io.Serializable;
+
+/**
+ * A single item that could not be saved by a bulk operation.
+ * 
+ * @author Bear Giles <bgiles@coyotesong.com>
+ */
+public class BatchFailure implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final int index;
+    private final String uuid;
+    private final String message;
+
+    /**
+     * Constructor.
+     * 
+     * @param index
+     *            position of the item in the caller's list
+     * @param uuid
+     *            uuid of the item, or null if it has not been saved.
+     * @param message
+     */
+    public BatchFailure(int index, String uuid, String message) {
+        this.index = index;
+        this.uuid = uuid;
+        this.message = message;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public String getUuid() {
+        return uuid;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return String.format("[%d: %s, %s]", index, uuid, message);
+    }
+}
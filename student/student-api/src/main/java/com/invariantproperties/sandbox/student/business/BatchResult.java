@@ -0,0 +1,73 @@
+/*
+ * This code was written by Bear Giles <bgiles@coyotesong.com> and he
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Any contributions made by others are licensed to this project under
+ * one or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright (c) 2013 Bear Giles <bgiles@coyotesong.com>
+ */
+package com.invariantproperties.sandbox.student.business;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.invariantproperties.sandbox.student.domain.PersistentObject;
+
+/**
+ * Results of a bulk operation. The saved objects are in the same order as the
+ * caller's list, less any items that failed.
+ * 
+ * @author Bear Giles <bgiles@coyotesong.com>
+ * 
+ * @param <T>
+ */
+public class BatchResult<T extends PersistentObject> implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final List<T> results = new ArrayList<T>();
+    private final List<BatchFailure> failures = new ArrayList<BatchFailure>();
+
+    public void addResult(T result) {
+        results.add(result);
+    }
+
+    public void addFailure(BatchFailure failure) {
+        failures.add(failure);
+    }
+
+    public List<T> getResults() {
+        return Collections.unmodifiableList(results);
+    }
+
+    public List<BatchFailure> getFailures() {
+        return Collections.unmodifiableList(failures);
+    }
+
+    public boolean hasFailures() {
+        return !failures.isEmpty();
+    }
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return String.format("[BatchResult: %d saved, %d failed]", results.size(), failures.size());
+    }
+}
@@ -40,4 +40,18 @@ public interface CourseFinderService extends FinderService<Course> {
     Course findCourseByCode(String code);
 
     List<Course> findCoursesByTestRun(TestRun testRun);
+
+    /**
+     * Find a page of courses by name. The search is case-insensitive and the
+     * results are sorted by name. The sort property of the page is ignored.
+     * 
+     * @param name
+     *            search term
+     * @param match
+     * @param testRun
+     *            test run, or null for production courses
+     * @param page
+     * @return
+     */
+    List<Course> findCoursesByName(String name, NameMatch match, TestRun testRun, KeysetPage page);
 }
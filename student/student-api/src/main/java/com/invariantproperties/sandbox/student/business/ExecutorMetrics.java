@@ -0,0 +1,136 @@
+/*
+ * This code was written by Bear Giles <bgiles@coyotesong.com> and he
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Any contributions made by others are licensed to this project under
+ * one or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright (c) 2013 Bear Giles <bgiles@coyotesong.com>
+ */
+package com.invariantproperties.sandbox.student.business;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Snapshot of the state of a ServiceExecutor.
+ * 
+ * The queue-time histogram counts how long each call waited for a worker.
+ * Bucket i counts the calls that waited no longer than QUEUE_TIME_BUCKETS[i]
+ * milliseconds and longer than the previous bound. The final bucket counts
+ * everything slower than the last bound.
+ * 
+ * @author Bear Giles <bgiles@coyotesong.com>
+ */
+public class ExecutorMetrics implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Upper bounds of the queue-time histogram buckets, in milliseconds.
+     */
+    public static final long[] QUEUE_TIME_BUCKETS = { 1, 5, 10, 50, 100, 500, 1000, 5000 };
+
+    private final int active;
+    private final int queued;
+    private final int maxThreads;
+    private final int queueCapacity;
+    private final long started;
+    private final long rejected;
+    private final long timeouts;
+    private final long totalQueueMillis;
+    private final long maxQueueMillis;
+    private final long[] queueTimeHistogram;
+
+    public ExecutorMetrics(int active, int queued, int maxThreads, int queueCapacity, long started, long rejected,
+            long timeouts, long totalQueueMillis, long maxQueueMillis, long[] queueTimeHistogram) {
+        this.active = active;
+        this.queued = queued;
+        this.maxThreads = maxThreads;
+        this.queueCapacity = queueCapacity;
+        this.started = started;
+        this.rejected = rejected;
+        this.timeouts = timeouts;
+        this.totalQueueMillis = totalQueueMillis;
+        this.maxQueueMillis = maxQueueMillis;
+        this.queueTimeHistogram = queueTimeHistogram.clone();
+    }
+
+    /**
+     * Number of calls currently running.
+     */
+    public int getActive() {
+        return active;
+    }
+
+    /**
+     * Number of calls waiting for a worker.
+     */
+    public int getQueued() {
+        return queued;
+    }
+
+    public int getMaxThreads() {
+        return maxThreads;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    /**
+     * Number of calls that have started running.
+     */
+    public long getStarted() {
+        return started;
+    }
+
+    /**
+     * Number of calls turned away because the queue was full.
+     */
+    public long getRejected() {
+        return rejected;
+    }
+
+    /**
+     * Number of calls that didn't finish before their timeout.
+     */
+    public long getTimeouts() {
+        return timeouts;
+    }
+
+    public long getMaxQueueMillis() {
+        return maxQueueMillis;
+    }
+
+    public double getMeanQueueMillis() {
+        return (started == 0) ? 0.0 : (double) totalQueueMillis / started;
+    }
+
+    public long[] getQueueTimeHistogram() {
+        return queueTimeHistogram.clone();
+    }
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return String.format("ExecutorMetrics[active=%d, queued=%d, maxThreads=%d, queueCapacity=%d, started=%d, "
+                + "rejected=%d, timeouts=%d, meanQueue=%.2fms, maxQueue=%dms, histogram=%s]", active, queued,
+                maxThreads, queueCapacity, started, rejected, timeouts, getMeanQueueMillis(), maxQueueMillis,
+                Arrays.toString(queueTimeHistogram));
+    }
+}
@@ -22,6 +22,9 @@
  */
 package com.invariantproperties.sandbox.student.business;
 
+import java.util.Collection;
+import java.util.List;
+
 import com.invariantproperties.sandbox.student.domain.PersistentObject;
 import com.invariantproperties.sandbox.student.domain.TestRun;
 
@@ -37,4 +40,84 @@ public interface FinderService<T extends PersistentObject> {
     long count();
 
     long countByTestRun(TestRun testRun);
+
+    /**
+     * Count the objects belonging to the specified test run, or that are not
+     * test data if the test run is null. The counts are normally maintained
+     * by the application and periodically reconciled with the database.
+     * 
+     * @param testRun
+     * @param exact
+     *            if true always count the rows in the database
+     * @return
+     */
+    long countByTestRun(TestRun testRun, boolean exact);
+
+    /**
+     * Find the object with the specified uuid. Unlike the findXByUuid()
+     * methods a missing object is not an error - it's the cheap path for
+     * callers that expect misses.
+     * 
+     * @param uuid
+     * @return object, or null if there is no such object
+     */
+    T findByUuidOrNull(String uuid);
+
+    /**
+     * Find the objects with the specified uuids. This is much cheaper than
+     * looking up each object in turn since the objects are read with a small
+     * number of queries. Test data is included.
+     * 
+     * @param uuids
+     * @return objects in the same order as the uuids, and the uuids that were
+     *         not found
+     */
+    MultiGetResult<T> findByUuids(Collection<String> uuids);
+
+    /**
+     * Find a single page of objects that are not test data. The full list is
+     * never loaded.
+     * 
+     * @param page
+     * @return objects on page, empty if there are no more objects
+     * @throws ObjectNotFoundException
+     *             if the 'after' object no longer exists
+     */
+    List<T> findPage(KeysetPage page);
+
+    /**
+     * Find a single page of objects belonging to the specified test run.
+     * 
+     * @param testRun
+     * @param page
+     * @return objects on page, empty if there are no more objects
+     * @throws ObjectNotFoundException
+     *             if the 'after' object no longer exists
+     */
+    List<T> findPageByTestRun(TestRun testRun, KeysetPage page);
+
+    /**
+     * Pass every object that is not test data to the handler, in primary key
+     * order. The objects are read with a database cursor and detached as we
+     * go so memory use does not depend on the size of the table. This is
+     * intended for exports and batch jobs.
+     * 
+     * @param handler
+     * @param fetchSize
+     *            number of rows to read from the database at a time
+     * @return number of objects processed
+     */
+    long forEach(ObjectHandler<? super T> handler, int fetchSize);
+
+    /**
+     * Pass every object belonging to the specified test run to the handler.
+     * See forEach().
+     * 
+     * @param testRun
+     * @param handler
+     * @param fetchSize
+     *            number of rows to read from the database at a time
+     * @return number of objects processed
+     */
+    long forEachByTestRun(TestRun testRun, ObjectHandler<? super T> handler, int fetchSize);
 }
@@ -39,5 +39,19 @@ public interface InstructorFinderService extends FinderService<Instructor> {
 
     List<Instructor> findInstructorsByTestRun(TestRun testRun);
 
+    /**
+     * Find a page of instructors by name. The search is case-insensitive and the
+     * results are sorted by name. The sort property of the page is ignored.
+     * 
+     * @param name
+     *            search term
+     * @param match
+     * @param testRun
+     *            test run, or null for production instructors
+     * @param page
+     * @return
+     */
+    List<Instructor> findInstructorsByName(String name, NameMatch match, TestRun testRun, KeysetPage page);
+
     Instructor findInstructorByEmailAddress(String emailAddress);
 }
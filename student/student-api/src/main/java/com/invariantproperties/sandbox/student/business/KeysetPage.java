@@ -0,0 +1,307 @@
+/*
+ * This code was written by Bear Giles <bgiles@coyotesong.com> and he
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Any contributions made by others are licensed to this project under
+ * one or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright (c) 2013 Bear Giles <bgiles@coyotesong.com>
+ */
+package com.invariantproperties.sandbox.student.business;
+
+import java.beans.IntrospectionException;
+import java.beans.PropertyDescriptor;
+import java.io.Serializable;
+import java.lang.reflect.InvocationTargetException;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import com.invariantproperties.sandbox.student.domain.PersistentObject;
+import com.invariantproperties.sandbox.student.util.StudentUtil;
+
+/**
+ * Request for a single page of a keyset ("seek") paginated list. Instead of
+ * skipping over an offset we ask for the objects that follow the last object
+ * on the previous page in the requested sort order.
+ * 
+ * Ties in the sort property are broken by the primary key so the order is
+ * total and no object is skipped or repeated between pages. The sort property
+ * must be a non-null column and should have an index on (column, primary key).
+ * The database then starts a range scan of that index at the previous value
+ * and reads the page plus any earlier ties with the same value, so the cost
+ * of a page doesn't depend on how far into the list it is.
+ * 
+ * The request may also name the fields to load. The repository then selects
+ * only those columns (plus the primary key, uuid and sort property) and
+ * returns unmanaged objects with every other property left null. This keeps
+ * large columns, e.g., the course description, out of list views.
+ * 
+ * The 'after' cursor is the uuid of the last object on the previous page,
+ * followed by its primary key and sort property value if they're known, e.g.,
+ * 'uuid:42:physics'. The repository seeks directly to that position so the
+ * next page can be read even if the object has since been deleted. A cursor
+ * with only the uuid requires the object to be looked up. Dates are written
+ * as milliseconds since the epoch.
+ * 
+ * @author Bear Giles <bgiles@coyotesong.com>
+ */
+public class KeysetPage implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    public static final int DEFAULT_MAX_RESULTS = 100;
+    private static final String SEPARATOR = ":";
+    private static final Pattern ID_PATTERN = Pattern.compile("[0-9]{1,10}");
+
+    private final String after;
+    private final String afterUuid;
+    private final Integer afterId;
+    private final String afterValue;
+    private final int maxResults;
+    private final String sortProperty;
+    private final boolean ascending;
+    private final Set<String> fields;
+
+    /**
+     * Constructor for the first page, sorted by primary key.
+     * 
+     * @param maxResults
+     */
+    public KeysetPage(int maxResults) {
+        this(null, maxResults, null, true);
+    }
+
+    /**
+     * Constructor for a page sorted by primary key.
+     * 
+     * @param after
+     *            uuid of last object on previous page, or null for first page
+     * @param maxResults
+     */
+    public KeysetPage(String after, int maxResults) {
+        this(after, maxResults, null, true);
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param after
+     *            uuid of last object on previous page, or null for first page
+     * @param maxResults
+     *            maximum number of objects on the page
+     * @param sortProperty
+     *            property to sort by, or null to sort by primary key
+     * @param ascending
+     */
+    public KeysetPage(String after, int maxResults, String sortProperty, boolean ascending) {
+        this(after, maxResults, sortProperty, ascending, null);
+    }
+
+    /**
+     * Constructor for a page that only loads some of the fields.
+     * 
+     * @param after
+     *            cursor for last object on previous page, or null for first
+     *            page
+     * @param maxResults
+     *            maximum number of objects on the page
+     * @param sortProperty
+     *            property to sort by, or null to sort by primary key
+     * @param ascending
+     * @param fields
+     *            properties to load, or null to load the entire object
+     */
+    public KeysetPage(String after, int maxResults, String sortProperty, boolean ascending, Set<String> fields) {
+        if (maxResults <= 0) {
+            throw new IllegalArgumentException("maxResults must be positive: " + maxResults);
+        }
+        this.after = after;
+        this.maxResults = maxResults;
+
+        final String[] parts = (after == null) ? new String[0] : after.split(SEPARATOR, 3);
+        if (parts.length > 1 && ID_PATTERN.matcher(parts[1]).matches()) {
+            this.afterUuid = parts[0];
+            this.afterId = Integer.valueOf(parts[1]);
+            this.afterValue = (parts.length > 2) ? parts[2] : null;
+        } else {
+            this.afterUuid = after;
+            this.afterId = null;
+            this.afterValue = null;
+        }
+
+        this.sortProperty = sortProperty;
+        this.ascending = ascending;
+        this.fields = (fields == null) ? null : Collections.unmodifiableSet(new LinkedHashSet<String>(fields));
+    }
+
+    /**
+     * Get the cursor for the last object on the previous page.
+     * 
+     * @return
+     */
+    public String getAfter() {
+        return after;
+    }
+
+    /**
+     * Get the uuid of the last object on the previous page.
+     * 
+     * @return
+     */
+    public String getAfterUuid() {
+        return afterUuid;
+    }
+
+    /**
+     * Get the primary key of the last object on the previous page, or null if
+     * the cursor only contains the uuid.
+     * 
+     * @return
+     */
+    public Integer getAfterId() {
+        return afterId;
+    }
+
+    /**
+     * Get the sort property value of the last object on the previous page, in
+     * string form, or null if the value was null or the page is sorted by
+     * primary key.
+     * 
+     * @return
+     */
+    public String getAfterValue() {
+        return afterValue;
+    }
+
+    /**
+     * Does the cursor contain the position of the last object on the previous
+     * page? If not the object must be looked up by uuid.
+     * 
+     * @return
+     */
+    public boolean hasAfterPosition() {
+        return afterId != null;
+    }
+
+    public int getMaxResults() {
+        return maxResults;
+    }
+
+    public String getSortProperty() {
+        return sortProperty;
+    }
+
+    public boolean isAscending() {
+        return ascending;
+    }
+
+    /**
+     * Get the properties to load, or null if the entire object should be
+     * loaded.
+     * 
+     * @return
+     */
+    public Set<String> getFields() {
+        return fields;
+    }
+
+    /**
+     * Get the request for the page following the results of this request, or
+     * null if this was the last page.
+     * 
+     * @param results
+     * @return
+     */
+    public KeysetPage next(List<? extends PersistentObject> results) {
+        if (results == null || results.size() < maxResults) {
+            return null;
+        }
+        final String cursor = cursor(results.get(results.size() - 1), sortProperty);
+        return new KeysetPage(cursor, maxResults, sortProperty, ascending, fields);
+    }
+
+    /**
+     * Get a page request for the same objects sorted by a different property.
+     * The cursor is kept so this must only be used before the first page is
+     * read or when the cursor was created with the same sort property.
+     * 
+     * @param property
+     * @return
+     */
+    public KeysetPage sortedBy(String property) {
+        return new KeysetPage(after, maxResults, property, ascending, fields);
+    }
+
+    /**
+     * Is this a well-formed cursor? The uuid must be a possible uuid and the
+     * primary key, if present, must be a number.
+     * 
+     * @param after
+     * @return
+     */
+    public static boolean isPossibleCursor(String after) {
+        final String[] parts = after.split(SEPARATOR, 3);
+        return StudentUtil.isPossibleUuid(parts[0]) && (parts.length == 1 || ID_PATTERN.matcher(parts[1]).matches());
+    }
+
+    /**
+     * Create the cursor for an object. We fall back to the uuid alone if the
+     * primary key or sort property isn't available, e.g., in objects received
+     * by a REST client.
+     * 
+     * @param last
+     * @param sortProperty
+     * @return
+     */
+    static String cursor(PersistentObject last, String sortProperty) {
+        if (last.getId() == null) {
+            return last.getUuid();
+        }
+
+        final StringBuilder sb = new StringBuilder();
+        sb.append(last.getUuid()).append(SEPARATOR).append(last.getId());
+        if (sortProperty != null && !"id".equals(sortProperty)) {
+            try {
+                final Object value = new PropertyDescriptor(sortProperty, last.getClass()).getReadMethod().invoke(last);
+                if (value instanceof Date) {
+                    sb.append(SEPARATOR).append(((Date) value).getTime());
+                } else if (value != null) {
+                    sb.append(SEPARATOR).append(value);
+                }
+            } catch (IntrospectionException e) {
+                return last.getUuid();
+            } catch (IllegalAccessException e) {
+                return last.getUuid();
+            } catch (InvocationTargetException e) {
+                return last.getUuid();
+            }
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return "KeysetPage [after=" + after + ", maxResults=" + maxResults + ", sortProperty=" + sortProperty
+                + ", ascending=" + ascending + ", fields=" + fields + "]";
+    }
+}
@@ -22,10 +22,12 @@
  */
 package com.invariantproperties.sandbox.student.business;
 
+import java.util.List;
+
 import com.invariantproperties.sandbox.student.domain.PersistentObject;
 
 /**
- * Marker interface for managers services. These are the services that require
+ * Base interface for managers services. These are the services that require
  * write access to modify objects.
  * 
  * @author Bear Giles <bgiles@coyotesong.com>
@@ -34,4 +36,58 @@ import com.invariantproperties.sandbox.student.domain.PersistentObject;
  */
 public interface ManagerService<T extends PersistentObject> {
 
+    /**
+     * Create objects in a single transaction. The objects are prototypes - only
+     * the properties accepted by the single-object create method (and the
+     * test run, if any) are used. Items that are invalid or duplicate an
+     * existing natural key are reported as failures and do not abort the
+     * batch.
+     * 
+     * @param objects
+     * @return
+     * @throws PersistenceException
+     *             if the database rejects the batch. Nothing is saved.
+     */
+    BatchResult<T> createAll(List<T> objects);
+
+    /**
+     * Update objects in a single transaction. Each object is identified by its
+     * uuid and only the properties accepted by the single-object update method
+     * are changed. Items that are missing, invalid or duplicate an existing
+     * natural key are reported as failures and do not abort the batch.
+     * 
+     * @param objects
+     * @return
+     * @throws PersistenceException
+     *             if the database rejects the batch. Nothing is saved.
+     */
+    BatchResult<T> updateAll(List<T> objects);
+
+    /**
+     * Update an object with a single statement, if and only if it still has
+     * the specified version. The object is identified by its uuid and version
+     * and only the properties accepted by the single-object update method are
+     * changed. The caller's object is not modified.
+     * 
+     * @param changes
+     * @return new version
+     * @throws ObjectNotFoundException
+     *             if there is no such object
+     * @throws VersionConflictException
+     *             if the object has been modified since the caller read it
+     */
+    Integer updateIfVersion(T changes);
+
+    /**
+     * Delete an object with a single statement, if and only if it still has
+     * the specified version.
+     * 
+     * @param uuid
+     * @param version
+     * @throws ObjectNotFoundException
+     *             if there is no such object
+     * @throws VersionConflictException
+     *             if the object has been modified since the caller read it
+     */
+    void deleteIfVersion(String uuid, Integer version);
 }
@@ -0,0 +1,114 @@
+/*
+ * This code was written by Bear Giles <bgiles@coyotesong.com> and he
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Any contributions made by others are licensed to this project under
+ * one or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright (c) 2013 Bear Giles <bgiles@coyotesong.com>
+ */
+package com.invariantproperties.sandbox.student.business;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import com.invariantproperties.sandbox.student.domain.PersistentObject;
+
+/**
+ * Results of a multi-get by uuid. The objects are in the same order as the
+ * caller's list of uuids and the uuids that were not found are listed
+ * separately. Each uuid is only reported once.
+ * 
+ * The uuids are compared without regard to case. The database accepts
+ * uppercase uuids but always returns them in lowercase.
+ * 
+ * @author Bear Giles <bgiles@coyotesong.com>
+ * 
+ * @param <T>
+ */
+public class MultiGetResult<T extends PersistentObject> implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final List<T> results = new ArrayList<T>();
+    private final List<String> missing = new ArrayList<String>();
+
+    /**
+     * Match the objects found to the requested uuids.
+     * 
+     * @param uuids
+     *            requested uuids, in the caller's order
+     * @param found
+     *            objects found, in any order
+     * @return
+     */
+    public static <T extends PersistentObject> MultiGetResult<T> of(Collection<String> uuids, Collection<T> found) {
+        final Map<String, T> byUuid = new HashMap<String, T>();
+        for (T object : found) {
+            byUuid.put(normalize(object.getUuid()), object);
+        }
+
+        // the first spelling of each uuid, in the caller's order.
+        final Map<String, String> requested = new LinkedHashMap<String, String>();
+        for (String uuid : uuids) {
+            if (!requested.containsKey(normalize(uuid))) {
+                requested.put(normalize(uuid), uuid);
+            }
+        }
+
+        final MultiGetResult<T> result = new MultiGetResult<T>();
+        for (Map.Entry<String, String> entry : requested.entrySet()) {
+            final T object = byUuid.get(entry.getKey());
+            if (object != null) {
+                result.results.add(object);
+            } else if (entry.getValue() != null) {
+                result.missing.add(entry.getValue());
+            }
+        }
+
+        return result;
+    }
+
+    private static String normalize(String uuid) {
+        return (uuid == null) ? null : uuid.toLowerCase(Locale.ROOT);
+    }
+
+    public List<T> getResults() {
+        return Collections.unmodifiableList(results);
+    }
+
+    public List<String> getMissing() {
+        return Collections.unmodifiableList(missing);
+    }
+
+    public boolean hasMissing() {
+        return !missing.isEmpty();
+    }
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return String.format("[MultiGetResult: %d found, %d missing]", results.size(), missing.size());
+    }
+}
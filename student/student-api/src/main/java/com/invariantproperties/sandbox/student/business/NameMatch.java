@@ -0,0 +1,56 @@
+/*
+ * This code was written by Bear Giles <bgiles@coyotesong.com> and he
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Any contributions made by others are licensed to this project under
+ * one or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright (c) 2013 Bear Giles <bgiles@coyotesong.com>
+ */
+package com.invariantproperties.sandbox.student.business;
+
+/**
+ * How a name search matches the names.
+ * 
+ * @author Bear Giles <bgiles@coyotesong.com>
+ */
+public enum NameMatch {
+    /**
+     * The name starts with the search term. This is a range scan of the name
+     * index.
+     */
+    PREFIX,
+
+    /**
+     * The name contains the search term. The names that start with the search
+     * term are listed first. This uses the trigram index on PostgreSQL, which
+     * can't be used for search terms shorter than MIN_SUBSTRING_LENGTH, so
+     * shorter search terms are rejected.
+     */
+    SUBSTRING;
+
+    public static final int MIN_SUBSTRING_LENGTH = 3;
+
+    /**
+     * Can this kind of search use the search term?
+     * 
+     * @param term
+     * @return
+     */
+    public boolean accepts(String term) {
+        return this != SUBSTRING || (term != null && term.length() >= MIN_SUBSTRING_LENGTH);
+    }
+}
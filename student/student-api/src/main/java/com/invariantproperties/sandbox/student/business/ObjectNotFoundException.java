@@ -23,6 +23,11 @@
 package com.invariantproperties.sandbox.student.business;
 
 /**
+ * Thrown when an object can't be found. Missing objects are common (stale
+ * links, crawlers) and this is an expected outcome, not a bug, so the
+ * exception doesn't capture a stack trace and the message is only built if
+ * someone asks for it. Callers that expect misses should use the finder
+ * methods that return null instead.
  * 
  * @author Bear Giles <bgiles@coyotesong.com>
  */
@@ -33,13 +38,13 @@ public class ObjectNotFoundException extends RuntimeException {
     private final Integer id;
 
     public ObjectNotFoundException(String uuid) {
-        super("object not found: [" + uuid + "]");
+        super(null, null, false, false);
         this.uuid = uuid;
         this.id = null;
     }
 
     public ObjectNotFoundException(Integer id) {
-        super("object not found: [" + id + "]");
+        super(null, null, false, false);
         this.uuid = null;
         this.id = id;
     }
@@ -51,4 +56,12 @@ public class ObjectNotFoundException extends RuntimeException {
     public Integer getId() {
         return id;
     }
+
+    /**
+     * @see java.lang.Throwable#getMessage()
+     */
+    @Override
+    public String getMessage() {
+        return "object not found: [" + ((uuid != null) ? uuid : id) + "]";
+    }
 }
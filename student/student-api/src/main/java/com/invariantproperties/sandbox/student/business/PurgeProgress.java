@@ -0,0 +1,131 @@
+/*
+ * This code was written by Bear Giles <bgiles@coyotesong.com> and he
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Any contributions made by others are licensed to this project under
+ * one or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright (c) 2013 Bear Giles <bgiles@coyotesong.com>
+ */
+package com.invariantproperties.sandbox.student.business;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Progress of a test run purge. The purge updates this object as it deletes
+ * each table so it can be polled from another thread.
+ * 
+ * @author Bear Giles <bgiles@coyotesong.com>
+ */
+public class PurgeProgress {
+    public enum Status {
+        PENDING, RUNNING, COMPLETE, FAILED
+    }
+
+    private final String testRunUuid;
+    private final int tableCount;
+    private final AtomicInteger tablesPurged = new AtomicInteger();
+    private final AtomicLong rowsDeleted = new AtomicLong();
+    private volatile Status status = Status.PENDING;
+    private volatile String currentTable;
+    private volatile String failure;
+
+    /**
+     * Constructor.
+     * 
+     * @param testRunUuid
+     * @param tableCount
+     *            number of tables to purge
+     */
+    public PurgeProgress(String testRunUuid, int tableCount) {
+        this.testRunUuid = testRunUuid;
+        this.tableCount = tableCount;
+    }
+
+    public String getTestRunUuid() {
+        return testRunUuid;
+    }
+
+    public int getTableCount() {
+        return tableCount;
+    }
+
+    public int getTablesPurged() {
+        return tablesPurged.get();
+    }
+
+    public long getRowsDeleted() {
+        return rowsDeleted.get();
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * Get the table currently being purged, or null if the purge hasn't
+     * started or has finished.
+     * 
+     * @return
+     */
+    public String getCurrentTable() {
+        return currentTable;
+    }
+
+    /**
+     * Get the reason the purge failed, or null if it hasn't failed.
+     * 
+     * @return
+     */
+    public String getFailure() {
+        return failure;
+    }
+
+    public boolean isDone() {
+        return status == Status.COMPLETE || status == Status.FAILED;
+    }
+
+    void started(String table) {
+        status = Status.RUNNING;
+        currentTable = table;
+    }
+
+    void purged(long rows) {
+        rowsDeleted.addAndGet(rows);
+        tablesPurged.incrementAndGet();
+        currentTable = null;
+    }
+
+    void complete() {
+        currentTable = null;
+        status = Status.COMPLETE;
+    }
+
+    void failed(String message) {
+        failure = message;
+        status = Status.FAILED;
+    }
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return String.format("[PurgeProgress: %s %s, %d/%d tables, %d rows]", testRunUuid, status,
+                tablesPurged.get(), tableCount, rowsDeleted.get());
+    }
+}
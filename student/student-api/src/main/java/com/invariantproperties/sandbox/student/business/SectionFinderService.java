@@ -38,4 +38,14 @@ public interface SectionFinderService extends FinderService<Section> {
     Section findSectionByUuid(String uuid);
 
     List<Section> findSectionsByTestRun(TestRun testRun);
+
+    /**
+     * Find a section with its course, students and classrooms already loaded.
+     * This is a fixed number of queries regardless of the size of the roster.
+     * 
+     * @param uuid
+     * @return
+     * @throws ObjectNotFoundException
+     */
+    Section findSectionRosterByUuid(String uuid);
 }
@@ -22,7 +22,12 @@
  */
 package com.invariantproperties.sandbox.student.business;
 
+import java.util.List;
+
+import com.invariantproperties.sandbox.student.domain.Classroom;
+import com.invariantproperties.sandbox.student.domain.Course;
 import com.invariantproperties.sandbox.student.domain.Section;
+import com.invariantproperties.sandbox.student.domain.Student;
 import com.invariantproperties.sandbox.student.domain.TestRun;
 
 /**
@@ -35,5 +40,18 @@ public interface SectionManagerService extends ManagerService<Section> {
 
     void deleteSection(String uuid, Integer version);
 
+    /**
+     * Replace the course, students and classrooms of a section.
+     * 
+     * @param section
+     * @param course
+     *            course, may be null
+     * @param students
+     * @param classrooms
+     * @return
+     * @throws ObjectNotFoundException
+     */
+    Section updateSectionRoster(Section section, Course course, List<Student> students, List<Classroom> classrooms);
+
     Section createSectionForTesting(String name, TestRun testRun);
 }
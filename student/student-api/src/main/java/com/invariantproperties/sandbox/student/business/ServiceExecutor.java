@@ -0,0 +1,92 @@
+/*
+ * This code was written by Bear Giles <bgiles@coyotesong.com> and he
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Any contributions made by others are licensed to this project under
+ * one or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright (c) 2013 Bear Giles <bgiles@coyotesong.com>
+ */
+package com.invariantproperties.sandbox.student.business;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs service calls asynchronously on a bounded pool of workers. Any finder
+ * or manager method can be made asynchronous by wrapping it in a Callable,
+ * e.g.,
+ * 
+ * <pre>
+ * Future&lt;List&lt;Course&gt;&gt; courses = executor.submit(new Callable&lt;List&lt;Course&gt;&gt;() {
+ *     public List&lt;Course&gt; call() {
+ *         return finder.findPage(page);
+ *     }
+ * });
+ * </pre>
+ * 
+ * The call runs in its own transaction since transactions are bound to the
+ * calling thread.
+ * 
+ * The queue is bounded so a burst of requests is turned away immediately
+ * instead of piling up behind a slow database.
+ * 
+ * @author Bear Giles <bgiles@coyotesong.com>
+ */
+public interface ServiceExecutor {
+
+    /**
+     * Start a call.
+     * 
+     * @param task
+     * @return
+     * @throws ServiceUnavailableException
+     *             if the queue is full
+     */
+    <T> Future<T> submit(Callable<T> task);
+
+    /**
+     * Run a call and wait for the result, up to the default timeout.
+     * 
+     * @param task
+     * @return
+     * @throws ServiceUnavailableException
+     *             if the queue is full or the call times out
+     */
+    <T> T call(Callable<T> task);
+
+    /**
+     * Run a call and wait for the result. The call is cancelled if it doesn't
+     * finish in time. Runtime exceptions thrown by the call are rethrown
+     * unchanged.
+     * 
+     * @param task
+     * @param timeout
+     * @param unit
+     * @return
+     * @throws ServiceUnavailableException
+     *             if the queue is full or the call times out
+     */
+    <T> T call(Callable<T> task, long timeout, TimeUnit unit);
+
+    /**
+     * Get the current state of the executor.
+     * 
+     * @return
+     */
+    ExecutorMetrics getMetrics();
+}
@@ -39,5 +39,19 @@ public interface StudentFinderService extends FinderService<Student> {
 
     List<Student> findStudentsByTestRun(TestRun testRun);
 
+    /**
+     * Find a page of students by name. The search is case-insensitive and the
+     * results are sorted by name. The sort property of the page is ignored.
+     * 
+     * @param name
+     *            search term
+     * @param match
+     * @param testRun
+     *            test run, or null for production students
+     * @param page
+     * @return
+     */
+    List<Student> findStudentsByName(String name, NameMatch match, TestRun testRun, KeysetPage page);
+
     Student findStudentByEmailAddress(String emailAddress);
 }
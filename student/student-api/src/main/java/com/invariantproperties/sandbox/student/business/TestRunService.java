@@ -34,8 +34,12 @@ import com.invariantproperties.sandbox.student.domain.TestRun;
  * @author Bear Giles <bgiles@coyotesong.com>
  */
 public interface TestRunService {
+    long count();
+
     List<TestRun> findAllTestRuns();
 
+    List<TestRun> findPage(KeysetPage page);
+
     TestRun findTestRunById(Integer id);
 
     TestRun findTestRunByUuid(String uuid);
@@ -44,5 +48,37 @@ public interface TestRunService {
 
     TestRun createTestRun(String name);
 
+    /**
+     * Delete a test run and all of the objects that belong to it.
+     * 
+     * @param uuid
+     */
     void deleteTestRun(String uuid);
+
+    /**
+     * Delete all of the objects that belong to a test run, then the test run
+     * itself. Each table is cleared with a single set-based delete.
+     * 
+     * @param uuid
+     * @return number of objects deleted, not including the test run
+     */
+    long purgeTestRun(String uuid);
+
+    /**
+     * Purge a test run in the background. Each table is deleted in its own
+     * transaction so a large purge doesn't hold locks on every table until it
+     * finishes.
+     * 
+     * @param uuid
+     * @return progress of the purge
+     */
+    PurgeProgress purgeTestRunAsync(String uuid);
+
+    /**
+     * Get the progress of a background purge.
+     * 
+     * @param uuid
+     * @return progress, or null if no purge of the test run has been started
+     */
+    PurgeProgress getPurgeProgress(String uuid);
 }
@@ -0,0 +1,72 @@
+/*
+ * This code was written by Bear Giles <bgiles@coyotesong.com> and he
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Any contributions made by others are licensed to this project under
+ * one or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright (c) 2013 Bear Giles <bgiles@coyotesong.com>
+ */
+package com.invariantproperties.sandbox.student.business;
+
+/**
+ * Thrown when a conditional update or delete names a version that is no
+ * longer current, i.e., someone else has modified the object. Like
+ * ObjectNotFoundException this is an expected outcome so no stack trace is
+ * captured.
+ * 
+ * @author Bear Giles <bgiles@coyotesong.com>
+ */
+public class VersionConflictException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final String uuid;
+    private final Integer version;
+    private final Integer currentVersion;
+
+    public VersionConflictException(String uuid, Integer version, Integer currentVersion) {
+        super(null, null, false, false);
+        this.uuid = uuid;
+        this.version = version;
+        this.currentVersion = currentVersion;
+    }
+
+    public String getUuid() {
+        return uuid;
+    }
+
+    /**
+     * Version named by the caller.
+     */
+    public Integer getVersion() {
+        return version;
+    }
+
+    /**
+     * Version in the database.
+     */
+    public Integer getCurrentVersion() {
+        return currentVersion;
+    }
+
+    /**
+     * @see java.lang.Throwable#getMessage()
+     */
+    @Override
+    public String getMessage() {
+        return "version conflict: [" + uuid + "] expected " + version + " but found " + currentVersion;
+    }
+}
@@ -116,7 +116,7 @@ public class ClassroomServiceIntegrationTest {
         // assertTrue(objects.contains(actual));
 
         // delete Classroom
-        mdao.deleteClassroom(expected.getUuid(), 0);
+        mdao.deleteClassroom(actual.getUuid(), actual.getVersion());
         try {
             fdao.findClassroomByUuid(expected.getUuid());
             fail("exception expected");
@@ -23,13 +23,18 @@
 package com.invariantproperties.sandbox.student.persistence.config;
 
 import static com.invariantproperties.sandbox.student.matcher.CourseEquality.equalTo;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import javax.annotation.Resource;
 
@@ -42,8 +47,14 @@ import org.springframework.transaction.annotation.Transactional;
 
 import com.invariantproperties.sandbox.student.business.CourseFinderService;
 import com.invariantproperties.sandbox.student.business.CourseManagerService;
+import com.invariantproperties.sandbox.student.business.KeysetPage;
+import com.invariantproperties.sandbox.student.business.MultiGetResult;
+import com.invariantproperties.sandbox.student.business.NameMatch;
+import com.invariantproperties.sandbox.student.business.ObjectHandler;
 import com.invariantproperties.sandbox.student.business.ObjectNotFoundException;
+import com.invariantproperties.sandbox.student.business.PersistenceException;
 import com.invariantproperties.sandbox.student.business.TestRunService;
+import com.invariantproperties.sandbox.student.business.VersionConflictException;
 import com.invariantproperties.sandbox.student.config.BusinessApplicationContext;
 import com.invariantproperties.sandbox.student.config.TestBusinessApplicationContext;
 import com.invariantproperties.sandbox.student.config.TestPersistenceJpaConfig;
@@ -132,7 +143,7 @@ public class CourseServiceIntegrationTest {
         // assertTrue(objects.contains(actual));
 
         // delete Course
-        mdao.deleteCourse(expected.getUuid(), 0);
+        mdao.deleteCourse(actual.getUuid(), actual.getVersion());
         try {
             fdao.findCourseByUuid(expected.getUuid());
             fail("exception expected");
@@ -143,6 +154,259 @@ public class CourseServiceIntegrationTest {
         testService.deleteTestRun(testRun.getUuid());
     }
 
+    /**
+     * Test keyset pagination. Names are deliberately duplicated so we also
+     * check the tie-breaker on the primary key.
+     */
+    @Test
+    public void testFindPage() {
+        final TestRun testRun = testService.createTestRun();
+        final String[] names = { "C", "A", "D", "B", "A", "D", "C" };
+        for (int i = 0; i < names.length; i++) {
+            mdao.createCourseForTesting("PAGE" + i, names[i], "summary", "description", 1, testRun);
+        }
+
+        // by primary key
+        List<Course> results = collectPages(testRun, new KeysetPage(3));
+        assertEquals(names.length, results.size());
+        for (int i = 1; i < results.size(); i++) {
+            assertTrue(results.get(i - 1).getId() < results.get(i).getId());
+        }
+
+        // by name, the pages split the ties
+        results = collectPages(testRun, new KeysetPage(null, 2, "name", true));
+        assertEquals(names.length, results.size());
+        final String[] expected = { "A", "A", "B", "C", "C", "D", "D" };
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], results.get(i).getName());
+        }
+        for (int i = 1; i < results.size(); i++) {
+            if (results.get(i - 1).getName().equals(results.get(i).getName())) {
+                assertTrue(results.get(i - 1).getId() < results.get(i).getId());
+            }
+        }
+
+        // by name, descending
+        results = collectPages(testRun, new KeysetPage(null, 4, "name", false));
+        final String[] reversed = { "D", "D", "C", "C", "B", "A", "A" };
+        for (int i = 0; i < reversed.length; i++) {
+            assertEquals(reversed[i], results.get(i).getName());
+        }
+
+        testService.deleteTestRun(testRun.getUuid());
+    }
+
+    /**
+     * Test that keyset pagination can't sort by a nullable column.
+     */
+    @Test(expected = PersistenceException.class)
+    public void testFindPageByNullableProperty() {
+        fdao.findPageByTestRun(null, new KeysetPage(null, 2, "creditHours", true));
+    }
+
+    /**
+     * Test keyset pagination when only some of the fields are loaded.
+     */
+    @Test
+    public void testFindPageWithFields() {
+        final TestRun testRun = testService.createTestRun();
+        for (int i = 0; i < 5; i++) {
+            mdao.createCourseForTesting("FIELDS" + i, "name " + i, "summary", "description", 1, testRun);
+        }
+
+        final Set<String> fields = new HashSet<String>(Arrays.asList("code", "name"));
+        final List<Course> results = collectPages(testRun, new KeysetPage(null, 2, "code", true, fields));
+        assertEquals(5, results.size());
+        for (int i = 0; i < results.size(); i++) {
+            final Course course = results.get(i);
+            assertEquals("FIELDS" + i, course.getCode());
+            assertEquals("name " + i, course.getName());
+            assertNotNull(course.getUuid());
+            assertNotNull(course.getVersion());
+            assertNull(course.getSummary());
+            assertNull(course.getDescription());
+            assertNull(course.getCreditHours());
+        }
+
+        testService.deleteTestRun(testRun.getUuid());
+    }
+
+    /**
+     * Test the name searches. The substring search lists the prefix matches
+     * first, even across pages.
+     */
+    @Test
+    public void testFindCoursesByName() {
+        final TestRun testRun = testService.createTestRun();
+        final String[] names = { "Biophysics", "Physics II", "Chemistry", "Astrophysics", "Physics I", "100% Cotton" };
+        for (int i = 0; i < names.length; i++) {
+            mdao.createCourseForTesting("SEARCH" + i, names[i], "summary", "description", 1, testRun);
+        }
+
+        final List<Course> results = new ArrayList<Course>();
+        KeysetPage page = new KeysetPage(2);
+        while (page != null) {
+            final List<Course> courses = fdao.findCoursesByName("PHYS", NameMatch.SUBSTRING, testRun, page);
+            results.addAll(courses);
+            page = page.next(courses);
+        }
+
+        final String[] expected = { "Physics I", "Physics II", "Astrophysics", "Biophysics" };
+        assertEquals(expected.length, results.size());
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], results.get(i).getName());
+        }
+
+        assertEquals(2, fdao.findCoursesByName("phys", NameMatch.PREFIX, testRun, new KeysetPage(10)).size());
+        assertEquals(1, fdao.findCoursesByName("100%", NameMatch.PREFIX, testRun, new KeysetPage(10)).size());
+        assertEquals(1, fdao.findCoursesByName("0% c", NameMatch.SUBSTRING, testRun, new KeysetPage(10)).size());
+        assertEquals(0, fdao.findCoursesByName("%ton", NameMatch.SUBSTRING, testRun, new KeysetPage(10)).size());
+        assertTrue(fdao.findCoursesByName("phys", NameMatch.PREFIX, null, new KeysetPage(10)).isEmpty());
+
+        testService.deleteTestRun(testRun.getUuid());
+    }
+
+    /**
+     * Test forEach() with a fetch size smaller than the number of courses.
+     */
+    @Test
+    public void testForEach() {
+        final TestRun testRun = testService.createTestRun();
+        for (int i = 0; i < 5; i++) {
+            mdao.createCourseForTesting("EACH" + i, "name " + i, "summary", "description", 1, testRun);
+        }
+
+        final List<String> codes = new ArrayList<String>();
+        final long count = fdao.forEachByTestRun(testRun, new ObjectHandler<Course>() {
+            @Override
+            public void handle(Course course) {
+                codes.add(course.getCode());
+            }
+        }, 2);
+
+        assertEquals(5, count);
+        assertEquals(Arrays.asList("EACH0", "EACH1", "EACH2", "EACH3", "EACH4"), codes);
+
+        testService.deleteTestRun(testRun.getUuid());
+    }
+
+    /**
+     * Test findByUuids() with a mix of known and unknown uuids.
+     */
+    @Test
+    public void testFindByUuids() {
+        final TestRun testRun = testService.createTestRun();
+        final Course a = mdao.createCourseForTesting("MGET1", "name 1", "summary", "description", 1, testRun);
+        final Course b = mdao.createCourseForTesting("MGET2", "name 2", "summary", "description", 1, testRun);
+
+        final MultiGetResult<Course> result = fdao.findByUuids(Arrays.asList(b.getUuid(), "missing", a.getUuid(),
+                b.getUuid()));
+
+        assertEquals(2, result.getResults().size());
+        assertEquals(b.getUuid(), result.getResults().get(0).getUuid());
+        assertEquals(a.getUuid(), result.getResults().get(1).getUuid());
+        assertEquals(Arrays.asList("missing"), result.getMissing());
+
+        testService.deleteTestRun(testRun.getUuid());
+    }
+
+    /**
+     * Test the conditional update and delete methods.
+     */
+    @Test
+    public void testConditionalUpdateAndDelete() {
+        final TestRun testRun = testService.createTestRun();
+        final Course course = mdao.createCourseForTesting("COND", "name", "summary", "description", 1, testRun);
+        final Integer version = course.getVersion();
+
+        final Course changes = new Course();
+        changes.setUuid(course.getUuid());
+        changes.setVersion(version);
+        changes.setName("new name");
+        changes.setSummary("new summary");
+        changes.setDescription("new description");
+        changes.setCreditHours(2);
+
+        final Integer newVersion = mdao.updateIfVersion(changes);
+        assertEquals(Integer.valueOf(version + 1), newVersion);
+
+        try {
+            mdao.updateIfVersion(changes);
+            fail("expected VersionConflictException");
+        } catch (VersionConflictException e) {
+            assertEquals(newVersion, e.getCurrentVersion());
+        }
+
+        try {
+            mdao.deleteIfVersion(course.getUuid(), version);
+            fail("expected VersionConflictException");
+        } catch (VersionConflictException e) {
+            assertEquals(newVersion, e.getCurrentVersion());
+        }
+
+        mdao.deleteIfVersion(course.getUuid(), newVersion);
+
+        try {
+            mdao.deleteIfVersion(course.getUuid(), newVersion);
+            fail("expected ObjectNotFoundException");
+        } catch (ObjectNotFoundException e) {
+            // expected
+        }
+
+        testService.deleteTestRun(testRun.getUuid());
+    }
+
+    /**
+     * Test keyset pagination when the last course on the previous page is
+     * deleted before the next page is read. The cursor holds the position so
+     * the listing continues where it left off.
+     */
+    @Test
+    public void testFindPageAfterDeletedCourse() {
+        final TestRun testRun = testService.createTestRun();
+        final String[] names = { "D", "B", "F", "A", "E", "C" };
+        for (int i = 0; i < names.length; i++) {
+            mdao.createCourseForTesting("DELETED" + i, names[i], "summary", "description", 1, testRun);
+        }
+
+        for (String sort : Arrays.asList(null, "name", "creationDate")) {
+            final KeysetPage first = new KeysetPage(null, 2, sort, true);
+            final List<Course> expected = collectPages(testRun, first);
+
+            final List<Course> page1 = fdao.findPageByTestRun(testRun, first);
+            final KeysetPage next = first.next(page1);
+            mdao.deleteCourse(page1.get(1).getUuid(), null);
+
+            final List<Course> page2 = fdao.findPageByTestRun(testRun, next);
+            assertEquals(expected.subList(2, 4), page2);
+
+            // put it back for the next sort order
+            mdao.createCourseForTesting(page1.get(1).getCode(), page1.get(1).getName(), "summary", "description", 1,
+                    testRun);
+        }
+
+        testService.deleteTestRun(testRun.getUuid());
+    }
+
+    /**
+     * Test findPage() when the 'after' course is not known.
+     */
+    @Test(expected = ObjectNotFoundException.class)
+    public void testFindPageWhenAfterIsNotKnown() {
+        fdao.findPage(new KeysetPage("missing", 10));
+    }
+
+    private List<Course> collectPages(TestRun testRun, KeysetPage first) {
+        final List<Course> results = new ArrayList<Course>();
+        for (KeysetPage page = first; page != null;) {
+            final List<Course> courses = fdao.findPageByTestRun(testRun, page);
+            assertTrue(courses.size() <= page.getMaxResults());
+            results.addAll(courses);
+            page = page.next(courses);
+        }
+        return results;
+    }
+
     /**
      * @test findCourseById() with unknown course.
      */
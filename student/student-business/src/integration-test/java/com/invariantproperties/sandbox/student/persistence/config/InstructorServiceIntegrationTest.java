@@ -119,7 +119,7 @@ public class InstructorServiceIntegrationTest {
         // assertTrue(objects.contains(actual));
 
         // delete Instructor
-        mdao.deleteInstructor(expected.getUuid(), 0);
+        mdao.deleteInstructor(actual.getUuid(), actual.getVersion());
         try {
             fdao.findInstructorByUuid(expected.getUuid());
             fail("exception expected");
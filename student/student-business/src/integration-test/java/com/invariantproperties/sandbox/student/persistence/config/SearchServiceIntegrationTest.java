@@ -0,0 +1,142 @@
+/*
+ * This code was written by Bear Giles <bgiles@coyotesong.com> and he
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Any contributions made by others are licensed to this project under
+ * one or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright (c) 2013 Bear Giles <bgiles@coyotesong.com>
+ */
+package com.invariantproperties.sandbox.student.persistence.config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import javax.annotation.Resource;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import com.invariantproperties.sandbox.student.business.CourseFinderService;
+import com.invariantproperties.sandbox.student.business.CourseManagerService;
+import com.invariantproperties.sandbox.student.business.SearchHit;
+import com.invariantproperties.sandbox.student.business.SearchService;
+import com.invariantproperties.sandbox.student.business.TestRunService;
+import com.invariantproperties.sandbox.student.config.BusinessApplicationContext;
+import com.invariantproperties.sandbox.student.config.TestBusinessApplicationContext;
+import com.invariantproperties.sandbox.student.config.TestPersistenceJpaConfig;
+import com.invariantproperties.sandbox.student.domain.Course;
+import com.invariantproperties.sandbox.student.domain.TestRun;
+import com.invariantproperties.sandbox.student.repository.CourseRepository;
+import com.invariantproperties.sandbox.student.specification.CourseSpecifications;
+
+/**
+ * The search index is only updated when a transaction commits so these tests
+ * are not transactional. They clean up after themselves.
+ * 
+ * @author Bear Giles <bgiles@coyotesong.com>
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = { BusinessApplicationContext.class, TestBusinessApplicationContext.class,
+        TestPersistenceJpaConfig.class })
+public class SearchServiceIntegrationTest {
+
+    @Resource
+    private SearchService service;
+
+    @Resource
+    private CourseFinderService fdao;
+
+    @Resource
+    private CourseManagerService mdao;
+
+    @Resource
+    private TestRunService testService;
+
+    @Resource
+    private CourseRepository courseRepository;
+
+    @Test
+    public void testSearchCourseLifecycle() throws Exception {
+        final Course course = mdao.createCourse("SRCH101", "Astronomy", "Introduction to the planets",
+                "Orbits, moons and rings.", 3);
+        try {
+            List<SearchHit> hits = service.search("planets astronomy", 10);
+            assertEquals(1, hits.size());
+            assertEquals(course.getUuid(), hits.get(0).getUuid());
+            assertEquals("Course", hits.get(0).getType());
+
+            final Course actual = fdao.findCourseByUuid(course.getUuid());
+            final Course updated = mdao.updateCourse(actual, "Astronomy", "Introduction to the stars",
+                    "Galaxies and nebulae.", 3);
+            assertTrue(service.search("planets", 10).isEmpty());
+            assertEquals(1, service.search("nebulae", "Course", 10).size());
+
+            updated.setSummary("Introduction to comets");
+            mdao.updateIfVersion(updated);
+            assertTrue(service.search("stars", 10).isEmpty());
+            assertEquals(1, service.search("comets", 10).size());
+
+            assertTrue(service.rebuild() >= 1);
+            assertEquals(1, service.search("comets", 10).size());
+        } finally {
+            mdao.deleteCourse(course.getUuid(), fdao.findCourseByUuid(course.getUuid()).getVersion());
+        }
+
+        assertTrue(service.search("astronomy", 10).isEmpty());
+    }
+
+    @Test
+    public void testTestDataIsNotSearchable() throws Exception {
+        final TestRun testRun = testService.createTestRun();
+        try {
+            mdao.createCourseForTesting("SRCH102", "Geology", "Rocks", "Minerals", 3, testRun);
+            assertTrue(service.search("geology", 10).isEmpty());
+        } finally {
+            testService.purgeTestRun(testRun.getUuid());
+        }
+    }
+
+    /**
+     * Test that the stamp used to detect a stale segment changes when a
+     * course is created or updated.
+     */
+    @Test
+    public void testChangeStamp() throws Exception {
+        final Specification<Course> production = CourseSpecifications.testRunIs(null);
+        final String before = courseRepository.findChangeStamp(production);
+        final Course course = mdao.createCourse("SRCH103", "Biology", "Cells", "Membranes and organelles.", 3);
+        try {
+            final String created = courseRepository.findChangeStamp(production);
+            assertFalse(before.equals(created));
+
+            final Course actual = fdao.findCourseByUuid(course.getUuid());
+            mdao.updateCourse(actual, "Biology", "Cells and tissues", "Membranes and organelles.", 3);
+            assertFalse(created.equals(courseRepository.findChangeStamp(production)));
+        } finally {
+            mdao.deleteCourse(course.getUuid(), fdao.findCourseByUuid(course.getUuid()).getVersion());
+        }
+
+        // the database is back to where it started.
+        assertEquals(before, courseRepository.findChangeStamp(production));
+    }
+}
@@ -23,12 +23,14 @@
 package com.invariantproperties.sandbox.student.persistence.config;
 
 import static com.invariantproperties.sandbox.student.matcher.SectionEquality.equalTo;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.util.Arrays;
 import java.util.List;
 
 import javax.annotation.Resource;
@@ -40,14 +42,20 @@ import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 import org.springframework.test.context.transaction.TransactionConfiguration;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.invariantproperties.sandbox.student.business.ClassroomManagerService;
+import com.invariantproperties.sandbox.student.business.CourseManagerService;
 import com.invariantproperties.sandbox.student.business.ObjectNotFoundException;
 import com.invariantproperties.sandbox.student.business.SectionFinderService;
 import com.invariantproperties.sandbox.student.business.SectionManagerService;
+import com.invariantproperties.sandbox.student.business.StudentManagerService;
 import com.invariantproperties.sandbox.student.business.TestRunService;
 import com.invariantproperties.sandbox.student.config.BusinessApplicationContext;
 import com.invariantproperties.sandbox.student.config.TestBusinessApplicationContext;
 import com.invariantproperties.sandbox.student.config.TestPersistenceJpaConfig;
+import com.invariantproperties.sandbox.student.domain.Classroom;
+import com.invariantproperties.sandbox.student.domain.Course;
 import com.invariantproperties.sandbox.student.domain.Section;
+import com.invariantproperties.sandbox.student.domain.Student;
 import com.invariantproperties.sandbox.student.domain.TestRun;
 
 /**
@@ -66,6 +74,15 @@ public class SectionServiceIntegrationTest {
     @Resource
     private SectionManagerService mdao;
 
+    @Resource
+    private CourseManagerService courseManager;
+
+    @Resource
+    private StudentManagerService studentManager;
+
+    @Resource
+    private ClassroomManagerService classroomManager;
+
     @Resource
     TestRunService testService;
 
@@ -116,7 +133,7 @@ public class SectionServiceIntegrationTest {
         // assertTrue(objects.contains(actual));
 
         // delete Section
-        mdao.deleteSection(expected.getUuid(), 0);
+        mdao.deleteSection(actual.getUuid(), actual.getVersion());
         try {
             fdao.findSectionByUuid(expected.getUuid());
             fail("exception expected");
@@ -127,6 +144,40 @@ public class SectionServiceIntegrationTest {
         testService.deleteTestRun(testRun.getUuid());
     }
 
+    @Test
+    public void testSectionRoster() throws Exception {
+        final TestRun testRun = testService.createTestRun();
+
+        final Course course = courseManager.createCourseForTesting("ROSTER 101", "Physics", "summary",
+                "description", 3, testRun);
+        final Student alice = studentManager.createStudentForTesting("Alice", "alice-" + testRun.getUuid()
+                + "@example.com", testRun);
+        final Student bob = studentManager.createStudentForTesting("Bob", "bob-" + testRun.getUuid()
+                + "@example.com", testRun);
+        final Classroom classroom = classroomManager.createClassroomForTesting("Eng 101", testRun);
+        final Section section = mdao.createSectionForTesting("Physics - Fall 2013 : " + testRun.getUuid(), testRun);
+
+        mdao.updateSectionRoster(section, course, Arrays.asList(alice, bob), Arrays.asList(classroom));
+
+        final Section actual = fdao.findSectionRosterByUuid(section.getUuid());
+        assertEquals(course.getUuid(), actual.getCourse().getUuid());
+        assertEquals(2, actual.getStudents().size());
+        assertTrue(actual.getStudents().contains(alice));
+        assertTrue(actual.getStudents().contains(bob));
+        assertEquals(Arrays.asList(classroom), actual.getClassrooms());
+
+        // the join rows must be removed before the test data
+        testService.purgeTestRun(testRun.getUuid());
+    }
+
+    /**
+     * @test findSectionRosterByUuid() with unknown section.
+     */
+    @Test(expected = ObjectNotFoundException.class)
+    public void testFindSectionRosterByUuidWhenSectionIsNotKnown() {
+        fdao.findSectionRosterByUuid("missing");
+    }
+
     /**
      * @test findSectionById() with unknown section.
      */
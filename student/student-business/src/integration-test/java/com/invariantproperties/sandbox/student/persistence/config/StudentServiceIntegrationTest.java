@@ -23,12 +23,15 @@
 package com.invariantproperties.sandbox.student.persistence.config;
 
 import static com.invariantproperties.sandbox.student.matcher.StudentEquality.equalTo;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import javax.annotation.Resource;
@@ -40,6 +43,7 @@ import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 import org.springframework.test.context.transaction.TransactionConfiguration;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.invariantproperties.sandbox.student.business.BatchResult;
 import com.invariantproperties.sandbox.student.business.ObjectNotFoundException;
 import com.invariantproperties.sandbox.student.business.StudentFinderService;
 import com.invariantproperties.sandbox.student.business.StudentManagerService;
@@ -119,7 +123,7 @@ public class StudentServiceIntegrationTest {
         // assertTrue(objects.contains(actual));
 
         // delete Student
-        mdao.deleteStudent(expected.getUuid(), 0);
+        mdao.deleteStudent(actual.getUuid(), actual.getVersion());
         try {
             fdao.findStudentByUuid(expected.getUuid());
             fail("exception expected");
@@ -130,6 +134,51 @@ public class StudentServiceIntegrationTest {
         testService.deleteTestRun(testRun.getUuid());
     }
 
+    /**
+     * @test createAll() and updateAll() with more students than fit in a single
+     *       batch.
+     */
+    @Test
+    public void testCreateAllAndUpdateAll() {
+        final TestRun testRun = testService.createTestRun();
+
+        final List<Student> prototypes = new ArrayList<Student>();
+        for (int i = 0; i < 120; i++) {
+            final Student student = new Student();
+            student.setName("Student " + i);
+            student.setEmailAddress("student-" + i + "-" + testRun.getUuid() + "@example.com");
+            student.setTestRun(testRun);
+            prototypes.add(student);
+        }
+        prototypes.get(60).setEmailAddress(prototypes.get(5).getEmailAddress());
+        prototypes.get(70).setName(null);
+
+        final BatchResult<Student> created = mdao.createAll(prototypes);
+        assertEquals(118, created.getResults().size());
+        assertEquals(2, created.getFailures().size());
+        assertEquals(60, created.getFailures().get(0).getIndex());
+        assertEquals(70, created.getFailures().get(1).getIndex());
+        assertEquals(118, fdao.countByTestRun(testRun));
+
+        final List<Student> changes = new ArrayList<Student>();
+        for (Student student : created.getResults()) {
+            final Student change = new Student();
+            change.setUuid(student.getUuid());
+            change.setName("Updated " + student.getName());
+            change.setEmailAddress(student.getEmailAddress());
+            changes.add(change);
+        }
+
+        final BatchResult<Student> updated = mdao.updateAll(changes);
+        assertEquals(118, updated.getResults().size());
+        assertFalse(updated.hasFailures());
+
+        final Student actual = fdao.findStudentByUuid(changes.get(0).getUuid());
+        assertEquals(changes.get(0).getName(), actual.getName());
+
+        testService.deleteTestRun(testRun.getUuid());
+    }
+
     /**
      * @test findStudentById() with unknown student.
      */
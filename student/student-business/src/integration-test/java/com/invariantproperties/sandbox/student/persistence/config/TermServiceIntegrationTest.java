@@ -116,7 +116,7 @@ public class TermServiceIntegrationTest {
         // assertTrue(objects.contains(actual));
 
         // delete Term
-        mdao.deleteTerm(expected.getUuid(), 0);
+        mdao.deleteTerm(actual.getUuid(), actual.getVersion());
         try {
             fdao.findTermByUuid(expected.getUuid());
             fail("exception expected");
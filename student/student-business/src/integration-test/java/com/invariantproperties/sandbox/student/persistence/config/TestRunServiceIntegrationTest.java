@@ -25,8 +25,11 @@ package com.invariantproperties.sandbox.student.persistence.config;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.util.Collections;
+
 import javax.annotation.Resource;
 
 import org.junit.Test;
@@ -34,13 +37,24 @@ import org.junit.runner.RunWith;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 import org.springframework.test.context.transaction.TransactionConfiguration;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.invariantproperties.sandbox.student.business.CourseFinderService;
+import com.invariantproperties.sandbox.student.business.CourseManagerService;
 import com.invariantproperties.sandbox.student.business.ObjectNotFoundException;
+import com.invariantproperties.sandbox.student.business.SectionFinderService;
+import com.invariantproperties.sandbox.student.business.SectionManagerService;
+import com.invariantproperties.sandbox.student.business.StudentFinderService;
+import com.invariantproperties.sandbox.student.business.StudentManagerService;
 import com.invariantproperties.sandbox.student.business.TestRunService;
 import com.invariantproperties.sandbox.student.config.BusinessApplicationContext;
 import com.invariantproperties.sandbox.student.config.TestBusinessApplicationContext;
 import com.invariantproperties.sandbox.student.config.TestPersistenceJpaConfig;
+import com.invariantproperties.sandbox.student.domain.Classroom;
+import com.invariantproperties.sandbox.student.domain.Course;
+import com.invariantproperties.sandbox.student.domain.Section;
+import com.invariantproperties.sandbox.student.domain.Student;
 import com.invariantproperties.sandbox.student.domain.TestRun;
 
 /**
@@ -59,6 +73,24 @@ public class TestRunServiceIntegrationTest {
     @Resource
     TestRunService testService;
 
+    @Resource
+    private CourseFinderService courseFinder;
+
+    @Resource
+    private CourseManagerService courseService;
+
+    @Resource
+    private StudentFinderService studentFinder;
+
+    @Resource
+    private StudentManagerService studentService;
+
+    @Resource
+    private SectionFinderService sectionFinder;
+
+    @Resource
+    private SectionManagerService sectionService;
+
     @Test
     public void testTestRunLifecycle() throws Exception {
         final TestRun testRun = testService.createTestRun();
@@ -100,6 +132,63 @@ public class TestRunServiceIntegrationTest {
         testService.deleteTestRun(testRun.getUuid());
     }
 
+    /**
+     * Test purging a test run with data in several tables.
+     */
+    @Test
+    public void testPurgeTestRun() {
+        final TestRun testRun = testService.createTestRun();
+        final TestRun other = testService.createTestRun();
+
+        for (int i = 0; i < 3; i++) {
+            courseService.createCourseForTesting("PURGE" + i, "course " + i, "summary", "description", 1, testRun);
+            studentService.createStudentForTesting("student " + i, "purge" + i + "@example.com", testRun);
+        }
+        courseService.createCourseForTesting("KEEP", "course", "summary", "description", 1, other);
+
+        assertEquals(6, dao.purgeTestRun(testRun.getUuid()));
+        assertEquals(0, courseFinder.countByTestRun(testRun));
+        assertEquals(0, studentFinder.countByTestRun(testRun));
+        assertEquals(1, courseFinder.countByTestRun(other));
+
+        try {
+            dao.findTestRunByUuid(testRun.getUuid());
+            fail("exception expected");
+        } catch (ObjectNotFoundException e) {
+            // expected
+        }
+
+        testService.deleteTestRun(other.getUuid());
+        assertEquals(0, courseFinder.countByTestRun(other));
+    }
+
+    /**
+     * Test purging a test run when a production section references one of its
+     * courses. The bulk deletes would violate the foreign key so the reference
+     * is cleared first. This isn't transactional so we see what the purge
+     * committed.
+     */
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void testPurgeTestRunWithProductionReference() {
+        final TestRun testRun = testService.createTestRun();
+        final Course course = courseService.createCourseForTesting("XREF", "course", "summary", "description", 1,
+                testRun);
+        final Section section = sectionService.updateSectionRoster(sectionService.createSection("section"), course,
+                Collections.<Student> emptyList(), Collections.<Classroom> emptyList());
+
+        try {
+            dao.purgeTestRun(testRun.getUuid());
+
+            final Section actual = sectionFinder.findSectionRosterByUuid(section.getUuid());
+            assertNull(actual.getCourse());
+            assertTrue(actual.getVersion() > section.getVersion());
+            assertEquals(0, courseFinder.countByTestRun(testRun, true));
+        } finally {
+            sectionService.deleteSection(section.getUuid(), null);
+        }
+    }
+
     /**
      * @test findTestRunById() with unknown testRun.
      */
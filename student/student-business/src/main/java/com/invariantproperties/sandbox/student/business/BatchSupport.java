@@ -0,0 +1,254 @@
+/*
+ * This code was written by Bear Giles <bgiles@coyotesong.com> and he
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Any contributions made by others are licensed to this project under
+ * one or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright (c) 2013 Bear Giles <bgiles@coyotesong.com>
+ */
+package com.invariantproperties.sandbox.student.business;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.invariantproperties.sandbox.student.domain.PersistentObject;
+import com.invariantproperties.sandbox.student.repository.CustomRepository;
+
+/**
+ * Common implementation of the bulk create and update methods. The caller's
+ * list is processed in chunks of BATCH_SIZE items. Each chunk is checked with
+ * one query for existing natural keys (and one query for the existing objects
+ * when updating) and then saved as a JDBC batch.
+ * 
+ * Invalid items are reported as failures and skipped. We check everything we
+ * can before touching the database since a constraint violation during a flush
+ * leaves the persistence context unusable and the entire transaction must be
+ * rolled back.
+ * 
+ * @author Bear Giles <bgiles@coyotesong.com>
+ * 
+ * @param <T>
+ */
+abstract class BatchSupport<T extends PersistentObject> {
+    static final int BATCH_SIZE = PersistentObject.ALLOCATION_SIZE;
+    static final String MISSING_OBJECT_MESSAGE = "missing object";
+    static final String NOT_FOUND_MESSAGE = "object not found";
+    static final String REQUIRED_MESSAGE = "%s is required";
+    static final String DUPLICATE_MESSAGE = "duplicate %s";
+
+    /**
+     * Get the repository.
+     */
+    protected abstract CustomRepository<T> getRepository();
+
+    /**
+     * Create a new object from the caller's prototype.
+     */
+    protected abstract T copyForCreate(T prototype);
+
+    /**
+     * Copy the updatable properties to the persistent object.
+     */
+    protected abstract void copyForUpdate(T actual, T changes);
+
+    /**
+     * Check the required properties.
+     * 
+     * @return error message, or null if the object is valid.
+     */
+    protected abstract String validate(T object);
+
+    /**
+     * Check the properties of an update. Only the properties copied by
+     * copyForUpdate() matter. The default is the same as validate().
+     * 
+     * @return error message, or null if the changes are valid.
+     */
+    protected String validateForUpdate(T changes) {
+        return validate(changes);
+    }
+
+    /**
+     * Get the object's unique natural key, if any, e.g., a course code.
+     */
+    protected String getNaturalKey(T object) {
+        return null;
+    }
+
+    /**
+     * Get the natural key set by an update, or null if the natural key can't
+     * be changed by copyForUpdate(). The default is getNaturalKey().
+     */
+    protected String getUpdatedNaturalKey(T changes) {
+        return getNaturalKey(changes);
+    }
+
+    /**
+     * Find the objects that already use any of the natural keys.
+     * 
+     * @return map from natural key to uuid of existing object.
+     */
+    protected Map<String, String> findNaturalKeys(Collection<String> keys) {
+        return Collections.emptyMap();
+    }
+
+    /**
+     * Create objects.
+     */
+    public BatchResult<T> createAll(List<T> objects) {
+        final BatchResult<T> result = new BatchResult<T>();
+        final Set<String> keys = new HashSet<String>();
+
+        for (int start = 0; start < objects.size(); start += BATCH_SIZE) {
+            final List<T> chunk = objects.subList(start, Math.min(objects.size(), start + BATCH_SIZE));
+            final Map<String, String> existing = lookupNaturalKeys(chunk, false);
+            final List<T> entities = new ArrayList<T>(chunk.size());
+
+            for (int i = 0; i < chunk.size(); i++) {
+                final T prototype = chunk.get(i);
+                String msg = (prototype == null) ? MISSING_OBJECT_MESSAGE : validate(prototype);
+
+                if (msg == null) {
+                    final String key = getNaturalKey(prototype);
+                    if (key != null && (existing.containsKey(key) || !keys.add(key))) {
+                        msg = String.format(DUPLICATE_MESSAGE, key);
+                    }
+                }
+
+                if (msg == null) {
+                    entities.add(copyForCreate(prototype));
+                } else {
+                    result.addFailure(new BatchFailure(start + i, null, msg));
+                }
+            }
+
+            for (T saved : getRepository().saveInBatches(entities, BATCH_SIZE)) {
+                result.addResult(saved);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Update objects. Each update is identified by its uuid and only the
+     * properties copied by copyForUpdate() are checked.
+     */
+    public BatchResult<T> updateAll(List<T> objects) {
+        final BatchResult<T> result = new BatchResult<T>();
+        final Set<String> uuids = new HashSet<String>();
+        final Set<String> keys = new HashSet<String>();
+
+        for (int start = 0; start < objects.size(); start += BATCH_SIZE) {
+            final List<T> chunk = objects.subList(start, Math.min(objects.size(), start + BATCH_SIZE));
+            final Map<String, T> actuals = lookupObjects(chunk);
+            final Map<String, String> existing = lookupNaturalKeys(chunk, true);
+            final List<T> entities = new ArrayList<T>(chunk.size());
+
+            for (int i = 0; i < chunk.size(); i++) {
+                final T changes = chunk.get(i);
+                final String uuid = (changes == null) ? null : changes.getUuid();
+                final T actual = (uuid == null) ? null : actuals.get(uuid);
+                String msg = null;
+
+                if (changes == null) {
+                    msg = MISSING_OBJECT_MESSAGE;
+                } else if (uuid == null) {
+                    msg = String.format(REQUIRED_MESSAGE, "uuid");
+                } else if (!uuids.add(uuid)) {
+                    msg = String.format(DUPLICATE_MESSAGE, uuid);
+                } else {
+                    msg = validateForUpdate(changes);
+                }
+
+                if (msg == null && actual == null) {
+                    msg = NOT_FOUND_MESSAGE;
+                }
+
+                if (msg == null) {
+                    final String key = getUpdatedNaturalKey(changes);
+                    if (key != null) {
+                        final String owner = existing.get(key);
+                        if ((owner != null && !owner.equals(uuid)) || !keys.add(key)) {
+                            msg = String.format(DUPLICATE_MESSAGE, key);
+                        }
+                    }
+                }
+
+                if (msg == null) {
+                    copyForUpdate(actual, changes);
+                    entities.add(actual);
+                } else {
+                    result.addFailure(new BatchFailure(start + i, uuid, msg));
+                }
+            }
+
+            for (T saved : getRepository().saveInBatches(entities, BATCH_SIZE)) {
+                result.addResult(saved);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Find the existing users of the natural keys in this chunk.
+     */
+    private Map<String, String> lookupNaturalKeys(List<T> chunk, boolean update) {
+        final Set<String> keys = new HashSet<String>();
+        for (T object : chunk) {
+            String key = null;
+            if (object != null) {
+                key = update ? getUpdatedNaturalKey(object) : getNaturalKey(object);
+            }
+            if (key != null) {
+                keys.add(key);
+            }
+        }
+
+        if (keys.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        return findNaturalKeys(keys);
+    }
+
+    /**
+     * Find the persistent objects for this chunk.
+     */
+    private Map<String, T> lookupObjects(List<T> chunk) {
+        final Set<String> uuids = new HashSet<String>();
+        for (T object : chunk) {
+            if (object != null && object.getUuid() != null) {
+                uuids.add(object.getUuid());
+            }
+        }
+
+        final Map<String, T> actuals = new HashMap<String, T>();
+        for (T actual : getRepository().findAllByUuid(uuids)) {
+            actuals.put(actual.getUuid(), actual);
+        }
+
+        return actuals;
+    }
+}
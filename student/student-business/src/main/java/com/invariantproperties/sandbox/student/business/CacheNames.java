@@ -0,0 +1,58 @@
+/*
+ * This code was written by Bear Giles <bgiles@coyotesong.com> and he
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Any contributions made by others are licensed to this project under
+ * one or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright (c) 2013 Bear Giles <bgiles@coyotesong.com>
+ */
+package com.invariantproperties.sandbox.student.business;
+
+/**
+ * Names of the caches used by the business services. The caches only hold the
+ * results of the natural key lookups, e.g., by uuid or by course code.
+ * 
+ * @author Bear Giles <bgiles@coyotesong.com>
+ */
+public final class CacheNames {
+    public static final String CLASSROOM_BY_UUID = "classroomByUuid";
+    public static final String COURSE_BY_UUID = "courseByUuid";
+    public static final String COURSE_BY_CODE = "courseByCode";
+    public static final String INSTRUCTOR_BY_UUID = "instructorByUuid";
+    public static final String INSTRUCTOR_BY_EMAIL_ADDRESS = "instructorByEmailAddress";
+    public static final String SECTION_BY_UUID = "sectionByUuid";
+    public static final String STUDENT_BY_UUID = "studentByUuid";
+    public static final String STUDENT_BY_EMAIL_ADDRESS = "studentByEmailAddress";
+    public static final String TERM_BY_UUID = "termByUuid";
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private CacheNames() {
+
+    }
+
+    /**
+     * Get the names of all caches.
+     * 
+     * @return
+     */
+    public static String[] getCacheNames() {
+        return new String[] { CLASSROOM_BY_UUID, COURSE_BY_UUID, COURSE_BY_CODE, INSTRUCTOR_BY_UUID,
+                INSTRUCTOR_BY_EMAIL_ADDRESS, SECTION_BY_UUID, STUDENT_BY_UUID, STUDENT_BY_EMAIL_ADDRESS, TERM_BY_UUID };
+    }
+}
@@ -22,22 +22,26 @@
  */
 package com.invariantproperties.sandbox.student.business;
 
+import static com.invariantproperties.sandbox.student.business.CacheNames.CLASSROOM_BY_UUID;
 import static com.invariantproperties.sandbox.student.business.PersistenceException.Type.UNABLE_TO_COUNT;
 import static com.invariantproperties.sandbox.student.business.PersistenceException.Type.UNABLE_TO_FIND_BY_ID;
 import static com.invariantproperties.sandbox.student.business.PersistenceException.Type.UNABLE_TO_FIND_BY_UUID;
 import static com.invariantproperties.sandbox.student.business.PersistenceException.Type.UNABLE_TO_LIST;
 import static com.invariantproperties.sandbox.student.specification.ClassroomSpecifications.testRunIs;
 
+import java.util.Collection;
 import java.util.List;
 
 import javax.annotation.Resource;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.dao.DataAccessException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.invariantproperties.sandbox.student.datasource.ReplicaRoutingDataSource;
 import com.invariantproperties.sandbox.student.domain.Classroom;
 import com.invariantproperties.sandbox.student.domain.TestRun;
 import com.invariantproperties.sandbox.student.repository.ClassroomRepository;
@@ -56,6 +60,9 @@ public class ClassroomFinderServiceImpl implements ClassroomFinderService {
     @Resource
     private ClassroomRepository classroomRepository;
 
+    @Resource
+    private EntityCounts entityCounts;
+
     /**
      * Default constructor
      */
@@ -68,6 +75,7 @@ public class ClassroomFinderServiceImpl implements ClassroomFinderService {
      */
     ClassroomFinderServiceImpl(ClassroomRepository classroomRepository) {
         this.classroomRepository = classroomRepository;
+        this.entityCounts = new EntityCounts();
     }
 
     /**
@@ -87,9 +95,25 @@ public class ClassroomFinderServiceImpl implements ClassroomFinderService {
     @Transactional(readOnly = true)
     @Override
     public long countByTestRun(TestRun testRun) {
+        return countByTestRun(testRun, false);
+    }
+
+    /**
+     * @see com.invariantproperties.sandbox.student.business.FinderService#
+     *      countByTestRun(com.invariantproperties.sandbox.student.domain.TestRun,
+     *      boolean)
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public long countByTestRun(final TestRun testRun, boolean exact) {
         long count = 0;
         try {
-            count = classroomRepository.count(testRunIs(testRun));
+            count = entityCounts.get(Classroom.class, testRun, exact, new EntityCounts.Loader() {
+                @Override
+                public long load() {
+                    return classroomRepository.count(testRunIs(testRun));
+                }
+            });
         } catch (UnitTestException e) {
             final String msg = UNABLE_TO_COUNT.format(CLASSROOMS) + testRun;
             throw new PersistenceException(UNABLE_TO_COUNT, msg, e, 0);
@@ -142,9 +166,28 @@ public class ClassroomFinderServiceImpl implements ClassroomFinderService {
      * @see com.invariantproperties.sandbox.student.business.ClassroomFinderService#
      *      findClassroomByUuid(java.lang.String)
      */
+    @Cacheable(CLASSROOM_BY_UUID)
     @Transactional(readOnly = true)
     @Override
     public Classroom findClassroomByUuid(String uuid) {
+        final Classroom classroom = findByUuidOrNull(uuid);
+
+        if (classroom == null) {
+            throw new ObjectNotFoundException(uuid);
+        }
+
+        return classroom;
+    }
+
+    /**
+     * @see com.invariantproperties.sandbox.student.business.FinderService#
+     *      findByUuidOrNull(java.lang.String)
+     */
+    @Cacheable(value = CLASSROOM_BY_UUID, unless = "#result == null")
+    @Transactional(readOnly = true)
+    @Override
+    public Classroom findByUuidOrNull(String uuid) {
+        ReplicaRoutingDataSource.usePrimaryForCurrentTransaction();
         Classroom classroom = null;
         try {
             classroom = classroomRepository.findClassroomByUuid(uuid);
@@ -157,10 +200,6 @@ public class ClassroomFinderServiceImpl implements ClassroomFinderService {
             throw new PersistenceException(UNABLE_TO_FIND_BY_UUID, msg, e, uuid);
         }
 
-        if (classroom == null) {
-            throw new ObjectNotFoundException(uuid);
-        }
-
         return classroom;
     }
 
@@ -186,4 +225,108 @@ public class ClassroomFinderServiceImpl implements ClassroomFinderService {
 
         return classrooms;
     }
+
+    /**
+     * @see com.invariantproperties.sandbox.student.business.FinderService#
+     *      findByUuids(java.util.Collection)
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public MultiGetResult<Classroom> findByUuids(Collection<String> uuids) {
+        List<Classroom> classrooms = null;
+
+        try {
+            classrooms = classroomRepository.findAllByUuid(uuids);
+        } catch (UnitTestException e) {
+            final String msg = UNABLE_TO_FIND_BY_UUID.format(CLASSROOMS);
+            throw new PersistenceException(UNABLE_TO_FIND_BY_UUID, msg, e);
+        } catch (DataAccessException e) {
+            final String msg = UNABLE_TO_FIND_BY_UUID.format(CLASSROOMS);
+            LOG.info(msg);
+            throw new PersistenceException(UNABLE_TO_FIND_BY_UUID, msg, e);
+        }
+
+        return MultiGetResult.of(uuids, classrooms);
+    }
+
+    /**
+     * @see com.invariantproperties.sandbox.student.business.FinderService#
+     *      findPage(com.invariantproperties.sandbox.student.business.KeysetPage)
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public List<Classroom> findPage(KeysetPage page) {
+        return findPageByTestRun(null, page);
+    }
+
+    /**
+     * @see com.invariantproperties.sandbox.student.business.FinderService#
+     *      findPageByTestRun(com.invariantproperties.sandbox.student.domain.TestRun,
+     *      com.invariantproperties.sandbox.student.business.KeysetPage)
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public List<Classroom> findPageByTestRun(TestRun testRun, KeysetPage page) {
+        List<Classroom> classrooms = null;
+        Classroom after = null;
+
+        try {
+            if (page.getAfter() != null) {
+                // seek to the cursor's position if we can - the object may
+                // have been deleted since the previous page was read.
+                after = classroomRepository.findPosition(page);
+                if (after == null) {
+                    after = classroomRepository.findClassroomByUuid(page.getAfterUuid());
+                }
+                if (after == null) {
+                    throw new ObjectNotFoundException(page.getAfter());
+                }
+            }
+            classrooms = classroomRepository.findPage(testRunIs(testRun), after, page);
+        } catch (UnitTestException e) {
+            final String msg = UNABLE_TO_LIST.format(CLASSROOMS) + page;
+            throw new PersistenceException(UNABLE_TO_LIST, msg, e);
+        } catch (DataAccessException e) {
+            final String msg = UNABLE_TO_LIST.format(CLASSROOMS) + page;
+            LOG.info(msg);
+            throw new PersistenceException(UNABLE_TO_LIST, msg, e);
+        }
+
+        return classrooms;
+    }
+
+    /**
+     * @see com.invariantproperties.sandbox.student.business.FinderService#
+     *      forEach(com.invariantproperties.sandbox.student.business.ObjectHandler,
+     *      int)
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public long forEach(ObjectHandler<? super Classroom> handler, int fetchSize) {
+        return forEachByTestRun(null, handler, fetchSize);
+    }
+
+    /**
+     * @see com.invariantproperties.sandbox.student.business.FinderService#
+     *      forEachByTestRun(com.invariantproperties.sandbox.student.domain.TestRun,
+     *      com.invariantproperties.sandbox.student.business.ObjectHandler,
+     *      int)
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public long forEachByTestRun(TestRun testRun, ObjectHandler<? super Classroom> handler, int fetchSize) {
+        long count = 0;
+        try {
+            count = classroomRepository.forEach(testRunIs(testRun), fetchSize, handler);
+        } catch (UnitTestException e) {
+            final String msg = UNABLE_TO_LIST.format(CLASSROOMS) + testRun;
+            throw new PersistenceException(UNABLE_TO_LIST, msg, e);
+        } catch (DataAccessException e) {
+            final String msg = UNABLE_TO_LIST.format(CLASSROOMS) + testRun;
+            LOG.info(msg);
+            throw new PersistenceException(UNABLE_TO_LIST, msg, e);
+        }
+
+        return count;
+    }
 }
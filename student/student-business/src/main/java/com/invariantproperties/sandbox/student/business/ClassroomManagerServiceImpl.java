@@ -22,15 +22,21 @@
  */
 package com.invariantproperties.sandbox.student.business;
 
+import static com.invariantproperties.sandbox.student.business.CacheNames.CLASSROOM_BY_UUID;
 import static com.invariantproperties.sandbox.student.business.PersistenceException.Type.UNABLE_TO_CREATE;
 import static com.invariantproperties.sandbox.student.business.PersistenceException.Type.UNABLE_TO_CREATE_FOR_TESTING;
 import static com.invariantproperties.sandbox.student.business.PersistenceException.Type.UNABLE_TO_DELETE;
 import static com.invariantproperties.sandbox.student.business.PersistenceException.Type.UNABLE_TO_UPDATE;
 
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 import javax.annotation.Resource;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.dao.DataAccessException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -38,6 +44,7 @@ import org.springframework.transaction.annotation.Transactional;
 import com.invariantproperties.sandbox.student.domain.Classroom;
 import com.invariantproperties.sandbox.student.domain.TestRun;
 import com.invariantproperties.sandbox.student.repository.ClassroomRepository;
+import com.invariantproperties.sandbox.student.repository.CustomRepository;
 
 /**
  * Implementation of ClassroomService
@@ -53,6 +60,37 @@ public class ClassroomManagerServiceImpl implements ClassroomManagerService {
     @Resource
     private ClassroomRepository classroomRepository;
 
+    @Resource
+    private EntityCounts entityCounts;
+
+    private final BatchSupport<Classroom> batch = new BatchSupport<Classroom>() {
+        @Override
+        protected CustomRepository<Classroom> getRepository() {
+            return classroomRepository;
+        }
+
+        @Override
+        protected Classroom copyForCreate(Classroom prototype) {
+            final Classroom classroom = new Classroom();
+            classroom.setName(prototype.getName());
+            classroom.setTestRun(prototype.getTestRun());
+            return classroom;
+        }
+
+        @Override
+        protected void copyForUpdate(Classroom actual, Classroom changes) {
+            actual.setName(changes.getName());
+        }
+
+        @Override
+        protected String validate(Classroom classroom) {
+            if (classroom.getName() == null) {
+                return String.format(REQUIRED_MESSAGE, "name");
+            }
+            return null;
+        }
+    };
+
     /**
      * Default constructor
      */
@@ -65,6 +103,7 @@ public class ClassroomManagerServiceImpl implements ClassroomManagerService {
      */
     ClassroomManagerServiceImpl(ClassroomRepository classroomRepository) {
         this.classroomRepository = classroomRepository;
+        this.entityCounts = new EntityCounts();
     }
 
     /**
@@ -80,6 +119,7 @@ public class ClassroomManagerServiceImpl implements ClassroomManagerService {
         Classroom actual = null;
         try {
             actual = classroomRepository.saveAndFlush(classroom);
+            entityCounts.adjust(Classroom.class, classroom.getTestRun(), 1);
         } catch (UnitTestException e) {
             final String msg = UNABLE_TO_CREATE.format(CLASSROOM);
             throw new PersistenceException(UNABLE_TO_CREATE, msg, e);
@@ -107,6 +147,7 @@ public class ClassroomManagerServiceImpl implements ClassroomManagerService {
         Classroom actual = null;
         try {
             actual = classroomRepository.saveAndFlush(classroom);
+            entityCounts.adjust(Classroom.class, classroom.getTestRun(), 1);
         } catch (UnitTestException e) {
             final String msg = UNABLE_TO_CREATE_FOR_TESTING.format(CLASSROOM);
             throw new PersistenceException(UNABLE_TO_CREATE_FOR_TESTING, msg, e);
@@ -124,6 +165,7 @@ public class ClassroomManagerServiceImpl implements ClassroomManagerService {
      *      updateClassroom(com.invariantproperties.sandbox.classroom.domain.Classroom,
      *      java.lang.String)
      */
+    @CacheEvict(value = CLASSROOM_BY_UUID, key = "#classroom.uuid", beforeInvocation = true)
     @Transactional
     @Override
     public Classroom updateClassroom(Classroom classroom, String name) {
@@ -138,7 +180,6 @@ public class ClassroomManagerServiceImpl implements ClassroomManagerService {
 
             actual.setName(name);
             updated = classroomRepository.saveAndFlush(actual);
-            classroom.setName(name);
 
         } catch (UnitTestException e) {
             final String msg = UNABLE_TO_UPDATE.format(CLASSROOM);
@@ -156,9 +197,15 @@ public class ClassroomManagerServiceImpl implements ClassroomManagerService {
      * @see com.invariantproperties.sandbox.student.business.ClassroomFinderService#
      *      deleteClassroom(java.lang.String, java.lang.Integer)
      */
+    @CacheEvict(value = CLASSROOM_BY_UUID, key = "#uuid", beforeInvocation = true)
     @Transactional
     @Override
     public void deleteClassroom(String uuid, Integer version) {
+        if (version != null) {
+            deleteIfVersion(uuid, version);
+            return;
+        }
+
         Classroom classroom = null;
         try {
             classroom = classroomRepository.findClassroomByUuid(uuid);
@@ -168,7 +215,93 @@ public class ClassroomManagerServiceImpl implements ClassroomManagerService {
                 throw new ObjectNotFoundException(uuid);
             }
             classroomRepository.delete(classroom);
+            entityCounts.adjust(Classroom.class, classroom.getTestRun(), -1);
+
+        } catch (UnitTestException e) {
+            final String msg = UNABLE_TO_DELETE.format(CLASSROOM);
+            throw new PersistenceException(UNABLE_TO_DELETE, msg, e, uuid);
+        } catch (DataAccessException e) {
+            final String msg = UNABLE_TO_DELETE.format(CLASSROOM);
+            LOG.info(msg);
+            throw new PersistenceException(UNABLE_TO_DELETE, msg, e, uuid);
+        }
+    }
 
+    /**
+     * @see com.invariantproperties.sandbox.student.business.ManagerService#
+     *      createAll(java.util.List)
+     */
+    @Transactional
+    @Override
+    public BatchResult<Classroom> createAll(List<Classroom> classrooms) {
+        try {
+            final BatchResult<Classroom> results = batch.createAll(classrooms);
+            entityCounts.invalidate(Classroom.class);
+            return results;
+        } catch (UnitTestException e) {
+            final String msg = UNABLE_TO_CREATE.format(CLASSROOM);
+            throw new PersistenceException(UNABLE_TO_CREATE, msg, e);
+        } catch (DataAccessException e) {
+            final String msg = UNABLE_TO_CREATE.format(CLASSROOM);
+            LOG.info(msg);
+            throw new PersistenceException(UNABLE_TO_CREATE, msg, e);
+        }
+    }
+
+    /**
+     * @see com.invariantproperties.sandbox.student.business.ManagerService#
+     *      updateAll(java.util.List)
+     */
+    @CacheEvict(value = CLASSROOM_BY_UUID, allEntries = true, beforeInvocation = true)
+    @Transactional
+    @Override
+    public BatchResult<Classroom> updateAll(List<Classroom> classrooms) {
+        try {
+            return batch.updateAll(classrooms);
+        } catch (UnitTestException e) {
+            final String msg = UNABLE_TO_UPDATE.format(CLASSROOM);
+            throw new PersistenceException(UNABLE_TO_UPDATE, msg, e);
+        } catch (DataAccessException e) {
+            final String msg = UNABLE_TO_UPDATE.format(CLASSROOM);
+            LOG.info(msg);
+            throw new PersistenceException(UNABLE_TO_UPDATE, msg, e);
+        }
+    }
+
+    /**
+     * @see com.invariantproperties.sandbox.student.business.ManagerService#
+     *      updateIfVersion(com.invariantproperties.sandbox.student.domain.PersistentObject)
+     */
+    @CacheEvict(value = CLASSROOM_BY_UUID, key = "#changes.uuid", beforeInvocation = true)
+    @Transactional
+    @Override
+    public Integer updateIfVersion(Classroom changes) {
+        final Map<String, Object> values = new LinkedHashMap<String, Object>();
+        values.put("name", changes.getName());
+
+        try {
+            return ConditionalWrites.update(classroomRepository, changes, values);
+        } catch (UnitTestException e) {
+            final String msg = UNABLE_TO_UPDATE.format(CLASSROOM);
+            throw new PersistenceException(UNABLE_TO_UPDATE, msg, e, changes.getUuid());
+        } catch (DataAccessException e) {
+            final String msg = UNABLE_TO_UPDATE.format(CLASSROOM);
+            LOG.info(msg);
+            throw new PersistenceException(UNABLE_TO_UPDATE, msg, e, changes.getUuid());
+        }
+    }
+
+    /**
+     * @see com.invariantproperties.sandbox.student.business.ManagerService#
+     *      deleteIfVersion(java.lang.String, java.lang.Integer)
+     */
+    @CacheEvict(value = CLASSROOM_BY_UUID, key = "#uuid", beforeInvocation = true)
+    @Transactional
+    @Override
+    public void deleteIfVersion(String uuid, Integer version) {
+        try {
+            ConditionalWrites.delete(classroomRepository, uuid, version);
+            entityCounts.invalidate(Classroom.class);
         } catch (UnitTestException e) {
             final String msg = UNABLE_TO_DELETE.format(CLASSROOM);
             throw new PersistenceException(UNABLE_TO_DELETE, msg, e, uuid);
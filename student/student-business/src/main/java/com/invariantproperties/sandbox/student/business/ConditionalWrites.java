@@ -0,0 +1,89 @@
+/*
+ * This code was written by Bear Giles <bgiles@coyotesong.com> and he
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Any contributions made by others are licensed to this project under
+ * one or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright (c) 2013 Bear Giles <bgiles@coyotesong.com>
+ */
+package com.invariantproperties.sandbox.student.business;
+
+import java.util.Map;
+
+import com.invariantproperties.sandbox.student.domain.EntityChanges;
+import com.invariantproperties.sandbox.student.domain.PersistentObject;
+import com.invariantproperties.sandbox.student.repository.CustomRepository;
+
+/**
+ * Common implementation of the conditional update and delete methods. The
+ * write is a single statement that only matches the current version. If it
+ * matches nothing we make a second query to learn whether the object is
+ * missing or has a different version - that's the uncommon case.
+ * 
+ * The statements bypass the JPA callbacks so we notify the entity listeners
+ * ourselves.
+ * 
+ * @author Bear Giles <bgiles@coyotesong.com>
+ */
+final class ConditionalWrites {
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private ConditionalWrites() {
+
+    }
+
+    /**
+     * Update the object if it still has the caller's version.
+     * 
+     * @param repository
+     * @param changes
+     * @param values
+     * @return new version
+     */
+    static <T extends PersistentObject> Integer update(CustomRepository<T> repository, T changes,
+            Map<String, Object> values) {
+        if (repository.updateIfVersion(changes.getUuid(), changes.getVersion(), values) == 0) {
+            throw failure(repository, changes.getUuid(), changes.getVersion());
+        }
+        EntityChanges.fireUpdated(changes);
+        return changes.getVersion() + 1;
+    }
+
+    /**
+     * Delete the object if it still has the caller's version.
+     * 
+     * @param repository
+     * @param uuid
+     * @param version
+     */
+    static void delete(CustomRepository<?> repository, String uuid, Integer version) {
+        if (repository.deleteIfVersion(uuid, version) == 0) {
+            throw failure(repository, uuid, version);
+        }
+        EntityChanges.fireRemoved(uuid);
+    }
+
+    private static RuntimeException failure(CustomRepository<?> repository, String uuid, Integer version) {
+        final Integer current = repository.findVersionByUuid(uuid);
+        if (current == null) {
+            return new ObjectNotFoundException(uuid);
+        }
+        return new VersionConflictException(uuid, version, current);
+    }
+}
@@ -22,6 +22,8 @@
  */
 package com.invariantproperties.sandbox.student.business;
 
+import static com.invariantproperties.sandbox.student.business.CacheNames.COURSE_BY_CODE;
+import static com.invariantproperties.sandbox.student.business.CacheNames.COURSE_BY_UUID;
 import static com.invariantproperties.sandbox.student.business.PersistenceException.Type.UNABLE_TO_COUNT;
 import static com.invariantproperties.sandbox.student.business.PersistenceException.Type.UNABLE_TO_FIND_BY_CODE;
 import static com.invariantproperties.sandbox.student.business.PersistenceException.Type.UNABLE_TO_FIND_BY_ID;
@@ -29,19 +31,25 @@ import static com.invariantproperties.sandbox.student.business.PersistenceExcept
 import static com.invariantproperties.sandbox.student.business.PersistenceException.Type.UNABLE_TO_LIST;
 import static com.invariantproperties.sandbox.student.specification.CourseSpecifications.testRunIs;
 
+import java.util.Collection;
 import java.util.List;
 
 import javax.annotation.Resource;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.dao.DataAccessException;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.invariantproperties.sandbox.student.datasource.ReplicaRoutingDataSource;
 import com.invariantproperties.sandbox.student.domain.Course;
 import com.invariantproperties.sandbox.student.domain.TestRun;
+import com.invariantproperties.sandbox.student.repository.CustomRepository;
 import com.invariantproperties.sandbox.student.repository.CourseRepository;
+import com.invariantproperties.sandbox.student.specification.CourseSpecifications;
 
 /**
  * Implementation of CourseService.
@@ -57,6 +65,36 @@ public class CourseFinderServiceImpl implements CourseFinderService {
     @Resource
     private CourseRepository courseRepository;
 
+    @Resource
+    private EntityCounts entityCounts;
+
+    private final NameSearch<Course> nameSearch = new NameSearch<Course>() {
+        @Override
+        protected CustomRepository<Course> getRepository() {
+            return courseRepository;
+        }
+
+        @Override
+        protected Course findByUuid(String uuid) {
+            return courseRepository.findCourseByUuid(uuid);
+        }
+
+        @Override
+        protected String getName(Course course) {
+            return course.getName();
+        }
+
+        @Override
+        protected Specification<Course> nameStartsWith(String prefix) {
+            return CourseSpecifications.nameStartsWith(prefix);
+        }
+
+        @Override
+        protected Specification<Course> nameContains(String substring) {
+            return CourseSpecifications.nameContains(substring);
+        }
+    };
+
     /**
      * Default constructor
      */
@@ -69,6 +107,7 @@ public class CourseFinderServiceImpl implements CourseFinderService {
      */
     CourseFinderServiceImpl(CourseRepository courseRepository) {
         this.courseRepository = courseRepository;
+        this.entityCounts = new EntityCounts();
     }
 
     /**
@@ -88,9 +127,25 @@ public class CourseFinderServiceImpl implements CourseFinderService {
     @Transactional(readOnly = true)
     @Override
     public long countByTestRun(TestRun testRun) {
+        return countByTestRun(testRun, false);
+    }
+
+    /**
+     * @see com.invariantproperties.sandbox.student.business.FinderService#
+     *      countByTestRun(com.invariantproperties.sandbox.student.domain.TestRun,
+     *      boolean)
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public long countByTestRun(final TestRun testRun, boolean exact) {
         long count = 0;
         try {
-            count = courseRepository.count(testRunIs(testRun));
+            count = entityCounts.get(Course.class, testRun, exact, new EntityCounts.Loader() {
+                @Override
+                public long load() {
+                    return courseRepository.count(testRunIs(testRun));
+                }
+            });
         } catch (UnitTestException e) {
             final String msg = UNABLE_TO_COUNT.format(COURSES) + testRun;
             throw new PersistenceException(UNABLE_TO_COUNT, msg, e);
@@ -143,9 +198,28 @@ public class CourseFinderServiceImpl implements CourseFinderService {
      * @see com.invariantproperties.sandbox.student.business.CourseFinderService#
      *      findCourseByUuid(java.lang.String)
      */
+    @Cacheable(COURSE_BY_UUID)
     @Transactional(readOnly = true)
     @Override
     public Course findCourseByUuid(String uuid) {
+        final Course course = findByUuidOrNull(uuid);
+
+        if (course == null) {
+            throw new ObjectNotFoundException(uuid);
+        }
+
+        return course;
+    }
+
+    /**
+     * @see com.invariantproperties.sandbox.student.business.FinderService#
+     *      findByUuidOrNull(java.lang.String)
+     */
+    @Cacheable(value = COURSE_BY_UUID, unless = "#result == null")
+    @Transactional(readOnly = true)
+    @Override
+    public Course findByUuidOrNull(String uuid) {
+        ReplicaRoutingDataSource.usePrimaryForCurrentTransaction();
         Course course = null;
         try {
             course = courseRepository.findCourseByUuid(uuid);
@@ -158,10 +232,6 @@ public class CourseFinderServiceImpl implements CourseFinderService {
             throw new PersistenceException(UNABLE_TO_FIND_BY_UUID, msg, e, uuid);
         }
 
-        if (course == null) {
-            throw new ObjectNotFoundException(uuid);
-        }
-
         return course;
     }
 
@@ -169,9 +239,11 @@ public class CourseFinderServiceImpl implements CourseFinderService {
      * @see com.invariantproperties.sandbox.student.business.CourseFinderService#
      *      findCourseByCode(java.lang.String)
      */
+    @Cacheable(COURSE_BY_CODE)
     @Transactional(readOnly = true)
     @Override
     public Course findCourseByCode(String code) {
+        ReplicaRoutingDataSource.usePrimaryForCurrentTransaction();
         Course course = null;
         try {
             course = courseRepository.findCourseByCode(code);
@@ -213,4 +285,134 @@ public class CourseFinderServiceImpl implements CourseFinderService {
 
         return courses;
     }
+
+    /**
+     * @see com.invariantproperties.sandbox.student.business.FinderService#
+     *      findByUuids(java.util.Collection)
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public MultiGetResult<Course> findByUuids(Collection<String> uuids) {
+        List<Course> courses = null;
+
+        try {
+            courses = courseRepository.findAllByUuid(uuids);
+        } catch (UnitTestException e) {
+            final String msg = UNABLE_TO_FIND_BY_UUID.format(COURSES);
+            throw new PersistenceException(UNABLE_TO_FIND_BY_UUID, msg, e);
+        } catch (DataAccessException e) {
+            final String msg = UNABLE_TO_FIND_BY_UUID.format(COURSES);
+            LOG.info(msg);
+            throw new PersistenceException(UNABLE_TO_FIND_BY_UUID, msg, e);
+        }
+
+        return MultiGetResult.of(uuids, courses);
+    }
+
+    /**
+     * @see com.invariantproperties.sandbox.student.business.FinderService#
+     *      findPage(com.invariantproperties.sandbox.student.business.KeysetPage)
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public List<Course> findPage(KeysetPage page) {
+        return findPageByTestRun(null, page);
+    }
+
+    /**
+     * @see com.invariantproperties.sandbox.student.business.FinderService#
+     *      findPageByTestRun(com.invariantproperties.sandbox.student.domain.TestRun,
+     *      com.invariantproperties.sandbox.student.business.KeysetPage)
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public List<Course> findPageByTestRun(TestRun testRun, KeysetPage page) {
+        List<Course> courses = null;
+        Course after = null;
+
+        try {
+            if (page.getAfter() != null) {
+                // seek to the cursor's position if we can - the object may
+                // have been deleted since the previous page was read.
+                after = courseRepository.findPosition(page);
+                if (after == null) {
+                    after = courseRepository.findCourseByUuid(page.getAfterUuid());
+                }
+                if (after == null) {
+                    throw new ObjectNotFoundException(page.getAfter());
+                }
+            }
+            courses = courseRepository.findPage(testRunIs(testRun), after, page);
+        } catch (UnitTestException e) {
+            final String msg = UNABLE_TO_LIST.format(COURSES) + page;
+            throw new PersistenceException(UNABLE_TO_LIST, msg, e);
+        } catch (DataAccessException e) {
+            final String msg = UNABLE_TO_LIST.format(COURSES) + page;
+            LOG.info(msg);
+            throw new PersistenceException(UNABLE_TO_LIST, msg, e);
+        }
+
+        return courses;
+    }
+
+    /**
+     * @see com.invariantproperties.sandbox.student.business.CourseFinderService#
+     *      findCoursesByName(java.lang.String,
+     *      com.invariantproperties.sandbox.student.business.NameMatch,
+     *      com.invariantproperties.sandbox.student.domain.TestRun,
+     *      com.invariantproperties.sandbox.student.business.KeysetPage)
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public List<Course> findCoursesByName(String name, NameMatch match, TestRun testRun, KeysetPage page) {
+        List<Course> courses = null;
+
+        try {
+            courses = nameSearch.findPage(testRunIs(testRun), name, match, page);
+        } catch (UnitTestException e) {
+            final String msg = UNABLE_TO_LIST.format(COURSES) + name;
+            throw new PersistenceException(UNABLE_TO_LIST, msg, e);
+        } catch (DataAccessException e) {
+            final String msg = UNABLE_TO_LIST.format(COURSES) + name;
+            LOG.info(msg);
+            throw new PersistenceException(UNABLE_TO_LIST, msg, e);
+        }
+
+        return courses;
+    }
+
+    /**
+     * @see com.invariantproperties.sandbox.student.business.FinderService#
+     *      forEach(com.invariantproperties.sandbox.student.business.ObjectHandler,
+     *      int)
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public long forEach(ObjectHandler<? super Course> handler, int fetchSize) {
+        return forEachByTestRun(null, handler, fetchSize);
+    }
+
+    /**
+     * @see com.invariantproperties.sandbox.student.business.FinderService#
+     *      forEachByTestRun(com.invariantproperties.sandbox.student.domain.TestRun,
+     *      com.invariantproperties.sandbox.student.business.ObjectHandler,
+     *      int)
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public long forEachByTestRun(TestRun testRun, ObjectHandler<? super Course> handler, int fetchSize) {
+        long count = 0;
+        try {
+            count = courseRepository.forEach(testRunIs(testRun), fetchSize, handler);
+        } catch (UnitTestException e) {
+            final String msg = UNABLE_TO_LIST.format(COURSES) + testRun;
+            throw new PersistenceException(UNABLE_TO_LIST, msg, e);
+        } catch (DataAccessException e) {
+            final String msg = UNABLE_TO_LIST.format(COURSES) + testRun;
+            LOG.info(msg);
+            throw new PersistenceException(UNABLE_TO_LIST, msg, e);
+        }
+
+        return count;
+    }
 }
@@ -22,15 +22,26 @@
  */
 package com.invariantproperties.sandbox.student.business;
 
+import static com.invariantproperties.sandbox.student.business.CacheNames.COURSE_BY_CODE;
+import static com.invariantproperties.sandbox.student.business.CacheNames.COURSE_BY_UUID;
 import static com.invariantproperties.sandbox.student.business.PersistenceException.Type.UNABLE_TO_CREATE;
 import static com.invariantproperties.sandbox.student.business.PersistenceException.Type.UNABLE_TO_CREATE_FOR_TESTING;
 import static com.invariantproperties.sandbox.student.business.PersistenceException.Type.UNABLE_TO_DELETE;
 import static com.invariantproperties.sandbox.student.business.PersistenceException.Type.UNABLE_TO_UPDATE;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 import javax.annotation.Resource;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.support.NoOpCacheManager;
 import org.springframework.dao.DataAccessException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -38,6 +49,7 @@ import org.springframework.transaction.annotation.Transactional;
 import com.invariantproperties.sandbox.student.domain.Course;
 import com.invariantproperties.sandbox.student.domain.TestRun;
 import com.invariantproperties.sandbox.student.repository.CourseRepository;
+import com.invariantproperties.sandbox.student.repository.CustomRepository;
 
 /**
  * Implementation of CourseService.
@@ -55,6 +67,78 @@ public class CourseManagerServiceImpl implements CourseManagerService {
     @Resource
     private CourseRepository courseRepository;
 
+    @Resource
+    private EntityCounts entityCounts;
+
+    @Resource
+    private CacheManager cacheManager;
+
+    private final BatchSupport<Course> batch = new BatchSupport<Course>() {
+        @Override
+        protected CustomRepository<Course> getRepository() {
+            return courseRepository;
+        }
+
+        @Override
+        protected Course copyForCreate(Course prototype) {
+            final Course course = new Course();
+            course.setCode(prototype.getCode());
+            course.setName(prototype.getName());
+            course.setSummary(prototype.getSummary());
+            course.setDescription(prototype.getDescription());
+            course.setCreditHours(prototype.getCreditHours());
+            course.setTestRun(prototype.getTestRun());
+            return course;
+        }
+
+        @Override
+        protected void copyForUpdate(Course actual, Course changes) {
+            actual.setName(changes.getName());
+            actual.setSummary(changes.getSummary());
+            actual.setDescription(changes.getDescription());
+            actual.setCreditHours(changes.getCreditHours());
+        }
+
+        @Override
+        protected String validate(Course course) {
+            if (course.getName() == null) {
+                return String.format(REQUIRED_MESSAGE, "name");
+            }
+            if (course.getCode() == null) {
+                return String.format(REQUIRED_MESSAGE, "code");
+            }
+            return null;
+        }
+
+        @Override
+        protected String validateForUpdate(Course changes) {
+            if (changes.getName() == null) {
+                return String.format(REQUIRED_MESSAGE, "name");
+            }
+            return null;
+        }
+
+        @Override
+        protected String getNaturalKey(Course course) {
+            return course.getCode();
+        }
+
+        @Override
+        protected String getUpdatedNaturalKey(Course changes) {
+            // the code can't be changed.
+            return null;
+        }
+
+        @Override
+        protected Map<String, String> findNaturalKeys(Collection<String> keys) {
+            final Map<String, String> results = new HashMap<String, String>();
+            for (Course course : courseRepository.findCoursesByCodeIn(keys)) {
+                results.put(course.getCode(), course.getUuid());
+            }
+            return results;
+        }
+    };
+
     /**
      * Default constructor
      */
@@ -66,7 +150,16 @@ public class CourseManagerServiceImpl implements CourseManagerService {
      * Constructor used in unit tests
      */
     CourseManagerServiceImpl(CourseRepository courseRepository) {
+        this(courseRepository, new NoOpCacheManager());
+    }
+
+    /**
+     * Constructor used in unit tests
+     */
+    CourseManagerServiceImpl(CourseRepository courseRepository, CacheManager cacheManager) {
         this.courseRepository = courseRepository;
+        this.entityCounts = new EntityCounts();
+        this.cacheManager = cacheManager;
     }
 
     /**
@@ -87,6 +180,7 @@ public class CourseManagerServiceImpl implements CourseManagerService {
         Course actual = null;
         try {
             actual = courseRepository.saveAndFlush(course);
+            entityCounts.adjust(Course.class, course.getTestRun(), 1);
         } catch (UnitTestException e) {
             final String msg = UNABLE_TO_CREATE.format(COURSE);
             throw new PersistenceException(UNABLE_TO_CREATE, msg, e);
@@ -119,6 +213,7 @@ public class CourseManagerServiceImpl implements CourseManagerService {
         Course actual = null;
         try {
             actual = courseRepository.saveAndFlush(course);
+            entityCounts.adjust(Course.class, course.getTestRun(), 1);
         } catch (UnitTestException e) {
             final String msg = UNABLE_TO_CREATE_FOR_TESTING.format(COURSE);
             throw new PersistenceException(UNABLE_TO_CREATE_FOR_TESTING, msg, e);
@@ -135,6 +230,7 @@ public class CourseManagerServiceImpl implements CourseManagerService {
      * @see com.invariantproperties.sandbox.CourseFinderService.persistence.
      *      CourseService# updateCourse(...)
      */
+    @CacheEvict(value = COURSE_BY_UUID, key = "#course.uuid", beforeInvocation = true)
     @Transactional
     @Override
     public Course updateCourse(Course course, String name, String summary, String description, Integer creditHours) {
@@ -146,16 +242,13 @@ public class CourseManagerServiceImpl implements CourseManagerService {
                 LOG.debug(COULD_NOT_FIND_MESSAGE + course.getUuid());
                 throw new ObjectNotFoundException(course.getUuid());
             }
+            evictCode(actual.getCode());
 
             actual.setName(name);
             actual.setSummary(summary);
             actual.setDescription(description);
             actual.setCreditHours(creditHours);
             updated = courseRepository.saveAndFlush(actual);
-            course.setName(name);
-            course.setSummary(summary);
-            course.setDescription(description);
-            course.setCreditHours(creditHours);
 
         } catch (UnitTestException e) {
             final String msg = UNABLE_TO_UPDATE.format(COURSE);
@@ -173,9 +266,15 @@ public class CourseManagerServiceImpl implements CourseManagerService {
      * @see com.invariantproperties.sandbox.student.business.CourseFinderService#
      *      deleteCourse(java.lang.String, java.lang.Integer)
      */
+    @CacheEvict(value = COURSE_BY_UUID, key = "#uuid", beforeInvocation = true)
     @Transactional
     @Override
     public void deleteCourse(String uuid, Integer version) {
+        if (version != null) {
+            deleteIfVersion(uuid, version);
+            return;
+        }
+
         Course course = null;
         try {
             course = courseRepository.findCourseByUuid(uuid);
@@ -184,7 +283,9 @@ public class CourseManagerServiceImpl implements CourseManagerService {
                 LOG.debug(COULD_NOT_FIND_MESSAGE + uuid);
                 throw new ObjectNotFoundException(uuid);
             }
+            evictCode(course.getCode());
             courseRepository.delete(course);
+            entityCounts.adjust(Course.class, course.getTestRun(), -1);
 
         } catch (UnitTestException e) {
             final String msg = UNABLE_TO_DELETE.format(COURSE);
@@ -195,4 +296,120 @@ public class CourseManagerServiceImpl implements CourseManagerService {
             throw new PersistenceException(UNABLE_TO_DELETE, msg, e, uuid);
         }
     }
+
+    /**
+     * @see com.invariantproperties.sandbox.student.business.ManagerService#
+     *      createAll(java.util.List)
+     */
+    @Transactional
+    @Override
+    public BatchResult<Course> createAll(List<Course> courses) {
+        try {
+            final BatchResult<Course> results = batch.createAll(courses);
+            entityCounts.invalidate(Course.class);
+            return results;
+        } catch (UnitTestException e) {
+            final String msg = UNABLE_TO_CREATE.format(COURSE);
+            throw new PersistenceException(UNABLE_TO_CREATE, msg, e);
+        } catch (DataAccessException e) {
+            final String msg = UNABLE_TO_CREATE.format(COURSE);
+            LOG.info(msg);
+            throw new PersistenceException(UNABLE_TO_CREATE, msg, e);
+        }
+    }
+
+    /**
+     * @see com.invariantproperties.sandbox.student.business.ManagerService#
+     *      updateAll(java.util.List)
+     */
+    @CacheEvict(value = COURSE_BY_UUID, allEntries = true, beforeInvocation = true)
+    @Transactional
+    @Override
+    public BatchResult<Course> updateAll(List<Course> courses) {
+        try {
+            final BatchResult<Course> results = batch.updateAll(courses);
+            for (Course course : results.getResults()) {
+                evictCode(course.getCode());
+            }
+            return results;
+        } catch (UnitTestException e) {
+            final String msg = UNABLE_TO_UPDATE.format(COURSE);
+            throw new PersistenceException(UNABLE_TO_UPDATE, msg, e);
+        } catch (DataAccessException e) {
+            final String msg = UNABLE_TO_UPDATE.format(COURSE);
+            LOG.info(msg);
+            throw new PersistenceException(UNABLE_TO_UPDATE, msg, e);
+        }
+    }
+
+    /**
+     * @see com.invariantproperties.sandbox.student.business.ManagerService#
+     *      updateIfVersion(com.invariantproperties.sandbox.student.domain.PersistentObject)
+     */
+    @CacheEvict(value = COURSE_BY_UUID, key = "#changes.uuid", beforeInvocation = true)
+    @Transactional
+    @Override
+    public Integer updateIfVersion(Course changes) {
+        final Map<String, Object> values = new LinkedHashMap<String, Object>();
+        values.put("name", changes.getName());
+        values.put("summary", changes.getSummary());
+        values.put("description", changes.getDescription());
+        values.put("creditHours", changes.getCreditHours());
+
+        try {
+            evictCode(courseRepository.findCourseByUuid(changes.getUuid()));
+            return ConditionalWrites.update(courseRepository, changes, values);
+        } catch (UnitTestException e) {
+            final String msg = UNABLE_TO_UPDATE.format(COURSE);
+            throw new PersistenceException(UNABLE_TO_UPDATE, msg, e, changes.getUuid());
+        } catch (DataAccessException e) {
+            final String msg = UNABLE_TO_UPDATE.format(COURSE);
+            LOG.info(msg);
+            throw new PersistenceException(UNABLE_TO_UPDATE, msg, e, changes.getUuid());
+        }
+    }
+
+    /**
+     * @see com.invariantproperties.sandbox.student.business.ManagerService#
+     *      deleteIfVersion(java.lang.String, java.lang.Integer)
+     */
+    @CacheEvict(value = COURSE_BY_UUID, key = "#uuid", beforeInvocation = true)
+    @Transactional
+    @Override
+    public void deleteIfVersion(String uuid, Integer version) {
+        try {
+            evictCode(courseRepository.findCourseByUuid(uuid));
+            ConditionalWrites.delete(courseRepository, uuid, version);
+            entityCounts.invalidate(Course.class);
+        } catch (UnitTestException e) {
+            final String msg = UNABLE_TO_DELETE.format(COURSE);
+            throw new PersistenceException(UNABLE_TO_DELETE, msg, e, uuid);
+        } catch (DataAccessException e) {
+            final String msg = UNABLE_TO_DELETE.format(COURSE);
+            LOG.info(msg);
+            throw new PersistenceException(UNABLE_TO_DELETE, msg, e, uuid);
+        }
+    }
+
+    /**
+     * Evict a course from the code cache. The code can't be changed so the
+     * current code is the only key that can hold the course.
+     * 
+     * @param code
+     */
+    private void evictCode(String code) {
+        cacheManager.getCache(COURSE_BY_CODE).evict(code);
+    }
+
+    /**
+     * Evict a course from the code cache.
+     * 
+     * @param course
+     *            the course, or null if it doesn't exist.
+     */
+    private void evictCode(Course course) {
+        if (course != null) {
+            evictCode(course.getCode());
+        }
+    }
 }
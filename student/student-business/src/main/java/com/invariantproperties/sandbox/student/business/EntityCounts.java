@@ -0,0 +1,269 @@
+/*
+ * This code was written by Bear Giles <bgiles@coyotesong.com> and he
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Any contributions made by others are licensed to this project under
+ * one or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright (c) 2013 Bear Giles <bgiles@coyotesong.com>
+ */
+package com.invariantproperties.sandbox.student.business;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.invariantproperties.sandbox.student.domain.TestRun;
+
+/**
+ * Maintained object counts, by class and test run.
+ * 
+ * The first request for a count runs the count query. After that the manager
+ * services adjust the count when they create or delete an object, once the
+ * transaction has committed, so later requests don't touch the database.
+ * Counts are reloaded once they are older than the reconciliation interval in
+ * case the tables were changed by something other than this application.
+ * Operations that change an unknown number of rows, e.g., bulk creates and
+ * test run purges, discard the counts instead of adjusting them.
+ * 
+ * A count query can't tell us which commits it saw so a count that is
+ * adjusted or discarded while it's being loaded is not kept - the next request
+ * loads it again. There is still a short window between a commit and the
+ * adjustment, which runs after the commit. A count loaded in that window
+ * already includes the change and is adjusted again. The error lasts until
+ * the count is reconciled.
+ * 
+ * @author Bear Giles <bgiles@coyotesong.com>
+ */
+@Component
+public class EntityCounts {
+    public static final long DEFAULT_RECONCILE_INTERVAL_MILLIS = 60 * 1000L;
+
+    /**
+     * Runs the count query.
+     */
+    public interface Loader {
+        long load();
+    }
+
+    private final ConcurrentMap<Key, Entry> entries = new ConcurrentHashMap<Key, Entry>();
+    private final ConcurrentMap<Key, AtomicLong> changes = new ConcurrentHashMap<Key, AtomicLong>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private volatile long reconcileIntervalMillis = DEFAULT_RECONCILE_INTERVAL_MILLIS;
+
+    public long getReconcileIntervalMillis() {
+        return reconcileIntervalMillis;
+    }
+
+    public void setReconcileIntervalMillis(long reconcileIntervalMillis) {
+        this.reconcileIntervalMillis = reconcileIntervalMillis;
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * Get the number of objects of the specified class that belong to the
+     * test run, or are not test data if the test run is null.
+     * 
+     * @param domainClass
+     * @param testRun
+     * @param exact
+     *            if true always run the count query
+     * @param loader
+     * @return
+     */
+    public long get(Class<?> domainClass, TestRun testRun, boolean exact, Loader loader) {
+        final Key key = key(domainClass, testRun);
+        if (key == null) {
+            misses.incrementAndGet();
+            return loader.load();
+        }
+
+        final long now = System.currentTimeMillis();
+        final Entry entry = entries.get(key);
+        if (!exact && entry != null && (now - entry.loaded) < reconcileIntervalMillis) {
+            hits.incrementAndGet();
+            return entry.count.get();
+        }
+
+        misses.incrementAndGet();
+        final AtomicLong changed = changes(key);
+        final long before = changed.get();
+        final long count = loader.load();
+        final Entry loaded = new Entry(count, now);
+        entries.put(key, loaded);
+
+        // the count was adjusted or discarded while we were loading it. We
+        // don't know if the query saw that change so we can't keep it.
+        if (changes.get(key) != changed || changed.get() != before) {
+            entries.remove(key, loaded);
+        }
+
+        return count;
+    }
+
+    /**
+     * Adjust a count after the current transaction commits. Nothing happens if
+     * the transaction rolls back or the count hasn't been loaded.
+     * 
+     * @param domainClass
+     * @param testRun
+     * @param delta
+     */
+    public void adjust(Class<?> domainClass, TestRun testRun, final long delta) {
+        final Key key = key(domainClass, testRun);
+        if (key == null) {
+            return;
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    apply(key, delta);
+                }
+            });
+        } else {
+            apply(key, delta);
+        }
+    }
+
+    /**
+     * Discard every count for the specified class. The counts are discarded
+     * immediately and again after the current transaction completes, in case
+     * they were reloaded in the meantime.
+     * 
+     * @param domainClass
+     */
+    public void invalidate(final Class<?> domainClass) {
+        remove(domainClass);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(int status) {
+                    remove(domainClass);
+                }
+            });
+        }
+    }
+
+    /**
+     * Discard every count.
+     */
+    public void invalidateAll() {
+        changes.clear();
+        entries.clear();
+    }
+
+    private void remove(Class<?> domainClass) {
+        for (Iterator<Key> i = changes.keySet().iterator(); i.hasNext();) {
+            if (i.next().domainClass.equals(domainClass)) {
+                i.remove();
+            }
+        }
+        for (Iterator<Key> i = entries.keySet().iterator(); i.hasNext();) {
+            if (i.next().domainClass.equals(domainClass)) {
+                i.remove();
+            }
+        }
+    }
+
+    /**
+     * Record the adjustment before applying it so a load in progress sees it.
+     */
+    private void apply(Key key, long delta) {
+        final AtomicLong changed = changes.get(key);
+        if (changed != null) {
+            changed.incrementAndGet();
+        }
+        final Entry entry = entries.get(key);
+        if (entry != null) {
+            entry.count.addAndGet(delta);
+        }
+    }
+
+    /**
+     * Get the number of adjustments made to a count. It's only kept for counts
+     * that have been loaded.
+     */
+    private AtomicLong changes(Key key) {
+        final AtomicLong changed = new AtomicLong();
+        final AtomicLong existing = changes.putIfAbsent(key, changed);
+        return (existing == null) ? changed : existing;
+    }
+
+    /**
+     * Get the key for the class and test run. Test runs that have not been
+     * persisted don't have a key and are never cached.
+     */
+    private static Key key(Class<?> domainClass, TestRun testRun) {
+        if (testRun == null) {
+            return new Key(domainClass, null);
+        }
+        if (testRun.getId() == null) {
+            return null;
+        }
+        return new Key(domainClass, testRun.getId());
+    }
+
+    private static final class Key {
+        private final Class<?> domainClass;
+        private final Integer testRunId;
+
+        Key(Class<?> domainClass, Integer testRunId) {
+            this.domainClass = domainClass;
+            this.testRunId = testRunId;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * domainClass.hashCode() + ((testRunId == null) ? 0 : testRunId.hashCode());
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) obj;
+            return domainClass.equals(other.domainClass)
+                    && ((testRunId == null) ? other.testRunId == null : testRunId.equals(other.testRunId));
+        }
+    }
+
+    private static final class Entry {
+        private final AtomicLong count;
+        private final long loaded;
+
+        Entry(long count, long loaded) {
+            this.count = new AtomicLong(count);
+            this.loaded = loaded;
+        }
+    }
+}
@@ -22,6 +22,8 @@
  */
 package com.invariantproperties.sandbox.student.business;
 
+import static com.invariantproperties.sandbox.student.business.CacheNames.INSTRUCTOR_BY_EMAIL_ADDRESS;
+import static com.invariantproperties.sandbox.student.business.CacheNames.INSTRUCTOR_BY_UUID;
 import static com.invariantproperties.sandbox.student.business.PersistenceException.Type.UNABLE_TO_COUNT;
 import static com.invariantproperties.sandbox.student.business.PersistenceException.Type.UNABLE_TO_FIND_BY_EMAIL_ADDRESS;
 import static com.invariantproperties.sandbox.student.business.PersistenceException.Type.UNABLE_TO_FIND_BY_ID;
@@ -29,19 +31,25 @@ import static com.invariantproperties.sandbox.student.business.PersistenceExcept
 import static com.invariantproperties.sandbox.student.business.PersistenceException.Type.UNABLE_TO_LIST;
 import static com.invariantproperties.sandbox.student.specification.InstructorSpecifications.testRunIs;
 
+import java.util.Collection;
 import java.util.List;
 
 import javax.annotation.Resource;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.dao.DataAccessException;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.invariantproperties.sandbox.student.datasource.ReplicaRoutingDataSource;
 import com.invariantproperties.sandbox.student.domain.Instructor;
 import com.invariantproperties.sandbox.student.domain.TestRun;
+import com.invariantproperties.sandbox.student.repository.CustomRepository;
 import com.invariantproperties.sandbox.student.repository.InstructorRepository;
+import com.invariantproperties.sandbox.student.specification.InstructorSpecifications;
 
 /**
  * Implementation of InstructorService.
@@ -57,6 +65,36 @@ public class InstructorFinderServiceImpl implements InstructorFinderService {
     @Resource
     private InstructorRepository instructorRepository;
 
+    @Resource
+    private EntityCounts entityCounts;
+
+    private final NameSearch<Instructor> nameSearch = new NameSearch<Instructor>() {
+        @Override
+        protected CustomRepository<Instructor> getRepository() {
+            return instructorRepository;
+        }
+
+        @Override
+        protected Instructor findByUuid(String uuid) {
+            return instructorRepository.findInstructorByUuid(uuid);
+        }
+
+        @Override
+        protected String getName(Instructor instructor) {
+            return instructor.getName();
+        }
+
+        @Override
+        protected Specification<Instructor> nameStartsWith(String prefix) {
+            return InstructorSpecifications.nameStartsWith(prefix);
+        }
+
+        @Override
+        protected Specification<Instructor> nameContains(String substring) {
+            return InstructorSpecifications.nameContains(substring);
+        }
+    };
+
     /**
      * Default constructor
      */
@@ -69,6 +107,7 @@ public class InstructorFinderServiceImpl implements InstructorFinderService {
      */
     InstructorFinderServiceImpl(InstructorRepository instructorRepository) {
         this.instructorRepository = instructorRepository;
+        this.entityCounts = new EntityCounts();
     }
 
     /**
@@ -88,9 +127,25 @@ public class InstructorFinderServiceImpl implements InstructorFinderService {
     @Transactional(readOnly = true)
     @Override
     public long countByTestRun(TestRun testRun) {
+        return countByTestRun(testRun, false);
+    }
+
+    /**
+     * @see com.invariantproperties.sandbox.student.business.FinderService#
+     *      countByTestRun(com.invariantproperties.sandbox.student.domain.TestRun,
+     *      boolean)
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public long countByTestRun(final TestRun testRun, boolean exact) {
         long count = 0;
         try {
-            count = instructorRepository.count(testRunIs(testRun));
+            count = entityCounts.get(Instructor.class, testRun, exact, new EntityCounts.Loader() {
+                @Override
+                public long load() {
+                    return instructorRepository.count(testRunIs(testRun));
+                }
+            });
         } catch (UnitTestException e) {
             String msg = UNABLE_TO_COUNT.format(INSTRUCTORS) + testRun;
             throw new PersistenceException(UNABLE_TO_COUNT, msg, e, 0);
@@ -143,9 +198,28 @@ public class InstructorFinderServiceImpl implements InstructorFinderService {
      * @see com.invariantproperties.sandbox.student.business.InstructorManagerService#
      *      findInstructorByUuid(java.lang.String)
      */
+    @Cacheable(INSTRUCTOR_BY_UUID)
     @Transactional(readOnly = true)
     @Override
     public Instructor findInstructorByUuid(String uuid) {
+        final Instructor instructor = findByUuidOrNull(uuid);
+
+        if (instructor == null) {
+            throw new ObjectNotFoundException(uuid);
+        }
+
+        return instructor;
+    }
+
+    /**
+     * @see com.invariantproperties.sandbox.student.business.FinderService#
+     *      findByUuidOrNull(java.lang.String)
+     */
+    @Cacheable(value = INSTRUCTOR_BY_UUID, unless = "#result == null")
+    @Transactional(readOnly = true)
+    @Override
+    public Instructor findByUuidOrNull(String uuid) {
+        ReplicaRoutingDataSource.usePrimaryForCurrentTransaction();
         Instructor instructor = null;
         try {
             instructor = instructorRepository.findInstructorByUuid(uuid);
@@ -158,10 +232,6 @@ public class InstructorFinderServiceImpl implements InstructorFinderService {
             throw new PersistenceException(UNABLE_TO_FIND_BY_UUID, msg, e, uuid);
         }
 
-        if (instructor == null) {
-            throw new ObjectNotFoundException(uuid);
-        }
-
         return instructor;
     }
 
@@ -192,9 +262,11 @@ public class InstructorFinderServiceImpl implements InstructorFinderService {
      * @see com.invariantproperties.sandbox.student.business.InstructorManagerService#
      *      findInstructorByEmailAddress(java.lang.String)
      */
+    @Cacheable(INSTRUCTOR_BY_EMAIL_ADDRESS)
     @Transactional(readOnly = true)
     @Override
     public Instructor findInstructorByEmailAddress(String emailAddress) {
+        ReplicaRoutingDataSource.usePrimaryForCurrentTransaction();
         Instructor instructor = null;
         try {
             instructor = instructorRepository.findInstructorByEmailAddress(emailAddress);
@@ -213,4 +285,134 @@ public class InstructorFinderServiceImpl implements InstructorFinderService {
 
         return instructor;
     }
+
+    /**
+     * @see com.invariantproperties.sandbox.student.business.FinderService#
+     *      findByUuids(java.util.Collection)
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public MultiGetResult<Instructor> findByUuids(Collection<String> uuids) {
+        List<Instructor> instructors = null;
+
+        try {
+            instructors = instructorRepository.findAllByUuid(uuids);
+        } catch (UnitTestException e) {
+            final String msg = UNABLE_TO_FIND_BY_UUID.format(INSTRUCTORS);
+            throw new PersistenceException(UNABLE_TO_FIND_BY_UUID, msg, e);
+        } catch (DataAccessException e) {
+            final String msg = UNABLE_TO_FIND_BY_UUID.format(INSTRUCTORS);
+            LOG.info(msg);
+            throw new PersistenceException(UNABLE_TO_FIND_BY_UUID, msg, e);
+        }
+
+        return MultiGetResult.of(uuids, instructors);
+    }
+
+    /**
+     * @see com.invariantproperties.sandbox.student.business.FinderService#
+     *      findPage(com.invariantproperties.sandbox.student.business.KeysetPage)
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public List<Instructor> findPage(KeysetPage page) {
+        return findPageByTestRun(null, page);
+    }
+
+    /**
+     * @see com.invariantproperties.sandbox.student.business.FinderService#
+     *      findPageByTestRun(com.invariantproperties.sandbox.student.domain.TestRun,
+     *      com.invariantproperties.sandbox.student.business.KeysetPage)
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public List<Instructor> findPageByTestRun(TestRun testRun, KeysetPage page) {
+        List<Instructor> instructors = null;
+        Instructor after = null;
+
+        try {
+            if (page.getAfter() != null) {
+                // seek to the cursor's position if we can - the object may
+                // have been deleted since the previous page was read.
+                after = instructorRepository.findPosition(page);
+                if (after == null) {
+                    after = instructorRepository.findInstructorByUuid(page.getAfterUuid());
+                }
+                if (after == null) {
+                    throw new ObjectNotFoundException(page.getAfter());
+                }
+            }
+            instructors = instructorRepository.findPage(testRunIs(testRun), after, page);
+        } catch (UnitTestException e) {
+            final String msg = UNABLE_TO_LIST.format(INSTRUCTORS) + page;
+            throw new PersistenceException(UNABLE_TO_LIST, msg, e);
+        } catch (DataAccessException e) {
+            final String msg = UNABLE_TO_LIST.format(INSTRUCTORS) + page;
+            LOG.info(msg);
+            throw new PersistenceException(UNABLE_TO_LIST, msg, e);
+        }
+
+        return instructors;
+    }
+
+    /**
+     * @see com.invariantproperties.sandbox.student.business.InstructorFinderService#
+     *      findInstructorsByName(java.lang.String,
+     *      com.invariantproperties.sandbox.student.business.NameMatch,
+     *      com.invariantproperties.sandbox.student.domain.TestRun,
+     *      com.invariantproperties.sandbox.student.business.KeysetPage)
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public List<Instructor> findInstructorsByName(String name, NameMatch match, TestRun testRun, KeysetPage page) {
+        List<Instructor> instructors = null;
+
+        try {
+            instructors = nameSearch.findPage(testRunIs(testRun), name, match, page);
+        } catch (UnitTestException e) {
+            final String msg = UNABLE_TO_LIST.format(INSTRUCTORS) + name;
+            throw new PersistenceException(UNABLE_TO_LIST, msg, e);
+        } catch (DataAccessException e) {
+            final String msg = UNABLE_TO_LIST.format(INSTRUCTORS) + name;
+            LOG.info(msg);
+            throw new PersistenceException(UNABLE_TO_LIST, msg, e);
+        }
+
+        return instructors;
+    }
+
+    /**
+     * @see com.invariantproperties.sandbox.student.business.FinderService#
+     *      forEach(com.invariantproperties.sandbox.student.business.ObjectHandler,
+     *      int)
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public long forEach(ObjectHandler<? super Instructor> handler, int fetchSize) {
+        return forEachByTestRun(null, handler, fetchSize);
+    }
+
+    /**
+     * @see com.invariantproperties.sandbox.student.business.FinderService#
+     *      forEachByTestRun(com.invariantproperties.sandbox.student.domain.TestRun,
+     *      com.invariantproperties.sandbox.student.business.ObjectHandler,
+     *      int)
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public long forEachByTestRun(TestRun testRun, ObjectHandler<? super Instructor> handler, int fetchSize) {
+        long count = 0;
+        try {
+            count = instructorRepository.forEach(testRunIs(testRun), fetchSize, handler);
+        } catch (UnitTestException e) {
+            final String msg = UNABLE_TO_LIST.format(INSTRUCTORS) + testRun;
+            throw new PersistenceException(UNABLE_TO_LIST, msg, e);
+        } catch (DataAccessException e) {
+            final String msg = UNABLE_TO_LIST.format(INSTRUCTORS) + testRun;
+            LOG.info(msg);
+            throw new PersistenceException(UNABLE_TO_LIST, msg, e);
+        }
+
+        return count;
+    }
 }
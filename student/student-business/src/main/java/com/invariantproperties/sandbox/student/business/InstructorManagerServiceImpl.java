@@ -22,21 +22,32 @@
  */
 package com.invariantproperties.sandbox.student.business;
 
+import static com.invariantproperties.sandbox.student.business.CacheNames.INSTRUCTOR_BY_EMAIL_ADDRESS;
+import static com.invariantproperties.sandbox.student.business.CacheNames.INSTRUCTOR_BY_UUID;
 import static com.invariantproperties.sandbox.student.business.PersistenceException.Type.UNABLE_TO_CREATE;
 import static com.invariantproperties.sandbox.student.business.PersistenceException.Type.UNABLE_TO_CREATE_FOR_TESTING;
 import static com.invariantproperties.sandbox.student.business.PersistenceException.Type.UNABLE_TO_DELETE;
 import static com.invariantproperties.sandbox.student.business.PersistenceException.Type.UNABLE_TO_UPDATE;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 import javax.annotation.Resource;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.dao.DataAccessException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.invariantproperties.sandbox.student.domain.Instructor;
 import com.invariantproperties.sandbox.student.domain.TestRun;
+import com.invariantproperties.sandbox.student.repository.CustomRepository;
 import com.invariantproperties.sandbox.student.repository.InstructorRepository;
 
 /**
@@ -53,6 +64,56 @@ public class InstructorManagerServiceImpl implements InstructorManagerService {
     @Resource
     private InstructorRepository instructorRepository;
 
+    @Resource
+    private EntityCounts entityCounts;
+
+    private final BatchSupport<Instructor> batch = new BatchSupport<Instructor>() {
+        @Override
+        protected CustomRepository<Instructor> getRepository() {
+            return instructorRepository;
+        }
+
+        @Override
+        protected Instructor copyForCreate(Instructor prototype) {
+            final Instructor instructor = new Instructor();
+            instructor.setName(prototype.getName());
+            instructor.setEmailAddress(prototype.getEmailAddress());
+            instructor.setTestRun(prototype.getTestRun());
+            return instructor;
+        }
+
+        @Override
+        protected void copyForUpdate(Instructor actual, Instructor changes) {
+            actual.setName(changes.getName());
+            actual.setEmailAddress(changes.getEmailAddress());
+        }
+
+        @Override
+        protected String validate(Instructor instructor) {
+            if (instructor.getName() == null) {
+                return String.format(REQUIRED_MESSAGE, "name");
+            }
+            if (instructor.getEmailAddress() == null) {
+                return String.format(REQUIRED_MESSAGE, "email address");
+            }
+            return null;
+        }
+
+        @Override
+        protected String getNaturalKey(Instructor instructor) {
+            return instructor.getEmailAddress();
+        }
+
+        @Override
+        protected Map<String, String> findNaturalKeys(Collection<String> keys) {
+            final Map<String, String> results = new HashMap<String, String>();
+            for (Instructor instructor : instructorRepository.findInstructorsByEmailAddressIn(keys)) {
+                results.put(instructor.getEmailAddress(), instructor.getUuid());
+            }
+            return results;
+        }
+    };
+
     /**
      * Default constructor
      */
@@ -65,6 +126,7 @@ public class InstructorManagerServiceImpl implements InstructorManagerService {
      */
     InstructorManagerServiceImpl(InstructorRepository instructorRepository) {
         this.instructorRepository = instructorRepository;
+        this.entityCounts = new EntityCounts();
     }
 
     /**
@@ -81,6 +143,7 @@ public class InstructorManagerServiceImpl implements InstructorManagerService {
         Instructor actual = null;
         try {
             actual = instructorRepository.saveAndFlush(instructor);
+            entityCounts.adjust(Instructor.class, instructor.getTestRun(), 1);
         } catch (UnitTestException e) {
             final String msg = UNABLE_TO_CREATE.format(INSTRUCTOR);
             throw new PersistenceException(UNABLE_TO_CREATE, msg, e);
@@ -109,6 +172,7 @@ public class InstructorManagerServiceImpl implements InstructorManagerService {
         Instructor actual = null;
         try {
             actual = instructorRepository.saveAndFlush(instructor);
+            entityCounts.adjust(Instructor.class, instructor.getTestRun(), 1);
         } catch (UnitTestException e) {
             final String msg = UNABLE_TO_CREATE_FOR_TESTING.format(INSTRUCTOR);
             throw new PersistenceException(UNABLE_TO_CREATE_FOR_TESTING, msg, e);
@@ -126,6 +190,8 @@ public class InstructorManagerServiceImpl implements InstructorManagerService {
      *      updateInstructor(com.invariantproperties.sandbox.instructor.domain.Instructor,
      *      java.lang.String, java.lang.String)
      */
+    @Caching(evict = { @CacheEvict(value = INSTRUCTOR_BY_UUID, key = "#instructor.uuid", beforeInvocation = true),
+            @CacheEvict(value = INSTRUCTOR_BY_EMAIL_ADDRESS, allEntries = true, beforeInvocation = true) })
     @Transactional
     @Override
     public Instructor updateInstructor(Instructor instructor, String name, String emailAddress) {
@@ -141,8 +207,6 @@ public class InstructorManagerServiceImpl implements InstructorManagerService {
             actual.setName(name);
             actual.setEmailAddress(emailAddress);
             updated = instructorRepository.saveAndFlush(actual);
-            instructor.setName(name);
-            instructor.setEmailAddress(emailAddress);
 
         } catch (UnitTestException e) {
             final String msg = UNABLE_TO_UPDATE.format(INSTRUCTOR);
@@ -160,9 +224,16 @@ public class InstructorManagerServiceImpl implements InstructorManagerService {
      * @see com.invariantproperties.sandbox.student.business.InstructorManagerService#
      *      deleteInstructor(java.lang.String, java.lang.Integer)
      */
+    @Caching(evict = { @CacheEvict(value = INSTRUCTOR_BY_UUID, key = "#uuid", beforeInvocation = true),
+            @CacheEvict(value = INSTRUCTOR_BY_EMAIL_ADDRESS, allEntries = true, beforeInvocation = true) })
     @Transactional
     @Override
     public void deleteInstructor(String uuid, Integer version) {
+        if (version != null) {
+            deleteIfVersion(uuid, version);
+            return;
+        }
+
         Instructor instructor = null;
         try {
             instructor = instructorRepository.findInstructorByUuid(uuid);
@@ -172,6 +243,7 @@ public class InstructorManagerServiceImpl implements InstructorManagerService {
                 throw new ObjectNotFoundException(uuid);
             }
             instructorRepository.delete(instructor);
+            entityCounts.adjust(Instructor.class, instructor.getTestRun(), -1);
 
         } catch (UnitTestException e) {
             final String msg = UNABLE_TO_DELETE.format(INSTRUCTOR);
@@ -182,4 +254,93 @@ public class InstructorManagerServiceImpl implements InstructorManagerService {
             throw new PersistenceException(UNABLE_TO_DELETE, msg, e);
         }
     }
+
+    /**
+     * @see com.invariantproperties.sandbox.student.business.ManagerService#
+     *      createAll(java.util.List)
+     */
+    @Transactional
+    @Override
+    public BatchResult<Instructor> createAll(List<Instructor> instructors) {
+        try {
+            final BatchResult<Instructor> results = batch.createAll(instructors);
+            entityCounts.invalidate(Instructor.class);
+            return results;
+        } catch (UnitTestException e) {
+            final String msg = UNABLE_TO_CREATE.format(INSTRUCTOR);
+            throw new PersistenceException(UNABLE_TO_CREATE, msg, e);
+        } catch (DataAccessException e) {
+            final String msg = UNABLE_TO_CREATE.format(INSTRUCTOR);
+            LOG.info(msg);
+            throw new PersistenceException(UNABLE_TO_CREATE, msg, e);
+        }
+    }
+
+    /**
+     * @see com.invariantproperties.sandbox.student.business.ManagerService#
+     *      updateAll(java.util.List)
+     */
+    @Caching(evict = { @CacheEvict(value = INSTRUCTOR_BY_UUID, allEntries = true, beforeInvocation = true),
+            @CacheEvict(value = INSTRUCTOR_BY_EMAIL_ADDRESS, allEntries = true, beforeInvocation = true) })
+    @Transactional
+    @Override
+    public BatchResult<Instructor> updateAll(List<Instructor> instructors) {
+        try {
+            return batch.updateAll(instructors);
+        } catch (UnitTestException e) {
+            final String msg = UNABLE_TO_UPDATE.format(INSTRUCTOR);
+            throw new PersistenceException(UNABLE_TO_UPDATE, msg, e);
+        } catch (DataAccessException e) {
+            final String msg = UNABLE_TO_UPDATE.format(INSTRUCTOR);
+            LOG.info(msg);
+            throw new PersistenceException(UNABLE_TO_UPDATE, msg, e);
+        }
+    }
+
+    /**
+     * @see com.invariantproperties.sandbox.student.business.ManagerService#
+     *      updateIfVersion(com.invariantproperties.sandbox.student.domain.PersistentObject)
+     */
+    @Caching(evict = { @CacheEvict(value = INSTRUCTOR_BY_UUID, key = "#changes.uuid", beforeInvocation = true),
+            @CacheEvict(value = INSTRUCTOR_BY_EMAIL_ADDRESS, allEntries = true, beforeInvocation = true) })
+    @Transactional
+    @Override
+    public Integer updateIfVersion(Instructor changes) {
+        final Map<String, Object> values = new LinkedHashMap<String, Object>();
+        values.put("name", changes.getName());
+        values.put("emailAddress", changes.getEmailAddress());
+
+        try {
+            return ConditionalWrites.update(instructorRepository, changes, values);
+        } catch (UnitTestException e) {
+            final String msg = UNABLE_TO_UPDATE.format(INSTRUCTOR);
+            throw new PersistenceException(UNABLE_TO_UPDATE, msg, e, changes.getUuid());
+        } catch (DataAccessException e) {
+            final String msg = UNABLE_TO_UPDATE.format(INSTRUCTOR);
+            LOG.info(msg);
+            throw new PersistenceException(UNABLE_TO_UPDATE, msg, e, changes.getUuid());
+        }
+    }
+
+    /**
+     * @see com.invariantproperties.sandbox.student.business.ManagerService#
+     *      deleteIfVersion(java.lang.String, java.lang.Integer)
+     */
+    @Caching(evict = { @CacheEvict(value = INSTRUCTOR_BY_UUID, key = "#uuid", beforeInvocation = true),
+            @CacheEvict(value = INSTRUCTOR_BY_EMAIL_ADDRESS, allEntries = true, beforeInvocation = true) })
+    @Transactional
+    @Override
+    public void deleteIfVersion(String uuid, Integer version) {
+        try {
+            ConditionalWrites.delete(instructorRepository, uuid, version);
+            entityCounts.invalidate(Instructor.class);
+        } catch (UnitTestException e) {
+            final String msg = UNABLE_TO_DELETE.format(INSTRUCTOR);
+            throw new PersistenceException(UNABLE_TO_DELETE, msg, e, uuid);
+        } catch (DataAccessException e) {
+            final String msg = UNABLE_TO_DELETE.format(INSTRUCTOR);
+            LOG.info(msg);
+            throw new PersistenceException(UNABLE_TO_DELETE, msg, e, uuid);
+        }
+    }
 }
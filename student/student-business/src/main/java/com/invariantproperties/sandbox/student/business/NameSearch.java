@@ -0,0 +1,146 @@
+/*
+ * This code was written by Bear Giles <bgiles@coyotesong.com> and he
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Any contributions made by others are licensed to this project under
+ * one or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright (c) 2013 Bear Giles <bgiles@coyotesong.com>
+ */
+package com.invariantproperties.sandbox.student.business;
+
+import static org.springframework.data.jpa.domain.Specifications.not;
+import static org.springframework.data.jpa.domain.Specifications.where;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import com.invariantproperties.sandbox.student.domain.PersistentObject;
+import com.invariantproperties.sandbox.student.repository.CustomRepository;
+
+/**
+ * Common implementation of the name searches. Both kinds of search are keyset
+ * paginated on the name.
+ * 
+ * A substring search lists the prefix matches first. It's two searches - the
+ * prefix matches and then the remaining substring matches - and the last
+ * object on the previous page tells us which search a page starts in. Each
+ * search is an ordinary keyset page so there's no sort on a computed
+ * relevance.
+ * 
+ * @author Bear Giles <bgiles@coyotesong.com>
+ * 
+ * @param <T>
+ */
+abstract class NameSearch<T extends PersistentObject> {
+    static final String NAME = "name";
+
+    /**
+     * Get the repository.
+     */
+    protected abstract CustomRepository<T> getRepository();
+
+    /**
+     * Find the object with the specified uuid.
+     * 
+     * @return object, or null if it doesn't exist.
+     */
+    protected abstract T findByUuid(String uuid);
+
+    /**
+     * Get the name of an object.
+     */
+    protected abstract String getName(T object);
+
+    /**
+     * Create the specification for names that start with the prefix.
+     */
+    protected abstract Specification<T> nameStartsWith(String prefix);
+
+    /**
+     * Create the specification for names that contain the substring.
+     */
+    protected abstract Specification<T> nameContains(String substring);
+
+    /**
+     * Find a page of objects by name.
+     * 
+     * @param spec
+     *            additional restriction, e.g., the test run
+     * @param name
+     * @param match
+     * @param page
+     *            should be sorted by name so the cursor contains the name
+     * @return
+     * @throws ObjectNotFoundException
+     *             if the cursor only has the uuid and the 'after' object
+     *             doesn't exist
+     * @throws IllegalArgumentException
+     *             if a substring search term is shorter than
+     *             MIN_SUBSTRING_LENGTH
+     */
+    List<T> findPage(Specification<T> spec, String name, NameMatch match, KeysetPage page) {
+        if (!match.accepts(name)) {
+            throw new IllegalArgumentException("substring search term is too short: " + name);
+        }
+
+        final KeysetPage byName = page.sortedBy(NAME);
+
+        T after = null;
+        if (page.getAfter() != null) {
+            // the cursor only contains the name if the caller's page was
+            // sorted by name. Otherwise we have to look up the object.
+            if (NAME.equals(page.getSortProperty())) {
+                after = getRepository().findPosition(byName);
+            }
+            if (after == null) {
+                after = findByUuid(page.getAfterUuid());
+            }
+            if (after == null) {
+                throw new ObjectNotFoundException(page.getAfter());
+            }
+        }
+
+        final Specification<T> prefix = where(spec).and(nameStartsWith(name));
+
+        if (match == NameMatch.PREFIX) {
+            return getRepository().findPage(prefix, after, byName);
+        }
+
+        final List<T> results = new ArrayList<T>(page.getMaxResults());
+        if (after == null || startsWith(getName(after), name)) {
+            results.addAll(getRepository().findPage(prefix, after, byName));
+            if (results.size() == page.getMaxResults()) {
+                return results;
+            }
+            after = null;
+        }
+
+        final Specification<T> rest = where(spec).and(nameContains(name)).and(not(nameStartsWith(name)));
+        final KeysetPage restByName = new KeysetPage(null, page.getMaxResults() - results.size(), NAME,
+                page.isAscending(), page.getFields());
+        results.addAll(getRepository().findPage(rest, after, restByName));
+
+        return results;
+    }
+
+    private static boolean startsWith(String value, String prefix) {
+        return value != null && value.toLowerCase(Locale.ROOT).startsWith(prefix.toLowerCase(Locale.ROOT));
+    }
+}
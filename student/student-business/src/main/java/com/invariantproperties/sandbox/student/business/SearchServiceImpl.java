@@ -0,0 +1,379 @@
+/*
+ * This code was written by Bear Giles <bgiles@coyotesong.com> and he
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Any contributions made by others are licensed to this project under
+ * one or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright (c) 2013 Bear Giles <bgiles@coyotesong.com>
+ */
+package com.invariantproperties.sandbox.student.business;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.env.Environment;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.invariantproperties.sandbox.student.domain.Course;
+import com.invariantproperties.sandbox.student.domain.EntityChangeListener;
+import com.invariantproperties.sandbox.student.domain.EntityChanges;
+import com.invariantproperties.sandbox.student.domain.Instructor;
+import com.invariantproperties.sandbox.student.domain.PersistentObject;
+import com.invariantproperties.sandbox.student.domain.Student;
+import com.invariantproperties.sandbox.student.domain.TestablePersistentObject;
+import com.invariantproperties.sandbox.student.repository.CourseRepository;
+import com.invariantproperties.sandbox.student.repository.InstructorRepository;
+import com.invariantproperties.sandbox.student.repository.StudentRepository;
+import com.invariantproperties.sandbox.student.search.IndexSegment;
+import com.invariantproperties.sandbox.student.search.InvertedIndex;
+import com.invariantproperties.sandbox.student.specification.CourseSpecifications;
+import com.invariantproperties.sandbox.student.specification.InstructorSpecifications;
+import com.invariantproperties.sandbox.student.specification.StudentSpecifications;
+
+/**
+ * Implementation of SearchService using an in-process inverted index.
+ * 
+ * The index is loaded when the service starts - from the saved segment if
+ * there is one and its stamp matches the database, otherwise from the
+ * database. The stamp is the number of objects, highest primary key and sum
+ * of the versions of each type so any insert, update or delete made while we
+ * weren't listening (e.g., before a crash) forces a rebuild. After that the
+ * index is kept current by the JPA entity listeners. The changes are applied
+ * after the transaction commits so searches never see uncommitted data. The
+ * segment is saved again when the service stops.
+ * 
+ * The index is only correct on a single node. The EntityChanges listener
+ * registry is static per JVM so changes made by another instance of the
+ * application, or directly in the database, are never seen until the index is
+ * rebuilt.
+ * 
+ * The segment location is set by the 'search.segment.file' property. The
+ * index is only kept in memory if it isn't set.
+ * 
+ * Test data is never indexed.
+ * 
+ * @author Bear Giles <bgiles@coyotesong.com>
+ */
+@Service
+public class SearchServiceImpl implements SearchService {
+    private static final Logger LOG = LoggerFactory.getLogger(SearchServiceImpl.class);
+    public static final String PROPERTY_NAME_SEGMENT_FILE = "search.segment.file";
+    private static final int FETCH_SIZE = 500;
+
+    @Resource
+    private CourseFinderService courseFinder;
+
+    @Resource
+    private StudentFinderService studentFinder;
+
+    @Resource
+    private InstructorFinderService instructorFinder;
+
+    @Resource
+    private CourseRepository courseRepository;
+
+    @Resource
+    private StudentRepository studentRepository;
+
+    @Resource
+    private InstructorRepository instructorRepository;
+
+    @Resource
+    private Environment environment;
+
+    private File segment;
+    private volatile InvertedIndex index = new InvertedIndex();
+
+    private final EntityChangeListener listener = new EntityChangeListener() {
+        @Override
+        public void persisted(PersistentObject entity) {
+            if (isIndexed(entity)) {
+                final String uuid = entity.getUuid();
+                final String type = entity.getClass().getSimpleName();
+                final String title = getTitle(entity);
+                final String text = getText(entity);
+                afterCommit(new Runnable() {
+                    @Override
+                    public void run() {
+                        index.put(uuid, type, title, text);
+                    }
+                });
+            }
+        }
+
+        /**
+         * Bulk updates only have the updated values so we only replace
+         * documents that are already in the index - anything else is test
+         * data.
+         */
+        @Override
+        public void updated(PersistentObject entity) {
+            if (isIndexed(entity)) {
+                final String uuid = entity.getUuid();
+                final String type = entity.getClass().getSimpleName();
+                final String title = getTitle(entity);
+                final String text = getText(entity);
+                afterCommit(new Runnable() {
+                    @Override
+                    public void run() {
+                        index.update(uuid, type, title, text);
+                    }
+                });
+            }
+        }
+
+        @Override
+        public void removed(final String uuid) {
+            afterCommit(new Runnable() {
+                @Override
+                public void run() {
+                    index.remove(uuid);
+                }
+            });
+        }
+    };
+
+    /**
+     * Default constructor
+     */
+    public SearchServiceImpl() {
+
+    }
+
+    /**
+     * Constructor used in unit tests
+     */
+    SearchServiceImpl(CourseFinderService courseFinder, StudentFinderService studentFinder,
+            InstructorFinderService instructorFinder, CourseRepository courseRepository,
+            StudentRepository studentRepository, InstructorRepository instructorRepository, File segment) {
+        this.courseFinder = courseFinder;
+        this.studentFinder = studentFinder;
+        this.instructorFinder = instructorFinder;
+        this.courseRepository = courseRepository;
+        this.studentRepository = studentRepository;
+        this.instructorRepository = instructorRepository;
+        this.segment = segment;
+    }
+
+    /**
+     * Load the index and start listening for changes.
+     */
+    @PostConstruct
+    public void init() {
+        if (environment != null && environment.getProperty(PROPERTY_NAME_SEGMENT_FILE) != null) {
+            segment = new File(environment.getProperty(PROPERTY_NAME_SEGMENT_FILE));
+        }
+
+        EntityChanges.addListener(listener);
+
+        if (!load()) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Stop listening for changes and save the index.
+     */
+    @PreDestroy
+    public void destroy() {
+        EntityChanges.removeListener(listener);
+        if (segment != null) {
+            try {
+                save(getChangeStamp());
+            } catch (DataAccessException e) {
+                LOG.warn("unable to save search index segment: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * @see com.invariantproperties.sandbox.student.business.SearchService#
+     *      search(java.lang.String, int)
+     */
+    @Override
+    public List<SearchHit> search(String query, int maxResults) {
+        return index.search(query, null, maxResults);
+    }
+
+    /**
+     * @see com.invariantproperties.sandbox.student.business.SearchService#
+     *      search(java.lang.String, java.lang.String, int)
+     */
+    @Override
+    public List<SearchHit> search(String query, String type, int maxResults) {
+        return index.search(query, type, maxResults);
+    }
+
+    /**
+     * @see com.invariantproperties.sandbox.student.business.SearchService#
+     *      rebuild()
+     */
+    @Override
+    public long rebuild() {
+        // the stamp is read first so changes made during the rebuild make
+        // the segment stale.
+        final String stamp = (segment == null) ? null : getChangeStamp();
+        final InvertedIndex fresh = new InvertedIndex();
+        final ObjectHandler<PersistentObject> handler = new ObjectHandler<PersistentObject>() {
+            @Override
+            public void handle(PersistentObject object) {
+                fresh.put(object.getUuid(), object.getClass().getSimpleName(), getTitle(object), getText(object));
+            }
+        };
+
+        long count = courseFinder.forEach(handler, FETCH_SIZE);
+        count += studentFinder.forEach(handler, FETCH_SIZE);
+        count += instructorFinder.forEach(handler, FETCH_SIZE);
+
+        index = fresh;
+        LOG.info("search index rebuilt: {} objects", count);
+
+        save(stamp);
+        return count;
+    }
+
+    /**
+     * Load the saved segment. It's discarded if its stamp doesn't match the
+     * database since that means the database was changed while we weren't
+     * listening.
+     * 
+     * @return true if the segment was loaded
+     */
+    boolean load() {
+        if (segment == null || !segment.exists()) {
+            return false;
+        }
+
+        final InvertedIndex saved = new InvertedIndex();
+        try {
+            final String stamp = IndexSegment.readStamp(segment);
+            final String expected = getChangeStamp();
+            if (!expected.equals(stamp)) {
+                LOG.info("search index segment is stale: {}, expected {}", stamp, expected);
+                return false;
+            }
+            IndexSegment.read(segment, saved);
+        } catch (IOException e) {
+            LOG.warn("unable to read search index segment: {}", e.getMessage());
+            return false;
+        }
+
+        index = saved;
+        LOG.info("search index loaded: {} objects", saved.size());
+        return true;
+    }
+
+    /**
+     * Save the index to the segment, if there is one.
+     * 
+     * @param stamp
+     *            database state the index reflects
+     */
+    void save(String stamp) {
+        if (segment != null) {
+            try {
+                IndexSegment.write(segment, index, stamp);
+            } catch (IOException e) {
+                LOG.warn("unable to write search index segment: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Get the stamp of the indexed objects in the database. Test data isn't
+     * included since it's never indexed.
+     * 
+     * @return
+     */
+    String getChangeStamp() {
+        return "Course=" + courseRepository.findChangeStamp(CourseSpecifications.testRunIs(null)) + ",Student="
+                + studentRepository.findChangeStamp(StudentSpecifications.testRunIs(null)) + ",Instructor="
+                + instructorRepository.findChangeStamp(InstructorSpecifications.testRunIs(null));
+    }
+
+    InvertedIndex getIndex() {
+        return index;
+    }
+
+    static boolean isIndexed(PersistentObject entity) {
+        if (!(entity instanceof Course || entity instanceof Student || entity instanceof Instructor)) {
+            return false;
+        }
+        return !((TestablePersistentObject) entity).isTestData();
+    }
+
+    static String getTitle(PersistentObject entity) {
+        if (entity instanceof Course) {
+            return ((Course) entity).getName();
+        } else if (entity instanceof Student) {
+            return ((Student) entity).getName();
+        } else if (entity instanceof Instructor) {
+            return ((Instructor) entity).getName();
+        }
+        return null;
+    }
+
+    /**
+     * Get the indexed text. The course code isn't included since it isn't
+     * available when a course is changed by a bulk update.
+     * 
+     * @param entity
+     * @return
+     */
+    static String getText(PersistentObject entity) {
+        if (entity instanceof Course) {
+            final Course course = (Course) entity;
+            final StringBuilder sb = new StringBuilder();
+            for (String value : new String[] { course.getName(), course.getSummary(), course.getDescription() }) {
+                if (value != null) {
+                    sb.append(value).append(' ');
+                }
+            }
+            return sb.toString();
+        }
+        return getTitle(entity);
+    }
+
+    /**
+     * Apply an index change after the current transaction commits, or
+     * immediately if there is no transaction.
+     * 
+     * @param change
+     */
+    static void afterCommit(final Runnable change) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    change.run();
+                }
+            });
+        } else {
+            change.run();
+        }
+    }
+}
@@ -22,22 +22,26 @@
  */
 package com.invariantproperties.sandbox.student.business;
 
+import static com.invariantproperties.sandbox.student.business.CacheNames.SECTION_BY_UUID;
 import static com.invariantproperties.sandbox.student.business.PersistenceException.Type.UNABLE_TO_COUNT;
 import static com.invariantproperties.sandbox.student.business.PersistenceException.Type.UNABLE_TO_FIND_BY_ID;
 import static com.invariantproperties.sandbox.student.business.PersistenceException.Type.UNABLE_TO_FIND_BY_UUID;
 import static com.invariantproperties.sandbox.student.business.PersistenceException.Type.UNABLE_TO_LIST;
 import static com.invariantproperties.sandbox.student.specification.SectionSpecifications.testRunIs;
 
+import java.util.Collection;
 import java.util.List;
 
 import javax.annotation.Resource;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.dao.DataAccessException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.invariantproperties.sandbox.student.datasource.ReplicaRoutingDataSource;
 import com.invariantproperties.sandbox.student.domain.Section;
 import com.invariantproperties.sandbox.student.domain.TestRun;
 import com.invariantproperties.sandbox.student.repository.SectionRepository;
@@ -56,6 +60,9 @@ public class SectionFinderServiceImpl implements SectionFinderService {
     @Resource
     private SectionRepository sectionRepository;
 
+    @Resource
+    private EntityCounts entityCounts;
+
     /**
      * Default constructor
      */
@@ -68,6 +75,7 @@ public class SectionFinderServiceImpl implements SectionFinderService {
      */
     SectionFinderServiceImpl(SectionRepository sectionRepository) {
         this.sectionRepository = sectionRepository;
+        this.entityCounts = new EntityCounts();
     }
 
     /**
@@ -87,9 +95,25 @@ public class SectionFinderServiceImpl implements SectionFinderService {
     @Transactional(readOnly = true)
     @Override
     public long countByTestRun(TestRun testRun) {
+        return countByTestRun(testRun, false);
+    }
+
+    /**
+     * @see com.invariantproperties.sandbox.student.business.FinderService#
+     *      countByTestRun(com.invariantproperties.sandbox.student.domain.TestRun,
+     *      boolean)
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public long countByTestRun(final TestRun testRun, boolean exact) {
         long count = 0;
         try {
-            count = sectionRepository.count(testRunIs(testRun));
+            count = entityCounts.get(Section.class, testRun, exact, new EntityCounts.Loader() {
+                @Override
+                public long load() {
+                    return sectionRepository.count(testRunIs(testRun));
+                }
+            });
         } catch (UnitTestException e) {
             final String msg = UNABLE_TO_COUNT.format(SECTIONS) + testRun;
             throw new PersistenceException(UNABLE_TO_COUNT, msg, e, 0);
@@ -142,9 +166,28 @@ public class SectionFinderServiceImpl implements SectionFinderService {
      * @see com.invariantproperties.sandbox.student.business.SectionFinderService#
      *      findSectionByUuid(java.lang.String)
      */
+    @Cacheable(SECTION_BY_UUID)
     @Transactional(readOnly = true)
     @Override
     public Section findSectionByUuid(String uuid) {
+        final Section section = findByUuidOrNull(uuid);
+
+        if (section == null) {
+            throw new ObjectNotFoundException(uuid);
+        }
+
+        return section;
+    }
+
+    /**
+     * @see com.invariantproperties.sandbox.student.business.FinderService#
+     *      findByUuidOrNull(java.lang.String)
+     */
+    @Cacheable(value = SECTION_BY_UUID, unless = "#result == null")
+    @Transactional(readOnly = true)
+    @Override
+    public Section findByUuidOrNull(String uuid) {
+        ReplicaRoutingDataSource.usePrimaryForCurrentTransaction();
         Section section = null;
         try {
             section = sectionRepository.findSectionByUuid(uuid);
@@ -157,6 +200,36 @@ public class SectionFinderServiceImpl implements SectionFinderService {
             throw new PersistenceException(UNABLE_TO_FIND_BY_UUID, msg, e, uuid);
         }
 
+        return section;
+    }
+
+    /**
+     * The course and students are fetched with the section. The classrooms are
+     * a second collection so they're loaded by a second query while the
+     * persistence context is still open. Sections of the same course share the
+     * batch-fetched course.
+     * 
+     * @see com.invariantproperties.sandbox.student.business.SectionFinderService#
+     *      findSectionRosterByUuid(java.lang.String)
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public Section findSectionRosterByUuid(String uuid) {
+        Section section = null;
+        try {
+            section = sectionRepository.findSectionRosterByUuid(uuid);
+            if (section != null) {
+                section.getClassrooms().size();
+            }
+        } catch (UnitTestException e) {
+            final String msg = UNABLE_TO_FIND_BY_UUID.format(SECTION);
+            throw new PersistenceException(UNABLE_TO_FIND_BY_UUID, msg, e, uuid);
+        } catch (DataAccessException e) {
+            final String msg = UNABLE_TO_FIND_BY_UUID.format(SECTION);
+            LOG.info(msg);
+            throw new PersistenceException(UNABLE_TO_FIND_BY_UUID, msg, e, uuid);
+        }
+
         if (section == null) {
             throw new ObjectNotFoundException(uuid);
         }
@@ -186,4 +259,108 @@ public class SectionFinderServiceImpl implements SectionFinderService {
 
         return sections;
     }
+
+    /**
+     * @see com.invariantproperties.sandbox.student.business.FinderService#
+     *      findByUuids(java.util.Collection)
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public MultiGetResult<Section> findByUuids(Collection<String> uuids) {
+        List<Section> sections = null;
+
+        try {
+            sections = sectionRepository.findAllByUuid(uuids);
+        } catch (UnitTestException e) {
+            final String msg = UNABLE_TO_FIND_BY_UUID.format(SECTIONS);
+            throw new PersistenceException(UNABLE_TO_FIND_BY_UUID, msg, e);
+        } catch (DataAccessException e) {
+            final String msg = UNABLE_TO_FIND_BY_UUID.format(SECTIONS);
+            LOG.info(msg);
+            throw new PersistenceException(UNABLE_TO_FIND_BY_UUID, msg, e);
+        }
+
+        return MultiGetResult.of(uuids, sections);
+    }
+
+    /**
+     * @see com.invariantproperties.sandbox.student.business.FinderService#
+     *      findPage(com.invariantproperties.sandbox.student.business.KeysetPage)
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public List<Section> findPage(KeysetPage page) {
+        return findPageByTestRun(null, page);
+    }
+
+    /**
+     * @see com.invariantproperties.sandbox.student.business.FinderService#
+     *      findPageByTestRun(com.invariantproperties.sandbox.student.domain.TestRun,
+     *      com.invariantproperties.sandbox.student.business.KeysetPage)
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public List<Section> findPageByTestRun(TestRun testRun, KeysetPage page) {
+        List<Section> sections = null;
+        Section after = null;
+
+        try {
+            if (page.getAfter() != null) {
+                // seek to the cursor's position if we can - the object may
+                // have been deleted since the previous page was read.
+                after = sectionRepository.findPosition(page);
+                if (after == null) {
+                    after = sectionRepository.findSectionByUuid(page.getAfterUuid());
+                }
+                if (after == null) {
+                    throw new ObjectNotFoundException(page.getAfter());
+                }
+            }
+            sections = sectionRepository.findPage(testRunIs(testRun), after, page);
+        } catch (UnitTestException e) {
+            final String msg = UNABLE_TO_LIST.format(SECTIONS) + page;
+            throw new PersistenceException(UNABLE_TO_LIST, msg, e);
+        } catch (DataAccessException e) {
+            final String msg = UNABLE_TO_LIST.format(SECTIONS) + page;
+            LOG.info(msg);
+            throw new PersistenceException(UNABLE_TO_LIST, msg, e);
+        }
+
+        return sections;
+    }
+
+    /**
+     * @see com.invariantproperties.sandbox.student.business.FinderService#
+     *      forEach(com.invariantproperties.sandbox.student.business.ObjectHandler,
+     *      int)
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public long forEach(ObjectHandler<? super Section> handler, int fetchSize) {
+        return forEachByTestRun(null, handler, fetchSize);
+    }
+
+    /**
+     * @see com.invariantproperties.sandbox.student.business.FinderService#
+     *      forEachByTestRun(com.invariantproperties.sandbox.student.domain.TestRun,
+     *      com.invariantproperties.sandbox.student.business.ObjectHandler,
+     *      int)
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public long forEachByTestRun(TestRun testRun, ObjectHandler<? super Section> handler, int fetchSize) {
+        long count = 0;
+        try {
+            count = sectionRepository.forEach(testRunIs(testRun), fetchSize, handler);
+        } catch (UnitTestException e) {
+            final String msg = UNABLE_TO_LIST.format(SECTIONS) + testRun;
+            throw new PersistenceException(UNABLE_TO_LIST, msg, e);
+        } catch (DataAccessException e) {
+            final String msg = UNABLE_TO_LIST.format(SECTIONS) + testRun;
+            LOG.info(msg);
+            throw new PersistenceException(UNABLE_TO_LIST, msg, e);
+        }
+
+        return count;
+    }
 }
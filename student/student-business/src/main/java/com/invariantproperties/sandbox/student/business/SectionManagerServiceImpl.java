@@ -22,21 +22,31 @@
  */
 package com.invariantproperties.sandbox.student.business;
 
+import static com.invariantproperties.sandbox.student.business.CacheNames.SECTION_BY_UUID;
 import static com.invariantproperties.sandbox.student.business.PersistenceException.Type.UNABLE_TO_CREATE;
 import static com.invariantproperties.sandbox.student.business.PersistenceException.Type.UNABLE_TO_CREATE_FOR_TESTING;
 import static com.invariantproperties.sandbox.student.business.PersistenceException.Type.UNABLE_TO_DELETE;
 import static com.invariantproperties.sandbox.student.business.PersistenceException.Type.UNABLE_TO_UPDATE;
 
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 import javax.annotation.Resource;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.dao.DataAccessException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.invariantproperties.sandbox.student.domain.Classroom;
+import com.invariantproperties.sandbox.student.domain.Course;
 import com.invariantproperties.sandbox.student.domain.Section;
+import com.invariantproperties.sandbox.student.domain.Student;
 import com.invariantproperties.sandbox.student.domain.TestRun;
+import com.invariantproperties.sandbox.student.repository.CustomRepository;
 import com.invariantproperties.sandbox.student.repository.SectionRepository;
 
 /**
@@ -53,6 +63,37 @@ public class SectionManagerServiceImpl implements SectionManagerService {
     @Resource
     private SectionRepository sectionRepository;
 
+    @Resource
+    private EntityCounts entityCounts;
+
+    private final BatchSupport<Section> batch = new BatchSupport<Section>() {
+        @Override
+        protected CustomRepository<Section> getRepository() {
+            return sectionRepository;
+        }
+
+        @Override
+        protected Section copyForCreate(Section prototype) {
+            final Section section = new Section();
+            section.setName(prototype.getName());
+            section.setTestRun(prototype.getTestRun());
+            return section;
+        }
+
+        @Override
+        protected void copyForUpdate(Section actual, Section changes) {
+            actual.setName(changes.getName());
+        }
+
+        @Override
+        protected String validate(Section section) {
+            if (section.getName() == null) {
+                return String.format(REQUIRED_MESSAGE, "name");
+            }
+            return null;
+        }
+    };
+
     /**
      * Default constructor
      */
@@ -65,6 +106,7 @@ public class SectionManagerServiceImpl implements SectionManagerService {
      */
     SectionManagerServiceImpl(SectionRepository sectionRepository) {
         this.sectionRepository = sectionRepository;
+        this.entityCounts = new EntityCounts();
     }
 
     /**
@@ -80,6 +122,7 @@ public class SectionManagerServiceImpl implements SectionManagerService {
         Section actual = null;
         try {
             actual = sectionRepository.saveAndFlush(section);
+            entityCounts.adjust(Section.class, section.getTestRun(), 1);
         } catch (UnitTestException e) {
             final String msg = UNABLE_TO_CREATE.format(SECTION);
             throw new PersistenceException(UNABLE_TO_CREATE, msg, e);
@@ -107,6 +150,7 @@ public class SectionManagerServiceImpl implements SectionManagerService {
         Section actual = null;
         try {
             actual = sectionRepository.saveAndFlush(section);
+            entityCounts.adjust(Section.class, section.getTestRun(), 1);
         } catch (UnitTestException e) {
             final String msg = UNABLE_TO_CREATE_FOR_TESTING.format(SECTION);
             throw new PersistenceException(UNABLE_TO_CREATE_FOR_TESTING, msg, e);
@@ -124,6 +168,7 @@ public class SectionManagerServiceImpl implements SectionManagerService {
      *      updateSection(com.invariantproperties.sandbox.section.domain.Section,
      *      java.lang.String)
      */
+    @CacheEvict(value = SECTION_BY_UUID, key = "#section.uuid", beforeInvocation = true)
     @Transactional
     @Override
     public Section updateSection(Section section, String name) {
@@ -138,7 +183,48 @@ public class SectionManagerServiceImpl implements SectionManagerService {
 
             actual.setName(name);
             updated = sectionRepository.saveAndFlush(actual);
-            section.setName(name);
+
+        } catch (UnitTestException e) {
+            final String msg = UNABLE_TO_UPDATE.format(SECTION);
+            throw new PersistenceException(UNABLE_TO_UPDATE, msg, e);
+        } catch (DataAccessException e) {
+            final String msg = UNABLE_TO_UPDATE.format(SECTION);
+            LOG.info(msg);
+            throw new PersistenceException(UNABLE_TO_UPDATE, msg, e);
+        }
+
+        return updated;
+    }
+
+    /**
+     * The course, students and classrooms must already be persistent - the
+     * associations don't cascade.
+     * 
+     * @see com.invariantproperties.sandbox.student.business.SectionManagerService#
+     *      updateSectionRoster(com.invariantproperties.sandbox.student.domain.Section,
+     *      com.invariantproperties.sandbox.student.domain.Course,
+     *      java.util.List, java.util.List)
+     */
+    @CacheEvict(value = SECTION_BY_UUID, key = "#section.uuid", beforeInvocation = true)
+    @Transactional
+    @Override
+    public Section updateSectionRoster(Section section, Course course, List<Student> students,
+            List<Classroom> classrooms) {
+        Section updated = null;
+        try {
+            final Section actual = sectionRepository.findSectionByUuid(section.getUuid());
+
+            if (actual == null) {
+                LOG.debug(COULD_NOT_FIND_MESSAGE + section.getUuid());
+                throw new ObjectNotFoundException(section.getUuid());
+            }
+
+            actual.setCourse(course);
+            actual.getStudents().clear();
+            actual.getStudents().addAll(students);
+            actual.getClassrooms().clear();
+            actual.getClassrooms().addAll(classrooms);
+            updated = sectionRepository.saveAndFlush(actual);
 
         } catch (UnitTestException e) {
             final String msg = UNABLE_TO_UPDATE.format(SECTION);
@@ -156,9 +242,15 @@ public class SectionManagerServiceImpl implements SectionManagerService {
      * @see com.invariantproperties.sandbox.student.business.SectionFinderService#
      *      deleteSection(java.lang.String, java.lang.Integer)
      */
+    @CacheEvict(value = SECTION_BY_UUID, key = "#uuid", beforeInvocation = true)
     @Transactional
     @Override
     public void deleteSection(String uuid, Integer version) {
+        if (version != null) {
+            deleteIfVersion(uuid, version);
+            return;
+        }
+
         Section section = null;
         try {
             section = sectionRepository.findSectionByUuid(uuid);
@@ -168,6 +260,7 @@ public class SectionManagerServiceImpl implements SectionManagerService {
                 throw new ObjectNotFoundException(uuid);
             }
             sectionRepository.delete(section);
+            entityCounts.adjust(Section.class, section.getTestRun(), -1);
 
         } catch (UnitTestException e) {
             final String msg = UNABLE_TO_DELETE.format(SECTION);
@@ -178,4 +271,89 @@ public class SectionManagerServiceImpl implements SectionManagerService {
             throw new PersistenceException(UNABLE_TO_DELETE, msg, e);
         }
     }
+
+    /**
+     * @see com.invariantproperties.sandbox.student.business.ManagerService#
+     *      createAll(java.util.List)
+     */
+    @Transactional
+    @Override
+    public BatchResult<Section> createAll(List<Section> sections) {
+        try {
+            final BatchResult<Section> results = batch.createAll(sections);
+            entityCounts.invalidate(Section.class);
+            return results;
+        } catch (UnitTestException e) {
+            final String msg = UNABLE_TO_CREATE.format(SECTION);
+            throw new PersistenceException(UNABLE_TO_CREATE, msg, e);
+        } catch (DataAccessException e) {
+            final String msg = UNABLE_TO_CREATE.format(SECTION);
+            LOG.info(msg);
+            throw new PersistenceException(UNABLE_TO_CREATE, msg, e);
+        }
+    }
+
+    /**
+     * @see com.invariantproperties.sandbox.student.business.ManagerService#
+     *      updateAll(java.util.List)
+     */
+    @CacheEvict(value = SECTION_BY_UUID, allEntries = true, beforeInvocation = true)
+    @Transactional
+    @Override
+    public BatchResult<Section> updateAll(List<Section> sections) {
+        try {
+            return batch.updateAll(sections);
+        } catch (UnitTestException e) {
+            final String msg = UNABLE_TO_UPDATE.format(SECTION);
+            throw new PersistenceException(UNABLE_TO_UPDATE, msg, e);
+        } catch (DataAccessException e) {
+            final String msg = UNABLE_TO_UPDATE.format(SECTION);
+            LOG.info(msg);
+            throw new PersistenceException(UNABLE_TO_UPDATE, msg, e);
+        }
+    }
+
+    /**
+     * @see com.invariantproperties.sandbox.student.business.ManagerService#
+     *      updateIfVersion(com.invariantproperties.sandbox.student.domain.PersistentObject)
+     */
+    @CacheEvict(value = SECTION_BY_UUID, key = "#changes.uuid", beforeInvocation = true)
+    @Transactional
+    @Override
+    public Integer updateIfVersion(Section changes) {
+        final Map<String, Object> values = new LinkedHashMap<String, Object>();
+        values.put("name", changes.getName());
+
+        try {
+            return ConditionalWrites.update(sectionRepository, changes, values);
+        } catch (UnitTestException e) {
+            final String msg = UNABLE_TO_UPDATE.format(SECTION);
+            throw new PersistenceException(UNABLE_TO_UPDATE, msg, e, changes.getUuid());
+        } catch (DataAccessException e) {
+            final String msg = UNABLE_TO_UPDATE.format(SECTION);
+            LOG.info(msg);
+            throw new PersistenceException(UNABLE_TO_UPDATE, msg, e, changes.getUuid());
+        }
+    }
+
+    /**
+     * @see com.invariantproperties.sandbox.student.business.ManagerService#
+     *      deleteIfVersion(java.lang.String, java.lang.Integer)
+     */
+    @CacheEvict(value = SECTION_BY_UUID, key = "#uuid", beforeInvocation = true)
+    @Transactional
+    @Override
+    public void deleteIfVersion(String uuid, Integer version) {
+        try {
+            ConditionalWrites.delete(sectionRepository, uuid, version);
+            entityCounts.invalidate(Section.class);
+        } catch (UnitTestException e) {
+            final String msg = UNABLE_TO_DELETE.format(SECTION);
+            throw new PersistenceException(UNABLE_TO_DELETE, msg, e, uuid);
+        } catch (DataAccessException e) {
+            final String msg = UNABLE_TO_DELETE.format(SECTION);
+            LOG.info(msg);
+            throw new PersistenceException(UNABLE_TO_DELETE, msg, e, uuid);
+        }
+    }
 }
@@ -0,0 +1,234 @@
+/*
+ * This code was written by Bear Giles <bgiles@coyotesong.com> and he
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Any contributions made by others are licensed to this project under
+ * one or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright (c) 2013 Bear Giles <bgiles@coyotesong.com>
+ */
+package com.invariantproperties.sandbox.student.business;
+
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import com.invariantproperties.sandbox.student.business.ServiceUnavailableException.Reason;
+
+/**
+ * Implementation of ServiceExecutor using a fixed-size thread pool with a
+ * bounded queue.
+ * 
+ * The pool should be no larger than the database connection pool - more
+ * workers than connections just moves the queue into the connection pool.
+ * The sizes and default timeout are set by the 'service.executor.*'
+ * properties.
+ * 
+ * This is opt-in - it isn't found by the component scan, add
+ * ServiceExecutorConfig to the application context to use it. The caller's
+ * thread still waits for the result so each call holds two threads, and a
+ * timeout only stops the wait. It doesn't cancel a query that is already
+ * running so the database should also have a statement timeout, e.g.,
+ * PostgreSQL's 'statement_timeout'.
+ * 
+ * @author Bear Giles <bgiles@coyotesong.com>
+ */
+public class ServiceExecutorImpl implements ServiceExecutor {
+    public static final String PROPERTY_NAME_MAX_THREADS = "service.executor.maxThreads";
+    public static final String PROPERTY_NAME_QUEUE_CAPACITY = "service.executor.queueCapacity";
+    public static final String PROPERTY_NAME_TIMEOUT_MILLIS = "service.executor.timeoutMillis";
+    public static final int DEFAULT_MAX_THREADS = 20;
+    public static final int DEFAULT_QUEUE_CAPACITY = 100;
+    public static final long DEFAULT_TIMEOUT_MILLIS = 10000L;
+
+    @Resource
+    private Environment environment;
+
+    private int maxThreads = DEFAULT_MAX_THREADS;
+    private int queueCapacity = DEFAULT_QUEUE_CAPACITY;
+    private long timeoutMillis = DEFAULT_TIMEOUT_MILLIS;
+    private ThreadPoolExecutor pool;
+
+    private final AtomicLong started = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong totalQueueMillis = new AtomicLong();
+    private final AtomicLong maxQueueMillis = new AtomicLong();
+    private final AtomicLongArray histogram = new AtomicLongArray(ExecutorMetrics.QUEUE_TIME_BUCKETS.length + 1);
+
+    /**
+     * Default constructor
+     */
+    public ServiceExecutorImpl() {
+
+    }
+
+    /**
+     * Constructor used in unit tests
+     */
+    ServiceExecutorImpl(int maxThreads, int queueCapacity, long timeoutMillis) {
+        this.maxThreads = maxThreads;
+        this.queueCapacity = queueCapacity;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * Create the thread pool.
+     */
+    @PostConstruct
+    public void init() {
+        if (environment != null) {
+            maxThreads = environment.getProperty(PROPERTY_NAME_MAX_THREADS, Integer.class, maxThreads);
+            queueCapacity = environment.getProperty(PROPERTY_NAME_QUEUE_CAPACITY, Integer.class, queueCapacity);
+            timeoutMillis = environment.getProperty(PROPERTY_NAME_TIMEOUT_MILLIS, Long.class, timeoutMillis);
+        }
+
+        final CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("service-");
+        threadFactory.setDaemon(true);
+        pool = new ThreadPoolExecutor(maxThreads, maxThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<Runnable>(queueCapacity), threadFactory, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Stop the thread pool. Calls that are still running are interrupted.
+     */
+    @PreDestroy
+    public void destroy() {
+        pool.shutdownNow();
+    }
+
+    public long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+
+    /**
+     * @see com.invariantproperties.sandbox.student.business.ServiceExecutor#
+     *      submit(java.util.concurrent.Callable)
+     */
+    @Override
+    public <T> Future<T> submit(final Callable<T> task) {
+        final long queued = System.nanoTime();
+        try {
+            return pool.submit(new Callable<T>() {
+                @Override
+                public T call() throws Exception {
+                    record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - queued));
+                    return task.call();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.incrementAndGet();
+            throw new ServiceUnavailableException(Reason.REJECTED);
+        }
+    }
+
+    /**
+     * @see com.invariantproperties.sandbox.student.business.ServiceExecutor#
+     *      call(java.util.concurrent.Callable)
+     */
+    @Override
+    public <T> T call(Callable<T> task) {
+        return call(task, timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @see com.invariantproperties.sandbox.student.business.ServiceExecutor#
+     *      call(java.util.concurrent.Callable, long,
+     *      java.util.concurrent.TimeUnit)
+     */
+    @Override
+    public <T> T call(Callable<T> task, long timeout, TimeUnit unit) {
+        final Future<T> future = submit(task);
+        try {
+            return future.get(timeout, unit);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            timeouts.incrementAndGet();
+            throw new ServiceUnavailableException(Reason.TIMED_OUT);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException(Reason.TIMED_OUT);
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new UndeclaredThrowableException(cause);
+        }
+    }
+
+    /**
+     * @see com.invariantproperties.sandbox.student.business.ServiceExecutor#
+     *      getMetrics()
+     */
+    @Override
+    public ExecutorMetrics getMetrics() {
+        final long[] counts = new long[histogram.length()];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = histogram.get(i);
+        }
+        return new ExecutorMetrics(pool.getActiveCount(), pool.getQueue().size(), maxThreads, queueCapacity,
+                started.get(), rejected.get(), timeouts.get(), totalQueueMillis.get(), maxQueueMillis.get(), counts);
+    }
+
+    /**
+     * Record the time a call waited for a worker.
+     * 
+     * @param waited
+     */
+    void record(long waited) {
+        started.incrementAndGet();
+        totalQueueMillis.addAndGet(waited);
+        histogram.incrementAndGet(bucket(waited));
+
+        long max = maxQueueMillis.get();
+        while (waited > max && !maxQueueMillis.compareAndSet(max, waited)) {
+            max = maxQueueMillis.get();
+        }
+    }
+
+    /**
+     * Determine the histogram bucket for a queue time.
+     * 
+     * @param millis
+     * @return
+     */
+    static int bucket(long millis) {
+        int i = 0;
+        while (i < ExecutorMetrics.QUEUE_TIME_BUCKETS.length && millis > ExecutorMetrics.QUEUE_TIME_BUCKETS[i]) {
+            i++;
+        }
+        return i;
+    }
+}
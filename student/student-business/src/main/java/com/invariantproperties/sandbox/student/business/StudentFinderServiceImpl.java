@@ -22,6 +22,8 @@
  */
 package com.invariantproperties.sandbox.student.business;
 
+import static com.invariantproperties.sandbox.student.business.CacheNames.STUDENT_BY_EMAIL_ADDRESS;
+import static com.invariantproperties.sandbox.student.business.CacheNames.STUDENT_BY_UUID;
 import static com.invariantproperties.sandbox.student.business.PersistenceException.Type.UNABLE_TO_COUNT;
 import static com.invariantproperties.sandbox.student.business.PersistenceException.Type.UNABLE_TO_FIND_BY_EMAIL_ADDRESS;
 import static com.invariantproperties.sandbox.student.business.PersistenceException.Type.UNABLE_TO_FIND_BY_ID;
@@ -29,19 +31,25 @@ import static com.invariantproperties.sandbox.student.business.PersistenceExcept
 import static com.invariantproperties.sandbox.student.business.PersistenceException.Type.UNABLE_TO_LIST;
 import static com.invariantproperties.sandbox.student.specification.StudentSpecifications.testRunIs;
 
+import java.util.Collection;
 import java.util.List;
 
 import javax.annotation.Resource;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.dao.DataAccessException;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.invariantproperties.sandbox.student.datasource.ReplicaRoutingDataSource;
 import com.invariantproperties.sandbox.student.domain.Student;
 import com.invariantproperties.sandbox.student.domain.TestRun;
+import com.invariantproperties.sandbox.student.repository.CustomRepository;
 import com.invariantproperties.sandbox.student.repository.StudentRepository;
+import com.invariantproperties.sandbox.student.specification.StudentSpecifications;
 
 /**
  * Implementation of StudentService.
@@ -57,6 +65,36 @@ public class StudentFinderServiceImpl implements StudentFinderService {
     @Resource
     private StudentRepository studentRepository;
 
+    @Resource
+    private EntityCounts entityCounts;
+
+    private final NameSearch<Student> nameSearch = new NameSearch<Student>() {
+        @Override
+        protected CustomRepository<Student> getRepository() {
+            return studentRepository;
+        }
+
+        @Override
+        protected Student findByUuid(String uuid) {
+            return studentRepository.findStudentByUuid(uuid);
+        }
+
+        @Override
+        protected String getName(Student student) {
+            return student.getName();
+        }
+
+        @Override
+        protected Specification<Student> nameStartsWith(String prefix) {
+            return StudentSpecifications.nameStartsWith(prefix);
+        }
+
+        @Override
+        protected Specification<Student> nameContains(String substring) {
+            return StudentSpecifications.nameContains(substring);
+        }
+    };
+
     /**
      * Default constructor
      */
@@ -69,6 +107,7 @@ public class StudentFinderServiceImpl implements StudentFinderService {
      */
     StudentFinderServiceImpl(StudentRepository studentRepository) {
         this.studentRepository = studentRepository;
+        this.entityCounts = new EntityCounts();
     }
 
     /**
@@ -88,9 +127,25 @@ public class StudentFinderServiceImpl implements StudentFinderService {
     @Transactional(readOnly = true)
     @Override
     public long countByTestRun(TestRun testRun) {
+        return countByTestRun(testRun, false);
+    }
+
+    /**
+     * @see com.invariantproperties.sandbox.student.business.FinderService#
+     *      countByTestRun(com.invariantproperties.sandbox.student.domain.TestRun,
+     *      boolean)
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public long countByTestRun(final TestRun testRun, boolean exact) {
         long count = 0;
         try {
-            count = studentRepository.count(testRunIs(testRun));
+            count = entityCounts.get(Student.class, testRun, exact, new EntityCounts.Loader() {
+                @Override
+                public long load() {
+                    return studentRepository.count(testRunIs(testRun));
+                }
+            });
         } catch (UnitTestException e) {
             final String msg = UNABLE_TO_COUNT.format(STUDENTS) + testRun;
             throw new PersistenceException(UNABLE_TO_COUNT, msg, e, 0);
@@ -143,9 +198,28 @@ public class StudentFinderServiceImpl implements StudentFinderService {
      * @see com.invariantproperties.sandbox.student.business.StudentFinderService#
      *      findStudentByUuid(java.lang.String)
      */
+    @Cacheable(STUDENT_BY_UUID)
     @Transactional(readOnly = true)
     @Override
     public Student findStudentByUuid(String uuid) {
+        final Student student = findByUuidOrNull(uuid);
+
+        if (student == null) {
+            throw new ObjectNotFoundException(uuid);
+        }
+
+        return student;
+    }
+
+    /**
+     * @see com.invariantproperties.sandbox.student.business.FinderService#
+     *      findByUuidOrNull(java.lang.String)
+     */
+    @Cacheable(value = STUDENT_BY_UUID, unless = "#result == null")
+    @Transactional(readOnly = true)
+    @Override
+    public Student findByUuidOrNull(String uuid) {
+        ReplicaRoutingDataSource.usePrimaryForCurrentTransaction();
         Student student = null;
         try {
             student = studentRepository.findStudentByUuid(uuid);
@@ -158,10 +232,6 @@ public class StudentFinderServiceImpl implements StudentFinderService {
             throw new PersistenceException(UNABLE_TO_FIND_BY_UUID, msg, e, uuid);
         }
 
-        if (student == null) {
-            throw new ObjectNotFoundException(uuid);
-        }
-
         return student;
     }
 
@@ -192,9 +262,11 @@ public class StudentFinderServiceImpl implements StudentFinderService {
      * @see com.invariantproperties.sandbox.student.business.StudentFinderService#
      *      findStudentByEmailAddress(java.lang.String)
      */
+    @Cacheable(STUDENT_BY_EMAIL_ADDRESS)
     @Transactional(readOnly = true)
     @Override
     public Student findStudentByEmailAddress(String emailAddress) {
+        ReplicaRoutingDataSource.usePrimaryForCurrentTransaction();
         Student student = null;
         try {
             student = studentRepository.findStudentByEmailAddress(emailAddress);
@@ -213,4 +285,134 @@ public class StudentFinderServiceImpl implements StudentFinderService {
 
         return student;
     }
+
+    /**
+     * @see com.invariantproperties.sandbox.student.business.FinderService#
+     *      findByUuids(java.util.Collection)
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public MultiGetResult<Student> findByUuids(Collection<String> uuids) {
+        List<Student> students = null;
+
+        try {
+            students = studentRepository.findAllByUuid(uuids);
+        } catch (UnitTestException e) {
+            final String msg = UNABLE_TO_FIND_BY_UUID.format(STUDENTS);
+            throw new PersistenceException(UNABLE_TO_FIND_BY_UUID, msg, e);
+        } catch (DataAccessException e) {
+            final String msg = UNABLE_TO_FIND_BY_UUID.format(STUDENTS);
+            LOG.info(msg);
+            throw new PersistenceException(UNABLE_TO_FIND_BY_UUID, msg, e);
+        }
+
+        return MultiGetResult.of(uuids, students);
+    }
+
+    /**
+     * @see com.invariantproperties.sandbox.student.business.FinderService#
+     *      findPage(com.invariantproperties.sandbox.student.business.KeysetPage)
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public List<Student> findPage(KeysetPage page) {
+        return findPageByTestRun(null, page);
+    }
+
+    /**
+     * @see com.invariantproperties.sandbox.student.business.FinderService#
+     *      findPageByTestRun(com.invariantproperties.sandbox.student.domain.TestRun,
+     *      com.invariantproperties.sandbox.student.business.KeysetPage)
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public List<Student> findPageByTestRun(TestRun testRun, KeysetPage page) {
+        List<Student> students = null;
+        Student after = null;
+
+        try {
+            if (page.getAfter() != null) {
+                // seek to the cursor's position if we can - the object may
+                // have been deleted since the previous page was read.
+                after = studentRepository.findPosition(page);
+                if (after == null) {
+                    after = studentRepository.findStudentByUuid(page.getAfterUuid());
+                }
+                if (after == null) {
+                    throw new ObjectNotFoundException(page.getAfter());
+                }
+            }
+            students = studentRepository.findPage(testRunIs(testRun), after, page);
+        } catch (UnitTestException e) {
+            final String msg = UNABLE_TO_LIST.format(STUDENTS) + page;
+            throw new PersistenceException(UNABLE_TO_LIST, msg, e);
+        } catch (DataAccessException e) {
+            final String msg = UNABLE_TO_LIST.format(STUDENTS) + page;
+            LOG.info(msg);
+            throw new PersistenceException(UNABLE_TO_LIST, msg, e);
+        }
+
+        return students;
+    }
+
+    /**
+     * @see com.invariantproperties.sandbox.student.business.StudentFinderService#
+     *      findStudentsByName(java.lang.String,
+     *      com.invariantproperties.sandbox.student.business.NameMatch,
+     *      com.invariantproperties.sandbox.student.domain.TestRun,
+     *      com.invariantproperties.sandbox.student.business.KeysetPage)
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public List<Student> findStudentsByName(String name, NameMatch match, TestRun testRun, KeysetPage page) {
+        List<Student> students = null;
+
+        try {
+            students = nameSearch.findPage(testRunIs(testRun), name, match, page);
+        } catch (UnitTestException e) {
+            final String msg = UNABLE_TO_LIST.format(STUDENTS) + name;
+            throw new PersistenceException(UNABLE_TO_LIST, msg, e);
+        } catch (DataAccessException e) {
+            final String msg = UNABLE_TO_LIST.format(STUDENTS) + name;
+            LOG.info(msg);
+            throw new PersistenceException(UNABLE_TO_LIST, msg, e);
+        }
+
+        return students;
+    }
+
+    /**
+     * @see com.invariantproperties.sandbox.student.business.FinderService#
+     *      forEach(com.invariantproperties.sandbox.student.business.ObjectHandler,
+     *      int)
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public long forEach(ObjectHandler<? super Student> handler, int fetchSize) {
+        return forEachByTestRun(null, handler, fetchSize);
+    }
+
+    /**
+     * @see com.invariantproperties.sandbox.student.business.FinderService#
+     *      forEachByTestRun(com.invariantproperties.sandbox.student.domain.TestRun,
+     *      com.invariantproperties.sandbox.student.business.ObjectHandler,
+     *      int)
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public long forEachByTestRun(TestRun testRun, ObjectHandler<? super Student> handler, int fetchSize) {
+        long count = 0;
+        try {
+            count = studentRepository.forEach(testRunIs(testRun), fetchSize, handler);
+        } catch (UnitTestException e) {
+            final String msg = UNABLE_TO_LIST.format(STUDENTS) + testRun;
+            throw new PersistenceException(UNABLE_TO_LIST, msg, e);
+        } catch (DataAccessException e) {
+            final String msg = UNABLE_TO_LIST.format(STUDENTS) + testRun;
+            LOG.info(msg);
+            throw new PersistenceException(UNABLE_TO_LIST, msg, e);
+        }
+
+        return count;
+    }
 }
@@ -22,21 +22,32 @@
  */
 package com.invariantproperties.sandbox.student.business;
 
+import static com.invariantproperties.sandbox.student.business.CacheNames.STUDENT_BY_EMAIL_ADDRESS;
+import static com.invariantproperties.sandbox.student.business.CacheNames.STUDENT_BY_UUID;
 import static com.invariantproperties.sandbox.student.business.PersistenceException.Type.UNABLE_TO_CREATE;
 import static com.invariantproperties.sandbox.student.business.PersistenceException.Type.UNABLE_TO_CREATE_FOR_TESTING;
 import static com.invariantproperties.sandbox.student.business.PersistenceException.Type.UNABLE_TO_DELETE;
 import static com.invariantproperties.sandbox.student.business.PersistenceException.Type.UNABLE_TO_UPDATE;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 import javax.annotation.Resource;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.dao.DataAccessException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.invariantproperties.sandbox.student.domain.Student;
 import com.invariantproperties.sandbox.student.domain.TestRun;
+import com.invariantproperties.sandbox.student.repository.CustomRepository;
 import com.invariantproperties.sandbox.student.repository.StudentRepository;
 
 /**
@@ -53,6 +64,56 @@ public class StudentManagerServiceImpl implements StudentManagerService {
     @Resource
     private StudentRepository studentRepository;
 
+    @Resource
+    private EntityCounts entityCounts;
+
+    private final BatchSupport<Student> batch = new BatchSupport<Student>() {
+        @Override
+        protected CustomRepository<Student> getRepository() {
+            return studentRepository;
+        }
+
+        @Override
+        protected Student copyForCreate(Student prototype) {
+            final Student student = new Student();
+            student.setName(prototype.getName());
+            student.setEmailAddress(prototype.getEmailAddress());
+            student.setTestRun(prototype.getTestRun());
+            return student;
+        }
+
+        @Override
+        protected void copyForUpdate(Student actual, Student changes) {
+            actual.setName(changes.getName());
+            actual.setEmailAddress(changes.getEmailAddress());
+        }
+
+        @Override
+        protected String validate(Student student) {
+            if (student.getName() == null) {
+                return String.format(REQUIRED_MESSAGE, "name");
+            }
+            if (student.getEmailAddress() == null) {
+                return String.format(REQUIRED_MESSAGE, "email address");
+            }
+            return null;
+        }
+
+        @Override
+        protected String getNaturalKey(Student student) {
+            return student.getEmailAddress();
+        }
+
+        @Override
+        protected Map<String, String> findNaturalKeys(Collection<String> keys) {
+            final Map<String, String> results = new HashMap<String, String>();
+            for (Student student : studentRepository.findStudentsByEmailAddressIn(keys)) {
+                results.put(student.getEmailAddress(), student.getUuid());
+            }
+            return results;
+        }
+    };
+
     /**
      * Default constructor
      */
@@ -65,6 +126,7 @@ public class StudentManagerServiceImpl implements StudentManagerService {
      */
     StudentManagerServiceImpl(StudentRepository studentRepository) {
         this.studentRepository = studentRepository;
+        this.entityCounts = new EntityCounts();
     }
 
     /**
@@ -81,6 +143,7 @@ public class StudentManagerServiceImpl implements StudentManagerService {
         Student actual = null;
         try {
             actual = studentRepository.saveAndFlush(student);
+            entityCounts.adjust(Student.class, student.getTestRun(), 1);
         } catch (UnitTestException e) {
             final String msg = UNABLE_TO_CREATE.format(STUDENT);
             throw new PersistenceException(UNABLE_TO_CREATE, msg, e);
@@ -109,6 +172,7 @@ public class StudentManagerServiceImpl implements StudentManagerService {
         Student actual = null;
         try {
             actual = studentRepository.saveAndFlush(student);
+            entityCounts.adjust(Student.class, student.getTestRun(), 1);
         } catch (UnitTestException e) {
             final String msg = UNABLE_TO_CREATE_FOR_TESTING.format(STUDENT);
             throw new PersistenceException(UNABLE_TO_CREATE_FOR_TESTING, msg, e);
@@ -126,6 +190,8 @@ public class StudentManagerServiceImpl implements StudentManagerService {
      *      updateStudent(com.invariantproperties.sandbox.student.domain.Student,
      *      java.lang.String, java.lang.String)
      */
+    @Caching(evict = { @CacheEvict(value = STUDENT_BY_UUID, key = "#student.uuid", beforeInvocation = true),
+            @CacheEvict(value = STUDENT_BY_EMAIL_ADDRESS, allEntries = true, beforeInvocation = true) })
     @Transactional
     @Override
     public Student updateStudent(Student student, String name, String emailAddress) {
@@ -141,8 +207,6 @@ public class StudentManagerServiceImpl implements StudentManagerService {
             actual.setName(name);
             actual.setEmailAddress(emailAddress);
             updated = studentRepository.saveAndFlush(actual);
-            student.setName(name);
-            student.setEmailAddress(emailAddress);
 
         } catch (UnitTestException e) {
             final String msg = UNABLE_TO_UPDATE.format(STUDENT);
@@ -160,9 +224,16 @@ public class StudentManagerServiceImpl implements StudentManagerService {
      * @see com.invariantproperties.sandbox.student.business.StudentFinderService#
      *      deleteStudent(java.lang.String, java.lang.Integer)
      */
+    @Caching(evict = { @CacheEvict(value = STUDENT_BY_UUID, key = "#uuid", beforeInvocation = true),
+            @CacheEvict(value = STUDENT_BY_EMAIL_ADDRESS, allEntries = true, beforeInvocation = true) })
     @Transactional
     @Override
     public void deleteStudent(String uuid, Integer version) {
+        if (version != null) {
+            deleteIfVersion(uuid, version);
+            return;
+        }
+
         Student student = null;
         try {
             student = studentRepository.findStudentByUuid(uuid);
@@ -172,6 +243,7 @@ public class StudentManagerServiceImpl implements StudentManagerService {
                 throw new ObjectNotFoundException(uuid);
             }
             studentRepository.delete(student);
+            entityCounts.adjust(Student.class, student.getTestRun(), -1);
 
         } catch (UnitTestException e) {
             final String msg = UNABLE_TO_DELETE.format(STUDENT);
@@ -182,4 +254,93 @@ public class StudentManagerServiceImpl implements StudentManagerService {
             throw new PersistenceException(UNABLE_TO_DELETE, msg, e);
         }
     }
+
+    /**
+     * @see com.invariantproperties.sandbox.student.business.ManagerService#
+     *      createAll(java.util.List)
+     */
+    @Transactional
+    @Override
+    public BatchResult<Student> createAll(List<Student> students) {
+        try {
+            final BatchResult<Student> results = batch.createAll(students);
+            entityCounts.invalidate(Student.class);
+            return results;
+        } catch (UnitTestException e) {
+            final String msg = UNABLE_TO_CREATE.format(STUDENT);
+            throw new PersistenceException(UNABLE_TO_CREATE, msg, e);
+        } catch (DataAccessException e) {
+            final String msg = UNABLE_TO_CREATE.format(STUDENT);
+            LOG.info(msg);
+            throw new PersistenceException(UNABLE_TO_CREATE, msg, e);
+        }
+    }
+
+    /**
+     * @see com.invariantproperties.sandbox.student.business.ManagerService#
+     *      updateAll(java.util.List)
+     */
+    @Caching(evict = { @CacheEvict(value = STUDENT_BY_UUID, allEntries = true, beforeInvocation = true),
+            @CacheEvict(value = STUDENT_BY_EMAIL_ADDRESS, allEntries = true, beforeInvocation = true) })
+    @Transactional
+    @Override
+    public BatchResult<Student> updateAll(List<Student> students) {
+        try {
+            return batch.updateAll(students);
+        } catch (UnitTestException e) {
+            final String msg = UNABLE_TO_UPDATE.format(STUDENT);
+            throw new PersistenceException(UNABLE_TO_UPDATE, msg, e);
+        } catch (DataAccessException e) {
+            final String msg = UNABLE_TO_UPDATE.format(STUDENT);
+            LOG.info(msg);
+            throw new PersistenceException(UNABLE_TO_UPDATE, msg, e);
+        }
+    }
+
+    /**
+     * @see com.invariantproperties.sandbox.student.business.ManagerService#
+     *      updateIfVersion(com.invariantproperties.sandbox.student.domain.PersistentObject)
+     */
+    @Caching(evict = { @CacheEvict(value = STUDENT_BY_UUID, key = "#changes.uuid", beforeInvocation = true),
+            @CacheEvict(value = STUDENT_BY_EMAIL_ADDRESS, allEntries = true, beforeInvocation = true) })
+    @Transactional
+    @Override
+    public Integer updateIfVersion(Student changes) {
+        final Map<String, Object> values = new LinkedHashMap<String, Object>();
+        values.put("name", changes.getName());
+        values.put("emailAddress", changes.getEmailAddress());
+
+        try {
+            return ConditionalWrites.update(studentRepository, changes, values);
+        } catch (UnitTestException e) {
+            final String msg = UNABLE_TO_UPDATE.format(STUDENT);
+            throw new PersistenceException(UNABLE_TO_UPDATE, msg, e, changes.getUuid());
+        } catch (DataAccessException e) {
+            final String msg = UNABLE_TO_UPDATE.format(STUDENT);
+            LOG.info(msg);
+            throw new PersistenceException(UNABLE_TO_UPDATE, msg, e, changes.getUuid());
+        }
+    }
+
+    /**
+     * @see com.invariantproperties.sandbox.student.business.ManagerService#
+     *      deleteIfVersion(java.lang.String, java.lang.Integer)
+     */
+    @Caching(evict = { @CacheEvict(value = STUDENT_BY_UUID, key = "#uuid", beforeInvocation = true),
+            @CacheEvict(value = STUDENT_BY_EMAIL_ADDRESS, allEntries = true, beforeInvocation = true) })
+    @Transactional
+    @Override
+    public void deleteIfVersion(String uuid, Integer version) {
+        try {
+            ConditionalWrites.delete(studentRepository, uuid, version);
+            entityCounts.invalidate(Student.class);
+        } catch (UnitTestException e) {
+            final String msg = UNABLE_TO_DELETE.format(STUDENT);
+            throw new PersistenceException(UNABLE_TO_DELETE, msg, e, uuid);
+        } catch (DataAccessException e) {
+            final String msg = UNABLE_TO_DELETE.format(STUDENT);
+            LOG.info(msg);
+            throw new PersistenceException(UNABLE_TO_DELETE, msg, e, uuid);
+        }
+    }
 }
@@ -22,21 +22,26 @@
  */
 package com.invariantproperties.sandbox.student.business;
 
+import static com.invariantproperties.sandbox.student.business.CacheNames.TERM_BY_UUID;
 import static com.invariantproperties.sandbox.student.business.PersistenceException.Type.UNABLE_TO_COUNT;
 import static com.invariantproperties.sandbox.student.business.PersistenceException.Type.UNABLE_TO_FIND_BY_ID;
 import static com.invariantproperties.sandbox.student.business.PersistenceException.Type.UNABLE_TO_FIND_BY_UUID;
+import static com.invariantproperties.sandbox.student.business.PersistenceException.Type.UNABLE_TO_LIST;
 import static com.invariantproperties.sandbox.student.specification.TermSpecifications.testRunIs;
 
+import java.util.Collection;
 import java.util.List;
 
 import javax.annotation.Resource;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.dao.DataAccessException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.invariantproperties.sandbox.student.datasource.ReplicaRoutingDataSource;
 import com.invariantproperties.sandbox.student.domain.Term;
 import com.invariantproperties.sandbox.student.domain.TestRun;
 import com.invariantproperties.sandbox.student.repository.TermRepository;
@@ -55,6 +60,9 @@ public class TermFinderServiceImpl implements TermFinderService {
     @Resource
     private TermRepository termRepository;
 
+    @Resource
+    private EntityCounts entityCounts;
+
     /**
      * Default constructor
      */
@@ -67,6 +75,7 @@ public class TermFinderServiceImpl implements TermFinderService {
      */
     TermFinderServiceImpl(TermRepository termRepository) {
         this.termRepository = termRepository;
+        this.entityCounts = new EntityCounts();
     }
 
     /**
@@ -86,9 +95,25 @@ public class TermFinderServiceImpl implements TermFinderService {
     @Transactional(readOnly = true)
     @Override
     public long countByTestRun(TestRun testRun) {
+        return countByTestRun(testRun, false);
+    }
+
+    /**
+     * @see com.invariantproperties.sandbox.student.business.FinderService#
+     *      countByTestRun(com.invariantproperties.sandbox.student.domain.TestRun,
+     *      boolean)
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public long countByTestRun(final TestRun testRun, boolean exact) {
         long count = 0;
         try {
-            count = termRepository.count(testRunIs(testRun));
+            count = entityCounts.get(Term.class, testRun, exact, new EntityCounts.Loader() {
+                @Override
+                public long load() {
+                    return termRepository.count(testRunIs(testRun));
+                }
+            });
         } catch (UnitTestException e) {
             final String msg = UNABLE_TO_COUNT.format(TERMS) + testRun;
             throw new PersistenceException(UNABLE_TO_COUNT, msg, e, 0);
@@ -141,9 +166,28 @@ public class TermFinderServiceImpl implements TermFinderService {
      * @see com.invariantproperties.sandbox.student.business.TermFinderService#
      *      findTermByUuid(java.lang.String)
      */
+    @Cacheable(TERM_BY_UUID)
     @Transactional(readOnly = true)
     @Override
     public Term findTermByUuid(String uuid) {
+        final Term term = findByUuidOrNull(uuid);
+
+        if (term == null) {
+            throw new ObjectNotFoundException(uuid);
+        }
+
+        return term;
+    }
+
+    /**
+     * @see com.invariantproperties.sandbox.student.business.FinderService#
+     *      findByUuidOrNull(java.lang.String)
+     */
+    @Cacheable(value = TERM_BY_UUID, unless = "#result == null")
+    @Transactional(readOnly = true)
+    @Override
+    public Term findByUuidOrNull(String uuid) {
+        ReplicaRoutingDataSource.usePrimaryForCurrentTransaction();
         Term term = null;
         try {
             term = termRepository.findTermByUuid(uuid);
@@ -156,10 +200,6 @@ public class TermFinderServiceImpl implements TermFinderService {
             throw new PersistenceException(UNABLE_TO_FIND_BY_UUID, msg, e, uuid);
         }
 
-        if (term == null) {
-            throw new ObjectNotFoundException(uuid);
-        }
-
         return term;
     }
 
@@ -185,4 +225,108 @@ public class TermFinderServiceImpl implements TermFinderService {
 
         return terms;
     }
+
+    /**
+     * @see com.invariantproperties.sandbox.student.business.FinderService#
+     *      findByUuids(java.util.Collection)
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public MultiGetResult<Term> findByUuids(Collection<String> uuids) {
+        List<Term> terms = null;
+
+        try {
+            terms = termRepository.findAllByUuid(uuids);
+        } catch (UnitTestException e) {
+            final String msg = UNABLE_TO_FIND_BY_UUID.format(TERMS);
+            throw new PersistenceException(UNABLE_TO_FIND_BY_UUID, msg, e);
+        } catch (DataAccessException e) {
+            final String msg = UNABLE_TO_FIND_BY_UUID.format(TERMS);
+            LOG.info(msg);
+            throw new PersistenceException(UNABLE_TO_FIND_BY_UUID, msg, e);
+        }
+
+        return MultiGetResult.of(uuids, terms);
+    }
+
+    /**
+     * @see com.invariantproperties.sandbox.student.business.FinderService#
+     *      findPage(com.invariantproperties.sandbox.student.business.KeysetPage)
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public List<Term> findPage(KeysetPage page) {
+        return findPageByTestRun(null, page);
+    }
+
+    /**
+     * @see com.invariantproperties.sandbox.student.business.FinderService#
+     *      findPageByTestRun(com.invariantproperties.sandbox.student.domain.TestRun,
+     *      com.invariantproperties.sandbox.student.business.KeysetPage)
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public List<Term> findPageByTestRun(TestRun testRun, KeysetPage page) {
+        List<Term> terms = null;
+        Term after = null;
+
+        try {
+            if (page.getAfter() != null) {
+                // seek to the cursor's position if we can - the object may
+                // have been deleted since the previous page was read.
+                after = termRepository.findPosition(page);
+                if (after == null) {
+                    after = termRepository.findTermByUuid(page.getAfterUuid());
+                }
+                if (after == null) {
+                    throw new ObjectNotFoundException(page.getAfter());
+                }
+            }
+            terms = termRepository.findPage(testRunIs(testRun), after, page);
+        } catch (UnitTestException e) {
+            final String msg = UNABLE_TO_LIST.format(TERMS) + page;
+            throw new PersistenceException(UNABLE_TO_LIST, msg, e);
+        } catch (DataAccessException e) {
+            final String msg = UNABLE_TO_LIST.format(TERMS) + page;
+            LOG.info(msg);
+            throw new PersistenceException(UNABLE_TO_LIST, msg, e);
+        }
+
+        return terms;
+    }
+
+    /**
+     * @see com.invariantproperties.sandbox.student.business.FinderService#
+     *      forEach(com.invariantproperties.sandbox.student.business.ObjectHandler,
+     *      int)
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public long forEach(ObjectHandler<? super Term> handler, int fetchSize) {
+        return forEachByTestRun(null, handler, fetchSize);
+    }
+
+    /**
+     * @see com.invariantproperties.sandbox.student.business.FinderService#
+     *      forEachByTestRun(com.invariantproperties.sandbox.student.domain.TestRun,
+     *      com.invariantproperties.sandbox.student.business.ObjectHandler,
+     *      int)
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public long forEachByTestRun(TestRun testRun, ObjectHandler<? super Term> handler, int fetchSize) {
+        long count = 0;
+        try {
+            count = termRepository.forEach(testRunIs(testRun), fetchSize, handler);
+        } catch (UnitTestException e) {
+            final String msg = UNABLE_TO_LIST.format(TERMS) + testRun;
+            throw new PersistenceException(UNABLE_TO_LIST, msg, e);
+        } catch (DataAccessException e) {
+            final String msg = UNABLE_TO_LIST.format(TERMS) + testRun;
+            LOG.info(msg);
+            throw new PersistenceException(UNABLE_TO_LIST, msg, e);
+        }
+
+        return count;
+    }
 }
@@ -22,21 +22,28 @@
  */
 package com.invariantproperties.sandbox.student.business;
 
+import static com.invariantproperties.sandbox.student.business.CacheNames.TERM_BY_UUID;
 import static com.invariantproperties.sandbox.student.business.PersistenceException.Type.UNABLE_TO_CREATE;
 import static com.invariantproperties.sandbox.student.business.PersistenceException.Type.UNABLE_TO_CREATE_FOR_TESTING;
 import static com.invariantproperties.sandbox.student.business.PersistenceException.Type.UNABLE_TO_DELETE;
 import static com.invariantproperties.sandbox.student.business.PersistenceException.Type.UNABLE_TO_UPDATE;
 
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 import javax.annotation.Resource;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.dao.DataAccessException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.invariantproperties.sandbox.student.domain.Term;
 import com.invariantproperties.sandbox.student.domain.TestRun;
+import com.invariantproperties.sandbox.student.repository.CustomRepository;
 import com.invariantproperties.sandbox.student.repository.TermRepository;
 
 /**
@@ -53,6 +60,37 @@ public class TermManagerServiceImpl implements TermManagerService {
     @Resource
     private TermRepository termRepository;
 
+    @Resource
+    private EntityCounts entityCounts;
+
+    private final BatchSupport<Term> batch = new BatchSupport<Term>() {
+        @Override
+        protected CustomRepository<Term> getRepository() {
+            return termRepository;
+        }
+
+        @Override
+        protected Term copyForCreate(Term prototype) {
+            final Term term = new Term();
+            term.setName(prototype.getName());
+            term.setTestRun(prototype.getTestRun());
+            return term;
+        }
+
+        @Override
+        protected void copyForUpdate(Term actual, Term changes) {
+            actual.setName(changes.getName());
+        }
+
+        @Override
+        protected String validate(Term term) {
+            if (term.getName() == null) {
+                return String.format(REQUIRED_MESSAGE, "name");
+            }
+            return null;
+        }
+    };
+
     /**
      * Default constructor
      */
@@ -65,6 +103,7 @@ public class TermManagerServiceImpl implements TermManagerService {
      */
     TermManagerServiceImpl(TermRepository termRepository) {
         this.termRepository = termRepository;
+        this.entityCounts = new EntityCounts();
     }
 
     /**
@@ -80,6 +119,7 @@ public class TermManagerServiceImpl implements TermManagerService {
         Term actual = null;
         try {
             actual = termRepository.saveAndFlush(term);
+            entityCounts.adjust(Term.class, term.getTestRun(), 1);
         } catch (UnitTestException e) {
             final String msg = UNABLE_TO_CREATE.format(TERM);
             throw new PersistenceException(UNABLE_TO_CREATE, msg, e);
@@ -107,6 +147,7 @@ public class TermManagerServiceImpl implements TermManagerService {
         Term actual = null;
         try {
             actual = termRepository.saveAndFlush(term);
+            entityCounts.adjust(Term.class, term.getTestRun(), 1);
         } catch (UnitTestException e) {
             final String msg = UNABLE_TO_CREATE_FOR_TESTING.format(TERM);
             throw new PersistenceException(UNABLE_TO_CREATE_FOR_TESTING, msg, e);
@@ -124,6 +165,7 @@ public class TermManagerServiceImpl implements TermManagerService {
      *      updateTerm(com.invariantproperties.sandbox.term.domain.Term,
      *      java.lang.String)
      */
+    @CacheEvict(value = TERM_BY_UUID, key = "#term.uuid", beforeInvocation = true)
     @Transactional
     @Override
     public Term updateTerm(Term term, String name) {
@@ -138,7 +180,6 @@ public class TermManagerServiceImpl implements TermManagerService {
 
             actual.setName(name);
             updated = termRepository.saveAndFlush(actual);
-            term.setName(name);
 
         } catch (UnitTestException e) {
             final String msg = UNABLE_TO_UPDATE.format(TERM);
@@ -156,9 +197,15 @@ public class TermManagerServiceImpl implements TermManagerService {
      * @see com.invariantproperties.sandbox.term.business.TermFinderService#
      *      deleteTerm(java.lang.String, java.lang.Integer)
      */
+    @CacheEvict(value = TERM_BY_UUID, key = "#uuid", beforeInvocation = true)
     @Transactional
     @Override
     public void deleteTerm(String uuid, Integer version) {
+        if (version != null) {
+            deleteIfVersion(uuid, version);
+            return;
+        }
+
         Term term = null;
         try {
             term = termRepository.findTermByUuid(uuid);
@@ -168,6 +215,7 @@ public class TermManagerServiceImpl implements TermManagerService {
                 throw new ObjectNotFoundException(uuid);
             }
             termRepository.delete(term);
+            entityCounts.adjust(Term.class, term.getTestRun(), -1);
 
         } catch (UnitTestException e) {
             final String msg = UNABLE_TO_DELETE.format(TERM);
@@ -178,4 +226,89 @@ public class TermManagerServiceImpl implements TermManagerService {
             throw new PersistenceException(UNABLE_TO_DELETE, msg, e);
         }
     }
+
+    /**
+     * @see com.invariantproperties.sandbox.student.business.ManagerService#
+     *      createAll(java.util.List)
+     */
+    @Transactional
+    @Override
+    public BatchResult<Term> createAll(List<Term> terms) {
+        try {
+            final BatchResult<Term> results = batch.createAll(terms);
+            entityCounts.invalidate(Term.class);
+            return results;
+        } catch (UnitTestException e) {
+            final String msg = UNABLE_TO_CREATE.format(TERM);
+            throw new PersistenceException(UNABLE_TO_CREATE, msg, e);
+        } catch (DataAccessException e) {
+            final String msg = UNABLE_TO_CREATE.format(TERM);
+            LOG.info(msg);
+            throw new PersistenceException(UNABLE_TO_CREATE, msg, e);
+        }
+    }
+
+    /**
+     * @see com.invariantproperties.sandbox.student.business.ManagerService#
+     *      updateAll(java.util.List)
+     */
+    @CacheEvict(value = TERM_BY_UUID, allEntries = true, beforeInvocation = true)
+    @Transactional
+    @Override
+    public BatchResult<Term> updateAll(List<Term> terms) {
+        try {
+            return batch.updateAll(terms);
+        } catch (UnitTestException e) {
+            final String msg = UNABLE_TO_UPDATE.format(TERM);
+            throw new PersistenceException(UNABLE_TO_UPDATE, msg, e);
+        } catch (DataAccessException e) {
+            final String msg = UNABLE_TO_UPDATE.format(TERM);
+            LOG.info(msg);
+            throw new PersistenceException(UNABLE_TO_UPDATE, msg, e);
+        }
+    }
+
+    /**
+     * @see com.invariantproperties.sandbox.student.business.ManagerService#
+     *      updateIfVersion(com.invariantproperties.sandbox.student.domain.PersistentObject)
+     */
+    @CacheEvict(value = TERM_BY_UUID, key = "#changes.uuid", beforeInvocation = true)
+    @Transactional
+    @Override
+    public Integer updateIfVersion(Term changes) {
+        final Map<String, Object> values = new LinkedHashMap<String, Object>();
+        values.put("name", changes.getName());
+
+        try {
+            return ConditionalWrites.update(termRepository, changes, values);
+        } catch (UnitTestException e) {
+            final String msg = UNABLE_TO_UPDATE.format(TERM);
+            throw new PersistenceException(UNABLE_TO_UPDATE, msg, e, changes.getUuid());
+        } catch (DataAccessException e) {
+            final String msg = UNABLE_TO_UPDATE.format(TERM);
+            LOG.info(msg);
+            throw new PersistenceException(UNABLE_TO_UPDATE, msg, e, changes.getUuid());
+        }
+    }
+
+    /**
+     * @see com.invariantproperties.sandbox.student.business.ManagerService#
+     *      deleteIfVersion(java.lang.String, java.lang.Integer)
+     */
+    @CacheEvict(value = TERM_BY_UUID, key = "#uuid", beforeInvocation = true)
+    @Transactional
+    @Override
+    public void deleteIfVersion(String uuid, Integer version) {
+        try {
+            ConditionalWrites.delete(termRepository, uuid, version);
+            entityCounts.invalidate(Term.class);
+        } catch (UnitTestException e) {
+            final String msg = UNABLE_TO_DELETE.format(TERM);
+            throw new PersistenceException(UNABLE_TO_DELETE, msg, e, uuid);
+        } catch (DataAccessException e) {
+            final String msg = UNABLE_TO_DELETE.format(TERM);
+            LOG.info(msg);
+            throw new PersistenceException(UNABLE_TO_DELETE, msg, e, uuid);
+        }
+    }
 }
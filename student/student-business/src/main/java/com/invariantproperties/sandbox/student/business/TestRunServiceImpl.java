@@ -22,24 +22,48 @@
  */
 package com.invariantproperties.sandbox.student.business;
 
+import static com.invariantproperties.sandbox.student.business.CacheNames.CLASSROOM_BY_UUID;
+import static com.invariantproperties.sandbox.student.business.CacheNames.COURSE_BY_CODE;
+import static com.invariantproperties.sandbox.student.business.CacheNames.COURSE_BY_UUID;
+import static com.invariantproperties.sandbox.student.business.CacheNames.INSTRUCTOR_BY_EMAIL_ADDRESS;
+import static com.invariantproperties.sandbox.student.business.CacheNames.INSTRUCTOR_BY_UUID;
+import static com.invariantproperties.sandbox.student.business.CacheNames.SECTION_BY_UUID;
+import static com.invariantproperties.sandbox.student.business.CacheNames.STUDENT_BY_EMAIL_ADDRESS;
+import static com.invariantproperties.sandbox.student.business.CacheNames.STUDENT_BY_UUID;
+import static com.invariantproperties.sandbox.student.business.CacheNames.TERM_BY_UUID;
+import static com.invariantproperties.sandbox.student.business.PersistenceException.Type.UNABLE_TO_COUNT;
 import static com.invariantproperties.sandbox.student.business.PersistenceException.Type.UNABLE_TO_CREATE;
 import static com.invariantproperties.sandbox.student.business.PersistenceException.Type.UNABLE_TO_DELETE;
 import static com.invariantproperties.sandbox.student.business.PersistenceException.Type.UNABLE_TO_FIND_BY_ID;
 import static com.invariantproperties.sandbox.student.business.PersistenceException.Type.UNABLE_TO_FIND_BY_UUID;
 import static com.invariantproperties.sandbox.student.business.PersistenceException.Type.UNABLE_TO_LIST;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import javax.annotation.Resource;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.core.task.TaskExecutor;
 import org.springframework.dao.DataAccessException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.invariantproperties.sandbox.student.domain.Classroom;
+import com.invariantproperties.sandbox.student.domain.Course;
+import com.invariantproperties.sandbox.student.domain.Instructor;
+import com.invariantproperties.sandbox.student.domain.Section;
+import com.invariantproperties.sandbox.student.domain.Student;
+import com.invariantproperties.sandbox.student.domain.Term;
 import com.invariantproperties.sandbox.student.domain.TestRun;
+import com.invariantproperties.sandbox.student.domain.TestablePersistentObject;
 import com.invariantproperties.sandbox.student.repository.TestRunRepository;
 
 /**
@@ -54,9 +78,28 @@ public class TestRunServiceImpl implements TestRunService {
     private static final String TEST_RUNS = "testRuns";
     private static final String COULD_NOT_FIND_MESSAGE = "could not find testRun: ";
 
+    /**
+     * The test data tables in the order they must be purged - objects that
+     * refer to other objects come first.
+     */
+    static final List<Class<? extends TestablePersistentObject>> PURGE_ORDER = Collections.unmodifiableList(Arrays
+            .<Class<? extends TestablePersistentObject>> asList(Section.class, Student.class, Instructor.class,
+                    Classroom.class, Course.class, Term.class));
+
+    private final ConcurrentMap<String, PurgeProgress> purges = new ConcurrentHashMap<String, PurgeProgress>();
+
     @Resource
     private TestRunRepository testRunRepository;
 
+    @Resource(name = "purgeExecutor")
+    private TaskExecutor purgeExecutor;
+
+    @Resource
+    private CacheManager cacheManager;
+
+    @Resource
+    private EntityCounts entityCounts;
+
     /**
      * Default constructor
      */
@@ -71,6 +114,36 @@ public class TestRunServiceImpl implements TestRunService {
         this.testRunRepository = testRunRepository;
     }
 
+    /**
+     * Constructor used in unit tests
+     */
+    TestRunServiceImpl(TestRunRepository testRunRepository, TaskExecutor purgeExecutor) {
+        this.testRunRepository = testRunRepository;
+        this.purgeExecutor = purgeExecutor;
+    }
+
+    /**
+     * @see com.invariantproperties.sandbox.student.business.TestRunService#
+     *      count()
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public long count() {
+        long count = 0;
+        try {
+            count = testRunRepository.count();
+        } catch (UnitTestException e) {
+            final String msg = UNABLE_TO_COUNT.format(TEST_RUNS);
+            throw new PersistenceException(UNABLE_TO_COUNT, msg, e);
+        } catch (DataAccessException e) {
+            final String msg = UNABLE_TO_COUNT.format(TEST_RUNS);
+            LOG.info(msg);
+            throw new PersistenceException(UNABLE_TO_COUNT, msg, e);
+        }
+
+        return count;
+    }
+
     /**
      * @see com.invariantproperties.sandbox.student.business.TestRunService#
      *      findAllTestRuns()
@@ -93,6 +166,41 @@ public class TestRunServiceImpl implements TestRunService {
         return testRuns;
     }
 
+    /**
+     * @see com.invariantproperties.sandbox.student.business.TestRunService#
+     *      findPage(com.invariantproperties.sandbox.student.business.KeysetPage)
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public List<TestRun> findPage(KeysetPage page) {
+        List<TestRun> testRuns = null;
+        TestRun after = null;
+
+        try {
+            if (page.getAfter() != null) {
+                // seek to the cursor's position if we can - the object may
+                // have been deleted since the previous page was read.
+                after = testRunRepository.findPosition(page);
+                if (after == null) {
+                    after = testRunRepository.findTestRunByUuid(page.getAfterUuid());
+                }
+                if (after == null) {
+                    throw new ObjectNotFoundException(page.getAfter());
+                }
+            }
+            testRuns = testRunRepository.findPage(null, after, page);
+        } catch (UnitTestException e) {
+            final String msg = UNABLE_TO_LIST.format(TEST_RUNS) + page;
+            throw new PersistenceException(UNABLE_TO_LIST, msg, e);
+        } catch (DataAccessException e) {
+            final String msg = UNABLE_TO_LIST.format(TEST_RUNS) + page;
+            LOG.info(msg);
+            throw new PersistenceException(UNABLE_TO_LIST, msg, e);
+        }
+
+        return testRuns;
+    }
+
     /**
      * @see com.invariantproperties.sandbox.student.business.TestRunService#
      *      findTestRunById(java.lang.Integer)
@@ -184,26 +292,153 @@ public class TestRunServiceImpl implements TestRunService {
      * @see com.invariantproperties.sandbox.student.business.TestRunService#
      *      deleteTestRun(java.lang.String)
      */
+    @CacheEvict(value = { CLASSROOM_BY_UUID, COURSE_BY_UUID, COURSE_BY_CODE, INSTRUCTOR_BY_UUID,
+            INSTRUCTOR_BY_EMAIL_ADDRESS, SECTION_BY_UUID, STUDENT_BY_UUID, STUDENT_BY_EMAIL_ADDRESS, TERM_BY_UUID },
+            allEntries = true, beforeInvocation = true)
     @Transactional
     @Override
     public void deleteTestRun(String uuid) {
+        purgeTestRun(uuid);
+    }
+
+    /**
+     * @see com.invariantproperties.sandbox.student.business.TestRunService#
+     *      purgeTestRun(java.lang.String)
+     */
+    @CacheEvict(value = { CLASSROOM_BY_UUID, COURSE_BY_UUID, COURSE_BY_CODE, INSTRUCTOR_BY_UUID,
+            INSTRUCTOR_BY_EMAIL_ADDRESS, SECTION_BY_UUID, STUDENT_BY_UUID, STUDENT_BY_EMAIL_ADDRESS, TERM_BY_UUID },
+            allEntries = true, beforeInvocation = true)
+    @Transactional
+    @Override
+    public long purgeTestRun(String uuid) {
+        final TestRun testRun = findTestRunToPurge(uuid);
+        final PurgeProgress progress = new PurgeProgress(uuid, PURGE_ORDER.size());
+        purge(testRun, progress);
+        return progress.getRowsDeleted();
+    }
+
+    /**
+     * Start a background purge. If the test run is already being purged we
+     * return the progress of that purge instead of starting another one. The
+     * progress of a finished purge is replaced when the test run is purged
+     * again.
+     * 
+     * @see com.invariantproperties.sandbox.student.business.TestRunService#
+     *      purgeTestRunAsync(java.lang.String)
+     */
+    @CacheEvict(value = { CLASSROOM_BY_UUID, COURSE_BY_UUID, COURSE_BY_CODE, INSTRUCTOR_BY_UUID,
+            INSTRUCTOR_BY_EMAIL_ADDRESS, SECTION_BY_UUID, STUDENT_BY_UUID, STUDENT_BY_EMAIL_ADDRESS, TERM_BY_UUID },
+            allEntries = true, beforeInvocation = true)
+    @Override
+    public PurgeProgress purgeTestRunAsync(String uuid) {
+        final TestRun testRun = findTestRunToPurge(uuid);
+        final PurgeProgress progress = new PurgeProgress(uuid, PURGE_ORDER.size());
+
+        final PurgeProgress previous = purges.putIfAbsent(uuid, progress);
+        if (previous != null) {
+            if (!previous.isDone() || !purges.replace(uuid, previous, progress)) {
+                return purges.get(uuid);
+            }
+        }
+
+        purgeExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    purge(testRun, progress);
+                } catch (PersistenceException e) {
+                    LOG.warn("unable to purge test run " + testRun.getUuid() + ": " + e.getMessage());
+                } finally {
+                    clearCaches();
+                }
+            }
+        });
+
+        return progress;
+    }
+
+    /**
+     * @see com.invariantproperties.sandbox.student.business.TestRunService#
+     *      getPurgeProgress(java.lang.String)
+     */
+    @Override
+    public PurgeProgress getPurgeProgress(String uuid) {
+        return purges.get(uuid);
+    }
+
+    /**
+     * Find the test run to purge.
+     * 
+     * @param uuid
+     * @return
+     * @throws ObjectNotFoundException
+     */
+    private TestRun findTestRunToPurge(String uuid) {
         TestRun testRun = null;
         try {
             testRun = testRunRepository.findTestRunByUuid(uuid);
+        } catch (UnitTestException e) {
+            final String msg = UNABLE_TO_DELETE.format(TEST_RUN);
+            throw new PersistenceException(UNABLE_TO_DELETE, msg, e, uuid);
+        } catch (DataAccessException e) {
+            final String msg = UNABLE_TO_DELETE.format(TEST_RUN);
+            LOG.info(msg);
+            throw new PersistenceException(UNABLE_TO_DELETE, msg, e, uuid);
+        }
+
+        if (testRun == null) {
+            LOG.debug(COULD_NOT_FIND_MESSAGE + uuid);
+            throw new ObjectNotFoundException(uuid);
+        }
+
+        return testRun;
+    }
 
-            if (testRun == null) {
-                LOG.debug(COULD_NOT_FIND_MESSAGE + uuid);
-                throw new ObjectNotFoundException(uuid);
+    /**
+     * Delete the test data one table at a time, then the test run itself. If
+     * this is called outside of a transaction each delete is its own
+     * transaction.
+     * 
+     * @param testRun
+     * @param progress
+     */
+    private void purge(TestRun testRun, PurgeProgress progress) {
+        try {
+            // the roster join rows aren't objects so they aren't reported.
+            testRunRepository.purgeTestAssociations(testRun);
+            for (Class<? extends TestablePersistentObject> domainClass : PURGE_ORDER) {
+                progress.started(domainClass.getSimpleName());
+                progress.purged(testRunRepository.purgeTestData(domainClass, testRun));
+                if (entityCounts != null) {
+                    entityCounts.invalidate(domainClass);
+                }
             }
             testRunRepository.delete(testRun);
-
+            progress.complete();
         } catch (UnitTestException e) {
             final String msg = UNABLE_TO_DELETE.format(TEST_RUN);
-            throw new PersistenceException(UNABLE_TO_DELETE, msg, e, uuid);
+            progress.failed(msg);
+            throw new PersistenceException(UNABLE_TO_DELETE, msg, e, testRun.getUuid());
         } catch (DataAccessException e) {
             final String msg = UNABLE_TO_DELETE.format(TEST_RUN);
             LOG.info(msg);
-            throw new PersistenceException(UNABLE_TO_DELETE, msg, e, uuid);
+            progress.failed(msg);
+            throw new PersistenceException(UNABLE_TO_DELETE, msg, e, testRun.getUuid());
+        }
+    }
+
+    /**
+     * Clear the natural key caches after a background purge since they may
+     * have picked up test objects while it was running.
+     */
+    private void clearCaches() {
+        if (cacheManager != null) {
+            for (String name : CacheNames.getCacheNames()) {
+                final Cache cache = cacheManager.getCache(name);
+                if (cache != null) {
+                    cache.clear();
+                }
+            }
         }
     }
 
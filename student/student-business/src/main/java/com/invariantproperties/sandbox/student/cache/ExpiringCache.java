@@ -0,0 +1,129 @@
+/*
+ * This code was written by Bear Giles <bgiles@coyotesong.com> and he
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Any contributions made by others are licensed to this project under
+ * one or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright (c) 2013 Bear Giles <bgiles@coyotesong.com>
+ */
+package com.invariantproperties.sandbox.student.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+/**
+ * Cache with a maximum size and a time to live. The least recently used
+ * entry is dropped when the cache is full, and entries expire a fixed time
+ * after they were put.
+ * 
+ * The caches hold JPA entities that can change in the database without going
+ * through the services, e.g., manual updates or another node. The time to
+ * live bounds how long a stale entity can be returned.
+ * 
+ * @author Bear Giles <bgiles@coyotesong.com>
+ */
+public class ExpiringCache implements Cache {
+    private final String name;
+    private final long timeToLive;
+    private final Map<Object, Entry> entries;
+
+    /**
+     * Constructor
+     * 
+     * @param name
+     * @param maxSize
+     *            maximum number of entries
+     * @param timeToLive
+     * @param unit
+     */
+    public ExpiringCache(String name, final int maxSize, long timeToLive, TimeUnit unit) {
+        this.name = name;
+        this.timeToLive = unit.toNanos(timeToLive);
+        this.entries = new LinkedHashMap<Object, Entry>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Object, Entry> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return entries;
+    }
+
+    @Override
+    public synchronized ValueWrapper get(Object key) {
+        final Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (now() - entry.expires >= 0) {
+            entries.remove(key);
+            return null;
+        }
+        return new SimpleValueWrapper(entry.value);
+    }
+
+    @Override
+    public synchronized void put(Object key, Object value) {
+        entries.put(key, new Entry(value, now() + timeToLive));
+    }
+
+    @Override
+    public synchronized void evict(Object key) {
+        entries.remove(key);
+    }
+
+    @Override
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    /**
+     * Get the current time in nanoseconds. Unit tests can override this.
+     * 
+     * @return
+     */
+    long now() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Cached value and its expiration time.
+     */
+    private static final class Entry {
+        private final Object value;
+        private final long expires;
+
+        Entry(Object value, long expires) {
+            this.value = value;
+            this.expires = expires;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * This code was written by Bear Giles <bgiles@coyotesong.com> and he
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Any contributions made by others are licensed to this project under
+ * one or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright (c) 2013 Bear Giles <bgiles@coyotesong.com>
+ */
+package com.invariantproperties.sandbox.student.cache;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+/**
+ * CacheManager for a fixed set of ExpiringCaches that share the same maximum
+ * size and time to live. The caches are created by the constructor, like
+ * ConcurrentMapCacheManager, so the manager can be wrapped by another
+ * CacheManager without being initialized by Spring.
+ * 
+ * @author Bear Giles <bgiles@coyotesong.com>
+ */
+public class ExpiringCacheManager implements CacheManager {
+    private final Map<String, Cache> caches = new LinkedHashMap<String, Cache>();
+
+    /**
+     * Constructor
+     * 
+     * @param maxSize
+     *            maximum number of entries in each cache
+     * @param timeToLive
+     * @param unit
+     * @param names
+     */
+    public ExpiringCacheManager(int maxSize, long timeToLive, TimeUnit unit, String... names) {
+        for (String name : names) {
+            caches.put(name, new ExpiringCache(name, maxSize, timeToLive, unit));
+        }
+    }
+
+    /**
+     * @see org.springframework.cache.CacheManager#getCache(java.lang.String)
+     */
+    @Override
+    public Cache getCache(String name) {
+        return caches.get(name);
+    }
+
+    /**
+     * @see org.springframework.cache.CacheManager#getCacheNames()
+     */
+    @Override
+    public Collection<String> getCacheNames() {
+        return Collections.unmodifiableSet(caches.keySet());
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * This code was written by Bear Giles <bgiles@coyotesong.com> and he
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Any contributions made by others are licensed to this project under
+ * one or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright (c) 2013 Bear Giles <bgiles@coyotesong.com>
+ */
+package com.invariantproperties.sandbox.student.cache;
+
+import org.springframework.cache.Cache;
+
+/**
+ * Cache decorator that records hits and misses.
+ * 
+ * @author Bear Giles <bgiles@coyotesong.com>
+ */
+public class InstrumentedCache implements Cache {
+    private final Cache delegate;
+    private final CacheStatistics statistics;
+
+    public InstrumentedCache(Cache delegate) {
+        this.delegate = delegate;
+        this.statistics = new CacheStatistics(delegate.getName());
+    }
+
+    public CacheStatistics getStatistics() {
+        return statistics;
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return delegate.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        final ValueWrapper value = delegate.get(key);
+        if (value == null) {
+            statistics.miss();
+        } else {
+            statistics.hit();
+        }
+        return value;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        delegate.put(key, value);
+        statistics.put();
+    }
+
+    /**
+     * Evict entry. Null keys are ignored since they can't be in the cache and
+     * some cache implementations don't allow them.
+     */
+    @Override
+    public void evict(Object key) {
+        if (key != null) {
+            delegate.evict(key);
+            statistics.evict();
+        }
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+        statistics.clear();
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * This code was written by Bear Giles <bgiles@coyotesong.com> and he
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Any contributions made by others are licensed to this project under
+ * one or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright (c) 2013 Bear Giles <bgiles@coyotesong.com>
+ */
+package com.invariantproperties.sandbox.student.cache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.support.AbstractCacheManager;
+
+/**
+ * CacheManager that wraps the caches of another CacheManager so we can collect
+ * hit and miss statistics and keep the caches consistent with the current
+ * transaction. The delegate can be any Spring CacheManager, e.g., a
+ * ConcurrentMapCacheManager or an EhCacheCacheManager.
+ * 
+ * @author Bear Giles <bgiles@coyotesong.com>
+ */
+public class InstrumentedCacheManager extends AbstractCacheManager implements DisposableBean {
+    private static final Logger LOG = LoggerFactory.getLogger(InstrumentedCacheManager.class);
+
+    private final CacheManager delegate;
+    private final Map<String, CacheStatistics> statistics = new LinkedHashMap<String, CacheStatistics>();
+
+    public InstrumentedCacheManager(CacheManager delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * @see org.springframework.cache.support.AbstractCacheManager#loadCaches()
+     */
+    @Override
+    protected Collection<? extends Cache> loadCaches() {
+        final List<Cache> caches = new ArrayList<Cache>();
+        for (String name : delegate.getCacheNames()) {
+            final InstrumentedCache cache = new InstrumentedCache(delegate.getCache(name));
+            statistics.put(name, cache.getStatistics());
+            caches.add(new TransactionAwareCache(cache));
+        }
+        return caches;
+    }
+
+    /**
+     * Get statistics for the named cache.
+     * 
+     * @param name
+     * @return statistics, or null if the cache is unknown.
+     */
+    public CacheStatistics getStatistics(String name) {
+        return statistics.get(name);
+    }
+
+    /**
+     * Get statistics for all caches.
+     * 
+     * @return
+     */
+    public Collection<CacheStatistics> getStatistics() {
+        return Collections.unmodifiableCollection(statistics.values());
+    }
+
+    /**
+     * Report the final statistics on shutdown.
+     */
+    @Override
+    public void destroy() {
+        if (LOG.isInfoEnabled()) {
+            for (CacheStatistics stats : statistics.values()) {
+                LOG.info(stats.toString());
+            }
+        }
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * This code was written by Bear Giles <bgiles@coyotesong.com> and he
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Any contributions made by others are licensed to this project under
+ * one or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright (c) 2013 Bear Giles <bgiles@coyotesong.com>
+ */
+package com.invariantproperties.sandbox.student.cache;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.cache.Cache;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Cache decorator that keeps the cache consistent with the current
+ * transaction.
+ * 
+ * Puts are deferred until the transaction commits so other threads never see
+ * uncommitted data. Evictions happen immediately, so we don't see stale data
+ * later in this transaction, and again when the transaction completes in case
+ * another thread cached the old value in the meantime. We evict after a
+ * rollback as well since the cached object may have been modified.
+ * 
+ * A deferred put is dropped if the key was evicted after the value was read.
+ * Otherwise a reader that loaded the old value before a writer committed
+ * could cache it after the writer's evictions, and it would stay until it
+ * expired. Each key has a generation (shared by the keys in a stripe) that is
+ * incremented by every eviction. The generation is recorded on the cache miss
+ * that precedes the read and checked when the value is put.
+ * 
+ * This differs from Spring's TransactionAwareCacheDecorator which only evicts
+ * after a commit.
+ * 
+ * @author Bear Giles <bgiles@coyotesong.com>
+ */
+public class TransactionAwareCache implements Cache {
+    private static final int STRIPES = 64;
+
+    // bound on the recorded misses per thread. A miss that is never followed
+    // by a put, e.g., when the lookup fails, would otherwise stay forever.
+    private static final int MAX_MISSES = 32;
+
+    private final Cache delegate;
+    private final Object[] locks = new Object[STRIPES];
+    private final long[] generations = new long[STRIPES];
+    private final ThreadLocal<Map<Object, Long>> misses = new ThreadLocal<Map<Object, Long>>() {
+        @Override
+        protected Map<Object, Long> initialValue() {
+            return new HashMap<Object, Long>();
+        }
+    };
+
+    public TransactionAwareCache(Cache delegate) {
+        this.delegate = delegate;
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return delegate.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        final ValueWrapper value = delegate.get(key);
+        if (value == null) {
+            final Map<Object, Long> pending = misses.get();
+            if (pending.size() >= MAX_MISSES) {
+                pending.clear();
+            }
+            pending.put(key, generation(key));
+        }
+        return value;
+    }
+
+    @Override
+    public void put(final Object key, final Object value) {
+        final Long recorded = misses.get().remove(key);
+        final long generation = (recorded != null) ? recorded : generation(key);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    putIfCurrent(key, value, generation);
+                }
+            });
+        } else {
+            putIfCurrent(key, value, generation);
+        }
+    }
+
+    @Override
+    public void evict(final Object key) {
+        evictNow(key);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(int status) {
+                    evictNow(key);
+                }
+            });
+        }
+    }
+
+    @Override
+    public void clear() {
+        clearNow();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(int status) {
+                    clearNow();
+                }
+            });
+        }
+    }
+
+    /**
+     * Get the stripe for a key.
+     */
+    private static int stripe(Object key) {
+        return (key == null) ? 0 : (key.hashCode() & Integer.MAX_VALUE) % STRIPES;
+    }
+
+    private long generation(Object key) {
+        final int stripe = stripe(key);
+        synchronized (locks[stripe]) {
+            return generations[stripe];
+        }
+    }
+
+    /**
+     * Put the value unless the key has been evicted since the generation was
+     * recorded. The check and the put are atomic with respect to evictNow().
+     */
+    private void putIfCurrent(Object key, Object value, long generation) {
+        final int stripe = stripe(key);
+        synchronized (locks[stripe]) {
+            if (generations[stripe] == generation) {
+                delegate.put(key, value);
+            }
+        }
+    }
+
+    private void evictNow(Object key) {
+        final int stripe = stripe(key);
+        synchronized (locks[stripe]) {
+            generations[stripe]++;
+            delegate.evict(key);
+        }
+    }
+
+    /**
+     * Clear the cache. Every generation is incremented first so a concurrent
+     * putIfCurrent() either completes before the clear or is dropped.
+     */
+    private void clearNow() {
+        for (int i = 0; i < STRIPES; i++) {
+            synchronized (locks[i]) {
+                generations[i]++;
+            }
+        }
+        delegate.clear();
+    }
+}
@@ -22,11 +22,21 @@
  */
 package com.invariantproperties.sandbox.student.config;
 
+import java.util.concurrent.TimeUnit;
+
 import javax.annotation.Resource;
 
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.env.Environment;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import com.invariantproperties.sandbox.student.business.CacheNames;
+import com.invariantproperties.sandbox.student.cache.ExpiringCacheManager;
+import com.invariantproperties.sandbox.student.cache.InstrumentedCacheManager;
 
 /**
  * An application context Java configuration class. The usage of Java
@@ -40,9 +50,44 @@ import org.springframework.core.env.Environment;
  */
 @Configuration
 @ComponentScan(basePackages = { "com.invariantproperties.sandbox.student.business" })
+@EnableCaching
 // @PropertySource("classpath:application.properties")
 public class BusinessApplicationContext {
 
     @Resource
     private Environment environment;
+
+    /**
+     * Cache for the natural key lookups. The in-memory caches can be replaced
+     * by any other CacheManager, e.g., ehcache, without changing the services.
+     * 
+     * The caches are bounded and the entries expire so a stale entity can't
+     * stay forever. The defaults can be changed with the 'cache.maxSize' and
+     * 'cache.timeToLiveSeconds' properties.
+     * 
+     * @return
+     */
+    @Bean
+    public CacheManager cacheManager() {
+        final int maxSize = environment.getProperty("cache.maxSize", Integer.class, 10000);
+        final long timeToLive = environment.getProperty("cache.timeToLiveSeconds", Long.class, 300L);
+        return new InstrumentedCacheManager(new ExpiringCacheManager(maxSize, timeToLive, TimeUnit.SECONDS,
+                CacheNames.getCacheNames()));
+    }
+
+    /**
+     * Executor for background test run purges. A single thread is enough -
+     * the purges are limited by the database, not the application.
+     * 
+     * @return
+     */
+    @Bean
+    public ThreadPoolTaskExecutor purgeExecutor() {
+        final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(100);
+        executor.setThreadNamePrefix("purge-");
+        return executor;
+    }
 }
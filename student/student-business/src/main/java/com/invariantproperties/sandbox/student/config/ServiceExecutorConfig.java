@@ -0,0 +1,53 @@
+/*
+ * This code was written by Bear Giles <bgiles@coyotesong.com> and he
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Any contributions made by others are licensed to this project under
+ * one or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright (c) 2013 Bear Giles <bgiles@coyotesong.com>
+ */
+package com.invariantproperties.sandbox.student.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.invariantproperties.sandbox.student.business.ServiceExecutor;
+import com.invariantproperties.sandbox.student.business.ServiceExecutorImpl;
+
+/**
+ * Optional configuration that runs the REST finder calls on a bounded pool
+ * of workers. Add it to the application context after
+ * BusinessApplicationContext, e.g., in the webapp's contextConfigLocation.
+ * 
+ * The pool limits how many requests can wait on a slow database at once but
+ * each call still holds the request thread. See ServiceExecutorImpl.
+ * 
+ * @author Bear Giles <bgiles@coyotesong.com>
+ */
+@Configuration
+public class ServiceExecutorConfig {
+
+    /**
+     * The executor. It's configured by the 'service.executor.*' properties.
+     * 
+     * @return
+     */
+    @Bean
+    public ServiceExecutor serviceExecutor() {
+        return new ServiceExecutorImpl();
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * This code was written by Bear Giles <bgiles@coyotesong.com> and he
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Any contributions made by others are licensed to this project under
+ * one or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright (c) 2013 Bear Giles <bgiles@coyotesong.com>
+ */
+package com.invariantproperties.sandbox.student.search;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.invariantproperties.sandbox.student.search.InvertedIndex.Document;
+
+/**
+ * Saved copy of an InvertedIndex so it doesn't have to be rebuilt from the
+ * database on every restart.
+ * 
+ * The segment is written to a temporary file that replaces the old segment
+ * once it is complete so a crash never leaves a partial segment behind. It is
+ * read by mapping the file into memory instead of copying it through a
+ * stream.
+ * 
+ * The segment also records a stamp of the database state it was built from,
+ * e.g., the counts and versions, so a stale segment can be detected without
+ * reading the documents.
+ * 
+ * Layout: magic, version, stamp and document count, followed by each document's
+ * type, uuid, title, number of terms and the terms with their frequencies.
+ * Integers are big-endian and strings are a length followed by the UTF-8
+ * bytes.
+ * 
+ * @author Bear Giles <bgiles@coyotesong.com>
+ */
+public final class IndexSegment {
+    static final int MAGIC = 0x53545358;
+    static final int VERSION = 2;
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private IndexSegment() {
+
+    }
+
+    /**
+     * Save the index.
+     * 
+     * @param file
+     * @param index
+     * @param stamp
+     *            database state the index reflects, may be null
+     * @return number of documents written
+     * @throws IOException
+     */
+    public static int write(File file, InvertedIndex index, String stamp) throws IOException {
+        final Map<String, Document> documents = index.snapshot();
+        final File tmp = new File(file.getPath() + ".tmp");
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            writeString(out, stamp);
+            out.writeInt(documents.size());
+            for (Map.Entry<String, Document> entry : documents.entrySet()) {
+                final Document document = entry.getValue();
+                writeString(out, document.type);
+                writeString(out, entry.getKey());
+                writeString(out, document.title);
+                out.writeInt(document.terms.size());
+                for (Map.Entry<String, Integer> term : document.terms.entrySet()) {
+                    writeString(out, term.getKey());
+                    out.writeInt(term.getValue());
+                }
+            }
+        }
+
+        try {
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        return documents.size();
+    }
+
+    /**
+     * Load a saved index. The index is not modified if the segment can't be
+     * read.
+     * 
+     * @param file
+     * @param index
+     * @return number of documents read
+     * @throws IOException
+     *             if the file is missing, isn't a segment or is truncated
+     */
+    public static int read(File file, InvertedIndex index) throws IOException {
+        final Map<String, Document> documents = new LinkedHashMap<String, Document>();
+
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+            final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            readHeader(file, buffer);
+
+            final int count = buffer.getInt();
+            for (int i = 0; i < count; i++) {
+                final String type = readString(buffer);
+                final String uuid = readString(buffer);
+                final String title = readString(buffer);
+                final int termCount = buffer.getInt();
+                final Map<String, Integer> terms = new LinkedHashMap<String, Integer>();
+                for (int j = 0; j < termCount; j++) {
+                    final String term = readString(buffer);
+                    terms.put(term, buffer.getInt());
+                }
+                documents.put(uuid, new Document(type, title, terms));
+            }
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new IOException("truncated index segment: " + file, e);
+        }
+
+        for (Map.Entry<String, Document> entry : documents.entrySet()) {
+            index.put(entry.getKey(), entry.getValue());
+        }
+
+        return documents.size();
+    }
+
+    /**
+     * Read the stamp of a saved index without reading the documents.
+     * 
+     * @param file
+     * @return stamp, or null if the segment doesn't have one
+     * @throws IOException
+     *             if the file is missing, isn't a segment or is truncated
+     */
+    public static String readStamp(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+            return readHeader(file, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new IOException("truncated index segment: " + file, e);
+        }
+    }
+
+    /**
+     * Check the magic and version and read the stamp.
+     */
+    private static String readHeader(File file, MappedByteBuffer buffer) throws IOException {
+        if (buffer.getInt() != MAGIC) {
+            throw new IOException("not an index segment: " + file);
+        }
+        if (buffer.getInt() != VERSION) {
+            throw new IOException("unsupported index segment version: " + file);
+        }
+        return readString(buffer);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+        } else {
+            final byte[] bytes = value.getBytes(UTF8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static String readString(MappedByteBuffer buffer) {
+        final int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        if (length > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        final byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, UTF8);
+    }
+}
@@ -0,0 +1,298 @@
+/*
+ * This code was written by Bear Giles <bgiles@coyotesong.com> and he
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Any contributions made by others are licensed to this project under
+ * one or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright (c) 2013 Bear Giles <bgiles@coyotesong.com>
+ */
+package com.invariantproperties.sandbox.student.search;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import com.invariantproperties.sandbox.student.business.SearchHit;
+
+/**
+ * In-memory inverted index. Each document is identified by the uuid of the
+ * object it describes and has a type (simple class name), a title shown in
+ * the search results and the frequency of each term in its text.
+ * 
+ * A query matches the documents that contain every term in the query. The
+ * results are ranked by tf-idf, normalized by the document length, so rare
+ * terms and short documents rank higher.
+ * 
+ * The index is safe for concurrent use. Searches share a read lock and
+ * updates take the write lock - updates are rare compared to searches.
+ * 
+ * @author Bear Giles <bgiles@coyotesong.com>
+ */
+public class InvertedIndex {
+    private static final Comparator<SearchHit> BY_SCORE = new Comparator<SearchHit>() {
+        @Override
+        public int compare(SearchHit x, SearchHit y) {
+            int c = Double.compare(y.getScore(), x.getScore());
+            if (c == 0) {
+                c = String.valueOf(x.getTitle()).compareTo(String.valueOf(y.getTitle()));
+            }
+            return c;
+        }
+    };
+
+    /**
+     * Indexed document. Documents are immutable.
+     */
+    static final class Document {
+        final String type;
+        final String title;
+        final Map<String, Integer> terms;
+        final double norm;
+
+        Document(String type, String title, Map<String, Integer> terms) {
+            this.type = type;
+            this.title = title;
+            this.terms = Collections.unmodifiableMap(new LinkedHashMap<String, Integer>(terms));
+
+            int length = 0;
+            for (Integer tf : terms.values()) {
+                length += tf;
+            }
+            this.norm = Math.sqrt(Math.max(length, 1));
+        }
+    }
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Map<String, Integer>> postings = new HashMap<String, Map<String, Integer>>();
+    private final Map<String, Document> documents = new HashMap<String, Document>();
+
+    /**
+     * Add or replace a document.
+     * 
+     * @param uuid
+     * @param type
+     * @param title
+     * @param text
+     *            indexed text, including the title if it should be searchable
+     */
+    public void put(String uuid, String type, String title, String text) {
+        put(uuid, new Document(type, title, Tokenizer.termFrequencies(text)));
+    }
+
+    /**
+     * Replace a document if it is already in the index.
+     * 
+     * @param uuid
+     * @param type
+     * @param title
+     * @param text
+     * @return true if the document was replaced
+     */
+    public boolean update(String uuid, String type, String title, String text) {
+        final Document document = new Document(type, title, Tokenizer.termFrequencies(text));
+        lock.writeLock().lock();
+        try {
+            if (!documents.containsKey(uuid)) {
+                return false;
+            }
+            doRemove(uuid);
+            doPut(uuid, document);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Add or replace a document with precomputed term frequencies. This is
+     * used when loading a saved segment.
+     * 
+     * @param uuid
+     * @param document
+     */
+    void put(String uuid, Document document) {
+        lock.writeLock().lock();
+        try {
+            doRemove(uuid);
+            doPut(uuid, document);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove a document.
+     * 
+     * @param uuid
+     * @return true if the document was in the index
+     */
+    public boolean remove(String uuid) {
+        lock.writeLock().lock();
+        try {
+            return doRemove(uuid);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove all documents.
+     */
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            documents.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean contains(String uuid) {
+        lock.readLock().lock();
+        try {
+            return documents.containsKey(uuid);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Find the documents that contain every term in the query.
+     * 
+     * @param query
+     * @param type
+     *            document type, or null for all types
+     * @param maxResults
+     * @return best matches first
+     */
+    public List<SearchHit> search(String query, String type, int maxResults) {
+        final Set<String> terms = new LinkedHashSet<String>(Tokenizer.tokenize(query));
+        final List<SearchHit> hits = new ArrayList<SearchHit>();
+        if (terms.isEmpty() || maxResults <= 0) {
+            return hits;
+        }
+
+        lock.readLock().lock();
+        try {
+            // start with the shortest postings list - usually the rarest term.
+            final List<Map<String, Integer>> lists = new ArrayList<Map<String, Integer>>(terms.size());
+            final List<Double> idfs = new ArrayList<Double>(terms.size());
+            Map<String, Integer> shortest = null;
+            for (String term : terms) {
+                final Map<String, Integer> list = postings.get(term);
+                if (list == null) {
+                    return hits;
+                }
+                lists.add(list);
+                idfs.add(Math.log(1.0 + (double) documents.size() / list.size()));
+                if (shortest == null || list.size() < shortest.size()) {
+                    shortest = list;
+                }
+            }
+
+            for (String uuid : shortest.keySet()) {
+                final Document document = documents.get(uuid);
+                if (type != null && !type.equals(document.type)) {
+                    continue;
+                }
+
+                double score = 0.0;
+                for (int i = 0; i < lists.size() && score >= 0.0; i++) {
+                    final Integer tf = lists.get(i).get(uuid);
+                    if (tf == null) {
+                        score = -1.0;
+                    } else {
+                        score += (1.0 + Math.log(tf)) * idfs.get(i);
+                    }
+                }
+
+                if (score >= 0.0) {
+                    hits.add(new SearchHit(document.type, uuid, document.title, score / document.norm));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        Collections.sort(hits, BY_SCORE);
+        return (hits.size() > maxResults) ? new ArrayList<SearchHit>(hits.subList(0, maxResults)) : hits;
+    }
+
+    /**
+     * Get a consistent copy of the documents. This is used when saving a
+     * segment.
+     * 
+     * @return
+     */
+    Map<String, Document> snapshot() {
+        lock.readLock().lock();
+        try {
+            return new LinkedHashMap<String, Document>(documents);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void doPut(String uuid, Document document) {
+        documents.put(uuid, document);
+        for (Map.Entry<String, Integer> entry : document.terms.entrySet()) {
+            Map<String, Integer> list = postings.get(entry.getKey());
+            if (list == null) {
+                list = new HashMap<String, Integer>();
+                postings.put(entry.getKey(), list);
+            }
+            list.put(uuid, entry.getValue());
+        }
+    }
+
+    private boolean doRemove(String uuid) {
+        final Document document = documents.remove(uuid);
+        if (document == null) {
+            return false;
+        }
+
+        for (String term : document.terms.keySet()) {
+            final Map<String, Integer> list = postings.get(term);
+            if (list != null) {
+                list.remove(uuid);
+                if (list.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+
+        return true;
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * This code was written by Bear Giles <bgiles@coyotesong.com> and he
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Any contributions made by others are licensed to this project under
+ * one or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright (c) 2013 Bear Giles <bgiles@coyotesong.com>
+ */
+package com.invariantproperties.sandbox.student.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Splits text into search terms. A term is a run of letters and digits,
+ * converted to lowercase. Single characters and common English words are
+ * discarded since they match nearly everything.
+ * 
+ * The same rules are used for the indexed text and the query.
+ * 
+ * @author Bear Giles <bgiles@coyotesong.com>
+ */
+public final class Tokenizer {
+    public static final int MIN_TERM_LENGTH = 2;
+    private static final Set<String> STOPWORDS = Collections.unmodifiableSet(new HashSet<String>(Arrays.asList(
+            "an", "and", "are", "as", "at", "be", "by", "for", "from", "in", "into", "is", "it", "of", "on", "or",
+            "the", "to", "with")));
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private Tokenizer() {
+
+    }
+
+    /**
+     * Split text into terms, in order. Terms may be repeated.
+     * 
+     * @param text
+     *            may be null
+     * @return
+     */
+    public static List<String> tokenize(String text) {
+        final List<String> terms = new ArrayList<String>();
+        if (text == null) {
+            return terms;
+        }
+
+        final String lower = text.toLowerCase(Locale.ROOT);
+        int start = -1;
+        for (int i = 0; i <= lower.length(); i++) {
+            final boolean inTerm = (i < lower.length()) && Character.isLetterOrDigit(lower.charAt(i));
+            if (inTerm && start < 0) {
+                start = i;
+            } else if (!inTerm && start >= 0) {
+                final String term = lower.substring(start, i);
+                if (term.length() >= MIN_TERM_LENGTH && !STOPWORDS.contains(term)) {
+                    terms.add(term);
+                }
+                start = -1;
+            }
+        }
+
+        return terms;
+    }
+
+    /**
+     * Count the number of times each term appears in the text.
+     * 
+     * @param text
+     *            may be null
+     * @return term frequencies, in order of first appearance
+     */
+    public static Map<String, Integer> termFrequencies(String text) {
+        final Map<String, Integer> frequencies = new LinkedHashMap<String, Integer>();
+        for (String term : tokenize(text)) {
+            final Integer count = frequencies.get(term);
+            frequencies.put(term, (count == null) ? 1 : count + 1);
+        }
+        return frequencies;
+    }
+}
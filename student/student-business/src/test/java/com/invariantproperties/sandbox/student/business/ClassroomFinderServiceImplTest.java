@@ -190,4 +190,37 @@ public class ClassroomFinderServiceImplTest {
         final ClassroomFinderService service = new ClassroomFinderServiceImpl(repository);
         service.findClassroomsByTestRun(testRun);
     }
+
+    @Test
+    public void testFindPage() {
+        final ClassroomRepository repository = Mockito.mock(ClassroomRepository.class);
+
+        final ClassroomFinderService service = new ClassroomFinderServiceImpl(repository);
+        ServiceAssertions.assertFindPage(repository, service, new Classroom());
+    }
+
+    @Test(expected = ObjectNotFoundException.class)
+    public void testFindPageAfterMissing() {
+        final ClassroomRepository repository = Mockito.mock(ClassroomRepository.class);
+        when(repository.findClassroomByUuid(any(String.class))).thenReturn(null);
+
+        final ClassroomFinderService service = new ClassroomFinderServiceImpl(repository);
+        service.findPage(new KeysetPage("[uuid]", 10));
+    }
+
+    @Test
+    public void testFindByUuids() {
+        final ClassroomRepository repository = Mockito.mock(ClassroomRepository.class);
+
+        final ClassroomFinderService service = new ClassroomFinderServiceImpl(repository);
+        ServiceAssertions.assertFindByUuids(repository, service, new Classroom(), new Classroom());
+    }
+
+    @Test
+    public void testForEach() {
+        final ClassroomRepository repository = Mockito.mock(ClassroomRepository.class);
+
+        final ClassroomFinderService service = new ClassroomFinderServiceImpl(repository);
+        ServiceAssertions.assertForEach(repository, service);
+    }
 }
@@ -24,12 +24,23 @@ package com.invariantproperties.sandbox.student.business;
 
 import static org.junit.Assert.assertEquals;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyCollectionOf;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyListOf;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
 import org.junit.Test;
 import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
 import com.invariantproperties.sandbox.student.domain.Classroom;
 import com.invariantproperties.sandbox.student.repository.ClassroomRepository;
@@ -41,6 +52,18 @@ import com.invariantproperties.sandbox.student.repository.ClassroomRepository;
  */
 public class ClassroomManagerServiceImplTest {
     private static final String UUID = "11111111-1111-1111-1111-111111111111";
+    private static final String UUID2 = "22222222-2222-2222-2222-222222222222";
+
+    /**
+     * Mock of saveInBatches() that returns its argument.
+     */
+    private static final Answer<List<Classroom>> SAVED = new Answer<List<Classroom>>() {
+        @SuppressWarnings("unchecked")
+        @Override
+        public List<Classroom> answer(InvocationOnMock invocation) {
+            return (List<Classroom>) invocation.getArguments()[0];
+        }
+    };
 
     @Test
     public void testCreateClassroom() {
@@ -115,7 +138,7 @@ public class ClassroomManagerServiceImplTest {
         doNothing().when(repository).delete(any(Classroom.class));
 
         final ClassroomManagerService service = new ClassroomManagerServiceImpl(repository);
-        service.deleteClassroom(expected.getUuid(), 0);
+        service.deleteClassroom(expected.getUuid(), null);
     }
 
     @Test(expected = ObjectNotFoundException.class)
@@ -124,7 +147,7 @@ public class ClassroomManagerServiceImplTest {
         when(repository.findClassroomByUuid(any(String.class))).thenReturn(null);
 
         final ClassroomManagerService service = new ClassroomManagerServiceImpl(repository);
-        service.deleteClassroom(UUID, 0);
+        service.deleteClassroom(UUID, null);
     }
 
     @Test(expected = PersistenceException.class)
@@ -137,6 +160,93 @@ public class ClassroomManagerServiceImplTest {
         doThrow(new UnitTestException()).when(repository).delete(any(Classroom.class));
 
         final ClassroomManagerService service = new ClassroomManagerServiceImpl(repository);
-        service.deleteClassroom(expected.getUuid(), 0);
+        service.deleteClassroom(expected.getUuid(), null);
+    }
+
+    @Test
+    public void testUpdateIfVersion() {
+        final Classroom changes = new Classroom();
+        changes.setUuid(UUID);
+        changes.setVersion(3);
+
+        final ClassroomRepository repository = Mockito.mock(ClassroomRepository.class);
+
+        final ClassroomManagerService service = new ClassroomManagerServiceImpl(repository);
+        ServiceAssertions.assertUpdateIfVersion(repository, service, changes, "name");
+    }
+
+    @Test
+    public void testDeleteIfVersion() {
+        final ClassroomRepository repository = Mockito.mock(ClassroomRepository.class);
+
+        final ClassroomManagerService service = new ClassroomManagerServiceImpl(repository);
+        ServiceAssertions.assertDeleteIfVersion(repository, service);
+    }
+
+    @Test
+    public void testDeleteClassroomWithVersion() {
+        final ClassroomRepository repository = Mockito.mock(ClassroomRepository.class);
+        when(repository.deleteIfVersion(UUID, 3)).thenReturn(1);
+
+        final ClassroomManagerService service = new ClassroomManagerServiceImpl(repository);
+        service.deleteClassroom(UUID, 3);
+
+        verify(repository).deleteIfVersion(UUID, 3);
+        verify(repository, never()).findClassroomByUuid(any(String.class));
+    }
+
+    @Test
+    public void testCreateAll() {
+        final Classroom valid = new Classroom();
+        valid.setName("Alice");
+        final Classroom invalid = new Classroom();
+
+        final ClassroomRepository repository = Mockito.mock(ClassroomRepository.class);
+        when(repository.saveInBatches(anyListOf(Classroom.class), anyInt())).thenAnswer(SAVED);
+
+        final ClassroomManagerService service = new ClassroomManagerServiceImpl(repository);
+        final BatchResult<Classroom> actual = service.createAll(Arrays.asList(valid, invalid));
+
+        assertEquals(1, actual.getResults().size());
+        assertEquals("Alice", actual.getResults().get(0).getName());
+        assertEquals(1, actual.getFailures().size());
+        assertEquals(1, actual.getFailures().get(0).getIndex());
+    }
+
+    @Test(expected = PersistenceException.class)
+    public void testCreateAllError() {
+        final Classroom valid = new Classroom();
+        valid.setName("Alice");
+
+        final ClassroomRepository repository = Mockito.mock(ClassroomRepository.class);
+        when(repository.saveInBatches(anyListOf(Classroom.class), anyInt())).thenThrow(new UnitTestException());
+
+        final ClassroomManagerService service = new ClassroomManagerServiceImpl(repository);
+        service.createAll(Collections.singletonList(valid));
+    }
+
+    @Test
+    public void testUpdateAll() {
+        final Classroom expected = new Classroom();
+        expected.setUuid(UUID);
+        expected.setName("Alice");
+        final Classroom changes = new Classroom();
+        changes.setUuid(UUID);
+        changes.setName("Bob");
+        final Classroom missing = new Classroom();
+        missing.setUuid(UUID2);
+        missing.setName("Carol");
+
+        final ClassroomRepository repository = Mockito.mock(ClassroomRepository.class);
+        when(repository.findAllByUuid(anyCollectionOf(String.class))).thenReturn(Collections.singletonList(expected));
+        when(repository.saveInBatches(anyListOf(Classroom.class), anyInt())).thenAnswer(SAVED);
+
+        final ClassroomManagerService service = new ClassroomManagerServiceImpl(repository);
+        final BatchResult<Classroom> actual = service.updateAll(Arrays.asList(changes, missing));
+
+        assertEquals(1, actual.getResults().size());
+        assertEquals("Bob", actual.getResults().get(0).getName());
+        assertEquals(1, actual.getFailures().size());
+        assertEquals(UUID2, actual.getFailures().get(0).getUuid());
     }
 }
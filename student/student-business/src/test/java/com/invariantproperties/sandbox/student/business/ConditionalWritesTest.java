@@ -0,0 +1,109 @@
+/*
+ * This code was written by Bear Giles <bgiles@coyotesong.com> and he
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Any contributions made by others are licensed to this project under
+ * one or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright (c) 2013 Bear Giles <bgiles@coyotesong.com>
+ */
+package com.invariantproperties.sandbox.student.business;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.anyMapOf;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+import java.util.Map;
+
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import com.invariantproperties.sandbox.student.domain.Course;
+import com.invariantproperties.sandbox.student.repository.CustomRepository;
+
+/**
+ * Unit tests for ConditionalWrites.
+ * 
+ * @author Bear Giles <bgiles@coyotesong.com>
+ */
+public class ConditionalWritesTest {
+    private static final String UUID = "11111111-1111-1111-1111-111111111111";
+    private static final Map<String, Object> VALUES = Collections.<String, Object> singletonMap("name", "Physics");
+
+    @SuppressWarnings("unchecked")
+    private final CustomRepository<Course> repository = Mockito.mock(CustomRepository.class);
+
+    private Course changes() {
+        final Course changes = new Course();
+        changes.setUuid(UUID);
+        changes.setVersion(3);
+        return changes;
+    }
+
+    @Test
+    public void testUpdate() {
+        when(repository.updateIfVersion(eq(UUID), eq(3), anyMapOf(String.class, Object.class))).thenReturn(1);
+
+        assertEquals(Integer.valueOf(4), ConditionalWrites.update(repository, changes(), VALUES));
+    }
+
+    @Test
+    public void testUpdateConflict() {
+        when(repository.updateIfVersion(eq(UUID), eq(3), anyMapOf(String.class, Object.class))).thenReturn(0);
+        when(repository.findVersionByUuid(UUID)).thenReturn(5);
+
+        try {
+            ConditionalWrites.update(repository, changes(), VALUES);
+            fail("expected VersionConflictException");
+        } catch (VersionConflictException e) {
+            assertEquals(Integer.valueOf(5), e.getCurrentVersion());
+        }
+    }
+
+    @Test(expected = ObjectNotFoundException.class)
+    public void testUpdateMissing() {
+        when(repository.updateIfVersion(eq(UUID), eq(3), anyMapOf(String.class, Object.class))).thenReturn(0);
+        when(repository.findVersionByUuid(UUID)).thenReturn(null);
+
+        ConditionalWrites.update(repository, changes(), VALUES);
+    }
+
+    @Test
+    public void testDelete() {
+        when(repository.deleteIfVersion(UUID, 3)).thenReturn(1);
+
+        ConditionalWrites.delete(repository, UUID, 3);
+    }
+
+    @Test(expected = VersionConflictException.class)
+    public void testDeleteConflict() {
+        when(repository.deleteIfVersion(UUID, 3)).thenReturn(0);
+        when(repository.findVersionByUuid(UUID)).thenReturn(5);
+
+        ConditionalWrites.delete(repository, UUID, 3);
+    }
+
+    @Test(expected = ObjectNotFoundException.class)
+    public void testDeleteMissing() {
+        when(repository.deleteIfVersion(UUID, 3)).thenReturn(0);
+        when(repository.findVersionByUuid(UUID)).thenReturn(null);
+
+        ConditionalWrites.delete(repository, UUID, 3);
+    }
+}
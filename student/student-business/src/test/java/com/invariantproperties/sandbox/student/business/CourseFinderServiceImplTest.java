@@ -23,9 +23,15 @@
 package com.invariantproperties.sandbox.student.business;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
@@ -72,6 +78,19 @@ public class CourseFinderServiceImplTest {
         assertEquals(expected, actual);
     }
 
+    @Test
+    public void testCountIsMaintained() {
+        final CourseRepository repository = Mockito.mock(CourseRepository.class);
+        when(repository.count(any(sClass))).thenReturn(3L);
+
+        final CourseFinderService service = new CourseFinderServiceImpl(repository);
+        assertEquals(3L, service.count());
+        assertEquals(3L, service.count());
+        assertEquals(3L, service.countByTestRun(null, true));
+
+        verify(repository, times(2)).count(any(sClass));
+    }
+
     @Test(expected = PersistenceException.class)
     public void testCountError() {
         final CourseRepository repository = Mockito.mock(CourseRepository.class);
@@ -158,6 +177,15 @@ public class CourseFinderServiceImplTest {
         service.findCourseByUuid("[uuid]");
     }
 
+    @Test
+    public void testFindByUuidOrNullMissing() {
+        final CourseRepository repository = Mockito.mock(CourseRepository.class);
+        when(repository.findCourseByUuid(any(String.class))).thenReturn(null);
+
+        final CourseFinderService service = new CourseFinderServiceImpl(repository);
+        assertNull(service.findByUuidOrNull("[uuid]"));
+    }
+
     @Test(expected = PersistenceException.class)
     public void testFindCourseByUuidError() {
         final CourseRepository repository = Mockito.mock(CourseRepository.class);
@@ -218,4 +246,182 @@ public class CourseFinderServiceImplTest {
         final CourseFinderService service = new CourseFinderServiceImpl(repository);
         service.findCoursesByTestRun(testRun);
     }
+
+    @Test
+    public void testFindCoursesByName() {
+        final List<Course> expected = Collections.singletonList(new Course());
+
+        final CourseRepository repository = Mockito.mock(CourseRepository.class);
+        when(repository.findPage(any(sClass), any(Course.class), any(KeysetPage.class))).thenReturn(expected);
+
+        final CourseFinderService service = new CourseFinderServiceImpl(repository);
+        final List<Course> actual = service.findCoursesByName("phys", NameMatch.PREFIX, null, new KeysetPage(10));
+
+        assertEquals(expected, actual);
+        verify(repository, times(1)).findPage(any(sClass), any(Course.class), any(KeysetPage.class));
+    }
+
+    @Test
+    public void testFindCoursesByNameSubstring() {
+        final Course prefix = new Course();
+        prefix.setName("Physics");
+        final Course substring = new Course();
+        substring.setName("Astrophysics");
+
+        final CourseRepository repository = Mockito.mock(CourseRepository.class);
+        when(repository.findPage(any(sClass), any(Course.class), any(KeysetPage.class))).thenReturn(
+                Collections.singletonList(prefix), Collections.singletonList(substring));
+
+        final CourseFinderService service = new CourseFinderServiceImpl(repository);
+        final List<Course> actual = service.findCoursesByName("phys", NameMatch.SUBSTRING, null, new KeysetPage(10));
+
+        assertEquals(Arrays.asList(prefix, substring), actual);
+        verify(repository, times(2)).findPage(any(sClass), any(Course.class), any(KeysetPage.class));
+    }
+
+    @Test
+    public void testFindCoursesByNameSubstringFullPage() {
+        final Course prefix = new Course();
+        prefix.setName("Physics");
+        final List<Course> expected = Collections.singletonList(prefix);
+
+        final CourseRepository repository = Mockito.mock(CourseRepository.class);
+        when(repository.findPage(any(sClass), any(Course.class), any(KeysetPage.class))).thenReturn(expected);
+
+        final CourseFinderService service = new CourseFinderServiceImpl(repository);
+        final List<Course> actual = service.findCoursesByName("phys", NameMatch.SUBSTRING, null, new KeysetPage(1));
+
+        assertEquals(expected, actual);
+        verify(repository, times(1)).findPage(any(sClass), any(Course.class), any(KeysetPage.class));
+    }
+
+    @Test
+    public void testFindCoursesByNameSubstringAfterSubstring() {
+        final Course after = new Course();
+        after.setUuid("[uuid]");
+        after.setName("Astrophysics");
+        final List<Course> expected = Collections.singletonList(new Course());
+
+        final CourseRepository repository = Mockito.mock(CourseRepository.class);
+        when(repository.findCourseByUuid(after.getUuid())).thenReturn(after);
+        when(repository.findPage(any(sClass), eq(after), any(KeysetPage.class))).thenReturn(expected);
+
+        final CourseFinderService service = new CourseFinderServiceImpl(repository);
+        final List<Course> actual = service.findCoursesByName("phys", NameMatch.SUBSTRING, null, new KeysetPage(
+                after.getUuid(), 10));
+
+        // the prefix matches were on earlier pages
+        assertEquals(expected, actual);
+        verify(repository, times(1)).findPage(any(sClass), any(Course.class), any(KeysetPage.class));
+    }
+
+    /**
+     * Too short for the trigram index.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testFindCoursesByNameShortSubstring() {
+        final CourseRepository repository = Mockito.mock(CourseRepository.class);
+
+        final CourseFinderService service = new CourseFinderServiceImpl(repository);
+        try {
+            service.findCoursesByName("ph", NameMatch.SUBSTRING, null, new KeysetPage(10));
+        } finally {
+            verify(repository, never()).findPage(any(sClass), any(Course.class), any(KeysetPage.class));
+        }
+    }
+
+    @Test(expected = ObjectNotFoundException.class)
+    public void testFindCoursesByNameAfterMissing() {
+        final CourseRepository repository = Mockito.mock(CourseRepository.class);
+        when(repository.findCourseByUuid(any(String.class))).thenReturn(null);
+
+        final CourseFinderService service = new CourseFinderServiceImpl(repository);
+        service.findCoursesByName("phys", NameMatch.PREFIX, null, new KeysetPage("[uuid]", 10));
+    }
+
+    @Test(expected = PersistenceException.class)
+    public void testFindCoursesByNameError() {
+        final CourseRepository repository = Mockito.mock(CourseRepository.class);
+        when(repository.findPage(any(sClass), any(Course.class), any(KeysetPage.class))).thenThrow(
+                new UnitTestException());
+
+        final CourseFinderService service = new CourseFinderServiceImpl(repository);
+        service.findCoursesByName("phys", NameMatch.PREFIX, null, new KeysetPage(10));
+    }
+
+    @Test
+    public void testFindPage() {
+        final CourseRepository repository = Mockito.mock(CourseRepository.class);
+
+        final CourseFinderService service = new CourseFinderServiceImpl(repository);
+        ServiceAssertions.assertFindPage(repository, service, new Course());
+    }
+
+    /**
+     * The cursor created by next() holds the position of the last course so
+     * the next page can be read after that course is deleted.
+     */
+    @Test
+    public void testFindPageAfter() {
+        final Course after = new Course();
+        after.setUuid("[uuid]");
+        final List<Course> expected = Collections.singletonList(new Course());
+
+        final CourseRepository repository = Mockito.mock(CourseRepository.class);
+        when(repository.findCourseByUuid(after.getUuid())).thenReturn(after);
+        when(repository.findPage(any(sClass), eq(after), any(KeysetPage.class))).thenReturn(expected);
+
+        final CourseFinderService service = new CourseFinderServiceImpl(repository);
+        final List<Course> actual = service.findPage(new KeysetPage(after.getUuid(), 10));
+
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void testFindPageAfterDeleted() {
+        final Course last = new Course();
+        last.setId(42);
+        last.setUuid("[uuid]");
+        last.setName("physics");
+        final KeysetPage page = new KeysetPage(null, 1, "name", true).next(Arrays.asList(last));
+        assertEquals("[uuid]:42:physics", page.getAfter());
+
+        final Course position = new Course();
+        final List<Course> expected = Collections.singletonList(new Course());
+
+        final CourseRepository repository = Mockito.mock(CourseRepository.class);
+        when(repository.findPosition(page)).thenReturn(position);
+        when(repository.findPage(any(sClass), eq(position), eq(page))).thenReturn(expected);
+
+        final CourseFinderService service = new CourseFinderServiceImpl(repository);
+        final List<Course> actual = service.findPage(page);
+
+        assertEquals(expected, actual);
+        verify(repository, never()).findCourseByUuid(any(String.class));
+    }
+
+    @Test(expected = ObjectNotFoundException.class)
+    public void testFindPageAfterMissing() {
+        final CourseRepository repository = Mockito.mock(CourseRepository.class);
+        when(repository.findCourseByUuid(any(String.class))).thenReturn(null);
+
+        final CourseFinderService service = new CourseFinderServiceImpl(repository);
+        service.findPage(new KeysetPage("[uuid]", 10));
+    }
+
+    @Test
+    public void testFindByUuids() {
+        final CourseRepository repository = Mockito.mock(CourseRepository.class);
+
+        final CourseFinderService service = new CourseFinderServiceImpl(repository);
+        ServiceAssertions.assertFindByUuids(repository, service, new Course(), new Course());
+    }
+
+    @Test
+    public void testForEach() {
+        final CourseRepository repository = Mockito.mock(CourseRepository.class);
+
+        final CourseFinderService service = new CourseFinderServiceImpl(repository);
+        ServiceAssertions.assertForEach(repository, service);
+    }
 }
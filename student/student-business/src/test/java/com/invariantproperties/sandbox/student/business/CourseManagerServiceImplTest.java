@@ -22,14 +22,31 @@
  */
 package com.invariantproperties.sandbox.student.business;
 
+import static com.invariantproperties.sandbox.student.business.CacheNames.COURSE_BY_CODE;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyCollectionOf;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyListOf;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
 import org.junit.Test;
 import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
 
 import com.invariantproperties.sandbox.student.domain.Course;
 import com.invariantproperties.sandbox.student.repository.CourseRepository;
@@ -41,6 +58,7 @@ import com.invariantproperties.sandbox.student.repository.CourseRepository;
  */
 public class CourseManagerServiceImplTest {
     private static final String CODE1 = "code 1";
+    private static final String CODE2 = "code 2";
     private static final String NAME1 = "name 1";
     private static final String NAME2 = "name 2";
     private static final String SUMMARY1 = "summary 1";
@@ -50,6 +68,18 @@ public class CourseManagerServiceImplTest {
     private static final Integer HOURS1 = 1;
     private static final Integer HOURS2 = 2;
     private static final String UUID = "11111111-1111-1111-1111-111111111111";
+    private static final String UUID2 = "22222222-2222-2222-2222-222222222222";
+
+    /**
+     * Mock of saveInBatches() that returns its argument.
+     */
+    private static final Answer<List<Course>> SAVED = new Answer<List<Course>>() {
+        @SuppressWarnings("unchecked")
+        @Override
+        public List<Course> answer(InvocationOnMock invocation) {
+            return (List<Course>) invocation.getArguments()[0];
+        }
+    };
 
     @Test
     public void testCreateCourse() {
@@ -102,6 +132,53 @@ public class CourseManagerServiceImplTest {
         assertEquals(HOURS2, actual.getCreditHours());
     }
 
+    @Test
+    public void testUpdateCourseDoesNotModifyArgument() {
+        final Course cached = new Course();
+        cached.setCode(CODE1);
+        cached.setName(NAME1);
+        cached.setSummary(SUMMARY1);
+        cached.setUuid(UUID);
+        final Course managed = new Course();
+        managed.setCode(CODE1);
+        managed.setName(NAME1);
+        managed.setSummary(SUMMARY1);
+        managed.setUuid(UUID);
+
+        final CourseRepository repository = Mockito.mock(CourseRepository.class);
+        when(repository.findCourseByUuid(UUID)).thenReturn(managed);
+        when(repository.saveAndFlush(managed)).thenReturn(managed);
+
+        final CourseManagerService service = new CourseManagerServiceImpl(repository);
+        final Course actual = service.updateCourse(cached, NAME2, SUMMARY2, DESCRIPTION2, HOURS2);
+
+        assertEquals(NAME2, actual.getName());
+        assertEquals(NAME1, cached.getName());
+        assertEquals(SUMMARY1, cached.getSummary());
+    }
+
+    @Test
+    public void testUpdateCourseEvictsCode() {
+        final Course managed = new Course();
+        managed.setCode(CODE1);
+        managed.setUuid(UUID);
+
+        final CourseRepository repository = Mockito.mock(CourseRepository.class);
+        when(repository.findCourseByUuid(UUID)).thenReturn(managed);
+        when(repository.saveAndFlush(managed)).thenReturn(managed);
+
+        final CacheManager cacheManager = new ConcurrentMapCacheManager(COURSE_BY_CODE);
+        final Cache cache = cacheManager.getCache(COURSE_BY_CODE);
+        cache.put(CODE1, managed);
+        cache.put(CODE2, new Course());
+
+        final CourseManagerService service = new CourseManagerServiceImpl(repository, cacheManager);
+        service.updateCourse(managed, NAME2, SUMMARY2, DESCRIPTION2, HOURS2);
+
+        assertNull(cache.get(CODE1));
+        assertNotNull(cache.get(CODE2));
+    }
+
     @Test(expected = ObjectNotFoundException.class)
     public void testUpdateCourseMissing() {
         final Course expected = new Course();
@@ -135,7 +212,7 @@ public class CourseManagerServiceImplTest {
         doNothing().when(repository).delete(any(Course.class));
 
         final CourseManagerService service = new CourseManagerServiceImpl(repository);
-        service.deleteCourse(expected.getUuid(), 0);
+        service.deleteCourse(expected.getUuid(), null);
     }
 
     @Test(expected = ObjectNotFoundException.class)
@@ -144,7 +221,7 @@ public class CourseManagerServiceImplTest {
         when(repository.findCourseByUuid(any(String.class))).thenReturn(null);
 
         final CourseManagerService service = new CourseManagerServiceImpl(repository);
-        service.deleteCourse(UUID, 0);
+        service.deleteCourse(UUID, null);
     }
 
     @Test(expected = PersistenceException.class)
@@ -157,6 +234,149 @@ public class CourseManagerServiceImplTest {
         doThrow(new UnitTestException()).when(repository).delete(any(Course.class));
 
         final CourseManagerService service = new CourseManagerServiceImpl(repository);
-        service.deleteCourse(expected.getUuid(), 0);
+        service.deleteCourse(expected.getUuid(), null);
+    }
+
+    @Test
+    public void testUpdateIfVersion() {
+        final Course changes = new Course();
+        changes.setUuid(UUID);
+        changes.setVersion(3);
+
+        final CourseRepository repository = Mockito.mock(CourseRepository.class);
+
+        final CourseManagerService service = new CourseManagerServiceImpl(repository);
+        ServiceAssertions.assertUpdateIfVersion(repository, service, changes, "name", "summary", "description",
+                "creditHours");
+    }
+
+    @Test
+    public void testDeleteIfVersion() {
+        final CourseRepository repository = Mockito.mock(CourseRepository.class);
+
+        final CourseManagerService service = new CourseManagerServiceImpl(repository);
+        ServiceAssertions.assertDeleteIfVersion(repository, service);
+    }
+
+    @Test
+    public void testDeleteCourseWithVersion() {
+        final CourseRepository repository = Mockito.mock(CourseRepository.class);
+        when(repository.deleteIfVersion(UUID, 3)).thenReturn(1);
+
+        final CourseManagerService service = new CourseManagerServiceImpl(repository);
+        service.deleteCourse(UUID, 3);
+
+        verify(repository).deleteIfVersion(UUID, 3);
+        verify(repository, never()).delete(any(Course.class));
+    }
+
+    @Test
+    public void testCreateAll() {
+        final Course valid = new Course();
+        valid.setName("Alice");
+        valid.setCode("alice-101");
+        final Course invalid = new Course();
+        invalid.setCode("bob-101");
+        final Course duplicate = new Course();
+        duplicate.setName("Carol");
+        duplicate.setCode("carol-101");
+        final Course existing = new Course();
+        existing.setUuid(UUID);
+        existing.setName("Carol");
+        existing.setCode("carol-101");
+
+        final CourseRepository repository = Mockito.mock(CourseRepository.class);
+        when(repository.findCoursesByCodeIn(anyCollectionOf(String.class)))
+                .thenReturn(Collections.singletonList(existing));
+        when(repository.saveInBatches(anyListOf(Course.class), anyInt())).thenAnswer(SAVED);
+
+        final CourseManagerService service = new CourseManagerServiceImpl(repository);
+        final BatchResult<Course> actual = service.createAll(Arrays.asList(valid, invalid, duplicate));
+
+        assertEquals(1, actual.getResults().size());
+        assertEquals("Alice", actual.getResults().get(0).getName());
+        assertEquals(2, actual.getFailures().size());
+        assertEquals(1, actual.getFailures().get(0).getIndex());
+        assertEquals(2, actual.getFailures().get(1).getIndex());
+    }
+
+    @Test(expected = PersistenceException.class)
+    public void testCreateAllError() {
+        final Course valid = new Course();
+        valid.setName("Alice");
+        valid.setCode("alice-101");
+
+        final CourseRepository repository = Mockito.mock(CourseRepository.class);
+        when(repository.saveInBatches(anyListOf(Course.class), anyInt())).thenThrow(new UnitTestException());
+
+        final CourseManagerService service = new CourseManagerServiceImpl(repository);
+        service.createAll(Collections.singletonList(valid));
+    }
+
+    @Test
+    public void testUpdateAll() {
+        final Course expected = new Course();
+        expected.setUuid(UUID);
+        expected.setName("Alice");
+        expected.setCode("alice-101");
+        final Course changes = new Course();
+        changes.setUuid(UUID);
+        changes.setName("Bob");
+        changes.setCode("alice-101");
+        final Course missing = new Course();
+        missing.setUuid(UUID2);
+        missing.setName("Carol");
+        missing.setCode("carol-101");
+
+        final CourseRepository repository = Mockito.mock(CourseRepository.class);
+        when(repository.findAllByUuid(anyCollectionOf(String.class))).thenReturn(Collections.singletonList(expected));
+        when(repository.saveInBatches(anyListOf(Course.class), anyInt())).thenAnswer(SAVED);
+
+        final CourseManagerService service = new CourseManagerServiceImpl(repository);
+        final BatchResult<Course> actual = service.updateAll(Arrays.asList(changes, missing));
+
+        assertEquals(1, actual.getResults().size());
+        assertEquals("Bob", actual.getResults().get(0).getName());
+        assertEquals(1, actual.getFailures().size());
+        assertEquals(UUID2, actual.getFailures().get(0).getUuid());
+    }
+
+    @Test
+    public void testUpdateAllWithoutCode() {
+        final Course alice = new Course();
+        alice.setUuid(UUID);
+        alice.setName("Alice");
+        alice.setCode("alice-101");
+        final Course bob = new Course();
+        bob.setUuid(UUID2);
+        bob.setName("Bob");
+        bob.setCode("bob-101");
+        final Course changes = new Course();
+        changes.setUuid(UUID);
+        changes.setName("Carol");
+        final Course stale = new Course();
+        stale.setUuid(UUID2);
+        stale.setName("Dave");
+        stale.setCode("alice-101");
+        final Course repeated = new Course();
+        repeated.setUuid(UUID);
+        repeated.setName("Eve");
+
+        final CourseRepository repository = Mockito.mock(CourseRepository.class);
+        when(repository.findAllByUuid(anyCollectionOf(String.class))).thenReturn(Arrays.asList(alice, bob));
+        when(repository.saveInBatches(anyListOf(Course.class), anyInt())).thenAnswer(SAVED);
+
+        final CourseManagerService service = new CourseManagerServiceImpl(repository);
+        final BatchResult<Course> actual = service.updateAll(Arrays.asList(changes, stale, repeated));
+
+        // the code can't be changed so it's neither required nor a duplicate.
+        assertEquals(2, actual.getResults().size());
+        assertEquals("Carol", actual.getResults().get(0).getName());
+        assertEquals("alice-101", actual.getResults().get(0).getCode());
+        assertEquals("Dave", actual.getResults().get(1).getName());
+        assertEquals("bob-101", actual.getResults().get(1).getCode());
+        assertEquals(1, actual.getFailures().size());
+        assertEquals(UUID, actual.getFailures().get(0).getUuid());
+        verify(repository, never()).findCoursesByCodeIn(anyCollectionOf(String.class));
     }
 }
@@ -0,0 +1,222 @@
+/*
+ * This code was written by Bear Giles <bgiles@coyotesong.com> and he
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Any contributions made by others are licensed to this project under
+ * one or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright (c) 2013 Bear Giles <bgiles@coyotesong.com>
+ */
+package com.invariantproperties.sandbox.student.business;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.invariantproperties.sandbox.student.domain.Course;
+import com.invariantproperties.sandbox.student.domain.Student;
+import com.invariantproperties.sandbox.student.domain.TestRun;
+
+/**
+ * Unit tests for EntityCounts.
+ * 
+ * @author Bear Giles <bgiles@coyotesong.com>
+ */
+public class EntityCountsTest {
+
+    /**
+     * Loader that returns a fixed count and records how often it's called.
+     */
+    private static class CountingLoader implements EntityCounts.Loader {
+        private final long count;
+        private int calls;
+
+        CountingLoader(long count) {
+            this.count = count;
+        }
+
+        @Override
+        public long load() {
+            calls++;
+            return count;
+        }
+    }
+
+    @After
+    public void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    public void testCountIsLoadedOnce() {
+        final EntityCounts counts = new EntityCounts();
+        final CountingLoader loader = new CountingLoader(5);
+
+        assertEquals(5, counts.get(Course.class, null, false, loader));
+        assertEquals(5, counts.get(Course.class, null, false, loader));
+        assertEquals(1, loader.calls);
+        assertEquals(1, counts.getHitCount());
+        assertEquals(1, counts.getMissCount());
+    }
+
+    @Test
+    public void testExactCount() {
+        final EntityCounts counts = new EntityCounts();
+        final CountingLoader loader = new CountingLoader(5);
+
+        counts.get(Course.class, null, false, loader);
+        counts.get(Course.class, null, true, loader);
+        assertEquals(2, loader.calls);
+    }
+
+    @Test
+    public void testReconcile() {
+        final EntityCounts counts = new EntityCounts();
+        counts.setReconcileIntervalMillis(0);
+        final CountingLoader loader = new CountingLoader(5);
+
+        counts.get(Course.class, null, false, loader);
+        counts.get(Course.class, null, false, loader);
+        assertEquals(2, loader.calls);
+    }
+
+    @Test
+    public void testCountsAreKeptByClassAndTestRun() {
+        final EntityCounts counts = new EntityCounts();
+        final TestRun testRun = new TestRun();
+        testRun.setId(1);
+
+        assertEquals(1, counts.get(Course.class, null, false, new CountingLoader(1)));
+        assertEquals(2, counts.get(Course.class, testRun, false, new CountingLoader(2)));
+        assertEquals(3, counts.get(Student.class, null, false, new CountingLoader(3)));
+        assertEquals(1, counts.get(Course.class, null, false, new CountingLoader(-1)));
+    }
+
+    @Test
+    public void testUnsavedTestRunIsNotCached() {
+        final EntityCounts counts = new EntityCounts();
+        final CountingLoader loader = new CountingLoader(5);
+
+        counts.get(Course.class, new TestRun(), false, loader);
+        counts.get(Course.class, new TestRun(), false, loader);
+        assertEquals(2, loader.calls);
+    }
+
+    @Test
+    public void testAdjust() {
+        final EntityCounts counts = new EntityCounts();
+        final CountingLoader loader = new CountingLoader(5);
+
+        // not loaded yet - ignored
+        counts.adjust(Course.class, null, 1);
+        assertEquals(5, counts.get(Course.class, null, false, loader));
+
+        counts.adjust(Course.class, null, 1);
+        counts.adjust(Course.class, null, 1);
+        counts.adjust(Course.class, null, -1);
+        assertEquals(6, counts.get(Course.class, null, false, loader));
+        assertEquals(1, loader.calls);
+    }
+
+    @Test
+    public void testAdjustDuringLoad() {
+        final EntityCounts counts = new EntityCounts();
+        counts.get(Course.class, null, false, new CountingLoader(5));
+
+        // a commit lands while the count is reloaded.
+        final EntityCounts.Loader loader = new EntityCounts.Loader() {
+            @Override
+            public long load() {
+                counts.adjust(Course.class, null, 1);
+                return 5;
+            }
+        };
+        assertEquals(5, counts.get(Course.class, null, true, loader));
+
+        final CountingLoader reload = new CountingLoader(6);
+        assertEquals(6, counts.get(Course.class, null, false, reload));
+        assertEquals(1, reload.calls);
+    }
+
+    @Test
+    public void testInvalidateDuringLoad() {
+        final EntityCounts counts = new EntityCounts();
+
+        final EntityCounts.Loader loader = new EntityCounts.Loader() {
+            @Override
+            public long load() {
+                counts.invalidate(Course.class);
+                return 5;
+            }
+        };
+        assertEquals(5, counts.get(Course.class, null, false, loader));
+
+        final CountingLoader reload = new CountingLoader(6);
+        assertEquals(6, counts.get(Course.class, null, false, reload));
+        assertEquals(1, reload.calls);
+    }
+
+    @Test
+    public void testAdjustAfterCommit() {
+        final EntityCounts counts = new EntityCounts();
+        counts.get(Course.class, null, false, new CountingLoader(5));
+
+        TransactionSynchronizationManager.initSynchronization();
+        counts.adjust(Course.class, null, 1);
+        assertEquals(5, counts.get(Course.class, null, false, null));
+
+        for (TransactionSynchronization sync : TransactionSynchronizationManager.getSynchronizations()) {
+            sync.afterCommit();
+        }
+        assertEquals(6, counts.get(Course.class, null, false, null));
+    }
+
+    @Test
+    public void testAdjustAfterRollback() {
+        final EntityCounts counts = new EntityCounts();
+        counts.get(Course.class, null, false, new CountingLoader(5));
+
+        TransactionSynchronizationManager.initSynchronization();
+        counts.adjust(Course.class, null, 1);
+
+        for (TransactionSynchronization sync : TransactionSynchronizationManager.getSynchronizations()) {
+            sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+        }
+        assertEquals(5, counts.get(Course.class, null, false, null));
+    }
+
+    @Test
+    public void testInvalidate() {
+        final EntityCounts counts = new EntityCounts();
+        final CountingLoader loader = new CountingLoader(5);
+
+        counts.get(Course.class, null, false, loader);
+        counts.get(Student.class, null, false, loader);
+        counts.invalidate(Course.class);
+        counts.get(Course.class, null, false, loader);
+        counts.get(Student.class, null, false, loader);
+        assertEquals(3, loader.calls);
+
+        counts.invalidateAll();
+        counts.get(Student.class, null, false, loader);
+        assertEquals(4, loader.calls);
+    }
+}
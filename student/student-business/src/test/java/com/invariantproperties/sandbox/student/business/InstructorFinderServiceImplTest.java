@@ -192,4 +192,60 @@ public class InstructorFinderServiceImplTest {
         final InstructorFinderService service = new InstructorFinderServiceImpl(repository);
         service.findInstructorsByTestRun(testRun);
     }
+
+    @Test
+    public void testFindInstructorsByName() {
+        final List<Instructor> expected = Collections.singletonList(new Instructor());
+
+        final InstructorRepository repository = Mockito.mock(InstructorRepository.class);
+        when(repository.findPage(any(sClass), any(Instructor.class), any(KeysetPage.class))).thenReturn(expected);
+
+        final InstructorFinderService service = new InstructorFinderServiceImpl(repository);
+        final List<Instructor> actual = service.findInstructorsByName("bob", NameMatch.PREFIX, null, new KeysetPage(10));
+
+        assertEquals(expected, actual);
+    }
+
+    @Test(expected = PersistenceException.class)
+    public void testFindInstructorsByNameError() {
+        final InstructorRepository repository = Mockito.mock(InstructorRepository.class);
+        when(repository.findPage(any(sClass), any(Instructor.class), any(KeysetPage.class))).thenThrow(
+                new UnitTestException());
+
+        final InstructorFinderService service = new InstructorFinderServiceImpl(repository);
+        service.findInstructorsByName("bob", NameMatch.PREFIX, null, new KeysetPage(10));
+    }
+
+    @Test
+    public void testFindPage() {
+        final InstructorRepository repository = Mockito.mock(InstructorRepository.class);
+
+        final InstructorFinderService service = new InstructorFinderServiceImpl(repository);
+        ServiceAssertions.assertFindPage(repository, service, new Instructor());
+    }
+
+    @Test(expected = ObjectNotFoundException.class)
+    public void testFindPageAfterMissing() {
+        final InstructorRepository repository = Mockito.mock(InstructorRepository.class);
+        when(repository.findInstructorByUuid(any(String.class))).thenReturn(null);
+
+        final InstructorFinderService service = new InstructorFinderServiceImpl(repository);
+        service.findPage(new KeysetPage("[uuid]", 10));
+    }
+
+    @Test
+    public void testFindByUuids() {
+        final InstructorRepository repository = Mockito.mock(InstructorRepository.class);
+
+        final InstructorFinderService service = new InstructorFinderServiceImpl(repository);
+        ServiceAssertions.assertFindByUuids(repository, service, new Instructor(), new Instructor());
+    }
+
+    @Test
+    public void testForEach() {
+        final InstructorRepository repository = Mockito.mock(InstructorRepository.class);
+
+        final InstructorFinderService service = new InstructorFinderServiceImpl(repository);
+        ServiceAssertions.assertForEach(repository, service);
+    }
 }
@@ -24,12 +24,23 @@ package com.invariantproperties.sandbox.student.business;
 
 import static org.junit.Assert.assertEquals;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyCollectionOf;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyListOf;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
 import org.junit.Test;
 import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
 import com.invariantproperties.sandbox.student.domain.Instructor;
 import com.invariantproperties.sandbox.student.repository.InstructorRepository;
@@ -41,6 +52,18 @@ import com.invariantproperties.sandbox.student.repository.InstructorRepository;
  */
 public class InstructorManagerServiceImplTest {
     private static final String UUID = "11111111-1111-1111-1111-111111111111";
+    private static final String UUID2 = "22222222-2222-2222-2222-222222222222";
+
+    /**
+     * Mock of saveInBatches() that returns its argument.
+     */
+    private static final Answer<List<Instructor>> SAVED = new Answer<List<Instructor>>() {
+        @SuppressWarnings("unchecked")
+        @Override
+        public List<Instructor> answer(InvocationOnMock invocation) {
+            return (List<Instructor>) invocation.getArguments()[0];
+        }
+    };
 
     @Test
     public void testCreateInstructor() {
@@ -118,7 +141,7 @@ public class InstructorManagerServiceImplTest {
         doNothing().when(repository).delete(any(Instructor.class));
 
         final InstructorManagerService service = new InstructorManagerServiceImpl(repository);
-        service.deleteInstructor(expected.getUuid(), 0);
+        service.deleteInstructor(expected.getUuid(), null);
     }
 
     @Test(expected = ObjectNotFoundException.class)
@@ -127,7 +150,7 @@ public class InstructorManagerServiceImplTest {
         when(repository.findInstructorByUuid(any(String.class))).thenReturn(null);
 
         final InstructorManagerService service = new InstructorManagerServiceImpl(repository);
-        service.deleteInstructor(UUID, 0);
+        service.deleteInstructor(UUID, null);
     }
 
     @Test(expected = PersistenceException.class)
@@ -140,6 +163,109 @@ public class InstructorManagerServiceImplTest {
         doThrow(new UnitTestException()).when(repository).delete(any(Instructor.class));
 
         final InstructorManagerService service = new InstructorManagerServiceImpl(repository);
-        service.deleteInstructor(expected.getUuid(), 0);
+        service.deleteInstructor(expected.getUuid(), null);
+    }
+
+    @Test
+    public void testUpdateIfVersion() {
+        final Instructor changes = new Instructor();
+        changes.setUuid(UUID);
+        changes.setVersion(3);
+
+        final InstructorRepository repository = Mockito.mock(InstructorRepository.class);
+
+        final InstructorManagerService service = new InstructorManagerServiceImpl(repository);
+        ServiceAssertions.assertUpdateIfVersion(repository, service, changes, "name", "emailAddress");
+    }
+
+    @Test
+    public void testDeleteIfVersion() {
+        final InstructorRepository repository = Mockito.mock(InstructorRepository.class);
+
+        final InstructorManagerService service = new InstructorManagerServiceImpl(repository);
+        ServiceAssertions.assertDeleteIfVersion(repository, service);
+    }
+
+    @Test
+    public void testDeleteInstructorWithVersion() {
+        final InstructorRepository repository = Mockito.mock(InstructorRepository.class);
+        when(repository.deleteIfVersion(UUID, 3)).thenReturn(1);
+
+        final InstructorManagerService service = new InstructorManagerServiceImpl(repository);
+        service.deleteInstructor(UUID, 3);
+
+        verify(repository).deleteIfVersion(UUID, 3);
+        verify(repository, never()).findInstructorByUuid(any(String.class));
+    }
+
+    @Test
+    public void testCreateAll() {
+        final Instructor valid = new Instructor();
+        valid.setName("Alice");
+        valid.setEmailAddress("alice@example.com");
+        final Instructor invalid = new Instructor();
+        invalid.setEmailAddress("bob@example.com");
+        final Instructor duplicate = new Instructor();
+        duplicate.setName("Carol");
+        duplicate.setEmailAddress("carol@example.com");
+        final Instructor existing = new Instructor();
+        existing.setUuid(UUID);
+        existing.setName("Carol");
+        existing.setEmailAddress("carol@example.com");
+
+        final InstructorRepository repository = Mockito.mock(InstructorRepository.class);
+        when(repository.findInstructorsByEmailAddressIn(anyCollectionOf(String.class)))
+                .thenReturn(Collections.singletonList(existing));
+        when(repository.saveInBatches(anyListOf(Instructor.class), anyInt())).thenAnswer(SAVED);
+
+        final InstructorManagerService service = new InstructorManagerServiceImpl(repository);
+        final BatchResult<Instructor> actual = service.createAll(Arrays.asList(valid, invalid, duplicate));
+
+        assertEquals(1, actual.getResults().size());
+        assertEquals("Alice", actual.getResults().get(0).getName());
+        assertEquals(2, actual.getFailures().size());
+        assertEquals(1, actual.getFailures().get(0).getIndex());
+        assertEquals(2, actual.getFailures().get(1).getIndex());
+    }
+
+    @Test(expected = PersistenceException.class)
+    public void testCreateAllError() {
+        final Instructor valid = new Instructor();
+        valid.setName("Alice");
+        valid.setEmailAddress("alice@example.com");
+
+        final InstructorRepository repository = Mockito.mock(InstructorRepository.class);
+        when(repository.saveInBatches(anyListOf(Instructor.class), anyInt())).thenThrow(new UnitTestException());
+
+        final InstructorManagerService service = new InstructorManagerServiceImpl(repository);
+        service.createAll(Collections.singletonList(valid));
+    }
+
+    @Test
+    public void testUpdateAll() {
+        final Instructor expected = new Instructor();
+        expected.setUuid(UUID);
+        expected.setName("Alice");
+        expected.setEmailAddress("alice@example.com");
+        final Instructor changes = new Instructor();
+        changes.setUuid(UUID);
+        changes.setName("Bob");
+        changes.setEmailAddress("alice@example.com");
+        final Instructor missing = new Instructor();
+        missing.setUuid(UUID2);
+        missing.setName("Carol");
+        missing.setEmailAddress("carol@example.com");
+
+        final InstructorRepository repository = Mockito.mock(InstructorRepository.class);
+        when(repository.findAllByUuid(anyCollectionOf(String.class))).thenReturn(Collections.singletonList(expected));
+        when(repository.saveInBatches(anyListOf(Instructor.class), anyInt())).thenAnswer(SAVED);
+
+        final InstructorManagerService service = new InstructorManagerServiceImpl(repository);
+        final BatchResult<Instructor> actual = service.updateAll(Arrays.asList(changes, missing));
+
+        assertEquals(1, actual.getResults().size());
+        assertEquals("Bob", actual.getResults().get(0).getName());
+        assertEquals(1, actual.getFailures().size());
+        assertEquals(UUID2, actual.getFailures().get(0).getUuid());
     }
 }
@@ -0,0 +1,258 @@
+/*
+ * This code was written by Bear Giles <bgiles@coyotesong.com> and he
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Any contributions made by others are licensed to this project under
+ * one or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright (c) 2013 Bear Giles <bgiles@coyotesong.com>
+ */
+package com.invariantproperties.sandbox.student.business;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.invariantproperties.sandbox.student.domain.Course;
+import com.invariantproperties.sandbox.student.domain.EntityChanges;
+import com.invariantproperties.sandbox.student.domain.Instructor;
+import com.invariantproperties.sandbox.student.domain.PersistentObject;
+import com.invariantproperties.sandbox.student.domain.Student;
+import com.invariantproperties.sandbox.student.domain.TestRun;
+import com.invariantproperties.sandbox.student.repository.CourseRepository;
+import com.invariantproperties.sandbox.student.repository.InstructorRepository;
+import com.invariantproperties.sandbox.student.repository.StudentRepository;
+
+/**
+ * Unit tests for SearchServiceImpl.
+ * 
+ * @author Bear Giles <bgiles@coyotesong.com>
+ */
+public class SearchServiceImplTest {
+    private final Course physics = new Course();
+    private final Student student = new Student();
+    private final Instructor instructor = new Instructor();
+    private CourseFinderService courseFinder;
+    private StudentFinderService studentFinder;
+    private InstructorFinderService instructorFinder;
+    private CourseRepository courseRepository;
+    private StudentRepository studentRepository;
+    private InstructorRepository instructorRepository;
+    private SearchServiceImpl service;
+    private File segment;
+
+    /**
+     * Answer that passes the objects to the forEach() handler.
+     */
+    private static class ForEachAnswer implements Answer<Long> {
+        private final PersistentObject[] objects;
+
+        ForEachAnswer(PersistentObject... objects) {
+            this.objects = objects;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public Long answer(InvocationOnMock invocation) {
+            final ObjectHandler<PersistentObject> handler = (ObjectHandler<PersistentObject>) invocation
+                    .getArguments()[0];
+            for (PersistentObject object : objects) {
+                handler.handle(object);
+            }
+            return (long) objects.length;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    @Before
+    public void init() throws IOException {
+        physics.setUuid("a");
+        physics.setName("Physics I");
+        physics.setSummary("Introduction to mechanics");
+
+        student.setUuid("b");
+        student.setName("Alice Newton");
+
+        instructor.setUuid("c");
+        instructor.setName("Isaac Newton");
+
+        courseFinder = Mockito.mock(CourseFinderService.class);
+        studentFinder = Mockito.mock(StudentFinderService.class);
+        instructorFinder = Mockito.mock(InstructorFinderService.class);
+        when(courseFinder.forEach(any(ObjectHandler.class), anyInt())).thenAnswer(new ForEachAnswer(physics));
+        when(studentFinder.forEach(any(ObjectHandler.class), anyInt())).thenAnswer(new ForEachAnswer(student));
+        when(instructorFinder.forEach(any(ObjectHandler.class), anyInt())).thenAnswer(
+                new ForEachAnswer(instructor));
+
+        courseRepository = Mockito.mock(CourseRepository.class);
+        studentRepository = Mockito.mock(StudentRepository.class);
+        instructorRepository = Mockito.mock(InstructorRepository.class);
+        when(courseRepository.findChangeStamp(any(Specification.class))).thenReturn("1:1:1");
+        when(studentRepository.findChangeStamp(any(Specification.class))).thenReturn("1:2:1");
+        when(instructorRepository.findChangeStamp(any(Specification.class))).thenReturn("1:3:1");
+
+        segment = File.createTempFile("search", ".idx");
+        segment.delete();
+    }
+
+    @After
+    public void cleanup() {
+        if (service != null) {
+            service.destroy();
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        segment.delete();
+    }
+
+    @Test
+    public void testRebuildOnStartup() {
+        service = new SearchServiceImpl(courseFinder, studentFinder, instructorFinder, courseRepository,
+                studentRepository, instructorRepository, null);
+        service.init();
+
+        assertEquals(3, service.getIndex().size());
+        assertEquals("a", service.search("mechanics", 10).get(0).getUuid());
+        assertEquals(2, service.search("newton", 10).size());
+        assertEquals("c", service.search("newton", "Instructor", 10).get(0).getUuid());
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testLoadSegmentOnStartup() {
+        service = new SearchServiceImpl(courseFinder, studentFinder, instructorFinder, courseRepository,
+                studentRepository, instructorRepository, segment);
+        service.init();
+        service.destroy();
+        assertTrue(segment.exists());
+
+        final CourseFinderService finder = Mockito.mock(CourseFinderService.class);
+        service = new SearchServiceImpl(finder, studentFinder, instructorFinder, courseRepository,
+                studentRepository, instructorRepository, segment);
+        service.init();
+
+        verify(finder, never()).forEach(any(ObjectHandler.class), anyInt());
+        assertEquals(3, service.getIndex().size());
+        assertEquals("a", service.search("mechanics", 10).get(0).getUuid());
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testStaleSegmentIsRebuilt() {
+        service = new SearchServiceImpl(courseFinder, studentFinder, instructorFinder, courseRepository,
+                studentRepository, instructorRepository, segment);
+        service.init();
+        service.destroy();
+
+        // same number of courses but one was updated while we were stopped
+        when(courseRepository.findChangeStamp(any(Specification.class))).thenReturn("1:1:2");
+        service = new SearchServiceImpl(courseFinder, studentFinder, instructorFinder, courseRepository,
+                studentRepository, instructorRepository, segment);
+        service.init();
+
+        verify(courseFinder, Mockito.times(2)).forEach(any(ObjectHandler.class), anyInt());
+    }
+
+    @Test
+    public void testChangesWithoutTransaction() {
+        service = new SearchServiceImpl(courseFinder, studentFinder, instructorFinder, courseRepository,
+                studentRepository, instructorRepository, null);
+        service.init();
+
+        final Course chemistry = new Course();
+        chemistry.setUuid("d");
+        chemistry.setName("Chemistry I");
+        EntityChanges.firePersisted(chemistry);
+        assertEquals(1, service.search("chemistry", 10).size());
+
+        chemistry.setName("Organic Chemistry");
+        EntityChanges.fireUpdated(chemistry);
+        assertEquals("Organic Chemistry", service.search("chemistry", 10).get(0).getTitle());
+
+        EntityChanges.fireRemoved("d");
+        assertTrue(service.search("chemistry", 10).isEmpty());
+    }
+
+    @Test
+    public void testChangesAfterCommit() {
+        service = new SearchServiceImpl(courseFinder, studentFinder, instructorFinder, courseRepository,
+                studentRepository, instructorRepository, null);
+        service.init();
+
+        TransactionSynchronizationManager.initSynchronization();
+        EntityChanges.fireRemoved("a");
+        assertEquals(1, service.search("mechanics", 10).size());
+
+        for (TransactionSynchronization sync : TransactionSynchronizationManager.getSynchronizations()) {
+            sync.afterCommit();
+        }
+        assertTrue(service.search("mechanics", 10).isEmpty());
+    }
+
+    @Test
+    public void testChangesAreDiscardedAfterRollback() {
+        service = new SearchServiceImpl(courseFinder, studentFinder, instructorFinder, courseRepository,
+                studentRepository, instructorRepository, null);
+        service.init();
+
+        TransactionSynchronizationManager.initSynchronization();
+        EntityChanges.fireRemoved("a");
+
+        for (TransactionSynchronization sync : TransactionSynchronizationManager.getSynchronizations()) {
+            sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+        }
+        assertEquals(1, service.search("mechanics", 10).size());
+    }
+
+    @Test
+    public void testTestDataIsNotIndexed() {
+        service = new SearchServiceImpl(courseFinder, studentFinder, instructorFinder, courseRepository,
+                studentRepository, instructorRepository, null);
+        service.init();
+
+        final Course chemistry = new Course();
+        chemistry.setUuid("d");
+        chemistry.setName("Chemistry I");
+        chemistry.setTestRun(new TestRun());
+        EntityChanges.firePersisted(chemistry);
+        assertTrue(service.search("chemistry", 10).isEmpty());
+
+        // bulk updates don't know about the test run
+        final Course changes = new Course();
+        changes.setUuid("e");
+        changes.setName("Chemistry II");
+        EntityChanges.fireUpdated(changes);
+        assertTrue(service.search("chemistry", 10).isEmpty());
+    }
+}
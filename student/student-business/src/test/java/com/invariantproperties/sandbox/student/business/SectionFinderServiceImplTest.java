@@ -167,6 +167,38 @@ public class SectionFinderServiceImplTest {
         service.findSectionByUuid("[uuid]");
     }
 
+    @Test
+    public void testFindSectionRosterByUuid() {
+        final Section expected = new Section();
+        expected.setUuid("[uuid]");
+
+        final SectionRepository repository = Mockito.mock(SectionRepository.class);
+        when(repository.findSectionRosterByUuid(any(String.class))).thenReturn(expected);
+
+        final SectionFinderService service = new SectionFinderServiceImpl(repository);
+        final Section actual = service.findSectionRosterByUuid(expected.getUuid());
+
+        assertEquals(expected, actual);
+    }
+
+    @Test(expected = ObjectNotFoundException.class)
+    public void testFindSectionRosterByUuidMissing() {
+        final SectionRepository repository = Mockito.mock(SectionRepository.class);
+        when(repository.findSectionRosterByUuid(any(String.class))).thenReturn(null);
+
+        final SectionFinderService service = new SectionFinderServiceImpl(repository);
+        service.findSectionRosterByUuid("[uuid]");
+    }
+
+    @Test(expected = PersistenceException.class)
+    public void testFindSectionRosterByUuidError() {
+        final SectionRepository repository = Mockito.mock(SectionRepository.class);
+        when(repository.findSectionRosterByUuid(any(String.class))).thenThrow(new UnitTestException());
+
+        final SectionFinderService service = new SectionFinderServiceImpl(repository);
+        service.findSectionRosterByUuid("[uuid]");
+    }
+
     @Test
     public void testFindSectionByTestUuid() {
         final TestRun testRun = new TestRun();
@@ -192,4 +224,37 @@ public class SectionFinderServiceImplTest {
         final SectionFinderService service = new SectionFinderServiceImpl(repository);
         service.findSectionsByTestRun(testRun);
     }
+
+    @Test
+    public void testFindPage() {
+        final SectionRepository repository = Mockito.mock(SectionRepository.class);
+
+        final SectionFinderService service = new SectionFinderServiceImpl(repository);
+        ServiceAssertions.assertFindPage(repository, service, new Section());
+    }
+
+    @Test(expected = ObjectNotFoundException.class)
+    public void testFindPageAfterMissing() {
+        final SectionRepository repository = Mockito.mock(SectionRepository.class);
+        when(repository.findSectionByUuid(any(String.class))).thenReturn(null);
+
+        final SectionFinderService service = new SectionFinderServiceImpl(repository);
+        service.findPage(new KeysetPage("[uuid]", 10));
+    }
+
+    @Test
+    public void testFindByUuids() {
+        final SectionRepository repository = Mockito.mock(SectionRepository.class);
+
+        final SectionFinderService service = new SectionFinderServiceImpl(repository);
+        ServiceAssertions.assertFindByUuids(repository, service, new Section(), new Section());
+    }
+
+    @Test
+    public void testForEach() {
+        final SectionRepository repository = Mockito.mock(SectionRepository.class);
+
+        final SectionFinderService service = new SectionFinderServiceImpl(repository);
+        ServiceAssertions.assertForEach(repository, service);
+    }
 }
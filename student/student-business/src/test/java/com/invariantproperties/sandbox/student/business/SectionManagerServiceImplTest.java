@@ -24,14 +24,28 @@ package com.invariantproperties.sandbox.student.business;
 
 import static org.junit.Assert.assertEquals;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyCollectionOf;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyListOf;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
 import org.junit.Test;
 import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
+import com.invariantproperties.sandbox.student.domain.Classroom;
+import com.invariantproperties.sandbox.student.domain.Course;
 import com.invariantproperties.sandbox.student.domain.Section;
+import com.invariantproperties.sandbox.student.domain.Student;
 import com.invariantproperties.sandbox.student.repository.SectionRepository;
 
 /**
@@ -41,6 +55,18 @@ import com.invariantproperties.sandbox.student.repository.SectionRepository;
  */
 public class SectionManagerServiceImplTest {
     private static final String UUID = "11111111-1111-1111-1111-111111111111";
+    private static final String UUID2 = "22222222-2222-2222-2222-222222222222";
+
+    /**
+     * Mock of saveInBatches() that returns its argument.
+     */
+    private static final Answer<List<Section>> SAVED = new Answer<List<Section>>() {
+        @SuppressWarnings("unchecked")
+        @Override
+        public List<Section> answer(InvocationOnMock invocation) {
+            return (List<Section>) invocation.getArguments()[0];
+        }
+    };
 
     @Test
     public void testCreateSection() {
@@ -105,6 +131,54 @@ public class SectionManagerServiceImplTest {
         service.updateSection(expected, "Physics - Fall 2014");
     }
 
+    @Test
+    public void testUpdateSectionRoster() {
+        final Section expected = new Section();
+        expected.setUuid(UUID);
+        expected.getStudents().add(new Student());
+
+        final Course course = new Course();
+        final Student student = new Student();
+        final Classroom classroom = new Classroom();
+
+        final SectionRepository repository = Mockito.mock(SectionRepository.class);
+        when(repository.findSectionByUuid(any(String.class))).thenReturn(expected);
+        when(repository.saveAndFlush(any(Section.class))).thenReturn(expected);
+
+        final SectionManagerService service = new SectionManagerServiceImpl(repository);
+        final Section actual = service.updateSectionRoster(expected, course, Arrays.asList(student),
+                Arrays.asList(classroom));
+
+        assertEquals(course, actual.getCourse());
+        assertEquals(Arrays.asList(student), actual.getStudents());
+        assertEquals(Arrays.asList(classroom), actual.getClassrooms());
+    }
+
+    @Test(expected = ObjectNotFoundException.class)
+    public void testUpdateSectionRosterMissing() {
+        final Section expected = new Section();
+        final SectionRepository repository = Mockito.mock(SectionRepository.class);
+        when(repository.findSectionByUuid(any(String.class))).thenReturn(null);
+
+        final SectionManagerService service = new SectionManagerServiceImpl(repository);
+        service.updateSectionRoster(expected, null, Collections.<Student> emptyList(),
+                Collections.<Classroom> emptyList());
+    }
+
+    @Test(expected = PersistenceException.class)
+    public void testUpdateSectionRosterError() {
+        final Section expected = new Section();
+        expected.setUuid(UUID);
+
+        final SectionRepository repository = Mockito.mock(SectionRepository.class);
+        when(repository.findSectionByUuid(any(String.class))).thenReturn(expected);
+        doThrow(new UnitTestException()).when(repository).saveAndFlush(any(Section.class));
+
+        final SectionManagerService service = new SectionManagerServiceImpl(repository);
+        service.updateSectionRoster(expected, null, Collections.<Student> emptyList(),
+                Collections.<Classroom> emptyList());
+    }
+
     @Test
     public void testDeleteSection() {
         final Section expected = new Section();
@@ -115,7 +189,7 @@ public class SectionManagerServiceImplTest {
         doNothing().when(repository).delete(any(Section.class));
 
         final SectionManagerService service = new SectionManagerServiceImpl(repository);
-        service.deleteSection(expected.getUuid(), 0);
+        service.deleteSection(expected.getUuid(), null);
     }
 
     @Test(expected = ObjectNotFoundException.class)
@@ -124,7 +198,7 @@ public class SectionManagerServiceImplTest {
         when(repository.findSectionByUuid(any(String.class))).thenReturn(null);
 
         final SectionManagerService service = new SectionManagerServiceImpl(repository);
-        service.deleteSection(UUID, 0);
+        service.deleteSection(UUID, null);
     }
 
     @Test(expected = PersistenceException.class)
@@ -137,6 +211,93 @@ public class SectionManagerServiceImplTest {
         doThrow(new UnitTestException()).when(repository).delete(any(Section.class));
 
         final SectionManagerService service = new SectionManagerServiceImpl(repository);
-        service.deleteSection(expected.getUuid(), 0);
+        service.deleteSection(expected.getUuid(), null);
+    }
+
+    @Test
+    public void testUpdateIfVersion() {
+        final Section changes = new Section();
+        changes.setUuid(UUID);
+        changes.setVersion(3);
+
+        final SectionRepository repository = Mockito.mock(SectionRepository.class);
+
+        final SectionManagerService service = new SectionManagerServiceImpl(repository);
+        ServiceAssertions.assertUpdateIfVersion(repository, service, changes, "name");
+    }
+
+    @Test
+    public void testDeleteIfVersion() {
+        final SectionRepository repository = Mockito.mock(SectionRepository.class);
+
+        final SectionManagerService service = new SectionManagerServiceImpl(repository);
+        ServiceAssertions.assertDeleteIfVersion(repository, service);
+    }
+
+    @Test
+    public void testDeleteSectionWithVersion() {
+        final SectionRepository repository = Mockito.mock(SectionRepository.class);
+        when(repository.deleteIfVersion(UUID, 3)).thenReturn(1);
+
+        final SectionManagerService service = new SectionManagerServiceImpl(repository);
+        service.deleteSection(UUID, 3);
+
+        verify(repository).deleteIfVersion(UUID, 3);
+        verify(repository, never()).findSectionByUuid(any(String.class));
+    }
+
+    @Test
+    public void testCreateAll() {
+        final Section valid = new Section();
+        valid.setName("Alice");
+        final Section invalid = new Section();
+
+        final SectionRepository repository = Mockito.mock(SectionRepository.class);
+        when(repository.saveInBatches(anyListOf(Section.class), anyInt())).thenAnswer(SAVED);
+
+        final SectionManagerService service = new SectionManagerServiceImpl(repository);
+        final BatchResult<Section> actual = service.createAll(Arrays.asList(valid, invalid));
+
+        assertEquals(1, actual.getResults().size());
+        assertEquals("Alice", actual.getResults().get(0).getName());
+        assertEquals(1, actual.getFailures().size());
+        assertEquals(1, actual.getFailures().get(0).getIndex());
+    }
+
+    @Test(expected = PersistenceException.class)
+    public void testCreateAllError() {
+        final Section valid = new Section();
+        valid.setName("Alice");
+
+        final SectionRepository repository = Mockito.mock(SectionRepository.class);
+        when(repository.saveInBatches(anyListOf(Section.class), anyInt())).thenThrow(new UnitTestException());
+
+        final SectionManagerService service = new SectionManagerServiceImpl(repository);
+        service.createAll(Collections.singletonList(valid));
+    }
+
+    @Test
+    public void testUpdateAll() {
+        final Section expected = new Section();
+        expected.setUuid(UUID);
+        expected.setName("Alice");
+        final Section changes = new Section();
+        changes.setUuid(UUID);
+        changes.setName("Bob");
+        final Section missing = new Section();
+        missing.setUuid(UUID2);
+        missing.setName("Carol");
+
+        final SectionRepository repository = Mockito.mock(SectionRepository.class);
+        when(repository.findAllByUuid(anyCollectionOf(String.class))).thenReturn(Collections.singletonList(expected));
+        when(repository.saveInBatches(anyListOf(Section.class), anyInt())).thenAnswer(SAVED);
+
+        final SectionManagerService service = new SectionManagerServiceImpl(repository);
+        final BatchResult<Section> actual = service.updateAll(Arrays.asList(changes, missing));
+
+        assertEquals(1, actual.getResults().size());
+        assertEquals("Bob", actual.getResults().get(0).getName());
+        assertEquals(1, actual.getFailures().size());
+        assertEquals(UUID2, actual.getFailures().get(0).getUuid());
     }
 }
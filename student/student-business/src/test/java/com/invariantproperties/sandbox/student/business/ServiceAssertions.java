@@ -0,0 +1,229 @@
+/*
+ * This code was written by Bear Giles <bgiles@coyotesong.com> and he
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Any contributions made by others are licensed to this project under
+ * one or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright (c) 2013 Bear Giles <bgiles@coyotesong.com>
+ */
+package com.invariantproperties.sandbox.student.business;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyCollectionOf;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyMapOf;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.mockito.ArgumentCaptor;
+import org.mockito.Matchers;
+import org.mockito.Mockito;
+import org.springframework.data.jpa.domain.Specification;
+
+import com.invariantproperties.sandbox.student.domain.PersistentObject;
+import com.invariantproperties.sandbox.student.domain.TestRun;
+import com.invariantproperties.sandbox.student.repository.CustomRepository;
+
+/**
+ * Assertions shared by the service unit tests. Every service has its own
+ * implementation of the common FinderService and ManagerService methods but
+ * they should all use the CustomRepository methods the same way. The tests for each service only
+ * need to cover what is specific to that service.
+ * 
+ * @author Bear Giles <bgiles@coyotesong.com>
+ */
+final class ServiceAssertions {
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private ServiceAssertions() {
+
+    }
+
+    /**
+     * Check findPage(). The first page has no 'after' object, later pages
+     * start at the position in the cursor and repository errors are reported
+     * as PersistenceExceptions.
+     * 
+     * @param repository
+     *            mock repository used by the service
+     * @param service
+     * @param position
+     *            object returned for the cursor's position
+     */
+    static <T extends PersistentObject> void assertFindPage(CustomRepository<T> repository,
+            FinderService<T> service, T position) {
+        final KeysetPage first = new KeysetPage(10);
+        final KeysetPage next = new KeysetPage("[uuid]:42", 10);
+        final List<T> firstPage = Collections.singletonList(position);
+        final List<T> nextPage = Collections.emptyList();
+
+        when(repository.findPage(Matchers.<Specification<T>> any(), Matchers.<T> eq(null), eq(first))).thenReturn(
+                firstPage);
+        when(repository.findPosition(next)).thenReturn(position);
+        when(repository.findPage(Matchers.<Specification<T>> any(), eq(position), eq(next))).thenReturn(nextPage);
+
+        assertEquals(firstPage, service.findPage(first));
+        assertEquals(nextPage, service.findPage(next));
+
+        when(repository.findPage(Matchers.<Specification<T>> any(), Matchers.<T> any(), any(KeysetPage.class)))
+                .thenThrow(new UnitTestException());
+        try {
+            service.findPageByTestRun(new TestRun(), first);
+            fail("expected PersistenceException");
+        } catch (PersistenceException e) {
+            // expected
+        }
+    }
+
+    /**
+     * Check findByUuids(). The objects are returned in the order of the uuids,
+     * unknown uuids are reported as missing and repository errors are reported
+     * as PersistenceExceptions.
+     * 
+     * @param repository
+     *            mock repository used by the service
+     * @param service
+     * @param a
+     * @param b
+     *            objects returned by the repository
+     */
+    static <T extends PersistentObject> void assertFindByUuids(CustomRepository<T> repository,
+            FinderService<T> service, T a, T b) {
+        a.setUuid("a");
+        b.setUuid("b");
+        final List<String> uuids = Arrays.asList("b", "missing", "a");
+
+        when(repository.findAllByUuid(uuids)).thenReturn(Arrays.asList(a, b));
+
+        final MultiGetResult<T> actual = service.findByUuids(uuids);
+        assertEquals(Arrays.asList(b, a), actual.getResults());
+        assertEquals(Arrays.asList("missing"), actual.getMissing());
+
+        // the database returns lowercase uuids whatever the caller sent.
+        final List<String> mixedCase = Arrays.asList("B", "Missing", "a", "A");
+        when(repository.findAllByUuid(mixedCase)).thenReturn(Arrays.asList(a, b));
+
+        final MultiGetResult<T> mixed = service.findByUuids(mixedCase);
+        assertEquals(Arrays.asList(b, a), mixed.getResults());
+        assertEquals(Arrays.asList("Missing"), mixed.getMissing());
+
+        when(repository.findAllByUuid(anyCollectionOf(String.class))).thenThrow(new UnitTestException());
+        try {
+            service.findByUuids(uuids);
+            fail("expected PersistenceException");
+        } catch (PersistenceException e) {
+            // expected
+        }
+    }
+
+    /**
+     * Check forEach(). The handler and fetch size are passed to the
+     * repository and repository errors are reported as PersistenceExceptions.
+     * 
+     * @param repository
+     *            mock repository used by the service
+     * @param service
+     */
+    static <T extends PersistentObject> void assertForEach(CustomRepository<T> repository, FinderService<T> service) {
+        @SuppressWarnings("unchecked")
+        final ObjectHandler<T> handler = Mockito.mock(ObjectHandler.class);
+
+        when(repository.forEach(Matchers.<Specification<T>> any(), eq(100), eq(handler))).thenReturn(3L);
+
+        assertEquals(3L, service.forEach(handler, 100));
+
+        when(repository.forEach(Matchers.<Specification<T>> any(), anyInt(), eq(handler))).thenThrow(
+                new UnitTestException());
+        try {
+            service.forEachByTestRun(new TestRun(), handler, 100);
+            fail("expected PersistenceException");
+        } catch (PersistenceException e) {
+            // expected
+        }
+    }
+
+    /**
+     * Check updateIfVersion(). Only the properties accepted by the
+     * single-object update method are written, the new version is returned
+     * and repository errors are reported as PersistenceExceptions. The
+     * version checks themselves are covered by ConditionalWritesTest.
+     * 
+     * @param repository
+     *            mock repository used by the service
+     * @param service
+     * @param changes
+     *            changes with a uuid and version
+     * @param properties
+     *            names of the updatable properties, in order
+     */
+    static <T extends PersistentObject> void assertUpdateIfVersion(CustomRepository<T> repository,
+            ManagerService<T> service, T changes, String... properties) {
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        final ArgumentCaptor<Map<String, Object>> values = (ArgumentCaptor) ArgumentCaptor.forClass(Map.class);
+
+        when(repository.updateIfVersion(anyString(), anyInt(), anyMapOf(String.class, Object.class))).thenReturn(1);
+
+        assertEquals(Integer.valueOf(changes.getVersion() + 1), service.updateIfVersion(changes));
+        verify(repository).updateIfVersion(eq(changes.getUuid()), eq(changes.getVersion()), values.capture());
+        assertEquals(Arrays.asList(properties), new ArrayList<String>(values.getValue().keySet()));
+
+        when(repository.updateIfVersion(anyString(), anyInt(), anyMapOf(String.class, Object.class))).thenThrow(
+                new UnitTestException());
+        try {
+            service.updateIfVersion(changes);
+            fail("expected PersistenceException");
+        } catch (PersistenceException e) {
+            // expected
+        }
+    }
+
+    /**
+     * Check deleteIfVersion(). Repository errors are reported as
+     * PersistenceExceptions.
+     * 
+     * @param repository
+     *            mock repository used by the service
+     * @param service
+     */
+    static <T extends PersistentObject> void assertDeleteIfVersion(CustomRepository<T> repository,
+            ManagerService<T> service) {
+        when(repository.deleteIfVersion("[uuid]", 3)).thenReturn(1);
+
+        service.deleteIfVersion("[uuid]", 3);
+        verify(repository).deleteIfVersion("[uuid]", 3);
+
+        when(repository.deleteIfVersion(anyString(), anyInt())).thenThrow(new UnitTestException());
+        try {
+            service.deleteIfVersion("[uuid]", 3);
+            fail("expected PersistenceException");
+        } catch (PersistenceException e) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * This code was written by Bear Giles <bgiles@coyotesong.com> and he
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Any contributions made by others are licensed to this project under
+ * one or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright (c) 2013 Bear Giles <bgiles@coyotesong.com>
+ */
+package com.invariantproperties.sandbox.student.business;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.invariantproperties.sandbox.student.business.ServiceUnavailableException.Reason;
+
+/**
+ * Unit tests for ServiceExecutorImpl.
+ * 
+ * @author Bear Giles <bgiles@coyotesong.com>
+ */
+public class ServiceExecutorImplTest {
+    private final CountDownLatch release = new CountDownLatch(1);
+    private ServiceExecutorImpl executor;
+
+    /**
+     * Call that blocks until the test releases it.
+     */
+    private final Callable<String> blocked = new Callable<String>() {
+        @Override
+        public String call() throws InterruptedException {
+            release.await();
+            return "done";
+        }
+    };
+
+    private ServiceExecutorImpl create(int maxThreads, int queueCapacity, long timeoutMillis) {
+        executor = new ServiceExecutorImpl(maxThreads, queueCapacity, timeoutMillis);
+        executor.init();
+        return executor;
+    }
+
+    @After
+    public void cleanup() {
+        release.countDown();
+        if (executor != null) {
+            executor.destroy();
+        }
+    }
+
+    @Test
+    public void testCall() {
+        create(2, 2, 1000L);
+        final String thread = executor.call(new Callable<String>() {
+            @Override
+            public String call() {
+                return Thread.currentThread().getName();
+            }
+        });
+        assertTrue(thread.startsWith("service-"));
+        assertEquals(1, executor.getMetrics().getStarted());
+    }
+
+    @Test(expected = ObjectNotFoundException.class)
+    public void testCallRuntimeException() {
+        create(2, 2, 1000L);
+        executor.call(new Callable<String>() {
+            @Override
+            public String call() {
+                throw new ObjectNotFoundException("x");
+            }
+        });
+    }
+
+    @Test(expected = UndeclaredThrowableException.class)
+    public void testCallCheckedException() {
+        create(2, 2, 1000L);
+        executor.call(new Callable<String>() {
+            @Override
+            public String call() throws IOException {
+                throw new IOException();
+            }
+        });
+    }
+
+    @Test
+    public void testTimeout() throws Exception {
+        create(1, 1, 50L);
+        try {
+            executor.call(blocked);
+            fail("expected ServiceUnavailableException");
+        } catch (ServiceUnavailableException e) {
+            assertEquals(Reason.TIMED_OUT, e.getReason());
+        }
+        assertEquals(1, executor.getMetrics().getTimeouts());
+
+        // the timed out call was cancelled so the worker is free again.
+        assertEquals("x", executor.call(new Callable<String>() {
+            @Override
+            public String call() {
+                return "x";
+            }
+        }, 1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testRejected() throws Exception {
+        create(1, 1, 1000L);
+        final Future<String> running = executor.submit(blocked);
+        final Future<String> queued = executor.submit(blocked);
+
+        try {
+            executor.submit(blocked);
+            fail("expected ServiceUnavailableException");
+        } catch (ServiceUnavailableException e) {
+            assertEquals(Reason.REJECTED, e.getReason());
+        }
+
+        final ExecutorMetrics metrics = executor.getMetrics();
+        assertEquals(1, metrics.getRejected());
+        assertEquals(1, metrics.getQueued());
+        assertEquals(1, metrics.getMaxThreads());
+        assertEquals(1, metrics.getQueueCapacity());
+
+        release.countDown();
+        assertEquals("done", running.get(1, TimeUnit.SECONDS));
+        assertEquals("done", queued.get(1, TimeUnit.SECONDS));
+        assertEquals(2, executor.getMetrics().getStarted());
+    }
+
+    @Test
+    public void testQueueTimeHistogram() {
+        create(1, 1, 1000L);
+        executor.record(0);
+        executor.record(7);
+        executor.record(60000);
+
+        final ExecutorMetrics metrics = executor.getMetrics();
+        final long[] histogram = metrics.getQueueTimeHistogram();
+        assertEquals(1, histogram[0]);
+        assertEquals(1, histogram[2]);
+        assertEquals(1, histogram[histogram.length - 1]);
+        assertEquals(60000, metrics.getMaxQueueMillis());
+        assertEquals(3, metrics.getStarted());
+    }
+}
@@ -192,4 +192,60 @@ public class StudentFinderServiceImplTest {
         final StudentFinderService service = new StudentFinderServiceImpl(repository);
         service.findStudentsByTestRun(testRun);
     }
+
+    @Test
+    public void testFindStudentsByName() {
+        final List<Student> expected = Collections.singletonList(new Student());
+
+        final StudentRepository repository = Mockito.mock(StudentRepository.class);
+        when(repository.findPage(any(sClass), any(Student.class), any(KeysetPage.class))).thenReturn(expected);
+
+        final StudentFinderService service = new StudentFinderServiceImpl(repository);
+        final List<Student> actual = service.findStudentsByName("bob", NameMatch.PREFIX, null, new KeysetPage(10));
+
+        assertEquals(expected, actual);
+    }
+
+    @Test(expected = PersistenceException.class)
+    public void testFindStudentsByNameError() {
+        final StudentRepository repository = Mockito.mock(StudentRepository.class);
+        when(repository.findPage(any(sClass), any(Student.class), any(KeysetPage.class))).thenThrow(
+                new UnitTestException());
+
+        final StudentFinderService service = new StudentFinderServiceImpl(repository);
+        service.findStudentsByName("bob", NameMatch.PREFIX, null, new KeysetPage(10));
+    }
+
+    @Test
+    public void testFindPage() {
+        final StudentRepository repository = Mockito.mock(StudentRepository.class);
+
+        final StudentFinderService service = new StudentFinderServiceImpl(repository);
+        ServiceAssertions.assertFindPage(repository, service, new Student());
+    }
+
+    @Test(expected = ObjectNotFoundException.class)
+    public void testFindPageAfterMissing() {
+        final StudentRepository repository = Mockito.mock(StudentRepository.class);
+        when(repository.findStudentByUuid(any(String.class))).thenReturn(null);
+
+        final StudentFinderService service = new StudentFinderServiceImpl(repository);
+        service.findPage(new KeysetPage("[uuid]", 10));
+    }
+
+    @Test
+    public void testFindByUuids() {
+        final StudentRepository repository = Mockito.mock(StudentRepository.class);
+
+        final StudentFinderService service = new StudentFinderServiceImpl(repository);
+        ServiceAssertions.assertFindByUuids(repository, service, new Student(), new Student());
+    }
+
+    @Test
+    public void testForEach() {
+        final StudentRepository repository = Mockito.mock(StudentRepository.class);
+
+        final StudentFinderService service = new StudentFinderServiceImpl(repository);
+        ServiceAssertions.assertForEach(repository, service);
+    }
 }
@@ -24,12 +24,23 @@ package com.invariantproperties.sandbox.student.business;
 
 import static org.junit.Assert.assertEquals;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyCollectionOf;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyListOf;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
 import org.junit.Test;
 import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
 import com.invariantproperties.sandbox.student.domain.Student;
 import com.invariantproperties.sandbox.student.repository.StudentRepository;
@@ -41,6 +52,18 @@ import com.invariantproperties.sandbox.student.repository.StudentRepository;
  */
 public class StudentManagerServiceImplTest {
     private static final String UUID = "11111111-1111-1111-1111-111111111111";
+    private static final String UUID2 = "22222222-2222-2222-2222-222222222222";
+
+    /**
+     * Mock of saveInBatches() that returns its argument.
+     */
+    private static final Answer<List<Student>> SAVED = new Answer<List<Student>>() {
+        @SuppressWarnings("unchecked")
+        @Override
+        public List<Student> answer(InvocationOnMock invocation) {
+            return (List<Student>) invocation.getArguments()[0];
+        }
+    };
 
     @Test
     public void testCreateStudent() {
@@ -118,7 +141,7 @@ public class StudentManagerServiceImplTest {
         doNothing().when(repository).delete(any(Student.class));
 
         final StudentManagerService service = new StudentManagerServiceImpl(repository);
-        service.deleteStudent(expected.getUuid(), 0);
+        service.deleteStudent(expected.getUuid(), null);
     }
 
     @Test(expected = ObjectNotFoundException.class)
@@ -127,7 +150,7 @@ public class StudentManagerServiceImplTest {
         when(repository.findStudentByUuid(any(String.class))).thenReturn(null);
 
         final StudentManagerService service = new StudentManagerServiceImpl(repository);
-        service.deleteStudent(UUID, 0);
+        service.deleteStudent(UUID, null);
     }
 
     @Test(expected = PersistenceException.class)
@@ -140,6 +163,109 @@ public class StudentManagerServiceImplTest {
         doThrow(new UnitTestException()).when(repository).delete(any(Student.class));
 
         final StudentManagerService service = new StudentManagerServiceImpl(repository);
-        service.deleteStudent(expected.getUuid(), 0);
+        service.deleteStudent(expected.getUuid(), null);
+    }
+
+    @Test
+    public void testUpdateIfVersion() {
+        final Student changes = new Student();
+        changes.setUuid(UUID);
+        changes.setVersion(3);
+
+        final StudentRepository repository = Mockito.mock(StudentRepository.class);
+
+        final StudentManagerService service = new StudentManagerServiceImpl(repository);
+        ServiceAssertions.assertUpdateIfVersion(repository, service, changes, "name", "emailAddress");
+    }
+
+    @Test
+    public void testDeleteIfVersion() {
+        final StudentRepository repository = Mockito.mock(StudentRepository.class);
+
+        final StudentManagerService service = new StudentManagerServiceImpl(repository);
+        ServiceAssertions.assertDeleteIfVersion(repository, service);
+    }
+
+    @Test
+    public void testDeleteStudentWithVersion() {
+        final StudentRepository repository = Mockito.mock(StudentRepository.class);
+        when(repository.deleteIfVersion(UUID, 3)).thenReturn(1);
+
+        final StudentManagerService service = new StudentManagerServiceImpl(repository);
+        service.deleteStudent(UUID, 3);
+
+        verify(repository).deleteIfVersion(UUID, 3);
+        verify(repository, never()).findStudentByUuid(any(String.class));
+    }
+
+    @Test
+    public void testCreateAll() {
+        final Student valid = new Student();
+        valid.setName("Alice");
+        valid.setEmailAddress("alice@example.com");
+        final Student invalid = new Student();
+        invalid.setEmailAddress("bob@example.com");
+        final Student duplicate = new Student();
+        duplicate.setName("Carol");
+        duplicate.setEmailAddress("carol@example.com");
+        final Student existing = new Student();
+        existing.setUuid(UUID);
+        existing.setName("Carol");
+        existing.setEmailAddress("carol@example.com");
+
+        final StudentRepository repository = Mockito.mock(StudentRepository.class);
+        when(repository.findStudentsByEmailAddressIn(anyCollectionOf(String.class)))
+                .thenReturn(Collections.singletonList(existing));
+        when(repository.saveInBatches(anyListOf(Student.class), anyInt())).thenAnswer(SAVED);
+
+        final StudentManagerService service = new StudentManagerServiceImpl(repository);
+        final BatchResult<Student> actual = service.createAll(Arrays.asList(valid, invalid, duplicate));
+
+        assertEquals(1, actual.getResults().size());
+        assertEquals("Alice", actual.getResults().get(0).getName());
+        assertEquals(2, actual.getFailures().size());
+        assertEquals(1, actual.getFailures().get(0).getIndex());
+        assertEquals(2, actual.getFailures().get(1).getIndex());
+    }
+
+    @Test(expected = PersistenceException.class)
+    public void testCreateAllError() {
+        final Student valid = new Student();
+        valid.setName("Alice");
+        valid.setEmailAddress("alice@example.com");
+
+        final StudentRepository repository = Mockito.mock(StudentRepository.class);
+        when(repository.saveInBatches(anyListOf(Student.class), anyInt())).thenThrow(new UnitTestException());
+
+        final StudentManagerService service = new StudentManagerServiceImpl(repository);
+        service.createAll(Collections.singletonList(valid));
+    }
+
+    @Test
+    public void testUpdateAll() {
+        final Student expected = new Student();
+        expected.setUuid(UUID);
+        expected.setName("Alice");
+        expected.setEmailAddress("alice@example.com");
+        final Student changes = new Student();
+        changes.setUuid(UUID);
+        changes.setName("Bob");
+        changes.setEmailAddress("alice@example.com");
+        final Student missing = new Student();
+        missing.setUuid(UUID2);
+        missing.setName("Carol");
+        missing.setEmailAddress("carol@example.com");
+
+        final StudentRepository repository = Mockito.mock(StudentRepository.class);
+        when(repository.findAllByUuid(anyCollectionOf(String.class))).thenReturn(Collections.singletonList(expected));
+        when(repository.saveInBatches(anyListOf(Student.class), anyInt())).thenAnswer(SAVED);
+
+        final StudentManagerService service = new StudentManagerServiceImpl(repository);
+        final BatchResult<Student> actual = service.updateAll(Arrays.asList(changes, missing));
+
+        assertEquals(1, actual.getResults().size());
+        assertEquals("Bob", actual.getResults().get(0).getName());
+        assertEquals(1, actual.getFailures().size());
+        assertEquals(UUID2, actual.getFailures().get(0).getUuid());
     }
 }
@@ -194,4 +194,37 @@ public class TermFinderServiceImplTest {
         final TermFinderService service = new TermFinderServiceImpl(repository);
         service.findTermsByTestRun(testRun);
     }
+
+    @Test
+    public void testFindPage() {
+        final TermRepository repository = Mockito.mock(TermRepository.class);
+
+        final TermFinderService service = new TermFinderServiceImpl(repository);
+        ServiceAssertions.assertFindPage(repository, service, new Term());
+    }
+
+    @Test(expected = ObjectNotFoundException.class)
+    public void testFindPageAfterMissing() {
+        final TermRepository repository = Mockito.mock(TermRepository.class);
+        when(repository.findTermByUuid(any(String.class))).thenReturn(null);
+
+        final TermFinderService service = new TermFinderServiceImpl(repository);
+        service.findPage(new KeysetPage("[uuid]", 10));
+    }
+
+    @Test
+    public void testFindByUuids() {
+        final TermRepository repository = Mockito.mock(TermRepository.class);
+
+        final TermFinderService service = new TermFinderServiceImpl(repository);
+        ServiceAssertions.assertFindByUuids(repository, service, new Term(), new Term());
+    }
+
+    @Test
+    public void testForEach() {
+        final TermRepository repository = Mockito.mock(TermRepository.class);
+
+        final TermFinderService service = new TermFinderServiceImpl(repository);
+        ServiceAssertions.assertForEach(repository, service);
+    }
 }
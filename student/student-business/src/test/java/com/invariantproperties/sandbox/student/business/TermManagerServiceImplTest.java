@@ -24,12 +24,23 @@ package com.invariantproperties.sandbox.student.business;
 
 import static org.junit.Assert.assertEquals;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyCollectionOf;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyListOf;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
 import org.junit.Test;
 import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
 import com.invariantproperties.sandbox.student.domain.Term;
 import com.invariantproperties.sandbox.student.repository.TermRepository;
@@ -41,6 +52,18 @@ import com.invariantproperties.sandbox.student.repository.TermRepository;
  */
 public class TermManagerServiceImplTest {
     private static final String UUID = "11111111-1111-1111-1111-111111111111";
+    private static final String UUID2 = "22222222-2222-2222-2222-222222222222";
+
+    /**
+     * Mock of saveInBatches() that returns its argument.
+     */
+    private static final Answer<List<Term>> SAVED = new Answer<List<Term>>() {
+        @SuppressWarnings("unchecked")
+        @Override
+        public List<Term> answer(InvocationOnMock invocation) {
+            return (List<Term>) invocation.getArguments()[0];
+        }
+    };
 
     @Test
     public void testCreateTerm() {
@@ -115,7 +138,7 @@ public class TermManagerServiceImplTest {
         doNothing().when(repository).delete(any(Term.class));
 
         final TermManagerService service = new TermManagerServiceImpl(repository);
-        service.deleteTerm(expected.getUuid(), 0);
+        service.deleteTerm(expected.getUuid(), null);
     }
 
     @Test(expected = ObjectNotFoundException.class)
@@ -124,7 +147,7 @@ public class TermManagerServiceImplTest {
         when(repository.findTermByUuid(any(String.class))).thenReturn(null);
 
         final TermManagerService service = new TermManagerServiceImpl(repository);
-        service.deleteTerm(UUID, 0);
+        service.deleteTerm(UUID, null);
     }
 
     @Test(expected = PersistenceException.class)
@@ -137,6 +160,93 @@ public class TermManagerServiceImplTest {
         doThrow(new UnitTestException()).when(repository).delete(any(Term.class));
 
         final TermManagerService service = new TermManagerServiceImpl(repository);
-        service.deleteTerm(expected.getUuid(), 0);
+        service.deleteTerm(expected.getUuid(), null);
+    }
+
+    @Test
+    public void testUpdateIfVersion() {
+        final Term changes = new Term();
+        changes.setUuid(UUID);
+        changes.setVersion(3);
+
+        final TermRepository repository = Mockito.mock(TermRepository.class);
+
+        final TermManagerService service = new TermManagerServiceImpl(repository);
+        ServiceAssertions.assertUpdateIfVersion(repository, service, changes, "name");
+    }
+
+    @Test
+    public void testDeleteIfVersion() {
+        final TermRepository repository = Mockito.mock(TermRepository.class);
+
+        final TermManagerService service = new TermManagerServiceImpl(repository);
+        ServiceAssertions.assertDeleteIfVersion(repository, service);
+    }
+
+    @Test
+    public void testDeleteTermWithVersion() {
+        final TermRepository repository = Mockito.mock(TermRepository.class);
+        when(repository.deleteIfVersion(UUID, 3)).thenReturn(1);
+
+        final TermManagerService service = new TermManagerServiceImpl(repository);
+        service.deleteTerm(UUID, 3);
+
+        verify(repository).deleteIfVersion(UUID, 3);
+        verify(repository, never()).findTermByUuid(any(String.class));
+    }
+
+    @Test
+    public void testCreateAll() {
+        final Term valid = new Term();
+        valid.setName("Alice");
+        final Term invalid = new Term();
+
+        final TermRepository repository = Mockito.mock(TermRepository.class);
+        when(repository.saveInBatches(anyListOf(Term.class), anyInt())).thenAnswer(SAVED);
+
+        final TermManagerService service = new TermManagerServiceImpl(repository);
+        final BatchResult<Term> actual = service.createAll(Arrays.asList(valid, invalid));
+
+        assertEquals(1, actual.getResults().size());
+        assertEquals("Alice", actual.getResults().get(0).getName());
+        assertEquals(1, actual.getFailures().size());
+        assertEquals(1, actual.getFailures().get(0).getIndex());
+    }
+
+    @Test(expected = PersistenceException.class)
+    public void testCreateAllError() {
+        final Term valid = new Term();
+        valid.setName("Alice");
+
+        final TermRepository repository = Mockito.mock(TermRepository.class);
+        when(repository.saveInBatches(anyListOf(Term.class), anyInt())).thenThrow(new UnitTestException());
+
+        final TermManagerService service = new TermManagerServiceImpl(repository);
+        service.createAll(Collections.singletonList(valid));
+    }
+
+    @Test
+    public void testUpdateAll() {
+        final Term expected = new Term();
+        expected.setUuid(UUID);
+        expected.setName("Alice");
+        final Term changes = new Term();
+        changes.setUuid(UUID);
+        changes.setName("Bob");
+        final Term missing = new Term();
+        missing.setUuid(UUID2);
+        missing.setName("Carol");
+
+        final TermRepository repository = Mockito.mock(TermRepository.class);
+        when(repository.findAllByUuid(anyCollectionOf(String.class))).thenReturn(Collections.singletonList(expected));
+        when(repository.saveInBatches(anyListOf(Term.class), anyInt())).thenAnswer(SAVED);
+
+        final TermManagerService service = new TermManagerServiceImpl(repository);
+        final BatchResult<Term> actual = service.updateAll(Arrays.asList(changes, missing));
+
+        assertEquals(1, actual.getResults().size());
+        assertEquals("Bob", actual.getResults().get(0).getName());
+        assertEquals(1, actual.getFailures().size());
+        assertEquals(UUID2, actual.getFailures().get(0).getUuid());
     }
 }
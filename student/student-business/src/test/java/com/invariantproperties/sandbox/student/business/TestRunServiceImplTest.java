@@ -23,15 +23,29 @@
 package com.invariantproperties.sandbox.student.business;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.util.Collections;
+import java.util.List;
+
 import org.junit.Test;
+import org.mockito.InOrder;
 import org.mockito.Mockito;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.data.jpa.domain.Specification;
 
 import com.invariantproperties.sandbox.student.domain.TestRun;
+import com.invariantproperties.sandbox.student.domain.TestablePersistentObject;
 import com.invariantproperties.sandbox.student.repository.TestRunRepository;
 
 /**
@@ -41,6 +55,61 @@ import com.invariantproperties.sandbox.student.repository.TestRunRepository;
  */
 public class TestRunServiceImplTest {
     private static final String UUID = "11111111-1111-1111-1111-111111111111";
+    private final Class<Specification<TestRun>> sClass = null;
+
+    @Test
+    public void testCount() {
+        final long expected = 3;
+
+        final TestRunRepository repository = Mockito.mock(TestRunRepository.class);
+        when(repository.count()).thenReturn(expected);
+
+        final TestRunService service = new TestRunServiceImpl(repository);
+        final long actual = service.count();
+
+        assertEquals(expected, actual);
+    }
+
+    @Test(expected = PersistenceException.class)
+    public void testCountError() {
+        final TestRunRepository repository = Mockito.mock(TestRunRepository.class);
+        when(repository.count()).thenThrow(new UnitTestException());
+
+        final TestRunService service = new TestRunServiceImpl(repository);
+        service.count();
+    }
+
+    @Test
+    public void testFindPage() {
+        final List<TestRun> expected = Collections.emptyList();
+
+        final TestRunRepository repository = Mockito.mock(TestRunRepository.class);
+        when(repository.findPage(any(sClass), any(TestRun.class), any(KeysetPage.class))).thenReturn(expected);
+
+        final TestRunService service = new TestRunServiceImpl(repository);
+        final List<TestRun> actual = service.findPage(new KeysetPage(10));
+
+        assertEquals(expected, actual);
+    }
+
+    @Test(expected = ObjectNotFoundException.class)
+    public void testFindPageAfterMissing() {
+        final TestRunRepository repository = Mockito.mock(TestRunRepository.class);
+        when(repository.findTestRunByUuid(any(String.class))).thenReturn(null);
+
+        final TestRunService service = new TestRunServiceImpl(repository);
+        service.findPage(new KeysetPage(UUID, 10));
+    }
+
+    @Test(expected = PersistenceException.class)
+    public void testFindPageError() {
+        final TestRunRepository repository = Mockito.mock(TestRunRepository.class);
+        when(repository.findPage(any(sClass), any(TestRun.class), any(KeysetPage.class))).thenThrow(
+                new UnitTestException());
+
+        final TestRunService service = new TestRunServiceImpl(repository);
+        service.findPage(new KeysetPage(10));
+    }
 
     @Test
     public void testCreateTestRun() {
@@ -99,4 +168,76 @@ public class TestRunServiceImplTest {
         final TestRunService service = new TestRunServiceImpl(repository);
         service.deleteTestRun(expected.getUuid());
     }
+
+    @Test
+    public void testPurgeTestRun() {
+        final TestRun expected = new TestRun();
+        expected.setUuid(UUID);
+
+        final TestRunRepository repository = Mockito.mock(TestRunRepository.class);
+        when(repository.findTestRunByUuid(any(String.class))).thenReturn(expected);
+        when(repository.purgeTestData(Mockito.<Class<? extends TestablePersistentObject>> any(), eq(expected)))
+                .thenReturn(3);
+
+        final TestRunService service = new TestRunServiceImpl(repository);
+        assertEquals(3 * TestRunServiceImpl.PURGE_ORDER.size(), service.purgeTestRun(UUID));
+
+        final InOrder inOrder = Mockito.inOrder(repository);
+        inOrder.verify(repository).purgeTestAssociations(expected);
+        for (Class<? extends TestablePersistentObject> domainClass : TestRunServiceImpl.PURGE_ORDER) {
+            inOrder.verify(repository).purgeTestData(domainClass, expected);
+        }
+        inOrder.verify(repository).delete(expected);
+    }
+
+    @Test(expected = ObjectNotFoundException.class)
+    public void testPurgeTestRunMissing() {
+        final TestRunRepository repository = Mockito.mock(TestRunRepository.class);
+        when(repository.findTestRunByUuid(any(String.class))).thenReturn(null);
+
+        final TestRunService service = new TestRunServiceImpl(repository);
+        service.purgeTestRun(UUID);
+    }
+
+    @Test
+    public void testPurgeTestRunAsync() {
+        final TestRun expected = new TestRun();
+        expected.setUuid(UUID);
+
+        final TestRunRepository repository = Mockito.mock(TestRunRepository.class);
+        when(repository.findTestRunByUuid(any(String.class))).thenReturn(expected);
+        when(repository.purgeTestData(Mockito.<Class<? extends TestablePersistentObject>> any(), eq(expected)))
+                .thenReturn(2);
+
+        final TestRunService service = new TestRunServiceImpl(repository, new SyncTaskExecutor());
+        assertNull(service.getPurgeProgress(UUID));
+
+        final PurgeProgress progress = service.purgeTestRunAsync(UUID);
+        assertEquals(PurgeProgress.Status.COMPLETE, progress.getStatus());
+        assertEquals(TestRunServiceImpl.PURGE_ORDER.size(), progress.getTablesPurged());
+        assertEquals(2 * TestRunServiceImpl.PURGE_ORDER.size(), progress.getRowsDeleted());
+        assertSame(progress, service.getPurgeProgress(UUID));
+
+        // a finished purge is replaced by a new one
+        assertNotSame(progress, service.purgeTestRunAsync(UUID));
+    }
+
+    @Test
+    public void testPurgeTestRunAsyncError() {
+        final TestRun expected = new TestRun();
+        expected.setUuid(UUID);
+
+        final TestRunRepository repository = Mockito.mock(TestRunRepository.class);
+        when(repository.findTestRunByUuid(any(String.class))).thenReturn(expected);
+        when(repository.purgeTestData(Mockito.<Class<? extends TestablePersistentObject>> any(), eq(expected)))
+                .thenReturn(1).thenThrow(new UnitTestException());
+
+        final TestRunService service = new TestRunServiceImpl(repository, new SyncTaskExecutor());
+        final PurgeProgress progress = service.purgeTestRunAsync(UUID);
+
+        assertEquals(PurgeProgress.Status.FAILED, progress.getStatus());
+        assertEquals(1, progress.getTablesPurged());
+        assertNotNull(progress.getFailure());
+        verify(repository, never()).delete(any(TestRun.class));
+    }
 }
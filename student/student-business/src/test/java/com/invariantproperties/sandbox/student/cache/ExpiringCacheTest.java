@@ -0,0 +1,128 @@
+/*
+ * This code was written by Bear Giles <bgiles@coyotesong.com> and he
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Any contributions made by others are licensed to this project under
+ * one or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright (c) 2013 Bear Giles <bgiles@coyotesong.com>
+ */
+package com.invariantproperties.sandbox.student.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.springframework.cache.Cache;
+
+/**
+ * Unit tests for ExpiringCache.
+ * 
+ * @author Bear Giles <bgiles@coyotesong.com>
+ */
+public class ExpiringCacheTest {
+    private static final String NAME = "test";
+
+    /**
+     * Cache with a clock that only moves when told to.
+     */
+    private static class TestCache extends ExpiringCache {
+        private long now;
+
+        TestCache(int maxSize) {
+            super(NAME, maxSize, 10, TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        long now() {
+            return now;
+        }
+    }
+
+    @Test
+    public void testExpires() {
+        final TestCache cache = new TestCache(10);
+        cache.put("a", "A");
+
+        cache.now = 9;
+        assertEquals("A", cache.get("a").get());
+
+        cache.now = 10;
+        assertNull(cache.get("a"));
+    }
+
+    @Test
+    public void testPutResetsExpiration() {
+        final TestCache cache = new TestCache(10);
+        cache.put("a", "A");
+
+        cache.now = 5;
+        cache.put("a", "B");
+
+        cache.now = 12;
+        assertEquals("B", cache.get("a").get());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedIsDropped() {
+        final Cache cache = new TestCache(2);
+        cache.put("a", "A");
+        cache.put("b", "B");
+        assertNotNull(cache.get("a"));
+
+        cache.put("c", "C");
+
+        assertNotNull(cache.get("a"));
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("c"));
+    }
+
+    @Test
+    public void testNullValue() {
+        final Cache cache = new TestCache(10);
+        cache.put("a", null);
+
+        assertNotNull(cache.get("a"));
+        assertNull(cache.get("a").get());
+    }
+
+    @Test
+    public void testEvictAndClear() {
+        final Cache cache = new TestCache(10);
+        cache.put("a", "A");
+        cache.put("b", "B");
+
+        cache.evict("a");
+        assertNull(cache.get("a"));
+        assertNotNull(cache.get("b"));
+
+        cache.clear();
+        assertNull(cache.get("b"));
+    }
+
+    @Test
+    public void testCacheManager() {
+        final ExpiringCacheManager manager = new ExpiringCacheManager(10, 1, TimeUnit.MINUTES, "a", "b");
+
+        assertEquals(Arrays.asList("a", "b"), Arrays.asList(manager.getCacheNames().toArray()));
+        assertEquals("a", manager.getCache("a").getName());
+        assertNull(manager.getCache("c"));
+    }
+}
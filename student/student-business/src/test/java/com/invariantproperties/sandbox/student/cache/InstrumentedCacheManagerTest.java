@@ -0,0 +1,198 @@
+/*
+ * This code was written by Bear Giles <bgiles@coyotesong.com> and he
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Any contributions made by others are licensed to this project under
+ * one or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright (c) 2013 Bear Giles <bgiles@coyotesong.com>
+ */
+package com.invariantproperties.sandbox.student.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.util.concurrent.ConcurrentMap;
+
+import org.junit.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Unit tests for InstrumentedCacheManager.
+ * 
+ * @author Bear Giles <bgiles@coyotesong.com>
+ */
+public class InstrumentedCacheManagerTest {
+    private static final String NAME = "test";
+
+    private InstrumentedCacheManager createCacheManager() {
+        final InstrumentedCacheManager manager = new InstrumentedCacheManager(new ConcurrentMapCacheManager(NAME));
+        manager.afterPropertiesSet();
+        return manager;
+    }
+
+    @Test
+    public void testHitAndMiss() {
+        final InstrumentedCacheManager manager = createCacheManager();
+        final Cache cache = manager.getCache(NAME);
+
+        assertNull(cache.get("a"));
+        cache.put("a", "A");
+        assertEquals("A", cache.get("a").get());
+        assertEquals("A", cache.get("a").get());
+
+        final CacheStatistics stats = manager.getStatistics(NAME);
+        assertEquals(2, stats.getHits());
+        assertEquals(1, stats.getMisses());
+        assertEquals(1, stats.getPuts());
+        assertEquals(2.0 / 3.0, stats.getHitRatio(), 0.0001);
+        assertEquals(1, manager.getStatistics().size());
+    }
+
+    @Test
+    public void testEvictAndClear() {
+        final InstrumentedCacheManager manager = createCacheManager();
+        final Cache cache = manager.getCache(NAME);
+
+        cache.put("a", "A");
+        cache.put("b", "B");
+        cache.evict("a");
+        cache.evict(null);
+        assertNull(cache.get("a"));
+        assertNotNull(cache.get("b"));
+        cache.clear();
+        assertNull(cache.get("b"));
+
+        final CacheStatistics stats = manager.getStatistics(NAME);
+        assertEquals(1, stats.getEvictions());
+        assertEquals(1, stats.getClears());
+    }
+
+    @Test
+    public void testUnknownCache() {
+        final InstrumentedCacheManager manager = createCacheManager();
+        assertNull(manager.getStatistics("unknown"));
+    }
+
+    @Test
+    public void testPutIsDeferredUntilCommit() {
+        final Cache cache = createCacheManager().getCache(NAME);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            cache.put("a", "A");
+            assertNull(cache.get("a"));
+
+            for (TransactionSynchronization sync : TransactionSynchronizationManager.getSynchronizations()) {
+                sync.afterCommit();
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertEquals("A", cache.get("a").get());
+    }
+
+    @Test
+    public void testPutIsDiscardedOnRollback() {
+        final Cache cache = createCacheManager().getCache(NAME);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            cache.put("a", "A");
+
+            for (TransactionSynchronization sync : TransactionSynchronizationManager.getSynchronizations()) {
+                sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertNull(cache.get("a"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testEvictIsRepeatedOnCompletion() {
+        final Cache cache = createCacheManager().getCache(NAME);
+        final ConcurrentMap<Object, Object> nativeCache = (ConcurrentMap<Object, Object>) cache.getNativeCache();
+        cache.put("a", "A");
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            cache.evict("a");
+            assertNull(cache.get("a"));
+
+            // another thread caches the old value before we finish.
+            nativeCache.put("a", "A");
+            assertNotNull(cache.get("a"));
+
+            for (TransactionSynchronization sync : TransactionSynchronizationManager.getSynchronizations()) {
+                sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertNull(cache.get("a"));
+    }
+
+    @Test
+    public void testStalePutIsDropped() throws InterruptedException {
+        final Cache cache = createCacheManager().getCache(NAME);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            // we miss and read the old value...
+            assertNull(cache.get("a"));
+
+            // ...another thread updates it and evicts the key...
+            final Thread writer = new Thread() {
+                @Override
+                public void run() {
+                    cache.evict("a");
+                }
+            };
+            writer.start();
+            writer.join();
+
+            // ...and we try to cache the old value.
+            cache.put("a", "A");
+            for (TransactionSynchronization sync : TransactionSynchronizationManager.getSynchronizations()) {
+                sync.afterCommit();
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertNull(cache.get("a"));
+    }
+
+    @Test
+    public void testPutAfterUnrelatedEviction() {
+        final Cache cache = createCacheManager().getCache(NAME);
+
+        assertNull(cache.get("a"));
+        cache.evict("b");
+        cache.put("a", "A");
+
+        assertEquals("A", cache.get("a").get());
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * This code was written by Bear Giles <bgiles@coyotesong.com> and he
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Any contributions made by others are licensed to this project under
+ * one or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright (c) 2013 Bear Giles <bgiles@coyotesong.com>
+ */
+package com.invariantproperties.sandbox.student.search;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for IndexSegment.
+ * 
+ * @author Bear Giles <bgiles@coyotesong.com>
+ */
+public class IndexSegmentTest {
+    private File file;
+
+    @Before
+    public void init() throws IOException {
+        file = File.createTempFile("search", ".idx");
+    }
+
+    @After
+    public void cleanup() {
+        file.delete();
+    }
+
+    @Test
+    public void testWriteAndRead() throws IOException {
+        final InvertedIndex index = new InvertedIndex();
+        index.put("1", "Course", "Physics I", "Physics I Introduction to mechanics");
+        index.put("2", "Student", "Ren\u00e9e Dupont", "Ren\u00e9e Dupont");
+        index.put("3", "Instructor", null, null);
+
+        assertEquals(3, IndexSegment.write(file, index, "3:42:7"));
+        assertFalse(new File(file.getPath() + ".tmp").exists());
+        assertEquals("3:42:7", IndexSegment.readStamp(file));
+
+        final InvertedIndex copy = new InvertedIndex();
+        assertEquals(3, IndexSegment.read(file, copy));
+        assertEquals(3, copy.size());
+        assertEquals("Physics I", copy.search("mechanics introduction", null, 10).get(0).getTitle());
+        assertEquals("2", copy.search("ren\u00e9e", "Student", 10).get(0).getUuid());
+        assertEquals(index.search("physics", null, 10).get(0).getScore(),
+                copy.search("physics", null, 10).get(0).getScore(), 1e-9);
+    }
+
+    @Test(expected = IOException.class)
+    public void testReadNotSegment() throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.writeInt(12345);
+        }
+        IndexSegment.read(file, new InvertedIndex());
+    }
+
+    @Test
+    public void testReadTruncated() throws IOException {
+        final InvertedIndex index = new InvertedIndex();
+        index.put("1", "Course", "Physics I", "Physics I Introduction to mechanics");
+        IndexSegment.write(file, index, null);
+
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(raf.length() - 4);
+        }
+
+        final InvertedIndex copy = new InvertedIndex();
+        try {
+            IndexSegment.read(file, copy);
+        } catch (IOException e) {
+            assertEquals(0, copy.size());
+            return;
+        }
+        throw new AssertionError("expected IOException");
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * This code was written by Bear Giles <bgiles@coyotesong.com> and he
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Any contributions made by others are licensed to this project under
+ * one or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright (c) 2013 Bear Giles <bgiles@coyotesong.com>
+ */
+package com.invariantproperties.sandbox.student.search;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.invariantproperties.sandbox.student.business.SearchHit;
+
+/**
+ * Unit tests for InvertedIndex and Tokenizer.
+ * 
+ * @author Bear Giles <bgiles@coyotesong.com>
+ */
+public class InvertedIndexTest {
+    private InvertedIndex index;
+
+    @Before
+    public void init() {
+        index = new InvertedIndex();
+        index.put("1", "Course", "Physics I", "Physics I Introduction to mechanics. Mechanics and waves.");
+        index.put("2", "Course", "Chemistry I", "Chemistry I Introduction to chemistry.");
+        index.put("3", "Student", "Alice Mechanic", "Alice Mechanic");
+    }
+
+    @Test
+    public void testTokenize() {
+        assertEquals(Arrays.asList("mechanics", "101"), Tokenizer.tokenize("  Mechanics-101 "));
+        assertEquals(Arrays.asList("introduction", "mechanics"), Tokenizer.tokenize("Introduction to the MECHANICS"));
+        assertTrue(Tokenizer.tokenize(null).isEmpty());
+        assertTrue(Tokenizer.tokenize("a I of").isEmpty());
+    }
+
+    @Test
+    public void testTermFrequencies() {
+        assertEquals(Integer.valueOf(2), Tokenizer.termFrequencies("waves, more waves").get("waves"));
+    }
+
+    @Test
+    public void testSearch() {
+        final List<SearchHit> hits = index.search("introduction", null, 10);
+        assertEquals(2, hits.size());
+        for (SearchHit hit : hits) {
+            assertEquals("Course", hit.getType());
+        }
+    }
+
+    @Test
+    public void testSearchRequiresEveryTerm() {
+        final List<SearchHit> hits = index.search("Introduction MECHANICS", null, 10);
+        assertEquals(1, hits.size());
+        assertEquals("1", hits.get(0).getUuid());
+        assertEquals("Physics I", hits.get(0).getTitle());
+
+        assertTrue(index.search("introduction biology", null, 10).isEmpty());
+    }
+
+    @Test
+    public void testSearchRanking() {
+        // 'chemistry' appears twice in a short document
+        index.put("4", "Course", "Biochemistry", "Biochemistry Chemistry of living things and more.");
+        final List<SearchHit> hits = index.search("chemistry", null, 10);
+        assertEquals(2, hits.size());
+        assertEquals("2", hits.get(0).getUuid());
+        assertTrue(hits.get(0).getScore() > hits.get(1).getScore());
+    }
+
+    @Test
+    public void testSearchByType() {
+        assertEquals(1, index.search("mechanic", "Student", 10).size());
+        assertTrue(index.search("mechanic", "Course", 10).isEmpty());
+    }
+
+    @Test
+    public void testSearchMaxResults() {
+        assertEquals(1, index.search("introduction", null, 1).size());
+        assertTrue(index.search("introduction", null, 0).isEmpty());
+    }
+
+    @Test
+    public void testSearchStopwordsOnly() {
+        assertTrue(index.search("to the", null, 10).isEmpty());
+    }
+
+    @Test
+    public void testPutReplaces() {
+        index.put("1", "Course", "Physics II", "Physics II Electricity");
+        assertEquals(3, index.size());
+        assertTrue(index.search("mechanics", null, 10).isEmpty());
+        assertEquals("Physics II", index.search("electricity", null, 10).get(0).getTitle());
+    }
+
+    @Test
+    public void testUpdate() {
+        assertTrue(index.update("2", "Course", "Organic Chemistry", "Organic Chemistry"));
+        assertEquals(1, index.search("organic", null, 10).size());
+        assertFalse(index.update("9", "Course", "Biology", "Biology"));
+        assertFalse(index.contains("9"));
+    }
+
+    @Test
+    public void testRemove() {
+        assertTrue(index.remove("1"));
+        assertFalse(index.remove("1"));
+        assertEquals(2, index.size());
+        assertEquals(1, index.search("introduction", null, 10).size());
+        assertTrue(index.search("physics", null, 10).isEmpty());
+    }
+}
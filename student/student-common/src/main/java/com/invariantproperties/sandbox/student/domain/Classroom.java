@@ -42,7 +42,7 @@ public class Classroom extends TestablePersistentObject {
 
     private String name;
 
-    @Column(length = 80, unique = false, updatable = true)
+    @Column(length = 80, nullable = false, unique = false, updatable = true)
     public String getName() {
         return name;
     }
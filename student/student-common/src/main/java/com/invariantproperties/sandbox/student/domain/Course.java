@@ -27,11 +27,14 @@ import java.util.List;
 import javax.persistence.AttributeOverride;
 import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
 import javax.persistence.Lob;
 import javax.persistence.Table;
 import javax.persistence.Transient;
 import javax.xml.bind.annotation.XmlRootElement;
 
+import org.hibernate.annotations.BatchSize;
+
 /**
  * Course bean
  * 
@@ -42,7 +45,9 @@ import javax.xml.bind.annotation.XmlRootElement;
  */
 @XmlRootElement
 @Entity
+@EntityListeners(EntityChanges.class)
 @Table(name = "course")
+@BatchSize(size = Section.BATCH_SIZE)
 @AttributeOverride(name = "id", column = @Column(name = "course_pkey"))
 public class Course extends TestablePersistentObject {
     private static final long serialVersionUID = 1L;
@@ -54,7 +59,7 @@ public class Course extends TestablePersistentObject {
     private Integer creditHours;
     private List<Section> sections;
 
-    @Column(length = 12, unique = true, updatable = false)
+    @Column(length = 12, nullable = false, unique = true, updatable = false)
     public String getCode() {
         return code;
     }
@@ -63,7 +68,7 @@ public class Course extends TestablePersistentObject {
         this.code = code;
     }
 
-    @Column(length = 80, unique = false, updatable = true)
+    @Column(length = 80, nullable = false, unique = false, updatable = true)
     public String getName() {
         return name;
     }
@@ -0,0 +1,85 @@
+/*
+ * This code was written by Bear Giles <bgiles@coyotesong.com> and he
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Any contributions made by others are licensed to this project under
+ * one or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright (c) 2013 Bear Giles <bgiles@coyotesong.com>
+ */
+package com.invariantproperties.sandbox.student.domain;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+/**
+ * JPA entity listener that passes entity changes to the registered
+ * EntityChangeListeners. The JPA provider creates its own instance of this
+ * class so the listeners are kept in a static registry.
+ * 
+ * Bulk JPQL statements bypass the JPA callbacks. Code that uses them must call
+ * fireUpdated() or fireRemoved() itself.
+ * 
+ * @author Bear Giles <bgiles@coyotesong.com>
+ */
+public class EntityChanges {
+    private static final List<EntityChangeListener> LISTENERS = new CopyOnWriteArrayList<EntityChangeListener>();
+
+    public static void addListener(EntityChangeListener listener) {
+        LISTENERS.add(listener);
+    }
+
+    public static void removeListener(EntityChangeListener listener) {
+        LISTENERS.remove(listener);
+    }
+
+    public static void firePersisted(PersistentObject entity) {
+        for (EntityChangeListener listener : LISTENERS) {
+            listener.persisted(entity);
+        }
+    }
+
+    public static void fireUpdated(PersistentObject entity) {
+        for (EntityChangeListener listener : LISTENERS) {
+            listener.updated(entity);
+        }
+    }
+
+    public static void fireRemoved(String uuid) {
+        for (EntityChangeListener listener : LISTENERS) {
+            listener.removed(uuid);
+        }
+    }
+
+    @PostPersist
+    public void postPersist(PersistentObject entity) {
+        firePersisted(entity);
+    }
+
+    @PostUpdate
+    public void postUpdate(PersistentObject entity) {
+        fireUpdated(entity);
+    }
+
+    @PostRemove
+    public void postRemove(PersistentObject entity) {
+        fireRemoved(entity.getUuid());
+    }
+}
@@ -24,7 +24,6 @@ package com.invariantproperties.sandbox.student.domain;
 
 import java.io.Serializable;
 import java.util.Date;
-import java.util.UUID;
 
 import javax.persistence.Column;
 import javax.persistence.GeneratedValue;
@@ -32,6 +31,7 @@ import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.MappedSuperclass;
 import javax.persistence.PrePersist;
+import javax.persistence.SequenceGenerator;
 import javax.persistence.Temporal;
 import javax.persistence.TemporalType;
 import javax.persistence.Transient;
@@ -39,6 +39,9 @@ import javax.persistence.Version;
 
 import org.apache.commons.lang3.builder.EqualsBuilder;
 import org.apache.commons.lang3.builder.HashCodeBuilder;
+import org.hibernate.annotations.Type;
+
+import com.invariantproperties.sandbox.student.util.UuidGenerator;
 
 /**
  * Abstract base class for all persistent objects. This ensures consistent
@@ -49,11 +52,21 @@ import org.apache.commons.lang3.builder.HashCodeBuilder;
  * /hibernate/orm/3.3/reference/en-US/html/persistent-classes
  * .html#persistent-classes-equalshashcode
  * 
+ * Primary keys come from a single pooled sequence. Hibernate reserves a block
+ * of ALLOCATION_SIZE ids with each call to the database so it can batch
+ * inserts - it has to disable JDBC batching when the ids come from identity
+ * (serial) columns since it must read each id back after its insert. The
+ * database sequence must be incremented by the same amount.
+ * 
+ * The uuid is stored in a native 16-byte uuid column. See UuidUserType.
+ * 
  * @author Bear Giles <bgiles@coyotesong.com>
  */
 @MappedSuperclass
 public abstract class PersistentObject implements Serializable {
     private static final long serialVersionUID = 1L;
+    public static final String SEQUENCE_NAME = "pkey_seq";
+    public static final int ALLOCATION_SIZE = 50;
 
     private Integer id;
     private Integer version;
@@ -62,7 +75,8 @@ public abstract class PersistentObject implements Serializable {
     private String self;
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = SEQUENCE_NAME)
+    @SequenceGenerator(name = SEQUENCE_NAME, sequenceName = SEQUENCE_NAME, allocationSize = ALLOCATION_SIZE)
     public Integer getId() {
         return id;
     }
@@ -80,7 +94,8 @@ public abstract class PersistentObject implements Serializable {
         this.version = version;
     }
 
-    @Column(unique = true, length = 40, nullable = false, updatable = false)
+    @Column(unique = true, nullable = false, updatable = false, columnDefinition = UuidUserType.COLUMN_DEFINITION)
+    @Type(type = UuidUserType.NAME)
     public String getUuid() {
         return uuid;
     }
@@ -117,7 +132,7 @@ public abstract class PersistentObject implements Serializable {
         }
 
         if (getUuid() == null) {
-            setUuid(UUID.randomUUID().toString());
+            setUuid(UuidGenerator.next());
         }
     }
 
@@ -28,13 +28,24 @@ import java.util.List;
 import javax.persistence.AttributeOverride;
 import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.FetchType;
+import javax.persistence.JoinColumn;
+import javax.persistence.JoinTable;
+import javax.persistence.ManyToMany;
+import javax.persistence.ManyToOne;
 import javax.persistence.Table;
-import javax.persistence.Transient;
 import javax.xml.bind.annotation.XmlRootElement;
 
+import org.hibernate.annotations.BatchSize;
+
 /**
  * Section bean.
  * 
+ * The course, students and classrooms are lazy associations. The collections
+ * are batch fetched so walking a list of sections costs one query per batch
+ * of sections, not one per section. Use SectionFinderService to read a
+ * complete roster.
+ * 
  * @author Bear Giles <bgiles@coyotesong.com>
  */
 @XmlRootElement
@@ -43,13 +54,14 @@ import javax.xml.bind.annotation.XmlRootElement;
 @AttributeOverride(name = "id", column = @Column(name = "section_pkey"))
 public class Section extends TestablePersistentObject {
     private static final long serialVersionUID = 1L;
+    static final int BATCH_SIZE = 50;
 
     private String name;
     private Course course;
     private List<Student> students = new ArrayList<Student>();
     private List<Classroom> classrooms = new ArrayList<Classroom>();
 
-    @Column(length = 80, unique = false, updatable = true)
+    @Column(length = 80, nullable = false, unique = false, updatable = true)
     public String getName() {
         return name;
     }
@@ -58,7 +70,8 @@ public class Section extends TestablePersistentObject {
         this.name = name;
     }
 
-    @Transient
+    @ManyToOne(fetch = FetchType.LAZY, optional = true)
+    @JoinColumn(name = "course_pkey")
     public Course getCourse() {
         return course;
     }
@@ -67,7 +80,10 @@ public class Section extends TestablePersistentObject {
         this.course = course;
     }
 
-    @Transient
+    @ManyToMany(fetch = FetchType.LAZY)
+    @JoinTable(name = "section_student", joinColumns = @JoinColumn(name = "section_pkey"),
+            inverseJoinColumns = @JoinColumn(name = "student_pkey"))
+    @BatchSize(size = BATCH_SIZE)
     public List<Student> getStudents() {
         return students;
     }
@@ -76,7 +92,10 @@ public class Section extends TestablePersistentObject {
         this.students = students;
     }
 
-    @Transient
+    @ManyToMany(fetch = FetchType.LAZY)
+    @JoinTable(name = "section_classroom", joinColumns = @JoinColumn(name = "section_pkey"),
+            inverseJoinColumns = @JoinColumn(name = "classroom_pkey"))
+    @BatchSize(size = BATCH_SIZE)
     public List<Classroom> getClassrooms() {
         return classrooms;
     }
@@ -28,6 +28,7 @@ import java.util.List;
 import javax.persistence.AttributeOverride;
 import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
 import javax.persistence.Table;
 import javax.persistence.Transient;
 import javax.xml.bind.annotation.XmlRootElement;
@@ -39,6 +40,7 @@ import javax.xml.bind.annotation.XmlRootElement;
  */
 @XmlRootElement
 @Entity
+@EntityListeners(EntityChanges.class)
 @Table(name = "student")
 @AttributeOverride(name = "id", column = @Column(name = "student_pkey"))
 public class Student extends TestablePersistentObject {
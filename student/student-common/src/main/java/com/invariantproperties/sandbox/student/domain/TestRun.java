@@ -25,7 +25,6 @@ package com.invariantproperties.sandbox.student.domain;
 import java.util.Collections;
 import java.util.Date;
 import java.util.List;
-import java.util.UUID;
 
 import javax.persistence.AttributeOverride;
 import javax.persistence.Column;
@@ -37,6 +36,8 @@ import javax.persistence.TemporalType;
 import javax.persistence.Transient;
 import javax.xml.bind.annotation.XmlRootElement;
 
+import com.invariantproperties.sandbox.student.util.UuidGenerator;
+
 /**
  * Integration test run bean. "Live" integration tests should create a TestRun
  * object and set their testRun field appropriately. This keeps test data
@@ -56,7 +57,7 @@ public class TestRun extends PersistentObject {
     private String user;
     private List<TestablePersistentObject> objects = Collections.emptyList();
 
-    @Column(length = 80, unique = false, updatable = true)
+    @Column(length = 80, nullable = false, unique = false, updatable = true)
     public String getName() {
         return name;
     }
@@ -111,7 +112,7 @@ public class TestRun extends PersistentObject {
         }
 
         if (getUuid() == null) {
-            setUuid(UUID.randomUUID().toString());
+            setUuid(UuidGenerator.next());
         }
 
         if (getUser() == null) {
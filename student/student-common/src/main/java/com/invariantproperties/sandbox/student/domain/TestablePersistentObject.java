@@ -35,6 +35,10 @@ import javax.persistence.Transient;
  * should have a null value, test data should have a unique value that
  * references a TestRun object.
  * 
+ * The tables can be list-partitioned on the test run (see partition.sql) so
+ * the test data is physically separate from the normal data. Queries that
+ * restrict the test run to null never read the test partitions.
+ * 
  * @author Bear Giles <bgiles@coyotesong.com>
  */
 @MappedSuperclass
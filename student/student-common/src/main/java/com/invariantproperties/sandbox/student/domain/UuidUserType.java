@@ -0,0 +1,160 @@
+/*
+ * This code was written by Bear Giles <bgiles@coyotesong.com> and he
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Any contributions made by others are licensed to this project under
+ * one or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright (c) 2013 Bear Giles <bgiles@coyotesong.com>
+ */
+package com.invariantproperties.sandbox.student.domain;
+
+import java.io.Serializable;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.UUID;
+
+import org.hibernate.HibernateException;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.usertype.UserType;
+
+import com.invariantproperties.sandbox.student.util.StudentUtil;
+
+/**
+ * Hibernate type that stores a String uuid property in a native 16-byte
+ * 'uuid' column instead of a varchar(40) column. PostgreSQL and H2 both have
+ * a native uuid type and their JDBC drivers accept and return
+ * java.util.UUID objects. JPA 2.0 doesn't have attribute converters so we
+ * have to use a Hibernate user type.
+ * 
+ * Values that aren't well-formed uuids are bound as NULL. They can't match any
+ * stored value so lookups with them simply return nothing, the same behavior
+ * as with the varchar column.
+ * 
+ * @author Bear Giles <bgiles@coyotesong.com>
+ */
+public class UuidUserType implements UserType {
+    public static final String NAME = "com.invariantproperties.sandbox.student.domain.UuidUserType";
+    public static final String COLUMN_DEFINITION = "uuid";
+
+    private static final int[] SQL_TYPES = { Types.OTHER };
+
+    @Override
+    public int[] sqlTypes() {
+        return SQL_TYPES;
+    }
+
+    @Override
+    public Class<?> returnedClass() {
+        return String.class;
+    }
+
+    @Override
+    public boolean equals(Object x, Object y) {
+        return (x == null) ? (y == null) : x.equals(y);
+    }
+
+    @Override
+    public int hashCode(Object x) {
+        return (x == null) ? 0 : x.hashCode();
+    }
+
+    @Override
+    public Object nullSafeGet(ResultSet rs, String[] names, SessionImplementor session, Object owner)
+            throws SQLException {
+        return fromDatabase(rs.getObject(names[0]));
+    }
+
+    @Override
+    public void nullSafeSet(PreparedStatement st, Object value, int index, SessionImplementor session)
+            throws SQLException {
+        final UUID uuid = toDatabase((String) value);
+        if (uuid == null) {
+            st.setNull(index, Types.OTHER);
+        } else {
+            st.setObject(index, uuid);
+        }
+    }
+
+    @Override
+    public Object deepCopy(Object value) {
+        // strings are immutable
+        return value;
+    }
+
+    @Override
+    public boolean isMutable() {
+        return false;
+    }
+
+    @Override
+    public Serializable disassemble(Object value) {
+        return (Serializable) value;
+    }
+
+    @Override
+    public Object assemble(Serializable cached, Object owner) {
+        return cached;
+    }
+
+    @Override
+    public Object replace(Object original, Object target, Object owner) {
+        return original;
+    }
+
+    /**
+     * Convert the property value to the value bound to the statement.
+     * 
+     * @param value
+     * @return uuid, or null if the value is not a well-formed uuid.
+     */
+    static UUID toDatabase(String value) {
+        if (!StudentUtil.isPossibleUuid(value)) {
+            return null;
+        }
+        return UUID.fromString(value);
+    }
+
+    /**
+     * Convert the value read from the database to the property value. Some
+     * drivers return the raw 16 bytes instead of a UUID.
+     * 
+     * @param value
+     * @return
+     */
+    static String fromDatabase(Object value) {
+        if (value == null) {
+            return null;
+        } else if (value instanceof UUID) {
+            return value.toString();
+        } else if (value instanceof byte[]) {
+            final byte[] bytes = (byte[]) value;
+            if (bytes.length != 16) {
+                throw new HibernateException("unexpected uuid length: " + bytes.length);
+            }
+            long msb = 0;
+            long lsb = 0;
+            for (int i = 0; i < 8; i++) {
+                msb = (msb << 8) | (bytes[i] & 0xff);
+                lsb = (lsb << 8) | (bytes[i + 8] & 0xff);
+            }
+            return new UUID(msb, lsb).toString();
+        }
+        return value.toString();
+    }
+}
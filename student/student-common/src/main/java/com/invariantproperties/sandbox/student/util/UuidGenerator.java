@@ -0,0 +1,140 @@
+/*
+ * This code was written by Bear Giles <bgiles@coyotesong.com> and he
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Any contributions made by others are licensed to this project under
+ * one or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright (c) 2013 Bear Giles <bgiles@coyotesong.com>
+ */
+package com.invariantproperties.sandbox.student.util;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Generator for time-ordered (version 7) uuids.
+ * 
+ * The first 48 bits are the Unix timestamp in milliseconds so new values are
+ * always near the right-hand edge of a B-tree index instead of scattered
+ * across it like random (version 4) uuids. The next 12 bits are a counter that
+ * keeps values created by the same thread in the same millisecond in order and
+ * the remaining 62 bits are random.
+ * 
+ * UUID.randomUUID() uses a single shared SecureRandom. This class keeps its
+ * state in a ThreadLocal and uses ThreadLocalRandom so there's no contention
+ * between threads. The random bits are not cryptographically strong - our
+ * uuids are identifiers, not secrets.
+ * 
+ * Layout (RFC 9562):
+ * 
+ * <pre>
+ *  unix_ts_ms (48) | ver (4) | counter (12) | var (2) | rand (62)
+ * </pre>
+ * 
+ * @author Bear Giles <bgiles@coyotesong.com>
+ */
+public final class UuidGenerator {
+    private static final int VERSION = 7;
+    private static final int COUNTER_BITS = 12;
+    private static final int COUNTER_MAX = (1 << COUNTER_BITS) - 1;
+
+    /**
+     * The counter starts at a random value in the lower half of its range so
+     * there's room to increment it before we have to borrow from the clock.
+     */
+    private static final int COUNTER_SEED_MAX = 1 << (COUNTER_BITS - 1);
+
+    private static final ThreadLocal<State> STATE = new ThreadLocal<State>() {
+        @Override
+        protected State initialValue() {
+            return new State();
+        }
+    };
+
+    /**
+     * Per-thread state.
+     */
+    private static final class State {
+        private long lastMillis = -1;
+        private int counter;
+    }
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private UuidGenerator() {
+
+    }
+
+    /**
+     * Create a new time-ordered uuid.
+     * 
+     * @return
+     */
+    public static UUID nextUuid() {
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        final State state = STATE.get();
+        final long now = System.currentTimeMillis();
+
+        if (now > state.lastMillis) {
+            state.lastMillis = now;
+            state.counter = random.nextInt(COUNTER_SEED_MAX);
+        } else if (state.counter < COUNTER_MAX) {
+            // same millisecond, or the clock went backwards.
+            state.counter++;
+        } else {
+            // counter overflow - borrow from the next millisecond.
+            state.lastMillis++;
+            state.counter = random.nextInt(COUNTER_SEED_MAX);
+        }
+
+        return create(state.lastMillis, state.counter, random.nextLong());
+    }
+
+    /**
+     * Create a new time-ordered uuid as a string.
+     * 
+     * @return
+     */
+    public static String next() {
+        return nextUuid().toString();
+    }
+
+    /**
+     * Get the timestamp of a time-ordered uuid.
+     * 
+     * @param uuid
+     * @return milliseconds since the epoch.
+     * @throws IllegalArgumentException
+     *             if this is not a version 7 uuid.
+     */
+    public static long getTimestamp(UUID uuid) {
+        if (uuid.version() != VERSION) {
+            throw new IllegalArgumentException("not a version 7 uuid: " + uuid);
+        }
+        return uuid.getMostSignificantBits() >>> 16;
+    }
+
+    /**
+     * Assemble the uuid.
+     */
+    static UUID create(long millis, int counter, long random) {
+        final long msb = (millis << 16) | (VERSION << 12) | (counter & COUNTER_MAX);
+        final long lsb = (random & 0x3fffffffffffffffL) | 0x8000000000000000L;
+        return new UUID(msb, lsb);
+    }
+}
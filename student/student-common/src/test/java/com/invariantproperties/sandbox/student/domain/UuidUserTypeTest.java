@@ -0,0 +1,67 @@
+/*
+ * This code was written by Bear Giles <bgiles@coyotesong.com> and he
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Any contributions made by others are licensed to this project under
+ * one or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright (c) 2013 Bear Giles <bgiles@coyotesong.com>
+ */
+package com.invariantproperties.sandbox.student.domain;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.UUID;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for UuidUserType.
+ * 
+ * @author Bear Giles <bgiles@coyotesong.com>
+ */
+public class UuidUserTypeTest {
+    private static final String UUID1 = "01234567-89ab-cdef-0123-456789abcdef";
+
+    @Test
+    public void testToDatabase() {
+        assertEquals(UUID.fromString(UUID1), UuidUserType.toDatabase(UUID1));
+    }
+
+    @Test
+    public void testToDatabaseNotUuid() {
+        assertNull(UuidUserType.toDatabase("missing"));
+        assertNull(UuidUserType.toDatabase(null));
+    }
+
+    @Test
+    public void testFromDatabaseUuid() {
+        assertEquals(UUID1, UuidUserType.fromDatabase(UUID.fromString(UUID1)));
+    }
+
+    @Test
+    public void testFromDatabaseBytes() {
+        final byte[] bytes = { 0x01, 0x23, 0x45, 0x67, (byte) 0x89, (byte) 0xab, (byte) 0xcd, (byte) 0xef, 0x01, 0x23,
+                0x45, 0x67, (byte) 0x89, (byte) 0xab, (byte) 0xcd, (byte) 0xef };
+        assertEquals(UUID1, UuidUserType.fromDatabase(bytes));
+    }
+
+    @Test
+    public void testFromDatabaseNull() {
+        assertNull(UuidUserType.fromDatabase(null));
+    }
+}
@@ -0,0 +1,229 @@
+/*
+ * This code was written by Bear Giles <bgiles@coyotesong.com> and he
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Any contributions made by others are licensed to this project under
+ * one or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright (c) 2013 Bear Giles <bgiles@coyotesong.com>
+ */
+package com.invariantproperties.sandbox.student.util;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Compare random (version 4) and time-ordered (version 7) uuids. This is not a
+ * unit test - run it manually with
+ * 
+ * <pre>
+ * mvn -pl student-common test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.invariantproperties.sandbox.student.util.UuidGeneratorBenchmark \
+ *     -Dexec.args="8 400000"
+ * </pre>
+ * 
+ * It reports
+ * <ul>
+ * <li>generation rate with concurrent threads</li>
+ * <li>insert rate into a table with a unique uuid index, with one connection
+ * per writer</li>
+ * <li>index locality - the fraction of inserts, in commit order, that were
+ * larger than every earlier key. These land on the right-most leaf page of the
+ * B-tree. Every other insert touches a random leaf page that must be read into
+ * the cache and will probably be split.</li>
+ * </ul>
+ * 
+ * The embedded H2 database keeps everything in memory so it understates the
+ * cost of random inserts on a real database, where the index will not fit in
+ * the cache.
+ * 
+ * @author Bear Giles <bgiles@coyotesong.com>
+ */
+public class UuidGeneratorBenchmark {
+    private static final int BATCH_SIZE = 500;
+
+    /**
+     * Source of uuids.
+     */
+    private enum Source {
+        RANDOM {
+            @Override
+            UUID next() {
+                return UUID.randomUUID();
+            }
+        },
+        TIME_ORDERED {
+            @Override
+            UUID next() {
+                return UuidGenerator.nextUuid();
+            }
+        };
+
+        abstract UUID next();
+    }
+
+    public static void main(String[] args) throws Exception {
+        final int threads = (args.length > 0) ? Integer.parseInt(args[0]) : 8;
+        final int rows = (args.length > 1) ? Integer.parseInt(args[1]) : 400000;
+
+        Class.forName("org.h2.Driver");
+
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            // warm up
+            for (Source source : Source.values()) {
+                generate(executor, source, threads, rows);
+            }
+
+            System.out.printf("%d threads, %d uuids%n", threads, rows);
+            for (Source source : Source.values()) {
+                final double rate = generate(executor, source, threads, rows);
+                System.out.printf("%-12s generate: %,12.0f uuids/sec%n", source, rate);
+            }
+
+            for (Source source : Source.values()) {
+                final String url = "jdbc:h2:mem:" + source + ";DB_CLOSE_DELAY=-1";
+                final double rate = insert(executor, url, source, threads, rows);
+                final double locality = locality(url);
+                System.out.printf("%-12s insert:   %,12.0f rows/sec, %5.1f%% right-edge inserts%n", source, rate,
+                        100 * locality);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Generate uuids.
+     * 
+     * @return uuids per second
+     */
+    static double generate(ExecutorService executor, final Source source, int threads, final int rows)
+            throws Exception {
+        final List<Callable<Long>> tasks = new ArrayList<Callable<Long>>();
+        for (int i = 0; i < threads; i++) {
+            tasks.add(new Callable<Long>() {
+                @Override
+                public Long call() {
+                    long sum = 0;
+                    for (int j = 0; j < rows / tasks.size(); j++) {
+                        sum += source.next().getLeastSignificantBits();
+                    }
+                    return sum;
+                }
+            });
+        }
+
+        final long start = System.nanoTime();
+        for (Future<Long> future : executor.invokeAll(tasks)) {
+            future.get();
+        }
+        return rows / ((System.nanoTime() - start) / 1e9);
+    }
+
+    /**
+     * Insert uuids with concurrent writers.
+     * 
+     * @return rows per second
+     */
+    static double insert(ExecutorService executor, final String url, final Source source, int threads,
+            final int rows) throws Exception {
+        final Connection conn = DriverManager.getConnection(url);
+        try {
+            final Statement stmt = conn.createStatement();
+            stmt.execute("drop table if exists bench");
+            stmt.execute("create table bench (pkey int auto_increment primary key, uuid uuid unique not null)");
+            stmt.close();
+        } finally {
+            conn.close();
+        }
+
+        final List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+        for (int i = 0; i < threads; i++) {
+            tasks.add(new Callable<Void>() {
+                @Override
+                public Void call() throws SQLException {
+                    final Connection conn = DriverManager.getConnection(url);
+                    try {
+                        conn.setAutoCommit(false);
+                        final PreparedStatement stmt = conn.prepareStatement("insert into bench(uuid) values(?)");
+                        for (int j = 1; j <= rows / tasks.size(); j++) {
+                            stmt.setObject(1, source.next());
+                            stmt.addBatch();
+                            if (j % BATCH_SIZE == 0) {
+                                stmt.executeBatch();
+                                conn.commit();
+                            }
+                        }
+                        stmt.executeBatch();
+                        conn.commit();
+                        stmt.close();
+                    } finally {
+                        conn.close();
+                    }
+                    return null;
+                }
+            });
+        }
+
+        final long start = System.nanoTime();
+        for (Future<Void> future : executor.invokeAll(tasks)) {
+            future.get();
+        }
+        return rows / ((System.nanoTime() - start) / 1e9);
+    }
+
+    /**
+     * Determine the fraction of inserts that were larger than every earlier
+     * key.
+     */
+    static double locality(String url) throws SQLException {
+        final Connection conn = DriverManager.getConnection(url);
+        try {
+            final Statement stmt = conn.createStatement();
+            final ResultSet rs = stmt.executeQuery("select uuid from bench order by pkey");
+            String max = "";
+            int count = 0;
+            int rightEdge = 0;
+            while (rs.next()) {
+                // lowercase hex strings sort the same as the unsigned values.
+                final String uuid = rs.getObject(1).toString();
+                if (uuid.compareTo(max) > 0) {
+                    max = uuid;
+                    rightEdge++;
+                }
+                count++;
+            }
+            rs.close();
+            stmt.execute("drop table bench");
+            stmt.close();
+            return (double) rightEdge / count;
+        } finally {
+            conn.close();
+        }
+    }
+}
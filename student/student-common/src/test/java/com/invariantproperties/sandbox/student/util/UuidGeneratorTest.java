@@ -0,0 +1,79 @@
+/*
+ * This code was written by Bear Giles <bgiles@coyotesong.com> and he
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Any contributions made by others are licensed to this project under
+ * one or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright (c) 2013 Bear Giles <bgiles@coyotesong.com>
+ */
+package com.invariantproperties.sandbox.student.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.UUID;
+
+import org.junit.Test;
+
+/**
+ * Tests for time-ordered uuid generator.
+ * 
+ * @author Bear Giles <bgiles@coyotesong.com>
+ */
+public class UuidGeneratorTest {
+
+    @Test
+    public void testVersionAndVariant() {
+        final UUID uuid = UuidGenerator.nextUuid();
+        assertEquals(7, uuid.version());
+        assertEquals(2, uuid.variant());
+        assertTrue(StudentUtil.isPossibleUuid(uuid.toString()));
+    }
+
+    @Test
+    public void testTimestamp() {
+        final long before = System.currentTimeMillis();
+        final UUID uuid = UuidGenerator.nextUuid();
+        final long after = System.currentTimeMillis();
+
+        final long timestamp = UuidGenerator.getTimestamp(uuid);
+        assertTrue(timestamp >= before);
+        // the counter may borrow a few milliseconds from the future.
+        assertTrue(timestamp <= after + 10);
+    }
+
+    @Test
+    public void testLayout() {
+        final UUID uuid = UuidGenerator.create(0x0123456789abL, 0xcde, -1L);
+        assertEquals("01234567-89ab-7cde-bfff-ffffffffffff", uuid.toString());
+    }
+
+    @Test
+    public void testOrdered() {
+        String previous = UuidGenerator.next();
+        for (int i = 0; i < 100000; i++) {
+            final String uuid = UuidGenerator.next();
+            assertTrue(uuid.compareTo(previous) > 0);
+            previous = uuid;
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTimestampNotVersion7() {
+        UuidGenerator.getTimestamp(UUID.randomUUID());
+    }
+}
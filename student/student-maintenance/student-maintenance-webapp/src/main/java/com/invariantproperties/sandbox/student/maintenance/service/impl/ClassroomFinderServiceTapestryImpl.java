@@ -23,10 +23,14 @@
 package com.invariantproperties.sandbox.student.maintenance.service.impl;
 
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 
 import com.invariantproperties.sandbox.student.business.ClassroomFinderService;
+import com.invariantproperties.sandbox.student.business.KeysetPage;
+import com.invariantproperties.sandbox.student.business.MultiGetResult;
+import com.invariantproperties.sandbox.student.business.ObjectHandler;
 import com.invariantproperties.sandbox.student.business.ObjectNotFoundException;
 import com.invariantproperties.sandbox.student.domain.Classroom;
 import com.invariantproperties.sandbox.student.domain.TestRun;
@@ -49,14 +53,17 @@ public class ClassroomFinderServiceTapestryImpl implements ClassroomFinderServic
 
     @Override
     public long count() {
-        // FIXME: grossly inefficient but good enough for now.
-        return finder.getAllClassrooms().length;
+        return finder.count();
     }
 
-    // @Override
+    @Override
     public long countByTestRun(TestRun testRun) {
-        // FIXME: grossly inefficient but good enough for now.
-        return finder.getAllClassrooms().length;
+        return finder.countByTestRun(testRun);
+    }
+
+    @Override
+    public long countByTestRun(TestRun testRun, boolean exact) {
+        return finder.countByTestRun(testRun);
     }
 
     @Override
@@ -113,6 +120,55 @@ public class ClassroomFinderServiceTapestryImpl implements ClassroomFinderServic
     // return Collections.emptyList();
     // }
 
+    /**
+     * Use the multi-get so a missing object is an empty list, not a 404.
+     */
+    @Override
+    public Classroom findByUuidOrNull(String uuid) {
+        final Classroom[] results = finder.getObjects(Collections.singletonList(uuid));
+        return (results.length == 0) ? null : results[0];
+    }
+
+    @Override
+    public MultiGetResult<Classroom> findByUuids(Collection<String> uuids) {
+        return MultiGetResult.of(uuids, Arrays.asList(finder.getObjects(uuids)));
+    }
+
+    @Override
+    public List<Classroom> findPage(KeysetPage page) {
+        return Arrays.asList(finder.getPage(page));
+    }
+
+    @Override
+    public List<Classroom> findPageByTestRun(TestRun testRun, KeysetPage page) {
+        return findPage(page);
+    }
+
+    /**
+     * Walk the objects a page at a time so we never hold more than one page.
+     */
+    @Override
+    public long forEach(ObjectHandler<? super Classroom> handler, int fetchSize) {
+        long count = 0;
+        List<Classroom> results = findPage(new KeysetPage(fetchSize));
+        while (!results.isEmpty()) {
+            for (Classroom result : results) {
+                handler.handle(result);
+            }
+            count += results.size();
+            if (results.size() < fetchSize) {
+                break;
+            }
+            results = findPage(new KeysetPage(results.get(results.size() - 1).getUuid(), fetchSize));
+        }
+        return count;
+    }
+
+    @Override
+    public long forEachByTestRun(TestRun testRun, ObjectHandler<? super Classroom> handler, int fetchSize) {
+        return forEach(handler, fetchSize);
+    }
+
     private void initCache(ClassroomManagerRestClient manager) {
         manager.createClassroom("eng 1-01");
         manager.createClassroom("eng 2-01");
@@ -45,10 +45,15 @@
 
 package com.invariantproperties.sandbox.student.maintenance.service.impl;
 
+import java.util.List;
+
+import com.invariantproperties.sandbox.student.business.BatchFailure;
+import com.invariantproperties.sandbox.student.business.BatchResult;
 import com.invariantproperties.sandbox.student.business.ClassroomManagerService;
 import com.invariantproperties.sandbox.student.domain.Classroom;
 import com.invariantproperties.sandbox.student.domain.TestRun;
 import com.invariantproperties.sandbox.student.webservice.client.ClassroomManagerRestClient;
+import com.invariantproperties.sandbox.student.webservice.client.RestClientException;
 import com.invariantproperties.sandbox.student.webservice.client.impl.ClassroomManagerRestClientImpl;
 
 /**
@@ -102,4 +107,71 @@ public class ClassroomManagerServiceTapestryImpl implements ClassroomManagerServ
         final Classroom actual = manager.createClassroom(name);
         return actual;
     }
+
+    /**
+     * Create objects one at a time since the REST service does not have a bulk
+     * create method.
+     * 
+     * @see com.invariantproperties.sandbox.student.business.ManagerService#createAll(java.util.List)
+     */
+    @Override
+    public BatchResult<Classroom> createAll(List<Classroom> classrooms) {
+        final BatchResult<Classroom> result = new BatchResult<Classroom>();
+        for (int i = 0; i < classrooms.size(); i++) {
+            final Classroom classroom = classrooms.get(i);
+            try {
+                if (classroom.getTestRun() == null) {
+                    result.addResult(createClassroom(classroom.getName()));
+                } else {
+                    result.addResult(createClassroomForTesting(classroom.getName(), classroom.getTestRun()));
+                }
+            } catch (RestClientException | IllegalArgumentException e) {
+                result.addFailure(new BatchFailure(i, null, e.getMessage()));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Update objects one at a time since the REST service does not have a bulk
+     * update method.
+     * 
+     * @see com.invariantproperties.sandbox.student.business.ManagerService#updateAll(java.util.List)
+     */
+    @Override
+    public BatchResult<Classroom> updateAll(List<Classroom> classrooms) {
+        final BatchResult<Classroom> result = new BatchResult<Classroom>();
+        for (int i = 0; i < classrooms.size(); i++) {
+            final Classroom classroom = classrooms.get(i);
+            try {
+                result.addResult(updateClassroom(classroom, classroom.getName()));
+            } catch (RestClientException | IllegalArgumentException e) {
+                result.addFailure(new BatchFailure(i, classroom.getUuid(), e.getMessage()));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * The REST service does not have a conditional update so this is an
+     * unconditional update.
+     * 
+     * @see com.invariantproperties.sandbox.student.business.ManagerService#updateIfVersion(com.invariantproperties.sandbox.student.domain.PersistentObject)
+     */
+    @Override
+    public Integer updateIfVersion(Classroom changes) {
+        return updateClassroom(changes, changes.getName()).getVersion();
+    }
+
+    /**
+     * The REST service does not have a conditional delete so this is an
+     * unconditional delete.
+     * 
+     * @see com.invariantproperties.sandbox.student.business.ManagerService#deleteIfVersion(java.lang.String,
+     *      java.lang.Integer)
+     */
+    @Override
+    public void deleteIfVersion(String uuid, Integer version) {
+        deleteClassroom(uuid, version);
+    }
 }
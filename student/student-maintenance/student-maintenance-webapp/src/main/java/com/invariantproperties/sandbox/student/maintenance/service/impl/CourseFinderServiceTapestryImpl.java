@@ -23,9 +23,15 @@
 package com.invariantproperties.sandbox.student.maintenance.service.impl;
 
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 
 import com.invariantproperties.sandbox.student.business.CourseFinderService;
+import com.invariantproperties.sandbox.student.business.KeysetPage;
+import com.invariantproperties.sandbox.student.business.MultiGetResult;
+import com.invariantproperties.sandbox.student.business.NameMatch;
+import com.invariantproperties.sandbox.student.business.ObjectHandler;
 import com.invariantproperties.sandbox.student.business.ObjectNotFoundException;
 import com.invariantproperties.sandbox.student.domain.Course;
 import com.invariantproperties.sandbox.student.domain.TestRun;
@@ -48,14 +54,17 @@ public class CourseFinderServiceTapestryImpl implements CourseFinderService {
 
     @Override
     public long count() {
-        // FIXME: grossly inefficient but good enough for now.
-        return finder.getAllCourses().length;
+        return finder.count();
     }
 
     @Override
     public long countByTestRun(TestRun testRun) {
-        // FIXME: grossly inefficient but good enough for now.
-        return finder.getAllCourses().length;
+        return finder.countByTestRun(testRun);
+    }
+
+    @Override
+    public long countByTestRun(TestRun testRun, boolean exact) {
+        return finder.countByTestRun(testRun);
     }
 
     @Override
@@ -87,6 +96,60 @@ public class CourseFinderServiceTapestryImpl implements CourseFinderService {
         return Arrays.asList(finder.getAllCourses());
     }
 
+    @Override
+    public List<Course> findCoursesByName(String name, NameMatch match, TestRun testRun, KeysetPage page) {
+        return Arrays.asList(finder.getCoursesByName(name, match, page));
+    }
+
+    /**
+     * Use the multi-get so a missing object is an empty list, not a 404.
+     */
+    @Override
+    public Course findByUuidOrNull(String uuid) {
+        final Course[] results = finder.getObjects(Collections.singletonList(uuid));
+        return (results.length == 0) ? null : results[0];
+    }
+
+    @Override
+    public MultiGetResult<Course> findByUuids(Collection<String> uuids) {
+        return MultiGetResult.of(uuids, Arrays.asList(finder.getObjects(uuids)));
+    }
+
+    @Override
+    public List<Course> findPage(KeysetPage page) {
+        return Arrays.asList(finder.getPage(page));
+    }
+
+    @Override
+    public List<Course> findPageByTestRun(TestRun testRun, KeysetPage page) {
+        return findPage(page);
+    }
+
+    /**
+     * Walk the objects a page at a time so we never hold more than one page.
+     */
+    @Override
+    public long forEach(ObjectHandler<? super Course> handler, int fetchSize) {
+        long count = 0;
+        List<Course> results = findPage(new KeysetPage(fetchSize));
+        while (!results.isEmpty()) {
+            for (Course result : results) {
+                handler.handle(result);
+            }
+            count += results.size();
+            if (results.size() < fetchSize) {
+                break;
+            }
+            results = findPage(new KeysetPage(results.get(results.size() - 1).getUuid(), fetchSize));
+        }
+        return count;
+    }
+
+    @Override
+    public long forEachByTestRun(TestRun testRun, ObjectHandler<? super Course> handler, int fetchSize) {
+        return forEach(handler, fetchSize);
+    }
+
     private void initCache(CourseManagerRestClient manager) {
         for (int i = 0; i < 5; i++) {
             long x = System.currentTimeMillis() % 10000;
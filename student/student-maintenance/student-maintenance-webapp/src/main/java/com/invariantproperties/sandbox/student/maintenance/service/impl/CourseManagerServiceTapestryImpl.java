@@ -45,10 +45,15 @@
 
 package com.invariantproperties.sandbox.student.maintenance.service.impl;
 
+import java.util.List;
+
+import com.invariantproperties.sandbox.student.business.BatchFailure;
+import com.invariantproperties.sandbox.student.business.BatchResult;
 import com.invariantproperties.sandbox.student.business.CourseManagerService;
 import com.invariantproperties.sandbox.student.domain.Course;
 import com.invariantproperties.sandbox.student.domain.TestRun;
 import com.invariantproperties.sandbox.student.webservice.client.CourseManagerRestClient;
+import com.invariantproperties.sandbox.student.webservice.client.RestClientException;
 import com.invariantproperties.sandbox.student.webservice.client.impl.CourseManagerRestClientImpl;
 
 /**
@@ -103,4 +108,74 @@ public class CourseManagerServiceTapestryImpl implements CourseManagerService {
         final Course actual = manager.createCourseForTesting(code, name, summary, description, creditHours, testRun);
         return actual;
     }
+
+    /**
+     * Create objects one at a time since the REST service does not have a bulk
+     * create method.
+     * 
+     * @see com.invariantproperties.sandbox.student.business.ManagerService#createAll(java.util.List)
+     */
+    @Override
+    public BatchResult<Course> createAll(List<Course> courses) {
+        final BatchResult<Course> result = new BatchResult<Course>();
+        for (int i = 0; i < courses.size(); i++) {
+            final Course course = courses.get(i);
+            try {
+                if (course.getTestRun() == null) {
+                    result.addResult(createCourse(course.getCode(), course.getName(), course.getSummary(),
+                            course.getDescription(), course.getCreditHours()));
+                } else {
+                    result.addResult(createCourseForTesting(course.getCode(), course.getName(), course.getSummary(),
+                            course.getDescription(), course.getCreditHours(), course.getTestRun()));
+                }
+            } catch (RestClientException | IllegalArgumentException e) {
+                result.addFailure(new BatchFailure(i, null, e.getMessage()));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Update objects one at a time since the REST service does not have a bulk
+     * update method.
+     * 
+     * @see com.invariantproperties.sandbox.student.business.ManagerService#updateAll(java.util.List)
+     */
+    @Override
+    public BatchResult<Course> updateAll(List<Course> courses) {
+        final BatchResult<Course> result = new BatchResult<Course>();
+        for (int i = 0; i < courses.size(); i++) {
+            final Course course = courses.get(i);
+            try {
+                result.addResult(updateCourse(course, course.getName(), course.getSummary(), course.getDescription(),
+                        course.getCreditHours()));
+            } catch (RestClientException | IllegalArgumentException e) {
+                result.addFailure(new BatchFailure(i, course.getUuid(), e.getMessage()));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * The REST service does not have a conditional update so this is an
+     * unconditional update.
+     * 
+     * @see com.invariantproperties.sandbox.student.business.ManagerService#updateIfVersion(com.invariantproperties.sandbox.student.domain.PersistentObject)
+     */
+    @Override
+    public Integer updateIfVersion(Course changes) {
+        return updateCourse(changes, changes.getName(), changes.getSummary(), changes.getDescription(), changes.getCreditHours()).getVersion();
+    }
+
+    /**
+     * The REST service does not have a conditional delete so this is an
+     * unconditional delete.
+     * 
+     * @see com.invariantproperties.sandbox.student.business.ManagerService#deleteIfVersion(java.lang.String,
+     *      java.lang.Integer)
+     */
+    @Override
+    public void deleteIfVersion(String uuid, Integer version) {
+        deleteCourse(uuid, version);
+    }
 }
@@ -28,6 +28,8 @@ import org.apache.tapestry5.grid.GridDataSource;
 import org.apache.tapestry5.grid.SortConstraint;
 
 import com.invariantproperties.sandbox.student.business.CourseFinderService;
+import com.invariantproperties.sandbox.student.business.KeysetPage;
+import com.invariantproperties.sandbox.student.business.NameMatch;
 import com.invariantproperties.sandbox.student.domain.Course;
 
 public class CourseFilteredDataSource implements GridDataSource {
@@ -49,9 +51,16 @@ public class CourseFilteredDataSource implements GridDataSource {
 
     @Override
     public void prepare(final int startIndex, final int endIndex, final List<SortConstraint> sortConstraints) {
-        // preparedResults = courseFinderService.findCourses(partialName,
-        // startIndex, endIndex - startIndex + 1);
-        preparedResults = courseFinderService.findAllCourses();
+        // the search is keyset paginated so we read everything up to the end
+        // of the grid page. Type-ahead only ever asks for the first page.
+        final KeysetPage page = new KeysetPage(null, endIndex + 1, "name", true);
+        List<Course> results = null;
+        if (partialName == null) {
+            results = courseFinderService.findPage(page);
+        } else {
+            results = courseFinderService.findCoursesByName(partialName, NameMatch.SUBSTRING, null, page);
+        }
+        preparedResults = results.subList(Math.min(startIndex, results.size()), results.size());
         this.startIndex = startIndex;
     }
 
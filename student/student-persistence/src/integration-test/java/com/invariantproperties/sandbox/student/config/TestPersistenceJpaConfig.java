@@ -22,12 +22,15 @@
  */
 package com.invariantproperties.sandbox.student.config;
 
+import java.sql.SQLException;
 import java.util.Properties;
 
 import javax.annotation.Resource;
 import javax.sql.DataSource;
 
 import org.hibernate.ejb.HibernatePersistence;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.DisposableBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -36,15 +39,14 @@ import org.springframework.context.annotation.PropertySource;
 import org.springframework.core.env.Environment;
 import org.springframework.dao.annotation.PersistenceExceptionTranslationPostProcessor;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
-import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
-import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
-import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
 import org.springframework.orm.jpa.JpaTransactionManager;
 import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
 import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
 import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 
+import com.invariantproperties.sandbox.student.datasource.InstrumentedDataSource;
+
 /**
  * JPA Configuration for integration tests.
  * 
@@ -64,11 +66,16 @@ import org.springframework.transaction.annotation.EnableTransactionManagement;
 @PropertySource("classpath:test-application.properties")
 @ImportResource("classpath:applicationContext-dao.xml")
 public class TestPersistenceJpaConfig implements DisposableBean {
+    private static final Logger LOG = LoggerFactory.getLogger(TestPersistenceJpaConfig.class);
     private static final String PROPERTY_NAME_HIBERNATE_DIALECT = "hibernate.dialect";
     private static final String PROPERTY_NAME_HIBERNATE_FORMAT_SQL = "hibernate.format_sql";
     private static final String PROPERTY_NAME_HIBERNATE_NAMING_STRATEGY = "hibernate.ejb.naming_strategy";
     private static final String PROPERTY_NAME_HIBERNATE_SHOW_SQL = "hibernate.show_sql";
     private static final String PROPERTY_NAME_HIBERNATE_HBM2DDL_AUTO = "hibernate.hbm2ddl.auto";
+    private static final String PROPERTY_NAME_HIBERNATE_NEW_GENERATOR_MAPPINGS = "hibernate.id.new_generator_mappings";
+    private static final String PROPERTY_NAME_HIBERNATE_JDBC_BATCH_SIZE = "hibernate.jdbc.batch_size";
+    private static final String PROPERTY_NAME_HIBERNATE_ORDER_INSERTS = "hibernate.order_inserts";
+    private static final String PROPERTY_NAME_HIBERNATE_ORDER_UPDATES = "hibernate.order_updates";
     private static final String PROPERTY_NAME_ENTITYMANAGER_PACKAGES_TO_SCAN = "entitymanager.packages.to.scan";
     // private static final String PROPERTY_NAME_PERSISTENCE_UNIT_NAME =
     // "persistence.unit.name";
@@ -76,12 +83,15 @@ public class TestPersistenceJpaConfig implements DisposableBean {
     @Resource
     private Environment environment;
 
-    private EmbeddedDatabase db = null;
+    private InstrumentedDataSource db = null;
 
+    /**
+     * Use the same embedded pool as PooledPersistenceJpaConfig, backed by an
+     * in-memory H2 database.
+     */
     @Bean
     public DataSource dataSource() {
-        final EmbeddedDatabaseBuilder builder = new EmbeddedDatabaseBuilder();
-        db = builder.setType(EmbeddedDatabaseType.H2).build(); // .script("foo.sql")
+        db = InstrumentedDataSource.create(environment);
         return db;
     }
 
@@ -108,6 +118,14 @@ public class TestPersistenceJpaConfig implements DisposableBean {
                 environment.getRequiredProperty(PROPERTY_NAME_HIBERNATE_SHOW_SQL));
         jpaProperties.put(PROPERTY_NAME_HIBERNATE_HBM2DDL_AUTO,
                 environment.getRequiredProperty(PROPERTY_NAME_HIBERNATE_HBM2DDL_AUTO));
+        jpaProperties.put(PROPERTY_NAME_HIBERNATE_NEW_GENERATOR_MAPPINGS,
+                environment.getRequiredProperty(PROPERTY_NAME_HIBERNATE_NEW_GENERATOR_MAPPINGS));
+        jpaProperties.put(PROPERTY_NAME_HIBERNATE_JDBC_BATCH_SIZE,
+                environment.getRequiredProperty(PROPERTY_NAME_HIBERNATE_JDBC_BATCH_SIZE));
+        jpaProperties.put(PROPERTY_NAME_HIBERNATE_ORDER_INSERTS,
+                environment.getRequiredProperty(PROPERTY_NAME_HIBERNATE_ORDER_INSERTS));
+        jpaProperties.put(PROPERTY_NAME_HIBERNATE_ORDER_UPDATES,
+                environment.getRequiredProperty(PROPERTY_NAME_HIBERNATE_ORDER_UPDATES));
 
         bean.setJpaProperties(jpaProperties);
 
@@ -135,7 +153,11 @@ public class TestPersistenceJpaConfig implements DisposableBean {
     @Override
     public void destroy() {
         if (db != null) {
-            db.shutdown();
+            try {
+                db.close();
+            } catch (SQLException e) {
+                LOG.warn("unable to close the connection pool", e);
+            }
         }
     }
 }
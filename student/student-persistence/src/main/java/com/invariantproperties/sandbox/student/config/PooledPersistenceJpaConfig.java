@@ -0,0 +1,153 @@
+/*
+ * This code was written by Bear Giles <bgiles@coyotesong.com> and he
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Any contributions made by others are licensed to this project under
+ * one or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright (c) 2013 Bear Giles <bgiles@coyotesong.com>
+ */
+package com.invariantproperties.sandbox.student.config;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.annotation.Resource;
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.core.env.Environment;
+import org.springframework.dao.annotation.PersistenceExceptionTranslationPostProcessor;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+
+import com.invariantproperties.sandbox.student.datasource.InstrumentedDataSource;
+import com.invariantproperties.sandbox.student.datasource.ReplicaRoutingDataSource;
+
+/**
+ * JPA Configuration that uses embedded connection pools instead of container
+ * DataSources. Use it in place of PersistenceJpaConfig.
+ * 
+ * The pools are configured by the 'pool.*' properties in
+ * application.properties. There is a pool for the primary and one for each
+ * replica listed in 'pool.replicaUrls', and they're wired together the same
+ * way as the container DataSources in applicationContext-dao.xml - read-only
+ * transactions go to a healthy replica via ReplicaRoutingDataSource, behind a
+ * LazyConnectionDataSourceProxy. The primary pool's metrics are available
+ * from the 'primaryDataSource' bean. The JPA properties still come from
+ * persistence.xml.
+ * 
+ * @author Bear Giles <bgiles@coyotesong.com>
+ */
+@Configuration
+@EnableJpaRepositories(basePackages = { "com.invariantproperties.sandbox.student.repository" })
+@EnableTransactionManagement
+@PropertySource("classpath:application.properties")
+public class PooledPersistenceJpaConfig implements DisposableBean {
+    private static final Logger LOG = LoggerFactory.getLogger(PooledPersistenceJpaConfig.class);
+    private static final String PROPERTY_NAME_ENTITYMANAGER_PACKAGES_TO_SCAN = "entitymanager.packages.to.scan";
+    private static final String PROPERTY_NAME_PERSISTENCE_UNIT_NAME = "persistence.unit.name";
+    private static final String PROPERTY_NAME_REPLICA_MAX_LAG = "persistence.replica.maxLagSeconds";
+    private static final String PROPERTY_NAME_REPLICA_CHECK_INTERVAL = "persistence.replica.checkIntervalSeconds";
+
+    @Resource
+    private Environment environment;
+
+    private final List<InstrumentedDataSource> replicas = new ArrayList<InstrumentedDataSource>();
+
+    @Bean(destroyMethod = "close")
+    public InstrumentedDataSource primaryDataSource() {
+        return InstrumentedDataSource.create(environment);
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource routingDataSource() {
+        final ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primaryDataSource());
+
+        final String urls = environment.getProperty(InstrumentedDataSource.PROPERTY_NAME_REPLICA_URLS, "");
+        for (String url : urls.split(",")) {
+            if (!url.trim().isEmpty()) {
+                replicas.add(InstrumentedDataSource.create(environment, url.trim()));
+            }
+        }
+        routing.setReplicas(new ArrayList<DataSource>(replicas));
+        routing.setMaxLagSeconds(environment.getProperty(PROPERTY_NAME_REPLICA_MAX_LAG, Double.class, 5.0));
+        routing.setCheckIntervalSeconds(environment.getProperty(PROPERTY_NAME_REPLICA_CHECK_INTERVAL,
+                Integer.class, 10));
+
+        return routing;
+    }
+
+    /**
+     * The transaction managers request the connection before they mark the
+     * transaction read-only so the routing must be deferred until the first
+     * statement.
+     */
+    @Bean
+    public DataSource dataSource() {
+        return new LazyConnectionDataSourceProxy(routingDataSource());
+    }
+
+    @Bean
+    public LocalContainerEntityManagerFactoryBean entityManagerFactory() {
+        LocalContainerEntityManagerFactoryBean bean = new LocalContainerEntityManagerFactoryBean();
+
+        bean.setDataSource(dataSource());
+        bean.setPersistenceUnitName(environment.getRequiredProperty(PROPERTY_NAME_PERSISTENCE_UNIT_NAME));
+        bean.setPackagesToScan(environment.getRequiredProperty(PROPERTY_NAME_ENTITYMANAGER_PACKAGES_TO_SCAN));
+        bean.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+
+        return bean;
+    }
+
+    @Bean
+    public PlatformTransactionManager transactionManager() {
+        return new JpaTransactionManager(entityManagerFactory().getObject());
+    }
+
+    @Bean
+    public PersistenceExceptionTranslationPostProcessor exceptionTranslation() {
+        return new PersistenceExceptionTranslationPostProcessor();
+    }
+
+    /**
+     * Close the replica pools. They aren't beans since their number depends
+     * on the configuration.
+     * 
+     * @see org.springframework.beans.factory.DisposableBean#destroy()
+     */
+    @Override
+    public void destroy() {
+        for (InstrumentedDataSource replica : replicas) {
+            try {
+                replica.close();
+            } catch (SQLException e) {
+                LOG.warn("unable to close the replica connection pool", e);
+            }
+        }
+    }
+}
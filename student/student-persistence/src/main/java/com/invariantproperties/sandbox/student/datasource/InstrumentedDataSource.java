@@ -0,0 +1,301 @@
+/*
+ * This code was written by Bear Giles <bgiles@coyotesong.com> and he
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Any contributions made by others are licensed to this project under
+ * one or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright (c) 2013 Bear Giles <bgiles@coyotesong.com>
+ */
+package com.invariantproperties.sandbox.student.datasource;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.apache.commons.dbcp.BasicDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.env.PropertyResolver;
+
+/**
+ * Embedded connection pool that records how it is used.
+ * 
+ * This is a commons-dbcp pool that also tracks the number of threads waiting
+ * for a connection, a histogram of the time spent waiting, and the number of
+ * failed requests. See getMetrics().
+ * 
+ * If a leak detection threshold is set every connection handed out is tracked
+ * until it is closed. A connection that is held longer than the threshold is
+ * logged once, with the stack trace of the code that borrowed it.
+ * 
+ * @author Bear Giles <bgiles@coyotesong.com>
+ */
+public class InstrumentedDataSource extends BasicDataSource {
+    private static final Logger LOG = LoggerFactory.getLogger(InstrumentedDataSource.class);
+
+    public static final String PROPERTY_NAME_DRIVER_CLASS_NAME = "pool.driverClassName";
+    public static final String PROPERTY_NAME_URL = "pool.url";
+    public static final String PROPERTY_NAME_USERNAME = "pool.username";
+    public static final String PROPERTY_NAME_PASSWORD = "pool.password";
+    public static final String PROPERTY_NAME_INITIAL_SIZE = "pool.initialSize";
+    public static final String PROPERTY_NAME_MAX_ACTIVE = "pool.maxActive";
+    public static final String PROPERTY_NAME_MAX_IDLE = "pool.maxIdle";
+    public static final String PROPERTY_NAME_MIN_IDLE = "pool.minIdle";
+    public static final String PROPERTY_NAME_MAX_WAIT_MILLIS = "pool.maxWaitMillis";
+    public static final String PROPERTY_NAME_VALIDATION_QUERY = "pool.validationQuery";
+    public static final String PROPERTY_NAME_LEAK_DETECTION_THRESHOLD_MILLIS = "pool.leakDetectionThresholdMillis";
+    public static final String PROPERTY_NAME_REPLICA_URLS = "pool.replicaUrls";
+
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicLong borrowed = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong leaks = new AtomicLong();
+    private final AtomicLong totalWaitMillis = new AtomicLong();
+    private final AtomicLong maxWaitMillis = new AtomicLong();
+    private final AtomicLongArray histogram = new AtomicLongArray(PoolMetrics.WAIT_TIME_BUCKETS.length + 1);
+
+    private final ConcurrentMap<TrackedConnection, TrackedConnection> outstanding = new ConcurrentHashMap<TrackedConnection, TrackedConnection>();
+    private long leakDetectionThresholdMillis;
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * Create a pool from the 'pool.*' properties.
+     * 
+     * @param properties
+     * @return
+     */
+    public static InstrumentedDataSource create(PropertyResolver properties) {
+        return create(properties, properties.getRequiredProperty(PROPERTY_NAME_URL));
+    }
+
+    /**
+     * Create a pool for another database, e.g., a replica, from the 'pool.*'
+     * properties.
+     * 
+     * @param properties
+     * @param url
+     *            database url, in place of 'pool.url'
+     * @return
+     */
+    public static InstrumentedDataSource create(PropertyResolver properties, String url) {
+        final InstrumentedDataSource ds = new InstrumentedDataSource();
+        ds.setDriverClassName(properties.getRequiredProperty(PROPERTY_NAME_DRIVER_CLASS_NAME));
+        ds.setUrl(url);
+        ds.setUsername(properties.getProperty(PROPERTY_NAME_USERNAME));
+        ds.setPassword(properties.getProperty(PROPERTY_NAME_PASSWORD));
+        ds.setInitialSize(properties.getProperty(PROPERTY_NAME_INITIAL_SIZE, Integer.class, 0));
+        ds.setMaxActive(properties.getProperty(PROPERTY_NAME_MAX_ACTIVE, Integer.class, 20));
+        ds.setMaxIdle(properties.getProperty(PROPERTY_NAME_MAX_IDLE, Integer.class, ds.getMaxActive()));
+        ds.setMinIdle(properties.getProperty(PROPERTY_NAME_MIN_IDLE, Integer.class, 0));
+        ds.setMaxWait(properties.getProperty(PROPERTY_NAME_MAX_WAIT_MILLIS, Long.class, 30000L));
+        ds.setValidationQuery(properties.getProperty(PROPERTY_NAME_VALIDATION_QUERY));
+        ds.setTestOnBorrow(ds.getValidationQuery() != null);
+        ds.setLeakDetectionThresholdMillis(properties.getProperty(PROPERTY_NAME_LEAK_DETECTION_THRESHOLD_MILLIS,
+                Long.class, 0L));
+        return ds;
+    }
+
+    public long getLeakDetectionThresholdMillis() {
+        return leakDetectionThresholdMillis;
+    }
+
+    /**
+     * Set the time a connection can be held before it is reported as a
+     * possible leak. Zero disables leak detection.
+     * 
+     * @param leakDetectionThresholdMillis
+     */
+    public synchronized void setLeakDetectionThresholdMillis(long leakDetectionThresholdMillis) {
+        this.leakDetectionThresholdMillis = leakDetectionThresholdMillis;
+
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+
+        if (leakDetectionThresholdMillis > 0) {
+            final long interval = Math.max(1000L, leakDetectionThresholdMillis / 2);
+            scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    final Thread thread = new Thread(r, "connection-leak-detector");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            scheduler.scheduleWithFixedDelay(new Runnable() {
+                @Override
+                public void run() {
+                    checkForLeaks();
+                }
+            }, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Get a snapshot of the pool metrics.
+     * 
+     * @return
+     */
+    public PoolMetrics getMetrics() {
+        final long[] counts = new long[histogram.length()];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = histogram.get(i);
+        }
+        return new PoolMetrics(getNumActive(), getNumIdle(), pending.get(), getMaxActive(), borrowed.get(),
+                failures.get(), leaks.get(), totalWaitMillis.get(), maxWaitMillis.get(), counts);
+    }
+
+    /**
+     * @see org.apache.commons.dbcp.BasicDataSource#getConnection()
+     */
+    @Override
+    public Connection getConnection() throws SQLException {
+        final long start = System.nanoTime();
+        pending.incrementAndGet();
+        try {
+            return track(super.getConnection(), start);
+        } catch (SQLException e) {
+            failures.incrementAndGet();
+            throw e;
+        } finally {
+            pending.decrementAndGet();
+        }
+    }
+
+    /**
+     * @see org.apache.commons.dbcp.BasicDataSource#close()
+     */
+    @Override
+    public synchronized void close() throws SQLException {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+        super.close();
+    }
+
+    /**
+     * Record the wait and, if leak detection is enabled, wrap the connection
+     * so we know when it's returned.
+     * 
+     * @param conn
+     * @param start
+     * @return
+     */
+    Connection track(Connection conn, long start) {
+        final long now = System.nanoTime();
+        final long waited = TimeUnit.NANOSECONDS.toMillis(now - start);
+
+        borrowed.incrementAndGet();
+        totalWaitMillis.addAndGet(waited);
+        histogram.incrementAndGet(bucket(waited));
+
+        long max = maxWaitMillis.get();
+        while (waited > max && !maxWaitMillis.compareAndSet(max, waited)) {
+            max = maxWaitMillis.get();
+        }
+
+        if (leakDetectionThresholdMillis <= 0) {
+            return conn;
+        }
+
+        final TrackedConnection tracked = new TrackedConnection(conn, now);
+        outstanding.put(tracked, tracked);
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { Connection.class },
+                tracked);
+    }
+
+    /**
+     * Report connections that have been held longer than the leak detection
+     * threshold. Each connection is only reported once.
+     */
+    void checkForLeaks() {
+        final long now = System.nanoTime();
+        for (TrackedConnection tracked : outstanding.keySet()) {
+            final long held = TimeUnit.NANOSECONDS.toMillis(now - tracked.borrowed);
+            if (held > leakDetectionThresholdMillis && !tracked.reported) {
+                tracked.reported = true;
+                leaks.incrementAndGet();
+                LOG.warn("connection held for " + held + " ms by " + tracked.thread + " may have leaked",
+                        tracked.origin);
+            }
+        }
+    }
+
+    /**
+     * Determine the histogram bucket for a wait time.
+     * 
+     * @param millis
+     * @return
+     */
+    static int bucket(long millis) {
+        int i = 0;
+        while (i < PoolMetrics.WAIT_TIME_BUCKETS.length && millis > PoolMetrics.WAIT_TIME_BUCKETS[i]) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Connection wrapper that stops tracking the connection when it's closed.
+     */
+    class TrackedConnection implements InvocationHandler {
+        private final Connection conn;
+        private final long borrowed;
+        private final String thread;
+        private final Throwable origin;
+        private volatile boolean reported;
+
+        TrackedConnection(Connection conn, long borrowed) {
+            this.conn = conn;
+            this.borrowed = borrowed;
+            this.thread = Thread.currentThread().getName();
+            this.origin = new Throwable("connection borrowed here");
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            final String name = method.getName();
+            if ("equals".equals(name)) {
+                return proxy == args[0];
+            } else if ("hashCode".equals(name)) {
+                return System.identityHashCode(proxy);
+            } else if ("close".equals(name) && outstanding.remove(this) != null && reported) {
+                LOG.info("connection previously reported as a possible leak was closed by " + thread);
+            }
+
+            try {
+                return method.invoke(conn, args);
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException();
+            }
+        }
+    }
+}
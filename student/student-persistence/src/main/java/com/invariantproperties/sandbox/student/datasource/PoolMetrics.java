@@ -0,0 +1,141 @@
+/*
+ * This code was written by Bear Giles <bgiles@coyotesong.com> and he
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Any contributions made by others are licensed to this project under
+ * one or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright (c) 2013 Bear Giles <bgiles@coyotesong.com>
+ */
+package com.invariantproperties.sandbox.student.datasource;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Snapshot of the state of an InstrumentedDataSource.
+ * 
+ * The wait-time histogram counts how long each getConnection() call waited
+ * for the pool. Bucket i counts the calls that took no longer than
+ * WAIT_TIME_BUCKETS[i] milliseconds and longer than the previous bound. The
+ * final bucket counts everything slower than the last bound.
+ * 
+ * @author Bear Giles <bgiles@coyotesong.com>
+ */
+public class PoolMetrics implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Upper bounds of the wait-time histogram buckets, in milliseconds.
+     */
+    public static final long[] WAIT_TIME_BUCKETS = { 1, 5, 10, 50, 100, 500, 1000, 5000 };
+
+    private final int active;
+    private final int idle;
+    private final int pending;
+    private final int maxActive;
+    private final long borrowed;
+    private final long failures;
+    private final long leaks;
+    private final long totalWaitMillis;
+    private final long maxWaitMillis;
+    private final long[] waitTimeHistogram;
+
+    public PoolMetrics(int active, int idle, int pending, int maxActive, long borrowed, long failures, long leaks,
+            long totalWaitMillis, long maxWaitMillis, long[] waitTimeHistogram) {
+        this.active = active;
+        this.idle = idle;
+        this.pending = pending;
+        this.maxActive = maxActive;
+        this.borrowed = borrowed;
+        this.failures = failures;
+        this.leaks = leaks;
+        this.totalWaitMillis = totalWaitMillis;
+        this.maxWaitMillis = maxWaitMillis;
+        this.waitTimeHistogram = waitTimeHistogram.clone();
+    }
+
+    /**
+     * Number of connections currently checked out.
+     */
+    public int getActive() {
+        return active;
+    }
+
+    /**
+     * Number of open connections waiting in the pool.
+     */
+    public int getIdle() {
+        return idle;
+    }
+
+    /**
+     * Number of threads currently waiting for a connection.
+     */
+    public int getPending() {
+        return pending;
+    }
+
+    public int getMaxActive() {
+        return maxActive;
+    }
+
+    /**
+     * Number of connections handed out since the pool was created.
+     */
+    public long getBorrowed() {
+        return borrowed;
+    }
+
+    /**
+     * Number of getConnection() calls that failed, usually because they timed
+     * out waiting for a connection.
+     */
+    public long getFailures() {
+        return failures;
+    }
+
+    /**
+     * Number of connections that were held longer than the leak detection
+     * threshold.
+     */
+    public long getLeaks() {
+        return leaks;
+    }
+
+    public long getMaxWaitMillis() {
+        return maxWaitMillis;
+    }
+
+    public double getMeanWaitMillis() {
+        return (borrowed == 0) ? 0.0 : (double) totalWaitMillis / borrowed;
+    }
+
+    public long[] getWaitTimeHistogram() {
+        return waitTimeHistogram.clone();
+    }
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return String.format("PoolMetrics[active=%d, idle=%d, pending=%d, maxActive=%d, borrowed=%d, "
+                + "failures=%d, leaks=%d, meanWait=%.2fms, maxWait=%dms, histogram=%s]", active, idle, pending,
+                maxActive, borrowed, failures, leaks, getMeanWaitMillis(), maxWaitMillis,
+                Arrays.toString(waitTimeHistogram));
+    }
+}
@@ -0,0 +1,324 @@
+/*
+ * This code was written by Bear Giles <bgiles@coyotesong.com> and he
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Any contributions made by others are licensed to this project under
+ * one or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright (c) 2013 Bear Giles <bgiles@coyotesong.com>
+ */
+package com.invariantproperties.sandbox.student.datasource;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.lookup.DataSourceLookup;
+import org.springframework.jdbc.datasource.lookup.JndiDataSourceLookup;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * DataSource that sends read-only transactions to a replica and everything
+ * else to the primary database.
+ * 
+ * The replicas are checked periodically with a query that returns the
+ * replication lag in seconds. A replica is only used if the query succeeds and
+ * the lag is within the tolerance. If no replica is healthy, or a replica
+ * can't provide a connection, the primary is used.
+ * 
+ * This class decides where to send a connection request when the connection
+ * is requested. The transaction managers request the connection before they
+ * mark the transaction read-only, so this class must be wrapped in a
+ * LazyConnectionDataSourceProxy.
+ * 
+ * A replica can be up to maxLagSeconds behind the primary. Reads that must
+ * see the latest committed data, e.g., the lookups whose results are cached,
+ * call usePrimaryForCurrentTransaction() before their first query. Otherwise
+ * a lookup right after an update could read and cache the old row.
+ * 
+ * @author Bear Giles <bgiles@coyotesong.com>
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource implements InitializingBean, DisposableBean {
+    private static final Logger LOG = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    /**
+     * Replication lag on a PostgreSQL streaming replica, in seconds. The
+     * replay timestamp doesn't change when the primary is idle, so a replica
+     * that has replayed everything it has received has no lag.
+     */
+    public static final String POSTGRESQL_LAG_QUERY = "select case when pg_last_wal_receive_lsn() = "
+            + "pg_last_wal_replay_lsn() then 0 "
+            + "else coalesce(extract(epoch from now() - pg_last_xact_replay_timestamp()), 0) end";
+
+    /**
+     * Transaction resource that sends a read-only transaction to the primary.
+     */
+    private static final Object USE_PRIMARY = new Object();
+
+    private final DataSource primary;
+    private final List<DataSource> replicas = new ArrayList<DataSource>();
+    private final AtomicInteger next = new AtomicInteger();
+    private volatile List<DataSource> healthy = Collections.emptyList();
+
+    private DataSourceLookup dataSourceLookup = new JndiDataSourceLookup();
+    private String replicaNames;
+    private String lagQuery = POSTGRESQL_LAG_QUERY;
+    private double maxLagSeconds = 5;
+    private int checkIntervalSeconds = 10;
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * Constructor.
+     * 
+     * @param primary
+     *            database used for all writes
+     */
+    public ReplicaRoutingDataSource(DataSource primary) {
+        this.primary = primary;
+    }
+
+    public void setReplicas(List<DataSource> replicas) {
+        this.replicas.addAll(replicas);
+    }
+
+    /**
+     * Set the replicas by name, e.g., a comma-separated list of JNDI names.
+     * The names are resolved when the bean is initialized.
+     * 
+     * @param replicaNames
+     */
+    public void setReplicaNames(String replicaNames) {
+        this.replicaNames = replicaNames;
+    }
+
+    /**
+     * Set the lookup used to resolve the replica names. The default is JNDI.
+     * 
+     * @param dataSourceLookup
+     */
+    public void setDataSourceLookup(DataSourceLookup dataSourceLookup) {
+        this.dataSourceLookup = dataSourceLookup;
+    }
+
+    /**
+     * Set the query that returns the replication lag in seconds.
+     * 
+     * @param lagQuery
+     */
+    public void setLagQuery(String lagQuery) {
+        this.lagQuery = lagQuery;
+    }
+
+    /**
+     * Set the largest replication lag we will tolerate.
+     * 
+     * @param maxLagSeconds
+     */
+    public void setMaxLagSeconds(double maxLagSeconds) {
+        this.maxLagSeconds = maxLagSeconds;
+    }
+
+    /**
+     * Set the interval between health checks. If it's zero the replicas are
+     * only checked at startup and when checkReplicas() is called.
+     * 
+     * @param checkIntervalSeconds
+     */
+    public void setCheckIntervalSeconds(int checkIntervalSeconds) {
+        this.checkIntervalSeconds = checkIntervalSeconds;
+    }
+
+    public int getReplicaCount() {
+        return replicas.size();
+    }
+
+    public int getHealthyReplicaCount() {
+        return healthy.size();
+    }
+
+    /**
+     * @see org.springframework.beans.factory.InitializingBean#afterPropertiesSet()
+     */
+    @Override
+    public void afterPropertiesSet() {
+        if (primary == null) {
+            throw new IllegalArgumentException("primary datasource is required");
+        }
+
+        if (replicaNames != null) {
+            for (String name : replicaNames.split(",")) {
+                if (!name.trim().isEmpty()) {
+                    replicas.add(dataSourceLookup.getDataSource(name.trim()));
+                }
+            }
+        }
+
+        checkReplicas();
+
+        if (!replicas.isEmpty() && checkIntervalSeconds > 0) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    final Thread thread = new Thread(r, "replica-health-check");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            scheduler.scheduleWithFixedDelay(new Runnable() {
+                @Override
+                public void run() {
+                    checkReplicas();
+                }
+            }, checkIntervalSeconds, checkIntervalSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * @see org.springframework.beans.factory.DisposableBean#destroy()
+     */
+    @Override
+    public void destroy() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Check the health and replication lag of every replica.
+     */
+    public void checkReplicas() {
+        final List<DataSource> results = new ArrayList<DataSource>(replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            final Double lag = getLag(replicas.get(i));
+            if (lag == null) {
+                LOG.info("replica {} is unavailable", i);
+            } else if (lag > maxLagSeconds) {
+                LOG.info("replica {} is {} seconds behind", i, lag);
+            } else {
+                results.add(replicas.get(i));
+            }
+        }
+        healthy = Collections.unmodifiableList(results);
+    }
+
+    /**
+     * Get the replication lag in seconds, or null if the replica can't be
+     * queried.
+     * 
+     * @param replica
+     * @return
+     */
+    Double getLag(DataSource replica) {
+        try (Connection conn = replica.getConnection(); Statement stmt = conn.createStatement()) {
+            stmt.setQueryTimeout(Math.max(1, checkIntervalSeconds));
+            try (ResultSet rs = stmt.executeQuery(lagQuery)) {
+                return rs.next() ? rs.getDouble(1) : null;
+            }
+        } catch (SQLException e) {
+            LOG.debug("replica health check failed: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Send the current transaction to the primary even if it's read-only. This
+     * must be called before the transaction's first query since the
+     * connection is chosen then. It does nothing outside of a transaction -
+     * those connections always come from the primary.
+     */
+    public static void usePrimaryForCurrentTransaction() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()
+                && !TransactionSynchronizationManager.hasResource(USE_PRIMARY)) {
+            TransactionSynchronizationManager.bindResource(USE_PRIMARY, Boolean.TRUE);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(USE_PRIMARY);
+                }
+            });
+        }
+    }
+
+    /**
+     * Get the DataSource for the current transaction.
+     * 
+     * @return
+     */
+    DataSource determineTargetDataSource() {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                && !TransactionSynchronizationManager.hasResource(USE_PRIMARY)) {
+            final List<DataSource> candidates = healthy;
+            if (!candidates.isEmpty()) {
+                return candidates.get((next.getAndIncrement() & Integer.MAX_VALUE) % candidates.size());
+            }
+        }
+        return primary;
+    }
+
+    /**
+     * @see javax.sql.DataSource#getConnection()
+     */
+    @Override
+    public Connection getConnection() throws SQLException {
+        final DataSource target = determineTargetDataSource();
+        if (target == primary) {
+            return primary.getConnection();
+        }
+
+        try {
+            return target.getConnection();
+        } catch (SQLException e) {
+            LOG.info("unable to get replica connection, using primary: " + e.getMessage());
+            return primary.getConnection();
+        }
+    }
+
+    /**
+     * @see javax.sql.DataSource#getConnection(java.lang.String,
+     *      java.lang.String)
+     */
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        final DataSource target = determineTargetDataSource();
+        if (target == primary) {
+            return primary.getConnection(username, password);
+        }
+
+        try {
+            return target.getConnection(username, password);
+        } catch (SQLException e) {
+            LOG.info("unable to get replica connection, using primary: " + e.getMessage());
+            return primary.getConnection(username, password);
+        }
+    }
+}
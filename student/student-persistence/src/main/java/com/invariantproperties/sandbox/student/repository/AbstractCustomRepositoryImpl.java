@@ -0,0 +1,494 @@
+/*
+ * This code was written by Bear Giles <bgiles@coyotesong.com> and he
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Any contributions made by others are licensed to this project under
+ * one or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright (c) 2013 Bear Giles <bgiles@coyotesong.com>
+ */
+package com.invariantproperties.sandbox.student.repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
+import javax.persistence.Tuple;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Order;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
+import javax.persistence.metamodel.Attribute.PersistentAttributeType;
+import javax.persistence.metamodel.SingularAttribute;
+
+import org.hibernate.CacheMode;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.invariantproperties.sandbox.student.business.KeysetPage;
+import com.invariantproperties.sandbox.student.business.ObjectHandler;
+import com.invariantproperties.sandbox.student.domain.PersistentObject;
+
+/**
+ * Base class for the custom repository implementations.
+ * 
+ * @author Bear Giles <bgiles@coyotesong.com>
+ * 
+ * @param <T>
+ */
+public abstract class AbstractCustomRepositoryImpl<T extends PersistentObject> implements CustomRepository<T> {
+    private static final String ID = "id";
+    private static final String UUID = "uuid";
+    private static final String VERSION = "version";
+    private static final String SEPARATOR = ":";
+
+    /**
+     * Maximum number of values in an 'in' list. Some databases have a hard
+     * limit and all of them parse and plan long lists poorly.
+     */
+    private static final int IN_LIST_SIZE = 500;
+
+    private final Class<T> domainClass;
+
+    @PersistenceContext
+    private EntityManager em;
+
+    protected AbstractCustomRepositoryImpl(Class<T> domainClass) {
+        this.domainClass = domainClass;
+    }
+
+    protected Class<T> getDomainClass() {
+        return domainClass;
+    }
+
+    protected EntityManager getEntityManager() {
+        return em;
+    }
+
+    /**
+     * Find a page of objects. If we sort by a property other than the primary
+     * key the keyset is (property, id) and the query is
+     * 
+     * <pre>
+     * WHERE p >= :p AND (p > :p OR id > :id) ORDER BY p, id
+     * </pre>
+     * 
+     * with the obvious changes for descending order. This is the row
+     * comparison '(p, id) > (:p, :id)', which JPA can't express, plus a
+     * leading 'p >= :p' so the database can start a range scan of an index on
+     * (p, id) at the previous position. The sort property must be a non-null
+     * column (see checkSortProperty()).
+     * 
+     * If the page names the fields to load we select a tuple containing only
+     * those columns instead of the entity.
+     * 
+     * @see com.invariantproperties.sandbox.student.repository.CustomRepository#
+     *      findPage(org.springframework.data.jpa.domain.Specification,
+     *      com.invariantproperties.sandbox.student.domain.PersistentObject,
+     *      com.invariantproperties.sandbox.student.business.KeysetPage)
+     */
+    @Override
+    public List<T> findPage(Specification<T> spec, T after, KeysetPage page) {
+        if (page.getFields() != null) {
+            return findProjectedPage(spec, after, page);
+        }
+
+        final CriteriaBuilder cb = em.getCriteriaBuilder();
+        final CriteriaQuery<T> query = cb.createQuery(domainClass);
+        final Root<T> root = query.from(domainClass);
+
+        restrictToPage(cb, query, root, spec, after, page);
+        query.select(root);
+
+        return em.createQuery(query).setMaxResults(page.getMaxResults()).getResultList();
+    }
+
+    /**
+     * @see com.invariantproperties.sandbox.student.repository.CustomRepository#
+     *      findPosition(com.invariantproperties.sandbox.student.business.KeysetPage)
+     */
+    @Override
+    public T findPosition(KeysetPage page) {
+        if (!page.hasAfterPosition()) {
+            return null;
+        }
+
+        final String property = page.getSortProperty();
+        final boolean sorted = property != null && !ID.equals(property);
+        if (sorted && page.getAfterValue() == null) {
+            // the cursor has no sort value, the object must be looked up.
+            return null;
+        }
+
+        final T position = BeanUtils.instantiate(domainClass);
+        position.setId(page.getAfterId());
+        position.setUuid(page.getAfterUuid());
+
+        if (sorted) {
+            final Class<?> type = em.getMetamodel().entity(domainClass)
+                    .getSingularAttribute(checkSortProperty(property)).getJavaType();
+            final BeanWrapper wrapper = new BeanWrapperImpl(position);
+            if (Date.class.isAssignableFrom(type)) {
+                wrapper.setPropertyValue(property, new Date(Long.parseLong(page.getAfterValue())));
+            } else {
+                // the bean wrapper converts the string to the property type
+                wrapper.setPropertyValue(property, page.getAfterValue());
+            }
+        }
+
+        return position;
+    }
+
+    /**
+     * Find a page of objects, only loading the requested fields. The primary
+     * key, uuid and sort property are always loaded since they're needed to
+     * request the following page, and the version is always loaded since it's
+     * needed to detect changes (e.g., in entity tags). The results are new,
+     * unmanaged objects and must not be saved.
+     * 
+     * @param spec
+     * @param after
+     * @param page
+     * @return
+     */
+    protected List<T> findProjectedPage(Specification<T> spec, T after, KeysetPage page) {
+        final Set<String> fields = new LinkedHashSet<String>();
+        fields.add(ID);
+        fields.add(UUID);
+        fields.add(VERSION);
+        if (page.getSortProperty() != null) {
+            fields.add(page.getSortProperty());
+        }
+        fields.addAll(page.getFields());
+
+        final CriteriaBuilder cb = em.getCriteriaBuilder();
+        final CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        final Root<T> root = query.from(domainClass);
+
+        restrictToPage(cb, query, root, spec, after, page);
+
+        final List<Selection<?>> selections = new ArrayList<Selection<?>>(fields.size());
+        for (String field : fields) {
+            selections.add(root.get(checkField(field)).alias(field));
+        }
+        query.multiselect(selections);
+
+        final List<Tuple> tuples = em.createQuery(query).setMaxResults(page.getMaxResults()).getResultList();
+        final List<T> results = new ArrayList<T>(tuples.size());
+        for (Tuple tuple : tuples) {
+            final T object = BeanUtils.instantiate(domainClass);
+            final BeanWrapper wrapper = new BeanWrapperImpl(object);
+            for (String field : fields) {
+                wrapper.setPropertyValue(field, tuple.get(field));
+            }
+            results.add(object);
+        }
+
+        return results;
+    }
+
+    /**
+     * Add the restriction and ordering for a single page to a query.
+     */
+    private void restrictToPage(CriteriaBuilder cb, CriteriaQuery<?> query, Root<T> root, Specification<T> spec,
+            T after, KeysetPage page) {
+        final boolean asc = page.isAscending();
+
+        final List<Predicate> predicates = new ArrayList<Predicate>();
+        if (spec != null) {
+            final Predicate p = spec.toPredicate(root, query, cb);
+            if (p != null) {
+                predicates.add(p);
+            }
+        }
+
+        final Path<Integer> id = root.get(ID);
+        final String property = page.getSortProperty();
+
+        if (property == null || ID.equals(property)) {
+            if (after != null) {
+                predicates.add(asc ? cb.greaterThan(id, after.getId()) : cb.lessThan(id, after.getId()));
+            }
+            query.orderBy(asc ? cb.asc(id) : cb.desc(id));
+        } else {
+            final Path<Comparable<Object>> path = root.get(checkSortProperty(property));
+
+            if (after != null) {
+                predicates.add(seek(cb, path, id, after, property, asc));
+            }
+
+            final List<Order> orders = new ArrayList<Order>();
+            orders.add(asc ? cb.asc(path) : cb.desc(path));
+            orders.add(asc ? cb.asc(id) : cb.desc(id));
+            query.orderBy(orders);
+        }
+
+        query.where(predicates.toArray(new Predicate[predicates.size()]));
+    }
+
+    /**
+     * @see com.invariantproperties.sandbox.student.repository.CustomRepository#
+     *      findAllByUuid(java.util.Collection)
+     */
+    @Override
+    public List<T> findAllByUuid(Collection<String> uuids) {
+        final List<String> keys = new ArrayList<String>(new LinkedHashSet<String>(uuids));
+        keys.remove(null);
+        if (keys.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        final List<T> results = new ArrayList<T>(keys.size());
+        for (int i = 0; i < keys.size(); i += IN_LIST_SIZE) {
+            final List<String> chunk = keys.subList(i, Math.min(i + IN_LIST_SIZE, keys.size()));
+
+            final CriteriaBuilder cb = em.getCriteriaBuilder();
+            final CriteriaQuery<T> query = cb.createQuery(domainClass);
+            final Root<T> root = query.from(domainClass);
+            query.select(root).where(root.get(UUID).in(chunk));
+
+            results.addAll(em.createQuery(query).getResultList());
+        }
+
+        return results;
+    }
+
+    /**
+     * @see com.invariantproperties.sandbox.student.repository.CustomRepository#
+     *      saveInBatches(java.util.List, int)
+     */
+    @Override
+    public List<T> saveInBatches(List<T> objects, int batchSize) {
+        final List<T> results = new ArrayList<T>(objects.size());
+
+        int count = 0;
+        for (T object : objects) {
+            if (object.getId() == null) {
+                em.persist(object);
+                results.add(object);
+            } else {
+                results.add(em.merge(object));
+            }
+
+            if (++count % batchSize == 0) {
+                em.flush();
+                em.clear();
+            }
+        }
+
+        em.flush();
+        em.clear();
+
+        return results;
+    }
+
+    /**
+     * Read the objects through a Hibernate scrollable cursor. The query is
+     * read-only and bypasses the second-level cache so the objects don't
+     * displace the frequently-used ones.
+     * 
+     * @see com.invariantproperties.sandbox.student.repository.CustomRepository#
+     *      forEach(org.springframework.data.jpa.domain.Specification, int,
+     *      com.invariantproperties.sandbox.student.business.ObjectHandler)
+     */
+    @Override
+    public long forEach(Specification<T> spec, int fetchSize, ObjectHandler<? super T> handler) {
+        if (fetchSize <= 0) {
+            throw new IllegalArgumentException("fetch size must be positive");
+        }
+
+        final CriteriaBuilder cb = em.getCriteriaBuilder();
+        final CriteriaQuery<T> query = cb.createQuery(domainClass);
+        final Root<T> root = query.from(domainClass);
+
+        if (spec != null) {
+            final Predicate predicate = spec.toPredicate(root, query, cb);
+            if (predicate != null) {
+                query.where(predicate);
+            }
+        }
+        query.select(root).orderBy(cb.asc(root.get(ID)));
+
+        final org.hibernate.Query cursor = em.createQuery(query).unwrap(org.hibernate.Query.class);
+        cursor.setFetchSize(fetchSize).setReadOnly(true).setCacheMode(CacheMode.IGNORE);
+
+        long count = 0;
+        final ScrollableResults results = cursor.scroll(ScrollMode.FORWARD_ONLY);
+        try {
+            while (results.next()) {
+                handler.handle(domainClass.cast(results.get(0)));
+                if (++count % fetchSize == 0) {
+                    em.clear();
+                }
+            }
+        } finally {
+            results.close();
+        }
+        em.clear();
+
+        return count;
+    }
+
+    /**
+     * The query is
+     * 
+     * <pre>
+     * UPDATE X SET p1 = :p1, ..., version = version + 1 WHERE uuid = :uuid AND version = :version
+     * </pre>
+     * 
+     * @see com.invariantproperties.sandbox.student.repository.CustomRepository#
+     *      updateIfVersion(java.lang.String, java.lang.Integer, java.util.Map)
+     */
+    @Transactional
+    @Override
+    public int updateIfVersion(String uuid, Integer version, Map<String, Object> values) {
+        final StringBuilder sb = new StringBuilder("update ").append(getEntityName()).append(" x set ");
+        int i = 0;
+        for (String property : values.keySet()) {
+            sb.append("x.").append(checkField(property)).append(" = :p").append(i++).append(", ");
+        }
+        sb.append("x.version = x.version + 1 where x.uuid = :uuid and x.version = :version");
+
+        final Query query = em.createQuery(sb.toString());
+        i = 0;
+        for (Object value : values.values()) {
+            query.setParameter("p" + i++, value);
+        }
+        return query.setParameter(UUID, uuid).setParameter(VERSION, version).executeUpdate();
+    }
+
+    /**
+     * @see com.invariantproperties.sandbox.student.repository.CustomRepository#
+     *      deleteIfVersion(java.lang.String, java.lang.Integer)
+     */
+    @Transactional
+    @Override
+    public int deleteIfVersion(String uuid, Integer version) {
+        return em.createQuery("delete from " + getEntityName() + " x where x.uuid = :uuid and x.version = :version")
+                .setParameter(UUID, uuid).setParameter(VERSION, version).executeUpdate();
+    }
+
+    /**
+     * @see com.invariantproperties.sandbox.student.repository.CustomRepository#
+     *      findVersionByUuid(java.lang.String)
+     */
+    @Override
+    public Integer findVersionByUuid(String uuid) {
+        final List<Integer> results = em
+                .createQuery("select x.version from " + getEntityName() + " x where x.uuid = :uuid", Integer.class)
+                .setParameter(UUID, uuid).getResultList();
+        return results.isEmpty() ? null : results.get(0);
+    }
+
+    /**
+     * @see com.invariantproperties.sandbox.student.repository.CustomRepository#
+     *      findChangeStamp(org.springframework.data.jpa.domain.Specification)
+     */
+    @Override
+    public String findChangeStamp(Specification<T> spec) {
+        final CriteriaBuilder cb = em.getCriteriaBuilder();
+        final CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        final Root<T> root = query.from(domainClass);
+
+        if (spec != null) {
+            final Predicate predicate = spec.toPredicate(root, query, cb);
+            if (predicate != null) {
+                query.where(predicate);
+            }
+        }
+
+        final Path<Integer> id = root.get(ID);
+        final Path<Integer> version = root.get(VERSION);
+        query.multiselect(cb.count(id), cb.max(id), cb.sumAsLong(version));
+
+        final Tuple tuple = em.createQuery(query).getSingleResult();
+        return tuple.get(0) + SEPARATOR + tuple.get(1) + SEPARATOR + tuple.get(2);
+    }
+
+    private String getEntityName() {
+        return em.getMetamodel().entity(domainClass).getName();
+    }
+
+    /**
+     * Create the predicate that selects everything after the 'after' object.
+     */
+    private Predicate seek(CriteriaBuilder cb, Path<Comparable<Object>> path, Path<Integer> id, T after,
+            String property, boolean asc) {
+        @SuppressWarnings("unchecked")
+        final Comparable<Object> value = (Comparable<Object>) new BeanWrapperImpl(after).getPropertyValue(property);
+        if (value == null) {
+            throw new IllegalArgumentException("missing position for " + property);
+        }
+
+        final Predicate laterId = asc ? cb.greaterThan(id, after.getId()) : cb.lessThan(id, after.getId());
+        final Predicate notEarlier = asc ? cb.greaterThanOrEqualTo(path, value) : cb.lessThanOrEqualTo(path, value);
+        final Predicate laterValue = asc ? cb.greaterThan(path, value) : cb.lessThan(path, value);
+        return cb.and(notEarlier, cb.or(laterValue, laterId));
+    }
+
+    /**
+     * Verify that the sort property is a simple, non-null persistent property.
+     * We don't want to accept arbitrary paths from the caller, and a nullable
+     * column can't be paged with an index range scan. The column should also
+     * have an index on (column, primary key).
+     * 
+     * @param property
+     * @return
+     * @throws IllegalArgumentException
+     */
+    protected String checkSortProperty(String property) {
+        final SingularAttribute<? super T, ?> attribute = em.getMetamodel().entity(domainClass)
+                .getSingularAttribute(property);
+        if (attribute.getPersistentAttributeType() != PersistentAttributeType.BASIC
+                || !Comparable.class.isAssignableFrom(attribute.getJavaType()) || attribute.isOptional()) {
+            throw new IllegalArgumentException("unable to sort by " + property);
+        }
+        return property;
+    }
+
+    /**
+     * Verify that the field is a simple persistent property. Associations
+     * and collections can't be loaded as part of a projection.
+     * 
+     * @param field
+     * @return
+     * @throws IllegalArgumentException
+     */
+    protected String checkField(String field) {
+        final SingularAttribute<? super T, ?> attribute = em.getMetamodel().entity(domainClass)
+                .getSingularAttribute(field);
+        if (attribute.getPersistentAttributeType() != PersistentAttributeType.BASIC) {
+            throw new IllegalArgumentException("unable to select " + field);
+        }
+        return field;
+    }
+}
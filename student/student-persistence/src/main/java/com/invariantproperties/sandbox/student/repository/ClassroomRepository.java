@@ -32,6 +32,7 @@ import com.invariantproperties.sandbox.student.domain.Classroom;
  * @author Bear Giles <bgiles@coyotesong.com>
  */
 @Repository
-public interface ClassroomRepository extends JpaRepository<Classroom, Integer>, JpaSpecificationExecutor<Classroom> {
+public interface ClassroomRepository extends JpaRepository<Classroom, Integer>, JpaSpecificationExecutor<Classroom>,
+        CustomRepository<Classroom> {
     Classroom findClassroomByUuid(String uuid);
 }
@@ -22,6 +22,9 @@
  */
 package com.invariantproperties.sandbox.student.repository;
 
+import java.util.Collection;
+import java.util.List;
+
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.stereotype.Repository;
@@ -32,8 +35,11 @@ import com.invariantproperties.sandbox.student.domain.Course;
  * @author Bear Giles <bgiles@coyotesong.com>
  */
 @Repository
-public interface CourseRepository extends JpaRepository<Course, Integer>, JpaSpecificationExecutor<Course> {
+public interface CourseRepository extends JpaRepository<Course, Integer>, JpaSpecificationExecutor<Course>,
+        CustomRepository<Course> {
     Course findCourseByUuid(String uuid);
 
     Course findCourseByCode(String code);
+
+    List<Course> findCoursesByCodeIn(Collection<String> codes);
 }
@@ -0,0 +1,160 @@
+/*
+ * This code was written by Bear Giles <bgiles@coyotesong.com> and he
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Any contributions made by others are licensed to this project under
+ * one or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright (c) 2013 Bear Giles <bgiles@coyotesong.com>
+ */
+package com.invariantproperties.sandbox.student.repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import com.invariantproperties.sandbox.student.business.KeysetPage;
+import com.invariantproperties.sandbox.student.business.ObjectHandler;
+import com.invariantproperties.sandbox.student.domain.PersistentObject;
+
+/**
+ * Repository methods that can't be expressed with the standard Spring Data
+ * interfaces. They're implemented by a class named after the repository
+ * interface with an 'Impl' suffix.
+ * 
+ * @author Bear Giles <bgiles@coyotesong.com>
+ * 
+ * @param <T>
+ */
+public interface CustomRepository<T extends PersistentObject> {
+
+    /**
+     * Find a single page of objects matching the specification using keyset
+     * pagination. Unlike findAll(Specification, Pageable) this does not
+     * perform a count query and the database never has to read and discard
+     * the rows on earlier pages.
+     * 
+     * If the page names the fields to load only those columns are selected
+     * and the results are unmanaged objects with every other property null.
+     * 
+     * @param spec
+     *            restriction, may be null
+     * @param after
+     *            last object on the previous page, or null for first page
+     * @param page
+     * @return
+     */
+    List<T> findPage(Specification<T> spec, T after, KeysetPage page);
+
+    /**
+     * Create a placeholder for the last object on the previous page from the
+     * position in the page's cursor. It holds the primary key and the sort
+     * property and can be used as the 'after' object in findPage() even if
+     * the object has been deleted.
+     * 
+     * @param page
+     * @return placeholder, or null if the cursor doesn't contain a position
+     */
+    T findPosition(KeysetPage page);
+
+    /**
+     * Find all objects with the specified uuids. Long lists are split into
+     * several queries so the 'in' list stays a reasonable size. Unknown uuids
+     * are ignored and the results are in no particular order.
+     * 
+     * @param uuids
+     * @return
+     */
+    List<T> findAllByUuid(Collection<String> uuids);
+
+    /**
+     * Save objects, flushing and clearing the persistence context after every
+     * batchSize objects so the inserts and updates are sent as JDBC batches
+     * and the session doesn't grow without bound. New objects are persisted
+     * and existing objects are merged.
+     * 
+     * The caller must not use any managed objects it loaded before this call
+     * since the persistence context is cleared.
+     * 
+     * @param objects
+     * @param batchSize
+     * @return saved objects, in the same order
+     */
+    List<T> saveInBatches(List<T> objects, int batchSize);
+
+    /**
+     * Pass every object matching the specification to the handler, in primary
+     * key order. The results are read through a forward-only cursor, fetchSize
+     * rows at a time, and the persistence context is cleared after every
+     * fetchSize objects so it doesn't grow with the size of the table.
+     * 
+     * The caller must not use any managed objects it loaded before this call
+     * since the persistence context is cleared.
+     * 
+     * @param spec
+     *            restriction, may be null
+     * @param fetchSize
+     * @param handler
+     * @return number of objects processed
+     */
+    long forEach(Specification<T> spec, int fetchSize, ObjectHandler<? super T> handler);
+
+    /**
+     * Set the properties of the object with the specified uuid and version,
+     * and increment the version, in a single statement. This bypasses the
+     * persistence context.
+     * 
+     * @param uuid
+     * @param version
+     * @param values
+     *            new property values, by property name
+     * @return number of objects updated, 0 or 1
+     */
+    int updateIfVersion(String uuid, Integer version, Map<String, Object> values);
+
+    /**
+     * Delete the object with the specified uuid and version in a single
+     * statement. This bypasses the persistence context.
+     * 
+     * @param uuid
+     * @param version
+     * @return number of objects deleted, 0 or 1
+     */
+    int deleteIfVersion(String uuid, Integer version);
+
+    /**
+     * Get the current version of the object with the specified uuid.
+     * 
+     * @param uuid
+     * @return version, or null if there is no such object
+     */
+    Integer findVersionByUuid(String uuid);
+
+    /**
+     * Get a stamp that changes whenever an object matching the specification
+     * is created, updated or deleted. It is the number of objects, the highest
+     * primary key and the sum of the versions - new objects get a higher
+     * primary key from the sequence and every update increments the version.
+     * Changes made by SQL that doesn't increment the version aren't detected.
+     * 
+     * @param spec
+     *            restriction, may be null
+     * @return
+     */
+    String findChangeStamp(Specification<T> spec);
+}
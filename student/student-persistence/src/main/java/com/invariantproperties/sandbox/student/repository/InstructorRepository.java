@@ -22,6 +22,9 @@
  */
 package com.invariantproperties.sandbox.student.repository;
 
+import java.util.Collection;
+import java.util.List;
+
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.stereotype.Repository;
@@ -32,8 +35,11 @@ import com.invariantproperties.sandbox.student.domain.Instructor;
  * @author Bear Giles <bgiles@coyotesong.com>
  */
 @Repository
-public interface InstructorRepository extends JpaRepository<Instructor, Integer>, JpaSpecificationExecutor<Instructor> {
+public interface InstructorRepository extends JpaRepository<Instructor, Integer>, JpaSpecificationExecutor<Instructor>,
+        CustomRepository<Instructor> {
     Instructor findInstructorByUuid(String uuid);
 
     Instructor findInstructorByEmailAddress(String emailAddress);
+
+    List<Instructor> findInstructorsByEmailAddressIn(Collection<String> emailAddresss);
 }
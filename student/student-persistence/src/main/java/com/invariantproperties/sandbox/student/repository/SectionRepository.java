@@ -24,6 +24,8 @@ package com.invariantproperties.sandbox.student.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.invariantproperties.sandbox.student.domain.Section;
@@ -32,6 +34,18 @@ import com.invariantproperties.sandbox.student.domain.Section;
  * @author Bear Giles <bgiles@coyotesong.com>
  */
 @Repository
-public interface SectionRepository extends JpaRepository<Section, Integer>, JpaSpecificationExecutor<Section> {
+public interface SectionRepository extends JpaRepository<Section, Integer>, JpaSpecificationExecutor<Section>,
+        CustomRepository<Section> {
     Section findSectionByUuid(String uuid);
+
+    /**
+     * Find a section with its course and students in a single query. Only one
+     * collection can be fetch-joined at a time (the cross product of two would
+     * multiply the rows) so the classrooms must be initialized separately.
+     * 
+     * @param uuid
+     * @return
+     */
+    @Query("select distinct s from Section s left join fetch s.course left join fetch s.students where s.uuid = :uuid")
+    Section findSectionRosterByUuid(@Param("uuid") String uuid);
 }
@@ -22,6 +22,9 @@
  */
 package com.invariantproperties.sandbox.student.repository;
 
+import java.util.Collection;
+import java.util.List;
+
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.stereotype.Repository;
@@ -32,8 +35,11 @@ import com.invariantproperties.sandbox.student.domain.Student;
  * @author Bear Giles <bgiles@coyotesong.com>
  */
 @Repository
-public interface StudentRepository extends JpaRepository<Student, Integer>, JpaSpecificationExecutor<Student> {
+public interface StudentRepository extends JpaRepository<Student, Integer>, JpaSpecificationExecutor<Student>,
+        CustomRepository<Student> {
     Student findStudentByUuid(String uuid);
 
     Student findStudentByEmailAddress(String emailAddress);
+
+    List<Student> findStudentsByEmailAddressIn(Collection<String> emailAddresss);
 }
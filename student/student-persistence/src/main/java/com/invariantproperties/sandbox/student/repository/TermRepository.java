@@ -32,6 +32,7 @@ import com.invariantproperties.sandbox.student.domain.Term;
  * @author Bear Giles <bgiles@coyotesong.com>
  */
 @Repository
-public interface TermRepository extends JpaRepository<Term, Integer>, JpaSpecificationExecutor<Term> {
+public interface TermRepository extends JpaRepository<Term, Integer>, JpaSpecificationExecutor<Term>,
+        CustomRepository<Term> {
     Term findTermByUuid(String uuid);
 }
@@ -0,0 +1,58 @@
+/*
+ * This code was written by Bear Giles <bgiles@coyotesong.com> and he
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Any contributions made by others are licensed to this project under
+ * one or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright (c) 2013 Bear Giles <bgiles@coyotesong.com>
+ */
+package com.invariantproperties.sandbox.student.repository;
+
+import com.invariantproperties.sandbox.student.domain.TestRun;
+import com.invariantproperties.sandbox.student.domain.TestablePersistentObject;
+
+/**
+ * Repository methods that operate on the test data belonging to a test run.
+ * 
+ * @author Bear Giles <bgiles@coyotesong.com>
+ */
+public interface TestDataRepository {
+
+    /**
+     * Delete every object of the specified type that belongs to the test run
+     * with a single bulk delete. The objects are not loaded and no lifecycle
+     * callbacks are made. Any copies in the persistence context are stale
+     * afterwards.
+     * 
+     * @param domainClass
+     * @param testRun
+     * @return number of objects deleted
+     */
+    int purgeTestData(Class<? extends TestablePersistentObject> domainClass, TestRun testRun);
+
+    /**
+     * Delete the join table rows (section rosters) that reference test data
+     * belonging to the test run, and clear the references to that test data
+     * from other objects, e.g., a production section of a test course. This
+     * must be called before purgeTestData since the bulk deletes don't
+     * cascade.
+     * 
+     * @param testRun
+     * @return number of rows deleted or updated
+     */
+    int purgeTestAssociations(TestRun testRun);
+}
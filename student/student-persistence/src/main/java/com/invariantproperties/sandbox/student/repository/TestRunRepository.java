@@ -31,6 +31,7 @@ import com.invariantproperties.sandbox.student.domain.TestRun;
  * @author Bear Giles <bgiles@coyotesong.com>
  */
 @Repository
-public interface TestRunRepository extends JpaRepository<TestRun, Integer> {
+public interface TestRunRepository extends JpaRepository<TestRun, Integer>, CustomRepository<TestRun>,
+        TestDataRepository {
     TestRun findTestRunByUuid(String uuid);
 }
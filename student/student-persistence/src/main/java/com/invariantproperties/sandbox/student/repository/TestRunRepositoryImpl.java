@@ -0,0 +1,101 @@
+/*
+ * This code was written by Bear Giles <bgiles@coyotesong.com> and he
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Any contributions made by others are licensed to this project under
+ * one or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright (c) 2013 Bear Giles <bgiles@coyotesong.com>
+ */
+package com.invariantproperties.sandbox.student.repository;
+
+import org.springframework.transaction.annotation.Transactional;
+
+import com.invariantproperties.sandbox.student.domain.TestRun;
+import com.invariantproperties.sandbox.student.domain.TestablePersistentObject;
+
+/**
+ * Custom methods for TestRunRepository.
+ * 
+ * @author Bear Giles <bgiles@coyotesong.com>
+ */
+public class TestRunRepositoryImpl extends AbstractCustomRepositoryImpl<TestRun> implements TestDataRepository {
+    private static final String[][] ASSOCIATIONS = { { "section_student", "student" },
+            { "section_classroom", "classroom" } };
+    private static final String[][] REFERENCES = { { "section", "course" } };
+
+    public TestRunRepositoryImpl() {
+        super(TestRun.class);
+    }
+
+    /**
+     * The query is 'delete from X where test_run_pkey = ?' - the foreign key is
+     * compared directly so there's no join.
+     * 
+     * @see com.invariantproperties.sandbox.student.repository.TestDataRepository#
+     *      purgeTestData(java.lang.Class,
+     *      com.invariantproperties.sandbox.student.domain.TestRun)
+     */
+    @Transactional
+    @Override
+    public int purgeTestData(Class<? extends TestablePersistentObject> domainClass, TestRun testRun) {
+        final String entityName = getEntityManager().getMetamodel().entity(domainClass).getName();
+        return getEntityManager().createQuery("delete from " + entityName + " x where x.testRun.id = :testRunId")
+                .setParameter("testRunId", testRun.getId()).executeUpdate();
+    }
+
+    /**
+     * The join tables aren't entities so this uses native SQL, e.g., 'delete
+     * from section_student where section_pkey in (select section_pkey from
+     * section where test_run_pkey = ?) or student_pkey in (...)'.
+     * 
+     * The references from objects outside of the test run are cleared the
+     * same way, e.g., 'update section set course_pkey = null, version =
+     * version + 1 where course_pkey in (select course_pkey from course where
+     * test_run_pkey = ?) and ...'. This is what 'on delete set null' does in
+     * the database schema, but the bulk deletes can't rely on it since the
+     * foreign keys may not have that action (e.g., in generated schemas).
+     * 
+     * @see com.invariantproperties.sandbox.student.repository.TestDataRepository#
+     *      purgeTestAssociations(com.invariantproperties.sandbox.student.domain.TestRun)
+     */
+    @Transactional
+    @Override
+    public int purgeTestAssociations(TestRun testRun) {
+        int count = 0;
+        for (String[] association : ASSOCIATIONS) {
+            final String table = association[0];
+            final String target = association[1];
+            final String sql = "delete from " + table
+                    + " where section_pkey in (select section_pkey from section where test_run_pkey = :testRunId)"
+                    + " or " + target + "_pkey in (select " + target + "_pkey from " + target
+                    + " where test_run_pkey = :testRunId)";
+            count += getEntityManager().createNativeQuery(sql).setParameter("testRunId", testRun.getId())
+                    .executeUpdate();
+        }
+        for (String[] reference : REFERENCES) {
+            final String table = reference[0];
+            final String target = reference[1];
+            final String sql = "update " + table + " set " + target + "_pkey = null, version = version + 1"
+                    + " where " + target + "_pkey in (select " + target + "_pkey from " + target
+                    + " where test_run_pkey = :testRunId)"
+                    + " and (test_run_pkey is null or test_run_pkey <> :testRunId)";
+            count += getEntityManager().createNativeQuery(sql).setParameter("testRunId", testRun.getId())
+                    .executeUpdate();
+        }
+        return count;
+    }
+}
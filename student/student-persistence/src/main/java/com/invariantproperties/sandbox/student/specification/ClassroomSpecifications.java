@@ -49,8 +49,12 @@ public class ClassroomSpecifications {
             @Override
             public Predicate toPredicate(Root<Classroom> root, CriteriaQuery<?> query, CriteriaBuilder cb) {
                 Predicate p = null;
-                if (testRun == null || testRun.getUuid() == null) {
+                if (testRun == null || (testRun.getId() == null && testRun.getUuid() == null)) {
+                    // 'test_run_pkey is null' - covered by the partial indexes.
                     p = cb.isNull(root.<Classroom_> get("testRun"));
+                } else if (testRun.getId() != null) {
+                    // compare the foreign key directly instead of joining to test_run.
+                    p = cb.equal(root.<Classroom_> get("testRun").<Integer> get("id"), testRun.getId());
                 } else {
                     p = cb.equal(root.<Classroom_> get("testRun").<TestRun_> get("uuid"), testRun.getUuid());
                 }
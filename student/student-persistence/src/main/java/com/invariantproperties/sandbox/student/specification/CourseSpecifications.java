@@ -48,8 +48,12 @@ public class CourseSpecifications {
             @Override
             public Predicate toPredicate(Root<Course> courseRoot, CriteriaQuery<?> query, CriteriaBuilder cb) {
                 Predicate p = null;
-                if (testRun == null || testRun.getUuid() == null) {
+                if (testRun == null || (testRun.getId() == null && testRun.getUuid() == null)) {
+                    // 'test_run_pkey is null' - covered by the partial indexes.
                     p = cb.isNull(courseRoot.<Course_> get("testRun"));
+                } else if (testRun.getId() != null) {
+                    // compare the foreign key directly instead of joining to test_run.
+                    p = cb.equal(courseRoot.<Course_> get("testRun").<Integer> get("id"), testRun.getId());
                 } else {
                     p = cb.equal(courseRoot.<Course_> get("testRun").<TestRun_> get("uuid"), testRun.getUuid());
                 }
@@ -57,4 +61,38 @@ public class CourseSpecifications {
             }
         };
     }
-}
\ No newline at end of file
+
+    /**
+     * Creates a specification used to find courses whose name starts with the
+     * prefix, ignoring case.
+     * 
+     * @param prefix
+     * @return
+     */
+    public static Specification<Course> nameStartsWith(final String prefix) {
+
+        return new Specification<Course>() {
+            @Override
+            public Predicate toPredicate(Root<Course> courseRoot, CriteriaQuery<?> query, CriteriaBuilder cb) {
+                return NamePatterns.startsWith(cb, courseRoot.<String> get("name"), prefix);
+            }
+        };
+    }
+
+    /**
+     * Creates a specification used to find courses whose name contains the
+     * substring, ignoring case.
+     * 
+     * @param substring
+     * @return
+     */
+    public static Specification<Course> nameContains(final String substring) {
+
+        return new Specification<Course>() {
+            @Override
+            public Predicate toPredicate(Root<Course> courseRoot, CriteriaQuery<?> query, CriteriaBuilder cb) {
+                return NamePatterns.contains(cb, courseRoot.<String> get("name"), substring);
+            }
+        };
+    }
+}
@@ -49,8 +49,12 @@ public class InstructorSpecifications {
             @Override
             public Predicate toPredicate(Root<Instructor> root, CriteriaQuery<?> query, CriteriaBuilder cb) {
                 Predicate p = null;
-                if (testRun == null || testRun.getUuid() == null) {
+                if (testRun == null || (testRun.getId() == null && testRun.getUuid() == null)) {
+                    // 'test_run_pkey is null' - covered by the partial indexes.
                     p = cb.isNull(root.<Instructor_> get("testRun"));
+                } else if (testRun.getId() != null) {
+                    // compare the foreign key directly instead of joining to test_run.
+                    p = cb.equal(root.<Instructor_> get("testRun").<Integer> get("id"), testRun.getId());
                 } else {
                     p = cb.equal(root.<Instructor_> get("testRun").<TestRun_> get("uuid"), testRun.getUuid());
                 }
@@ -58,4 +62,38 @@ public class InstructorSpecifications {
             }
         };
     }
-}
\ No newline at end of file
+
+    /**
+     * Creates a specification used to find instructors whose name starts with the
+     * prefix, ignoring case.
+     * 
+     * @param prefix
+     * @return
+     */
+    public static Specification<Instructor> nameStartsWith(final String prefix) {
+
+        return new Specification<Instructor>() {
+            @Override
+            public Predicate toPredicate(Root<Instructor> instructorRoot, CriteriaQuery<?> query, CriteriaBuilder cb) {
+                return NamePatterns.startsWith(cb, instructorRoot.<String> get("name"), prefix);
+            }
+        };
+    }
+
+    /**
+     * Creates a specification used to find instructors whose name contains the
+     * substring, ignoring case.
+     * 
+     * @param substring
+     * @return
+     */
+    public static Specification<Instructor> nameContains(final String substring) {
+
+        return new Specification<Instructor>() {
+            @Override
+            public Predicate toPredicate(Root<Instructor> instructorRoot, CriteriaQuery<?> query, CriteriaBuilder cb) {
+                return NamePatterns.contains(cb, instructorRoot.<String> get("name"), substring);
+            }
+        };
+    }
+}
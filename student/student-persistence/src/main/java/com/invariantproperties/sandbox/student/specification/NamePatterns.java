@@ -0,0 +1,92 @@
+/*
+ * This code was written by Bear Giles <bgiles@coyotesong.com> and he
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Any contributions made by others are licensed to this project under
+ * one or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright (c) 2013 Bear Giles <bgiles@coyotesong.com>
+ */
+package com.invariantproperties.sandbox.student.specification;
+
+import java.util.Locale;
+
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.Predicate;
+
+/**
+ * Case-insensitive 'like' predicates for the name searches. The name is
+ * compared as 'lower(name)' so PostgreSQL can use the expression indexes on
+ * lower(name) - a pattern index for the prefix searches (a range scan) and a
+ * trigram index for the substring searches. H2 doesn't support either index
+ * and falls back to a scan.
+ * 
+ * @author Bear Giles <bgiles@coyotesong.com>
+ */
+final class NamePatterns {
+    static final char ESCAPE = '\\';
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private NamePatterns() {
+
+    }
+
+    /**
+     * Create predicate 'lower(name) like 'prefix%''.
+     * 
+     * @param cb
+     * @param name
+     * @param prefix
+     * @return
+     */
+    static Predicate startsWith(CriteriaBuilder cb, Expression<String> name, String prefix) {
+        return cb.like(cb.lower(name), escape(prefix) + "%", ESCAPE);
+    }
+
+    /**
+     * Create predicate 'lower(name) like '%substring%''.
+     * 
+     * @param cb
+     * @param name
+     * @param substring
+     * @return
+     */
+    static Predicate contains(CriteriaBuilder cb, Expression<String> name, String substring) {
+        return cb.like(cb.lower(name), "%" + escape(substring) + "%", ESCAPE);
+    }
+
+    /**
+     * Lowercase the search term and escape the 'like' wildcards.
+     * 
+     * @param term
+     * @return
+     */
+    static String escape(String term) {
+        final String lower = term.toLowerCase(Locale.ROOT);
+        final StringBuilder sb = new StringBuilder(lower.length() + 4);
+        for (int i = 0; i < lower.length(); i++) {
+            final char c = lower.charAt(i);
+            if (c == '%' || c == '_' || c == ESCAPE) {
+                sb.append(ESCAPE);
+            }
+            sb.append(c);
+        }
+        return sb.toString();
+    }
+}
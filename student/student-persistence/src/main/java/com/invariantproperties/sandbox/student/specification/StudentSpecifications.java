@@ -49,8 +49,12 @@ public class StudentSpecifications {
             @Override
             public Predicate toPredicate(Root<Student> root, CriteriaQuery<?> query, CriteriaBuilder cb) {
                 Predicate p = null;
-                if (testRun == null || testRun.getUuid() == null) {
+                if (testRun == null || (testRun.getId() == null && testRun.getUuid() == null)) {
+                    // 'test_run_pkey is null' - covered by the partial indexes.
                     p = cb.isNull(root.<Student_> get("testRun"));
+                } else if (testRun.getId() != null) {
+                    // compare the foreign key directly instead of joining to test_run.
+                    p = cb.equal(root.<Student_> get("testRun").<Integer> get("id"), testRun.getId());
                 } else {
                     p = cb.equal(root.<Student_> get("testRun").<TestRun_> get("uuid"), testRun.getUuid());
                 }
@@ -58,4 +62,38 @@ public class StudentSpecifications {
             }
         };
     }
-}
\ No newline at end of file
+
+    /**
+     * Creates a specification used to find students whose name starts with the
+     * prefix, ignoring case.
+     * 
+     * @param prefix
+     * @return
+     */
+    public static Specification<Student> nameStartsWith(final String prefix) {
+
+        return new Specification<Student>() {
+            @Override
+            public Predicate toPredicate(Root<Student> studentRoot, CriteriaQuery<?> query, CriteriaBuilder cb) {
+                return NamePatterns.startsWith(cb, studentRoot.<String> get("name"), prefix);
+            }
+        };
+    }
+
+    /**
+     * Creates a specification used to find students whose name contains the
+     * substring, ignoring case.
+     * 
+     * @param substring
+     * @return
+     */
+    public static Specification<Student> nameContains(final String substring) {
+
+        return new Specification<Student>() {
+            @Override
+            public Predicate toPredicate(Root<Student> studentRoot, CriteriaQuery<?> query, CriteriaBuilder cb) {
+                return NamePatterns.contains(cb, studentRoot.<String> get("name"), substring);
+            }
+        };
+    }
+}
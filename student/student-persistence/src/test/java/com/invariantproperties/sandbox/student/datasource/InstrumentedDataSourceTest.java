@@ -0,0 +1,154 @@
+/*
+ * This code was written by Bear Giles <bgiles@coyotesong.com> and he
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Any contributions made by others are licensed to this project under
+ * one or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright (c) 2013 Bear Giles <bgiles@coyotesong.com>
+ */
+package com.invariantproperties.sandbox.student.datasource;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+/**
+ * Unit tests for InstrumentedDataSource, using an in-memory database.
+ * 
+ * @author Bear Giles <bgiles@coyotesong.com>
+ */
+public class InstrumentedDataSourceTest {
+    private final MockEnvironment env = new MockEnvironment();
+    private InstrumentedDataSource ds;
+
+    @Before
+    public void init() {
+        env.setProperty(InstrumentedDataSource.PROPERTY_NAME_DRIVER_CLASS_NAME, "org.h2.Driver");
+        env.setProperty(InstrumentedDataSource.PROPERTY_NAME_URL, "jdbc:h2:mem:pool;DB_CLOSE_DELAY=-1");
+        env.setProperty(InstrumentedDataSource.PROPERTY_NAME_USERNAME, "sa");
+        env.setProperty(InstrumentedDataSource.PROPERTY_NAME_MAX_ACTIVE, "1");
+        env.setProperty(InstrumentedDataSource.PROPERTY_NAME_MAX_WAIT_MILLIS, "50");
+        ds = InstrumentedDataSource.create(env);
+    }
+
+    @After
+    public void shutdown() throws SQLException {
+        ds.close();
+    }
+
+    @Test
+    public void testCreate() {
+        assertEquals("jdbc:h2:mem:pool;DB_CLOSE_DELAY=-1", ds.getUrl());
+        assertEquals(1, ds.getMaxActive());
+        assertEquals(1, ds.getMaxIdle());
+        assertEquals(50, ds.getMaxWait());
+        assertEquals(0, ds.getLeakDetectionThresholdMillis());
+    }
+
+    @Test
+    public void testCreateReplica() throws SQLException {
+        final InstrumentedDataSource replica = InstrumentedDataSource.create(env, "jdbc:h2:mem:replica");
+        try {
+            assertEquals("jdbc:h2:mem:replica", replica.getUrl());
+            assertEquals(1, replica.getMaxActive());
+            assertEquals(50, replica.getMaxWait());
+        } finally {
+            replica.close();
+        }
+    }
+
+    @Test
+    public void testActiveAndIdle() throws SQLException {
+        try (Connection conn = ds.getConnection()) {
+            final PoolMetrics metrics = ds.getMetrics();
+            assertEquals(1, metrics.getActive());
+            assertEquals(0, metrics.getIdle());
+            assertEquals(0, metrics.getPending());
+        }
+
+        final PoolMetrics metrics = ds.getMetrics();
+        assertEquals(0, metrics.getActive());
+        assertEquals(1, metrics.getIdle());
+        assertEquals(1, metrics.getBorrowed());
+    }
+
+    @Test
+    public void testWaitTimeHistogram() throws SQLException {
+        for (int i = 0; i < 3; i++) {
+            ds.getConnection().close();
+        }
+
+        long total = 0;
+        for (long count : ds.getMetrics().getWaitTimeHistogram()) {
+            total += count;
+        }
+        assertEquals(3, total);
+        assertEquals(PoolMetrics.WAIT_TIME_BUCKETS.length + 1, ds.getMetrics().getWaitTimeHistogram().length);
+    }
+
+    @Test
+    public void testBucket() {
+        assertEquals(0, InstrumentedDataSource.bucket(0));
+        assertEquals(0, InstrumentedDataSource.bucket(1));
+        assertEquals(1, InstrumentedDataSource.bucket(2));
+        assertEquals(PoolMetrics.WAIT_TIME_BUCKETS.length, InstrumentedDataSource.bucket(60000));
+    }
+
+    @Test
+    public void testExhaustedPool() throws SQLException {
+        try (Connection conn = ds.getConnection()) {
+            try {
+                ds.getConnection();
+                fail("expected SQLException");
+            } catch (SQLException e) {
+                // expected
+            }
+        }
+
+        final PoolMetrics metrics = ds.getMetrics();
+        assertEquals(1, metrics.getFailures());
+        assertEquals(1, metrics.getBorrowed());
+        assertEquals(0, metrics.getPending());
+    }
+
+    @Test
+    public void testLeakDetection() throws Exception {
+        ds.setLeakDetectionThresholdMillis(1);
+
+        final Connection conn = ds.getConnection();
+        Thread.sleep(10);
+        ds.checkForLeaks();
+        ds.checkForLeaks();
+        assertEquals(1, ds.getMetrics().getLeaks());
+
+        conn.close();
+        assertEquals(0, ds.getMetrics().getActive());
+
+        // a connection returned in time is not a leak.
+        ds.setLeakDetectionThresholdMillis(60000);
+        ds.getConnection().close();
+        ds.checkForLeaks();
+        assertEquals(1, ds.getMetrics().getLeaks());
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * This code was written by Bear Giles <bgiles@coyotesong.com> and he
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Any contributions made by others are licensed to this project under
+ * one or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright (c) 2013 Bear Giles <bgiles@coyotesong.com>
+ */
+package com.invariantproperties.sandbox.student.datasource;
+
+import static org.junit.Assert.assertEquals;
+
+import java.sql.SQLException;
+import java.util.Arrays;
+
+import javax.sql.DataSource;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Unit tests for ReplicaRoutingDataSource. The primary and replica are two
+ * separate in-memory databases that identify themselves.
+ * 
+ * @author Bear Giles <bgiles@coyotesong.com>
+ */
+public class ReplicaRoutingDataSourceTest {
+    private EmbeddedDatabase primary;
+    private EmbeddedDatabase replica;
+
+    @Before
+    public void init() {
+        primary = createDatabase("primary");
+        replica = createDatabase("replica");
+    }
+
+    @After
+    public void shutdown() {
+        primary.shutdown();
+        replica.shutdown();
+    }
+
+    private EmbeddedDatabase createDatabase(String name) {
+        final EmbeddedDatabase db = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2).setName(name)
+                .build();
+        final JdbcTemplate template = new JdbcTemplate(db);
+        template.execute("create table whoami(name varchar(20))");
+        template.update("insert into whoami(name) values(?)", name);
+        template.execute("create table lag(seconds int)");
+        template.update("insert into lag(seconds) values(0)");
+        return db;
+    }
+
+    private ReplicaRoutingDataSource createRoutingDataSource(DataSource... replicas) {
+        final ReplicaRoutingDataSource ds = new ReplicaRoutingDataSource(primary);
+        ds.setReplicas(Arrays.asList(replicas));
+        ds.setLagQuery("select seconds from lag");
+        ds.setMaxLagSeconds(5);
+        ds.setCheckIntervalSeconds(0);
+        ds.afterPropertiesSet();
+        return ds;
+    }
+
+    /**
+     * Ask the database who it is.
+     */
+    private String whoami(DataSource ds, boolean readOnly) {
+        final JdbcTemplate jdbc = new JdbcTemplate(ds);
+        final TransactionTemplate template = new TransactionTemplate(new DataSourceTransactionManager(ds));
+        template.setReadOnly(readOnly);
+        return template.execute(new TransactionCallback<String>() {
+            @Override
+            public String doInTransaction(TransactionStatus status) {
+                return jdbc.queryForObject("select name from whoami", String.class);
+            }
+        });
+    }
+
+    @Test
+    public void testReadOnlyUsesReplica() {
+        final DataSource ds = new LazyConnectionDataSourceProxy(createRoutingDataSource(replica));
+        assertEquals("replica", whoami(ds, true));
+        assertEquals("primary", whoami(ds, false));
+    }
+
+    @Test
+    public void testUsePrimaryForCurrentTransaction() {
+        final DataSource ds = new LazyConnectionDataSourceProxy(createRoutingDataSource(replica));
+        final JdbcTemplate jdbc = new JdbcTemplate(ds);
+        final TransactionTemplate template = new TransactionTemplate(new DataSourceTransactionManager(ds));
+        template.setReadOnly(true);
+
+        final String actual = template.execute(new TransactionCallback<String>() {
+            @Override
+            public String doInTransaction(TransactionStatus status) {
+                ReplicaRoutingDataSource.usePrimaryForCurrentTransaction();
+                return jdbc.queryForObject("select name from whoami", String.class);
+            }
+        });
+
+        assertEquals("primary", actual);
+
+        // only for that transaction.
+        assertEquals("replica", whoami(ds, true));
+    }
+
+    @Test
+    public void testNoTransactionUsesPrimary() {
+        final DataSource ds = new LazyConnectionDataSourceProxy(createRoutingDataSource(replica));
+        assertEquals("primary", new JdbcTemplate(ds).queryForObject("select name from whoami", String.class));
+    }
+
+    @Test
+    public void testNoReplicas() {
+        final DataSource ds = new LazyConnectionDataSourceProxy(createRoutingDataSource());
+        assertEquals("primary", whoami(ds, true));
+    }
+
+    @Test
+    public void testLaggingReplicaIsNotUsed() {
+        final ReplicaRoutingDataSource routing = createRoutingDataSource(replica);
+        final DataSource ds = new LazyConnectionDataSourceProxy(routing);
+        assertEquals(1, routing.getHealthyReplicaCount());
+
+        new JdbcTemplate(replica).update("update lag set seconds = 60");
+        routing.checkReplicas();
+        assertEquals(0, routing.getHealthyReplicaCount());
+        assertEquals("primary", whoami(ds, true));
+
+        new JdbcTemplate(replica).update("update lag set seconds = 1");
+        routing.checkReplicas();
+        assertEquals(1, routing.getHealthyReplicaCount());
+        assertEquals("replica", whoami(ds, true));
+    }
+
+    @Test
+    public void testFailingReplicaIsNotUsed() throws SQLException {
+        final DataSource broken = Mockito.mock(DataSource.class);
+        Mockito.when(broken.getConnection()).thenThrow(new SQLException("unit test"));
+
+        final ReplicaRoutingDataSource routing = createRoutingDataSource(broken);
+        assertEquals(1, routing.getReplicaCount());
+        assertEquals(0, routing.getHealthyReplicaCount());
+        assertEquals("primary", whoami(new LazyConnectionDataSourceProxy(routing), true));
+    }
+
+    @Test
+    public void testReplicaFailureFallsBackToPrimary() throws SQLException {
+        final DataSource flaky = Mockito.mock(DataSource.class);
+        Mockito.when(flaky.getConnection()).thenReturn(replica.getConnection()).thenThrow(
+                new SQLException("unit test"));
+
+        // the health check succeeds but the next connection request fails.
+        final ReplicaRoutingDataSource routing = createRoutingDataSource(flaky);
+        assertEquals(1, routing.getHealthyReplicaCount());
+        assertEquals("primary", whoami(new LazyConnectionDataSourceProxy(routing), true));
+    }
+}
@@ -22,10 +22,21 @@
  */
 package com.invariantproperties.sandbox.student.webservice.client;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.UriBuilder;
 
+import com.invariantproperties.sandbox.student.business.KeysetPage;
+import com.invariantproperties.sandbox.student.business.NameMatch;
 import com.invariantproperties.sandbox.student.domain.PersistentObject;
 import com.invariantproperties.sandbox.student.domain.TestRun;
 import com.sun.jersey.api.client.Client;
@@ -39,6 +50,8 @@ import com.sun.jersey.core.util.MultivaluedMapImpl;
  * @author Bear Giles <bgiles@coyotesong.com>
  */
 public class AbstractFinderRestClientImpl<T extends PersistentObject> implements FinderRestClient<T> {
+    private static final Pattern COUNT_PATTERN = Pattern.compile("\"count\"\\s*:\\s*(\\d+)");
+    private static final Pattern LINK_PATTERN = Pattern.compile("^<([^>]*)>\\s*;\\s*rel=\"?([^\"]*)\"?$");
     private final String resource;
     private final Class<T> objectClass;
     private final Class<T[]> objectArrayClass;
@@ -76,10 +89,9 @@ public class AbstractFinderRestClientImpl<T extends PersistentObject> implements
             final ClientResponse response = webResource.queryParam("countOnly", "true")
                     .accept(MediaType.APPLICATION_JSON).get(ClientResponse.class);
 
-            if (response.getStatus() == Response.Status.OK.getStatusCode()) {
-                // final Long entity = response.getEntity(Long.class);
-                Long entity = 0L;
-                return entity;
+            final Long count = parseCount(response);
+            if (count != null) {
+                return count;
             } else {
                 throw new RestClientFailureException(resource, objectClass, null, response);
             }
@@ -107,9 +119,9 @@ public class AbstractFinderRestClientImpl<T extends PersistentObject> implements
             final ClientResponse response = webResource.queryParams(params).accept(MediaType.APPLICATION_JSON)
                     .get(ClientResponse.class);
 
-            if (response.getStatus() == Response.Status.OK.getStatusCode()) {
-                final Long entity = response.getEntity(Long.class);
-                return entity;
+            final Long count = parseCount(response);
+            if (count != null) {
+                return count;
             } else {
                 throw new RestClientFailureException(resource, objectClass, null, response);
             }
@@ -119,14 +131,106 @@ public class AbstractFinderRestClientImpl<T extends PersistentObject> implements
     }
 
     /**
-     * List all objects. This is a risky method since there's no attempt at
-     * pagination.
+     * List all objects. The server returns the objects a page at a time so we
+     * follow the 'next' links until we reach the end of the list. This can
+     * still be an expensive call on a large table - use getPage() if you can.
+     * 
+     * Only the summary fields of each object are returned. Use getObject() to
+     * get the rest of an object.
      */
     public T[] getAllObjects(final T[] emptyListClass) {
         final Client client = createClient();
+        final List<T> results = new ArrayList<T>();
 
         try {
-            final WebResource webResource = client.resource(resource);
+            String uri = resource;
+            while (uri != null) {
+                final WebResource webResource = client.resource(uri);
+                final ClientResponse response = webResource.accept(MediaType.APPLICATION_JSON).get(
+                        ClientResponse.class);
+
+                if (response.getStatus() == Response.Status.OK.getStatusCode()) {
+                    final T[] entities = response.getEntity(objectArrayClass);
+                    results.addAll(Arrays.asList(entities));
+                    uri = getNextLink(response);
+                } else {
+                    throw new RestClientFailureException(resource, objectClass, "<none>", response);
+                }
+            }
+        } finally {
+            client.destroy();
+        }
+
+        return results.toArray(emptyListClass);
+    }
+
+    /**
+     * Get a single page of objects. If the page doesn't name the fields to
+     * return we ask for all of them.
+     */
+    @Override
+    public T[] getPage(KeysetPage page) {
+        return getPage(page, null, null);
+    }
+
+    /**
+     * Get a page of objects, optionally restricted to the objects with a
+     * matching name.
+     * 
+     * @param page
+     * @param name
+     *            search term, or null for all objects
+     * @param match
+     * @return
+     */
+    protected T[] getPage(KeysetPage page, String name, NameMatch match) {
+        final UriBuilder builder = UriBuilder.fromUri(resource).queryParam("limit", page.getMaxResults());
+        if (name != null) {
+            builder.queryParam("name", name).queryParam("match", match.name().toLowerCase(Locale.ENGLISH));
+        }
+        if (page.getAfter() != null) {
+            builder.queryParam("after", page.getAfter());
+        }
+        if (page.getSortProperty() != null) {
+            builder.queryParam("sort", (page.isAscending() ? "" : "-") + page.getSortProperty());
+        }
+        builder.queryParam("fields", (page.getFields() == null) ? "*" : join(page.getFields()));
+
+        final Client client = createClient();
+
+        try {
+            final WebResource webResource = client.resource(builder.build().toString());
+            final ClientResponse response = webResource.accept(MediaType.APPLICATION_JSON).get(ClientResponse.class);
+
+            if (response.getStatus() == Response.Status.OK.getStatusCode()) {
+                final T[] entities = response.getEntity(objectArrayClass);
+                return entities;
+            } else if (response.getStatus() == Response.Status.NOT_FOUND.getStatusCode()) {
+                throw new ObjectNotFoundException(resource, objectClass, page.getAfter());
+            } else {
+                throw new RestClientFailureException(resource, objectClass, "<none>", response);
+            }
+        } finally {
+            client.destroy();
+        }
+    }
+
+    /**
+     * Get the objects with the specified uuids. The server reports the uuids
+     * it could not find in the X-Missing-Uuids header but the caller can
+     * compare the results to its own list.
+     */
+    @Override
+    public T[] getObjects(Collection<String> uuids) {
+        final UriBuilder builder = UriBuilder.fromUri(resource).queryParam("fields", "*");
+        for (String uuid : uuids) {
+            builder.queryParam("uuid", uuid);
+        }
+
+        final Client client = createClient();
+
+        try {
+            final WebResource webResource = client.resource(builder.build().toString());
             final ClientResponse response = webResource.accept(MediaType.APPLICATION_JSON).get(ClientResponse.class);
 
             if (response.getStatus() == Response.Status.OK.getStatusCode()) {
@@ -140,6 +244,69 @@ public class AbstractFinderRestClientImpl<T extends PersistentObject> implements
         }
     }
 
+    /**
+     * Join the field names into a comma-separated list.
+     * 
+     * @param fields
+     * @return
+     */
+    static String join(Collection<String> fields) {
+        final StringBuilder sb = new StringBuilder();
+        for (String field : fields) {
+            if (sb.length() > 0) {
+                sb.append(',');
+            }
+            sb.append(field);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Get the count from a countOnly response, or null if the request failed.
+     * The server returns a small JSON object, e.g., { "count": 3 }.
+     * 
+     * @param response
+     * @return
+     */
+    static Long parseCount(ClientResponse response) {
+        if (response.getStatus() != Response.Status.OK.getStatusCode()) {
+            return null;
+        }
+
+        final String entity = response.getEntity(String.class);
+        if (entity == null) {
+            return null;
+        }
+
+        final Matcher m = COUNT_PATTERN.matcher(entity);
+        return m.find() ? Long.valueOf(m.group(1)) : null;
+    }
+
+    /**
+     * Get the 'next' link from the response headers, or null if there isn't
+     * one.
+     * 
+     * @param response
+     * @return
+     */
+    static String getNextLink(ClientResponse response) {
+        final MultivaluedMap<String, String> headers = response.getHeaders();
+        if (headers == null || headers.get("Link") == null) {
+            return null;
+        }
+
+        for (String header : headers.get("Link")) {
+            for (String link : header.split(",")) {
+                final Matcher m = LINK_PATTERN.matcher(link.trim());
+                if (m.matches() && "next".equals(m.group(2))) {
+                    return m.group(1);
+                }
+            }
+        }
+
+        return null;
+    }
+
     /**
      * Get a specific object.
      */
@@ -22,6 +22,8 @@
  */
 package com.invariantproperties.sandbox.student.webservice.client;
 
+import com.invariantproperties.sandbox.student.business.KeysetPage;
+import com.invariantproperties.sandbox.student.business.NameMatch;
 import com.invariantproperties.sandbox.student.domain.Course;
 
 /**
@@ -42,4 +44,13 @@ public interface CourseFinderRestClient extends FinderRestClient<Course> {
      * @param uuid
      */
     Course getCourse(String uuid);
+
+    /**
+     * Get a page of courses with a matching name.
+     * 
+     * @param name
+     * @param match
+     * @param page
+     */
+    Course[] getCoursesByName(String name, NameMatch match, KeysetPage page);
 }
@@ -22,6 +22,9 @@
  */
 package com.invariantproperties.sandbox.student.webservice.client;
 
+import java.util.Collection;
+
+import com.invariantproperties.sandbox.student.business.KeysetPage;
 import com.invariantproperties.sandbox.student.domain.PersistentObject;
 import com.invariantproperties.sandbox.student.domain.TestRun;
 
@@ -43,4 +46,22 @@ public interface FinderRestClient<T extends PersistentObject> {
      * Return number of records for test run.
      */
     long countByTestRun(TestRun testRun);
+
+    /**
+     * Return a single page of records.
+     * 
+     * @param page
+     * @return
+     */
+    T[] getPage(KeysetPage page);
+
+    /**
+     * Return the records with the specified uuids in a single request. The
+     * records are in the same order as the uuids and unknown uuids are
+     * skipped.
+     * 
+     * @param uuids
+     * @return
+     */
+    T[] getObjects(Collection<String> uuids);
 }
@@ -22,6 +22,8 @@
  */
 package com.invariantproperties.sandbox.student.webservice.client;
 
+import com.invariantproperties.sandbox.student.business.KeysetPage;
+import com.invariantproperties.sandbox.student.business.NameMatch;
 import com.invariantproperties.sandbox.student.domain.Instructor;
 
 /**
@@ -42,4 +44,13 @@ public interface InstructorFinderRestClient extends FinderRestClient<Instructor>
      * @param uuid
      */
     Instructor getInstructor(String uuid);
+
+    /**
+     * Get a page of instructors with a matching name.
+     * 
+     * @param name
+     * @param match
+     * @param page
+     */
+    Instructor[] getInstructorsByName(String name, NameMatch match, KeysetPage page);
 }
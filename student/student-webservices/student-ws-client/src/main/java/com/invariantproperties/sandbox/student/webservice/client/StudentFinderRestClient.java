@@ -22,6 +22,8 @@
  */
 package com.invariantproperties.sandbox.student.webservice.client;
 
+import com.invariantproperties.sandbox.student.business.KeysetPage;
+import com.invariantproperties.sandbox.student.business.NameMatch;
 import com.invariantproperties.sandbox.student.domain.Student;
 
 /**
@@ -42,4 +44,13 @@ public interface StudentFinderRestClient extends FinderRestClient<Student> {
      * @param uuid
      */
     Student getStudent(String uuid);
+
+    /**
+     * Get a page of students with a matching name.
+     * 
+     * @param name
+     * @param match
+     * @param page
+     */
+    Student[] getStudentsByName(String name, NameMatch match, KeysetPage page);
 }
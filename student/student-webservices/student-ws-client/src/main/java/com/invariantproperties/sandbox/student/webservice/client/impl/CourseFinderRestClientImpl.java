@@ -22,6 +22,8 @@
  */
 package com.invariantproperties.sandbox.student.webservice.client.impl;
 
+import com.invariantproperties.sandbox.student.business.KeysetPage;
+import com.invariantproperties.sandbox.student.business.NameMatch;
 import com.invariantproperties.sandbox.student.domain.Course;
 import com.invariantproperties.sandbox.student.webservice.client.AbstractFinderRestClientImpl;
 import com.invariantproperties.sandbox.student.webservice.client.CourseFinderRestClient;
@@ -58,4 +60,14 @@ public class CourseFinderRestClientImpl extends AbstractFinderRestClientImpl<Cou
     public Course getCourse(final String uuid) {
         return super.getObject(uuid);
     }
+
+    /**
+     * @see com.invariantproperties.sandbox.student.webservice.client.CourseFinderRestClient#getCoursesByName(java.lang.String,
+     *      com.invariantproperties.sandbox.student.business.NameMatch,
+     *      com.invariantproperties.sandbox.student.business.KeysetPage)
+     */
+    @Override
+    public Course[] getCoursesByName(final String name, final NameMatch match, final KeysetPage page) {
+        return super.getPage(page, name, match);
+    }
 }
@@ -22,6 +22,8 @@
  */
 package com.invariantproperties.sandbox.student.webservice.client.impl;
 
+import com.invariantproperties.sandbox.student.business.KeysetPage;
+import com.invariantproperties.sandbox.student.business.NameMatch;
 import com.invariantproperties.sandbox.student.domain.Instructor;
 import com.invariantproperties.sandbox.student.webservice.client.AbstractFinderRestClientImpl;
 import com.invariantproperties.sandbox.student.webservice.client.InstructorFinderRestClient;
@@ -59,4 +61,14 @@ public class InstructorFinderRestClientImpl extends AbstractFinderRestClientImpl
     public Instructor getInstructor(final String uuid) {
         return super.getObject(uuid);
     }
+
+    /**
+     * @see com.invariantproperties.sandbox.student.webservice.client.InstructorFinderRestClient#getInstructorsByName(java.lang.String,
+     *      com.invariantproperties.sandbox.student.business.NameMatch,
+     *      com.invariantproperties.sandbox.student.business.KeysetPage)
+     */
+    @Override
+    public Instructor[] getInstructorsByName(final String name, final NameMatch match, final KeysetPage page) {
+        return super.getPage(page, name, match);
+    }
 }
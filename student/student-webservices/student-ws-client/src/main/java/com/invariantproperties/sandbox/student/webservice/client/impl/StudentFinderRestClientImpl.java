@@ -22,6 +22,8 @@
  */
 package com.invariantproperties.sandbox.student.webservice.client.impl;
 
+import com.invariantproperties.sandbox.student.business.KeysetPage;
+import com.invariantproperties.sandbox.student.business.NameMatch;
 import com.invariantproperties.sandbox.student.domain.Student;
 import com.invariantproperties.sandbox.student.webservice.client.AbstractFinderRestClientImpl;
 import com.invariantproperties.sandbox.student.webservice.client.StudentFinderRestClient;
@@ -59,4 +61,14 @@ public class StudentFinderRestClientImpl extends AbstractFinderRestClientImpl<St
     public Student getStudent(final String uuid) {
         return super.getObject(uuid);
     }
+
+    /**
+     * @see com.invariantproperties.sandbox.student.webservice.client.StudentFinderRestClient#getStudentsByName(java.lang.String,
+     *      com.invariantproperties.sandbox.student.business.NameMatch,
+     *      com.invariantproperties.sandbox.student.business.KeysetPage)
+     */
+    @Override
+    public Student[] getStudentsByName(final String name, final NameMatch match, final KeysetPage page) {
+        return super.getPage(page, name, match);
+    }
 }
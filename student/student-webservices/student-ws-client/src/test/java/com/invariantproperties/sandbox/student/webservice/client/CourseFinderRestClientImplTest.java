@@ -23,18 +23,27 @@
 package com.invariantproperties.sandbox.student.webservice.client;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.when;
 
+import java.util.Arrays;
+
+import javax.ws.rs.core.MultivaluedMap;
+
 import org.junit.Test;
 import org.mockito.Mockito;
 
+import com.invariantproperties.sandbox.student.business.KeysetPage;
+import com.invariantproperties.sandbox.student.business.NameMatch;
 import com.invariantproperties.sandbox.student.domain.Course;
+import com.invariantproperties.sandbox.student.domain.TestRun;
 import com.invariantproperties.sandbox.student.webservice.client.impl.CourseFinderRestClientImpl;
 import com.sun.jersey.api.client.Client;
 import com.sun.jersey.api.client.ClientResponse;
 import com.sun.jersey.api.client.WebResource;
+import com.sun.jersey.core.util.MultivaluedMapImpl;
 
 /**
  * Unit tests for CourseFinderRestClientImpl. Remember that we want to test the
@@ -67,6 +76,110 @@ public class CourseFinderRestClientImplTest {
         client.getAllCourses();
     }
 
+    @Test
+    public void testGetAllCoursesFollowsNextLink() {
+        Course course1 = new Course();
+        course1.setUuid(UUID + "1");
+        Course course2 = new Course();
+        course2.setUuid(UUID + "2");
+        MultivaluedMap<String, String> headers = new MultivaluedMapImpl();
+        headers.add("Link", "<" + FinderCourseMock.RESOURCE + "?after=" + course1.getUuid() + ">; rel=\"next\"");
+
+        FinderCourseMock client = new FinderCourseMock(200, new Course[] { course1 });
+        client.setNextPage(headers, new Course[] { course2 });
+        Course[] results = client.getAllCourses();
+        assertEquals(2, results.length);
+        assertEquals(course2.getUuid(), results[1].getUuid());
+    }
+
+    @Test
+    public void testGetPage() {
+        Course course = new Course();
+        course.setUuid(UUID);
+        CourseFinderRestClient client = new FinderCourseMock(200, new Course[] { course });
+        Course[] results = client.getPage(new KeysetPage(null, 10, "name", false));
+        assertEquals(1, results.length);
+    }
+
+    @Test(expected = ObjectNotFoundException.class)
+    public void testGetPageMissing() {
+        CourseFinderRestClient client = new FinderCourseMock(404, null);
+        client.getPage(new KeysetPage(UUID, 10));
+    }
+
+    @Test(expected = RestClientFailureException.class)
+    public void testGetPageError() {
+        CourseFinderRestClient client = new FinderCourseMock(500, null);
+        client.getPage(new KeysetPage(10));
+    }
+
+    @Test
+    public void testGetCoursesByName() {
+        Course course = new Course();
+        course.setUuid(UUID);
+        CourseFinderRestClient client = new FinderCourseMock(200, new Course[] { course });
+        Course[] results = client.getCoursesByName("phys", NameMatch.SUBSTRING, new KeysetPage(10));
+        assertEquals(1, results.length);
+    }
+
+    @Test(expected = RestClientFailureException.class)
+    public void testGetCoursesByNameError() {
+        CourseFinderRestClient client = new FinderCourseMock(500, null);
+        client.getCoursesByName("phys", NameMatch.PREFIX, new KeysetPage(10));
+    }
+
+    @Test
+    public void testGetObjects() {
+        Course course = new Course();
+        course.setUuid(UUID);
+        CourseFinderRestClient client = new FinderCourseMock(200, new Course[] { course });
+        Course[] results = client.getObjects(Arrays.asList(UUID, "missing"));
+        assertEquals(1, results.length);
+        assertEquals(UUID, results[0].getUuid());
+    }
+
+    @Test(expected = RestClientFailureException.class)
+    public void testGetObjectsError() {
+        CourseFinderRestClient client = new FinderCourseMock(500, null);
+        client.getObjects(Arrays.asList(UUID));
+    }
+
+    @Test
+    public void testJoinFields() {
+        assertEquals("uuid,code,name", AbstractFinderRestClientImpl.join(Arrays.asList("uuid", "code", "name")));
+    }
+
+    @Test
+    public void testCount() {
+        CourseFinderRestClient client = new FinderCourseMock(200, "{ \"count\": 3 }");
+        assertEquals(3, client.count());
+    }
+
+    @Test
+    public void testCountByTestRun() {
+        TestRun testRun = new TestRun();
+        testRun.setUuid(UUID);
+        CourseFinderRestClient client = new FinderCourseMock(200, "{ \"count\": 2 }");
+        assertEquals(2, client.countByTestRun(testRun));
+    }
+
+    @Test(expected = RestClientFailureException.class)
+    public void testCountError() {
+        CourseFinderRestClient client = new FinderCourseMock(500, null);
+        client.count();
+    }
+
+    @Test
+    public void testGetNextLink() {
+        ClientResponse response = Mockito.mock(ClientResponse.class);
+        MultivaluedMap<String, String> headers = new MultivaluedMapImpl();
+        when(response.getHeaders()).thenReturn(headers);
+        assertNull(AbstractFinderRestClientImpl.getNextLink(response));
+
+        headers.add("Link", "<http://example.com/a>; rel=\"prev\", <http://example.com/b>; rel=\"next\"");
+        assertEquals("http://example.com/b", AbstractFinderRestClientImpl.getNextLink(response));
+    }
+
     @Test
     public void testGetCourse() {
         Course expected = new Course();
@@ -103,6 +216,8 @@ class FinderCourseMock extends CourseFinderRestClientImpl {
     private ClientResponse response;
     private final int status;
     private final Object results;
+    private MultivaluedMap<String, String> headers;
+    private Object nextResults;
 
     FinderCourseMock(int status, Object results) {
         super(RESOURCE);
@@ -110,6 +225,15 @@ class FinderCourseMock extends CourseFinderRestClientImpl {
         this.results = results;
     }
 
+    /**
+     * Return the 'next' link header with the first response and the results
+     * with the second response.
+     */
+    void setNextPage(MultivaluedMap<String, String> headers, Object nextResults) {
+        this.headers = headers;
+        this.nextResults = nextResults;
+    }
+
     /**
      * Override createClient() so it returns mocked object. These expectations
      * will handle basic CRUD operations, more advanced functionality will
@@ -123,6 +247,8 @@ class FinderCourseMock extends CourseFinderRestClientImpl {
         webResourceBuilder = Mockito.mock(WebResource.Builder.class);
         response = Mockito.mock(ClientResponse.class);
         when(client.resource(any(String.class))).thenReturn(webResource);
+        when(webResource.queryParam(any(String.class), any(String.class))).thenReturn(webResource);
+        when(webResource.queryParams(any(MultivaluedMap.class))).thenReturn(webResource);
         when(webResource.accept(any(String.class))).thenReturn(webResourceBuilder);
         when(webResource.type(any(String.class))).thenReturn(webResourceBuilder);
         when(webResourceBuilder.accept(any(String.class))).thenReturn(webResourceBuilder);
@@ -132,7 +258,12 @@ class FinderCourseMock extends CourseFinderRestClientImpl {
         when(webResourceBuilder.put(eq(ClientResponse.class), any(String.class))).thenReturn(response);
         when(webResourceBuilder.delete(eq(ClientResponse.class))).thenReturn(response);
         when(response.getStatus()).thenReturn(status);
-        when(response.getEntity(any(Class.class))).thenReturn(results);
+        if (headers == null) {
+            when(response.getEntity(any(Class.class))).thenReturn(results);
+        } else {
+            when(response.getEntity(any(Class.class))).thenReturn(results, nextResults);
+            when(response.getHeaders()).thenReturn(headers, null);
+        }
         return client;
     }
 }
@@ -23,6 +23,7 @@
 package com.invariantproperties.sandbox.student.business;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -44,6 +45,11 @@ public class DummyClassroomService implements ClassroomFinderService, ClassroomM
         return countByTestRun(null);
     }
 
+    @Override
+    public long countByTestRun(TestRun testRun, boolean exact) {
+        return countByTestRun(testRun);
+    }
+
     @Override
     public long countByTestRun(TestRun testRun) {
         log.debug("ClassroomServer: countByTestRun()");
@@ -126,4 +132,116 @@ public class DummyClassroomService implements ClassroomFinderService, ClassroomM
             cache.remove(uuid);
         }
     }
-}
\ No newline at end of file
+
+    @Override
+    public BatchResult<Classroom> createAll(List<Classroom> classrooms) {
+        log.debug("ClassroomServer: createAll()");
+        final BatchResult<Classroom> result = new BatchResult<Classroom>();
+        for (Classroom classroom : classrooms) {
+            result.addResult(createClassroomForTesting(classroom.getName(), classroom.getTestRun()));
+        }
+        return result;
+    }
+
+    @Override
+    public BatchResult<Classroom> updateAll(List<Classroom> classrooms) {
+        log.debug("ClassroomServer: updateAll()");
+        final BatchResult<Classroom> result = new BatchResult<Classroom>();
+        for (int i = 0; i < classrooms.size(); i++) {
+            final Classroom classroom = classrooms.get(i);
+            try {
+                result.addResult(updateClassroom(classroom, classroom.getName()));
+            } catch (ObjectNotFoundException e) {
+                result.addFailure(new BatchFailure(i, classroom.getUuid(), e.getMessage()));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Classroom findByUuidOrNull(String uuid) {
+        log.debug("ClassroomServer: findByUuidOrNull()");
+        return cache.get(uuid);
+    }
+
+    @Override
+    public MultiGetResult<Classroom> findByUuids(Collection<String> uuids) {
+        log.debug("ClassroomServer: findByUuids()");
+        final List<Classroom> found = new ArrayList<Classroom>();
+        for (String uuid : uuids) {
+            if (cache.containsKey(uuid)) {
+                found.add(cache.get(uuid));
+            }
+        }
+        return MultiGetResult.of(uuids, found);
+    }
+
+    @Override
+    public List<Classroom> findPage(KeysetPage page) {
+        log.debug("ClassroomServer: findPage()");
+        return page(findAllClassrooms(), page);
+    }
+
+    @Override
+    public List<Classroom> findPageByTestRun(TestRun testRun, KeysetPage page) {
+        log.debug("ClassroomServer: findPageByTestRun()");
+        return page(findClassroomsByTestRun(testRun), page);
+    }
+
+    @Override
+    public long forEach(ObjectHandler<? super Classroom> handler, int fetchSize) {
+        log.debug("ClassroomServer: forEach()");
+        return forEach(findAllClassrooms(), handler);
+    }
+
+    @Override
+    public long forEachByTestRun(TestRun testRun, ObjectHandler<? super Classroom> handler, int fetchSize) {
+        log.debug("ClassroomServer: forEachByTestRun()");
+        return forEach(findClassroomsByTestRun(testRun), handler);
+    }
+
+    private long forEach(List<Classroom> results, ObjectHandler<? super Classroom> handler) {
+        for (Classroom result : results) {
+            handler.handle(result);
+        }
+        return results.size();
+    }
+
+    @Override
+    public Integer updateIfVersion(Classroom changes) {
+        log.debug("ClassroomServer: updateIfVersion()");
+        final Classroom classroom = checkVersion(changes.getUuid(), changes.getVersion());
+        updateClassroom(classroom, changes.getName());
+        classroom.setVersion((classroom.getVersion() == null) ? 1 : classroom.getVersion() + 1);
+        return classroom.getVersion();
+    }
+
+    @Override
+    public void deleteIfVersion(String uuid, Integer version) {
+        log.debug("ClassroomServer: deleteIfVersion()");
+        checkVersion(uuid, version);
+        cache.remove(uuid);
+    }
+
+    private Classroom checkVersion(String uuid, Integer version) {
+        if (!cache.containsKey(uuid)) {
+            throw new ObjectNotFoundException(uuid);
+        }
+        final Classroom classroom = cache.get(uuid);
+        if ((version == null) || !version.equals(classroom.getVersion())) {
+            throw new VersionConflictException(uuid, version, classroom.getVersion());
+        }
+        return classroom;
+    }
+
+    private List<Classroom> page(List<Classroom> results, KeysetPage page) {
+        int start = 0;
+        if (page.getAfter() != null) {
+            if (!cache.containsKey(page.getAfter())) {
+                throw new ObjectNotFoundException(page.getAfter());
+            }
+            start = results.indexOf(cache.get(page.getAfter())) + 1;
+        }
+        return results.subList(start, Math.min(results.size(), start + page.getMaxResults()));
+    }
+}
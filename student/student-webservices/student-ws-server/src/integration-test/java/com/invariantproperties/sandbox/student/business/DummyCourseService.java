@@ -23,6 +23,7 @@
 package com.invariantproperties.sandbox.student.business;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -44,6 +45,11 @@ public class DummyCourseService implements CourseFinderService, CourseManagerSer
         return countByTestRun(null);
     }
 
+    @Override
+    public long countByTestRun(TestRun testRun, boolean exact) {
+        return countByTestRun(testRun);
+    }
+
     @Override
     public long countByTestRun(TestRun testRun) {
         log.debug("CourseServer: countByTestRun()");
@@ -73,6 +79,19 @@ public class DummyCourseService implements CourseFinderService, CourseManagerSer
         throw new ObjectNotFoundException(id);
     }
 
+    @Override
+    public List<Course> findCoursesByName(String name, NameMatch match, TestRun testRun, KeysetPage page) {
+        final String term = name.toLowerCase();
+        final List<Course> results = new ArrayList<Course>();
+        for (Course course : cache.values()) {
+            final String value = course.getName().toLowerCase();
+            if ((match == NameMatch.PREFIX) ? value.startsWith(term) : value.contains(term)) {
+                results.add(course);
+            }
+        }
+        return results;
+    }
+
     @Override
     public Course findCourseByUuid(String uuid) {
         log.debug("CourseServer: findCourseByUuid()");
@@ -150,4 +169,118 @@ public class DummyCourseService implements CourseFinderService, CourseManagerSer
             cache.remove(uuid);
         }
     }
-}
\ No newline at end of file
+
+    @Override
+    public BatchResult<Course> createAll(List<Course> courses) {
+        log.debug("CourseServer: createAll()");
+        final BatchResult<Course> result = new BatchResult<Course>();
+        for (Course course : courses) {
+            result.addResult(createCourseForTesting(course.getCode(), course.getName(), course.getSummary(),
+                    course.getDescription(), course.getCreditHours(), course.getTestRun()));
+        }
+        return result;
+    }
+
+    @Override
+    public BatchResult<Course> updateAll(List<Course> courses) {
+        log.debug("CourseServer: updateAll()");
+        final BatchResult<Course> result = new BatchResult<Course>();
+        for (int i = 0; i < courses.size(); i++) {
+            final Course course = courses.get(i);
+            try {
+                result.addResult(updateCourse(course, course.getName(), course.getSummary(), course.getDescription(),
+                        course.getCreditHours()));
+            } catch (ObjectNotFoundException e) {
+                result.addFailure(new BatchFailure(i, course.getUuid(), e.getMessage()));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Course findByUuidOrNull(String uuid) {
+        log.debug("CourseServer: findByUuidOrNull()");
+        return cache.get(uuid);
+    }
+
+    @Override
+    public MultiGetResult<Course> findByUuids(Collection<String> uuids) {
+        log.debug("CourseServer: findByUuids()");
+        final List<Course> found = new ArrayList<Course>();
+        for (String uuid : uuids) {
+            if (cache.containsKey(uuid)) {
+                found.add(cache.get(uuid));
+            }
+        }
+        return MultiGetResult.of(uuids, found);
+    }
+
+    @Override
+    public List<Course> findPage(KeysetPage page) {
+        log.debug("CourseServer: findPage()");
+        return page(findAllCourses(), page);
+    }
+
+    @Override
+    public List<Course> findPageByTestRun(TestRun testRun, KeysetPage page) {
+        log.debug("CourseServer: findPageByTestRun()");
+        return page(findCoursesByTestRun(testRun), page);
+    }
+
+    @Override
+    public long forEach(ObjectHandler<? super Course> handler, int fetchSize) {
+        log.debug("CourseServer: forEach()");
+        return forEach(findAllCourses(), handler);
+    }
+
+    @Override
+    public long forEachByTestRun(TestRun testRun, ObjectHandler<? super Course> handler, int fetchSize) {
+        log.debug("CourseServer: forEachByTestRun()");
+        return forEach(findCoursesByTestRun(testRun), handler);
+    }
+
+    private long forEach(List<Course> results, ObjectHandler<? super Course> handler) {
+        for (Course result : results) {
+            handler.handle(result);
+        }
+        return results.size();
+    }
+
+    @Override
+    public Integer updateIfVersion(Course changes) {
+        log.debug("CourseServer: updateIfVersion()");
+        final Course course = checkVersion(changes.getUuid(), changes.getVersion());
+        updateCourse(course, changes.getName(), changes.getSummary(), changes.getDescription(), changes.getCreditHours());
+        course.setVersion((course.getVersion() == null) ? 1 : course.getVersion() + 1);
+        return course.getVersion();
+    }
+
+    @Override
+    public void deleteIfVersion(String uuid, Integer version) {
+        log.debug("CourseServer: deleteIfVersion()");
+        checkVersion(uuid, version);
+        cache.remove(uuid);
+    }
+
+    private Course checkVersion(String uuid, Integer version) {
+        if (!cache.containsKey(uuid)) {
+            throw new ObjectNotFoundException(uuid);
+        }
+        final Course course = cache.get(uuid);
+        if ((version == null) || !version.equals(course.getVersion())) {
+            throw new VersionConflictException(uuid, version, course.getVersion());
+        }
+        return course;
+    }
+
+    private List<Course> page(List<Course> results, KeysetPage page) {
+        int start = 0;
+        if (page.getAfter() != null) {
+            if (!cache.containsKey(page.getAfter())) {
+                throw new ObjectNotFoundException(page.getAfter());
+            }
+            start = results.indexOf(cache.get(page.getAfter())) + 1;
+        }
+        return results.subList(start, Math.min(results.size(), start + page.getMaxResults()));
+    }
+}
@@ -23,6 +23,7 @@
 package com.invariantproperties.sandbox.student.business;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -40,6 +41,11 @@ public class DummyInstructorService implements InstructorFinderService, Instruct
         return countByTestRun(null);
     }
 
+    @Override
+    public long countByTestRun(TestRun testRun, boolean exact) {
+        return countByTestRun(testRun);
+    }
+
     @Override
     public long countByTestRun(TestRun testRun) {
         long count = 0;
@@ -61,6 +67,19 @@ public class DummyInstructorService implements InstructorFinderService, Instruct
         throw new ObjectNotFoundException(id);
     }
 
+    @Override
+    public List<Instructor> findInstructorsByName(String name, NameMatch match, TestRun testRun, KeysetPage page) {
+        final String term = name.toLowerCase();
+        final List<Instructor> results = new ArrayList<Instructor>();
+        for (Instructor instructor : cache.values()) {
+            final String value = instructor.getName().toLowerCase();
+            if ((match == NameMatch.PREFIX) ? value.startsWith(term) : value.contains(term)) {
+                results.add(instructor);
+            }
+        }
+        return results;
+    }
+
     @Override
     public Instructor findInstructorByUuid(String uuid) {
         if (!cache.containsKey(uuid)) {
@@ -122,4 +141,106 @@ public class DummyInstructorService implements InstructorFinderService, Instruct
             cache.remove(uuid);
         }
     }
-}
\ No newline at end of file
+
+    @Override
+    public BatchResult<Instructor> createAll(List<Instructor> instructors) {
+        final BatchResult<Instructor> result = new BatchResult<Instructor>();
+        for (Instructor instructor : instructors) {
+            result.addResult(createInstructorForTesting(instructor.getName(), instructor.getEmailAddress(), instructor.getTestRun()));
+        }
+        return result;
+    }
+
+    @Override
+    public BatchResult<Instructor> updateAll(List<Instructor> instructors) {
+        final BatchResult<Instructor> result = new BatchResult<Instructor>();
+        for (int i = 0; i < instructors.size(); i++) {
+            final Instructor instructor = instructors.get(i);
+            try {
+                result.addResult(updateInstructor(instructor, instructor.getName(), instructor.getEmailAddress()));
+            } catch (ObjectNotFoundException e) {
+                result.addFailure(new BatchFailure(i, instructor.getUuid(), e.getMessage()));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Instructor findByUuidOrNull(String uuid) {
+        return cache.get(uuid);
+    }
+
+    @Override
+    public MultiGetResult<Instructor> findByUuids(Collection<String> uuids) {
+        final List<Instructor> found = new ArrayList<Instructor>();
+        for (String uuid : uuids) {
+            if (cache.containsKey(uuid)) {
+                found.add(cache.get(uuid));
+            }
+        }
+        return MultiGetResult.of(uuids, found);
+    }
+
+    @Override
+    public List<Instructor> findPage(KeysetPage page) {
+        return page(findAllInstructors(), page);
+    }
+
+    @Override
+    public List<Instructor> findPageByTestRun(TestRun testRun, KeysetPage page) {
+        return page(findInstructorsByTestRun(testRun), page);
+    }
+
+    @Override
+    public long forEach(ObjectHandler<? super Instructor> handler, int fetchSize) {
+        return forEach(findAllInstructors(), handler);
+    }
+
+    @Override
+    public long forEachByTestRun(TestRun testRun, ObjectHandler<? super Instructor> handler, int fetchSize) {
+        return forEach(findInstructorsByTestRun(testRun), handler);
+    }
+
+    private long forEach(List<Instructor> results, ObjectHandler<? super Instructor> handler) {
+        for (Instructor result : results) {
+            handler.handle(result);
+        }
+        return results.size();
+    }
+
+    @Override
+    public Integer updateIfVersion(Instructor changes) {
+        final Instructor instructor = checkVersion(changes.getUuid(), changes.getVersion());
+        updateInstructor(instructor, changes.getName(), changes.getEmailAddress());
+        instructor.setVersion((instructor.getVersion() == null) ? 1 : instructor.getVersion() + 1);
+        return instructor.getVersion();
+    }
+
+    @Override
+    public void deleteIfVersion(String uuid, Integer version) {
+        checkVersion(uuid, version);
+        cache.remove(uuid);
+    }
+
+    private Instructor checkVersion(String uuid, Integer version) {
+        if (!cache.containsKey(uuid)) {
+            throw new ObjectNotFoundException(uuid);
+        }
+        final Instructor instructor = cache.get(uuid);
+        if ((version == null) || !version.equals(instructor.getVersion())) {
+            throw new VersionConflictException(uuid, version, instructor.getVersion());
+        }
+        return instructor;
+    }
+
+    private List<Instructor> page(List<Instructor> results, KeysetPage page) {
+        int start = 0;
+        if (page.getAfter() != null) {
+            if (!cache.containsKey(page.getAfter())) {
+                throw new ObjectNotFoundException(page.getAfter());
+            }
+            start = results.indexOf(cache.get(page.getAfter())) + 1;
+        }
+        return results.subList(start, Math.min(results.size(), start + page.getMaxResults()));
+    }
+}
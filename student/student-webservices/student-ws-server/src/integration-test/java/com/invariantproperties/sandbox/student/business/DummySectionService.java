@@ -23,6 +23,7 @@
 package com.invariantproperties.sandbox.student.business;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -31,7 +32,10 @@ import java.util.UUID;
 
 import org.apache.log4j.Logger;
 
+import com.invariantproperties.sandbox.student.domain.Classroom;
+import com.invariantproperties.sandbox.student.domain.Course;
 import com.invariantproperties.sandbox.student.domain.Section;
+import com.invariantproperties.sandbox.student.domain.Student;
 import com.invariantproperties.sandbox.student.domain.TestRun;
 
 public class DummySectionService implements SectionFinderService, SectionManagerService {
@@ -44,6 +48,11 @@ public class DummySectionService implements SectionFinderService, SectionManager
         return countByTestRun(null);
     }
 
+    @Override
+    public long countByTestRun(TestRun testRun, boolean exact) {
+        return countByTestRun(testRun);
+    }
+
     @Override
     public long countByTestRun(TestRun testRun) {
         log.debug("SectionServer: countByTestRun()");
@@ -87,6 +96,11 @@ public class DummySectionService implements SectionFinderService, SectionManager
         return results;
     }
 
+    @Override
+    public Section findSectionRosterByUuid(String uuid) {
+        return findSectionByUuid(uuid);
+    }
+
     @Override
     public Section createSection(String name) {
         log.debug("SectionServer: createSection()");
@@ -118,6 +132,17 @@ public class DummySectionService implements SectionFinderService, SectionManager
         return section;
     }
 
+    @Override
+    public Section updateSectionRoster(Section oldSection, Course course, List<Student> students,
+            List<Classroom> classrooms) {
+        log.debug("SectionServer: updateSectionRoster()");
+        final Section section = findSectionByUuid(oldSection.getUuid());
+        section.setCourse(course);
+        section.setStudents(new ArrayList<Student>(students));
+        section.setClassrooms(new ArrayList<Classroom>(classrooms));
+        return section;
+    }
+
     @Override
     public void deleteSection(String uuid, Integer version) {
         log.debug("SectionServer: deleteSection()");
@@ -125,4 +150,116 @@ public class DummySectionService implements SectionFinderService, SectionManager
             cache.remove(uuid);
         }
     }
-}
\ No newline at end of file
+
+    @Override
+    public BatchResult<Section> createAll(List<Section> sections) {
+        log.debug("SectionServer: createAll()");
+        final BatchResult<Section> result = new BatchResult<Section>();
+        for (Section section : sections) {
+            result.addResult(createSectionForTesting(section.getName(), section.getTestRun()));
+        }
+        return result;
+    }
+
+    @Override
+    public BatchResult<Section> updateAll(List<Section> sections) {
+        log.debug("SectionServer: updateAll()");
+        final BatchResult<Section> result = new BatchResult<Section>();
+        for (int i = 0; i < sections.size(); i++) {
+            final Section section = sections.get(i);
+            try {
+                result.addResult(updateSection(section, section.getName()));
+            } catch (ObjectNotFoundException e) {
+                result.addFailure(new BatchFailure(i, section.getUuid(), e.getMessage()));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Section findByUuidOrNull(String uuid) {
+        log.debug("SectionServer: findByUuidOrNull()");
+        return cache.get(uuid);
+    }
+
+    @Override
+    public MultiGetResult<Section> findByUuids(Collection<String> uuids) {
+        log.debug("SectionServer: findByUuids()");
+        final List<Section> found = new ArrayList<Section>();
+        for (String uuid : uuids) {
+            if (cache.containsKey(uuid)) {
+                found.add(cache.get(uuid));
+            }
+        }
+        return MultiGetResult.of(uuids, found);
+    }
+
+    @Override
+    public List<Section> findPage(KeysetPage page) {
+        log.debug("SectionServer: findPage()");
+        return page(findAllSections(), page);
+    }
+
+    @Override
+    public List<Section> findPageByTestRun(TestRun testRun, KeysetPage page) {
+        log.debug("SectionServer: findPageByTestRun()");
+        return page(findSectionsByTestRun(testRun), page);
+    }
+
+    @Override
+    public long forEach(ObjectHandler<? super Section> handler, int fetchSize) {
+        log.debug("SectionServer: forEach()");
+        return forEach(findAllSections(), handler);
+    }
+
+    @Override
+    public long forEachByTestRun(TestRun testRun, ObjectHandler<? super Section> handler, int fetchSize) {
+        log.debug("SectionServer: forEachByTestRun()");
+        return forEach(findSectionsByTestRun(testRun), handler);
+    }
+
+    private long forEach(List<Section> results, ObjectHandler<? super Section> handler) {
+        for (Section result : results) {
+            handler.handle(result);
+        }
+        return results.size();
+    }
+
+    @Override
+    public Integer updateIfVersion(Section changes) {
+        log.debug("SectionServer: updateIfVersion()");
+        final Section section = checkVersion(changes.getUuid(), changes.getVersion());
+        updateSection(section, changes.getName());
+        section.setVersion((section.getVersion() == null) ? 1 : section.getVersion() + 1);
+        return section.getVersion();
+    }
+
+    @Override
+    public void deleteIfVersion(String uuid, Integer version) {
+        log.debug("SectionServer: deleteIfVersion()");
+        checkVersion(uuid, version);
+        cache.remove(uuid);
+    }
+
+    private Section checkVersion(String uuid, Integer version) {
+        if (!cache.containsKey(uuid)) {
+            throw new ObjectNotFoundException(uuid);
+        }
+        final Section section = cache.get(uuid);
+        if ((version == null) || !version.equals(section.getVersion())) {
+            throw new VersionConflictException(uuid, version, section.getVersion());
+        }
+        return section;
+    }
+
+    private List<Section> page(List<Section> results, KeysetPage page) {
+        int start = 0;
+        if (page.getAfter() != null) {
+            if (!cache.containsKey(page.getAfter())) {
+                throw new ObjectNotFoundException(page.getAfter());
+            }
+            start = results.indexOf(cache.get(page.getAfter())) + 1;
+        }
+        return results.subList(start, Math.min(results.size(), start + page.getMaxResults()));
+    }
+}
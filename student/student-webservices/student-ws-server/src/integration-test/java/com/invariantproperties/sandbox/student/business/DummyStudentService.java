@@ -23,6 +23,7 @@
 package com.invariantproperties.sandbox.student.business;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -40,6 +41,11 @@ public class DummyStudentService implements StudentFinderService, StudentManager
         return countByTestRun(null);
     }
 
+    @Override
+    public long countByTestRun(TestRun testRun, boolean exact) {
+        return countByTestRun(testRun);
+    }
+
     @Override
     public long countByTestRun(TestRun testRun) {
         long count = 0;
@@ -61,6 +67,19 @@ public class DummyStudentService implements StudentFinderService, StudentManager
         throw new ObjectNotFoundException(id);
     }
 
+    @Override
+    public List<Student> findStudentsByName(String name, NameMatch match, TestRun testRun, KeysetPage page) {
+        final String term = name.toLowerCase();
+        final List<Student> results = new ArrayList<Student>();
+        for (Student student : cache.values()) {
+            final String value = student.getName().toLowerCase();
+            if ((match == NameMatch.PREFIX) ? value.startsWith(term) : value.contains(term)) {
+                results.add(student);
+            }
+        }
+        return results;
+    }
+
     @Override
     public Student findStudentByUuid(String uuid) {
         if (!cache.containsKey(uuid)) {
@@ -122,4 +141,106 @@ public class DummyStudentService implements StudentFinderService, StudentManager
             cache.remove(uuid);
         }
     }
-}
\ No newline at end of file
+
+    @Override
+    public BatchResult<Student> createAll(List<Student> students) {
+        final BatchResult<Student> result = new BatchResult<Student>();
+        for (Student student : students) {
+            result.addResult(createStudentForTesting(student.getName(), student.getEmailAddress(), student.getTestRun()));
+        }
+        return result;
+    }
+
+    @Override
+    public BatchResult<Student> updateAll(List<Student> students) {
+        final BatchResult<Student> result = new BatchResult<Student>();
+        for (int i = 0; i < students.size(); i++) {
+            final Student student = students.get(i);
+            try {
+                result.addResult(updateStudent(student, student.getName(), student.getEmailAddress()));
+            } catch (ObjectNotFoundException e) {
+                result.addFailure(new BatchFailure(i, student.getUuid(), e.getMessage()));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Student findByUuidOrNull(String uuid) {
+        return cache.get(uuid);
+    }
+
+    @Override
+    public MultiGetResult<Student> findByUuids(Collection<String> uuids) {
+        final List<Student> found = new ArrayList<Student>();
+        for (String uuid : uuids) {
+            if (cache.containsKey(uuid)) {
+                found.add(cache.get(uuid));
+            }
+        }
+        return MultiGetResult.of(uuids, found);
+    }
+
+    @Override
+    public List<Student> findPage(KeysetPage page) {
+        return page(findAllStudents(), page);
+    }
+
+    @Override
+    public List<Student> findPageByTestRun(TestRun testRun, KeysetPage page) {
+        return page(findStudentsByTestRun(testRun), page);
+    }
+
+    @Override
+    public long forEach(ObjectHandler<? super Student> handler, int fetchSize) {
+        return forEach(findAllStudents(), handler);
+    }
+
+    @Override
+    public long forEachByTestRun(TestRun testRun, ObjectHandler<? super Student> handler, int fetchSize) {
+        return forEach(findStudentsByTestRun(testRun), handler);
+    }
+
+    private long forEach(List<Student> results, ObjectHandler<? super Student> handler) {
+        for (Student result : results) {
+            handler.handle(result);
+        }
+        return results.size();
+    }
+
+    @Override
+    public Integer updateIfVersion(Student changes) {
+        final Student student = checkVersion(changes.getUuid(), changes.getVersion());
+        updateStudent(student, changes.getName(), changes.getEmailAddress());
+        student.setVersion((student.getVersion() == null) ? 1 : student.getVersion() + 1);
+        return student.getVersion();
+    }
+
+    @Override
+    public void deleteIfVersion(String uuid, Integer version) {
+        checkVersion(uuid, version);
+        cache.remove(uuid);
+    }
+
+    private Student checkVersion(String uuid, Integer version) {
+        if (!cache.containsKey(uuid)) {
+            throw new ObjectNotFoundException(uuid);
+        }
+        final Student student = cache.get(uuid);
+        if ((version == null) || !version.equals(student.getVersion())) {
+            throw new VersionConflictException(uuid, version, student.getVersion());
+        }
+        return student;
+    }
+
+    private List<Student> page(List<Student> results, KeysetPage page) {
+        int start = 0;
+        if (page.getAfter() != null) {
+            if (!cache.containsKey(page.getAfter())) {
+                throw new ObjectNotFoundException(page.getAfter());
+            }
+            start = results.indexOf(cache.get(page.getAfter())) + 1;
+        }
+        return results.subList(start, Math.min(results.size(), start + page.getMaxResults()));
+    }
+}
@@ -23,6 +23,7 @@
 package com.invariantproperties.sandbox.student.business;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -44,6 +45,11 @@ public class DummyTermService implements TermFinderService, TermManagerService {
         return countByTestRun(null);
     }
 
+    @Override
+    public long countByTestRun(TestRun testRun, boolean exact) {
+        return countByTestRun(testRun);
+    }
+
     @Override
     public long countByTestRun(TestRun testRun) {
         log.debug("TermServer: countByTestRun()");
@@ -127,4 +133,116 @@ public class DummyTermService implements TermFinderService, TermManagerService {
             cache.remove(uuid);
         }
     }
-}
\ No newline at end of file
+
+    @Override
+    public BatchResult<Term> createAll(List<Term> terms) {
+        log.debug("TermServer: createAll()");
+        final BatchResult<Term> result = new BatchResult<Term>();
+        for (Term term : terms) {
+            result.addResult(createTermForTesting(term.getName(), term.getTestRun()));
+        }
+        return result;
+    }
+
+    @Override
+    public BatchResult<Term> updateAll(List<Term> terms) {
+        log.debug("TermServer: updateAll()");
+        final BatchResult<Term> result = new BatchResult<Term>();
+        for (int i = 0; i < terms.size(); i++) {
+            final Term term = terms.get(i);
+            try {
+                result.addResult(updateTerm(term, term.getName()));
+            } catch (ObjectNotFoundException e) {
+                result.addFailure(new BatchFailure(i, term.getUuid(), e.getMessage()));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Term findByUuidOrNull(String uuid) {
+        log.debug("TermServer: findByUuidOrNull()");
+        return cache.get(uuid);
+    }
+
+    @Override
+    public MultiGetResult<Term> findByUuids(Collection<String> uuids) {
+        log.debug("TermServer: findByUuids()");
+        final List<Term> found = new ArrayList<Term>();
+        for (String uuid : uuids) {
+            if (cache.containsKey(uuid)) {
+                found.add(cache.get(uuid));
+            }
+        }
+        return MultiGetResult.of(uuids, found);
+    }
+
+    @Override
+    public List<Term> findPage(KeysetPage page) {
+        log.debug("TermServer: findPage()");
+        return page(findAllTerms(), page);
+    }
+
+    @Override
+    public List<Term> findPageByTestRun(TestRun testRun, KeysetPage page) {
+        log.debug("TermServer: findPageByTestRun()");
+        return page(findTermsByTestRun(testRun), page);
+    }
+
+    @Override
+    public long forEach(ObjectHandler<? super Term> handler, int fetchSize) {
+        log.debug("TermServer: forEach()");
+        return forEach(findAllTerms(), handler);
+    }
+
+    @Override
+    public long forEachByTestRun(TestRun testRun, ObjectHandler<? super Term> handler, int fetchSize) {
+        log.debug("TermServer: forEachByTestRun()");
+        return forEach(findTermsByTestRun(testRun), handler);
+    }
+
+    private long forEach(List<Term> results, ObjectHandler<? super Term> handler) {
+        for (Term result : results) {
+            handler.handle(result);
+        }
+        return results.size();
+    }
+
+    @Override
+    public Integer updateIfVersion(Term changes) {
+        log.debug("TermServer: updateIfVersion()");
+        final Term term = checkVersion(changes.getUuid(), changes.getVersion());
+        updateTerm(term, changes.getName());
+        term.setVersion((term.getVersion() == null) ? 1 : term.getVersion() + 1);
+        return term.getVersion();
+    }
+
+    @Override
+    public void deleteIfVersion(String uuid, Integer version) {
+        log.debug("TermServer: deleteIfVersion()");
+        checkVersion(uuid, version);
+        cache.remove(uuid);
+    }
+
+    private Term checkVersion(String uuid, Integer version) {
+        if (!cache.containsKey(uuid)) {
+            throw new ObjectNotFoundException(uuid);
+        }
+        final Term term = cache.get(uuid);
+        if ((version == null) || !version.equals(term.getVersion())) {
+            throw new VersionConflictException(uuid, version, term.getVersion());
+        }
+        return term;
+    }
+
+    private List<Term> page(List<Term> results, KeysetPage page) {
+        int start = 0;
+        if (page.getAfter() != null) {
+            if (!cache.containsKey(page.getAfter())) {
+                throw new ObjectNotFoundException(page.getAfter());
+            }
+            start = results.indexOf(cache.get(page.getAfter())) + 1;
+        }
+        return results.subList(start, Math.min(results.size(), start + page.getMaxResults()));
+    }
+}
@@ -37,12 +37,32 @@ public class DummyTestRunService implements TestRunService {
     private static final Logger log = Logger.getLogger(DummyTestRunService.class);
     private Map<String, TestRun> cache = Collections.synchronizedMap(new HashMap<String, TestRun>());
 
+    @Override
+    public long count() {
+        log.debug("TestRunServer: count()");
+        return cache.size();
+    }
+
     @Override
     public List<TestRun> findAllTestRuns() {
         log.debug("TestRunServer: findAllTestRuns()");
         return new ArrayList<TestRun>(cache.values());
     }
 
+    @Override
+    public List<TestRun> findPage(KeysetPage page) {
+        log.debug("TestRunServer: findPage()");
+        final List<TestRun> results = findAllTestRuns();
+        int start = 0;
+        if (page.getAfter() != null) {
+            if (!cache.containsKey(page.getAfter())) {
+                throw new ObjectNotFoundException(page.getAfter());
+            }
+            start = results.indexOf(cache.get(page.getAfter())) + 1;
+        }
+        return results.subList(start, Math.min(results.size(), start + page.getMaxResults()));
+    }
+
     @Override
     public TestRun findTestRunById(Integer id) {
         throw new ObjectNotFoundException(id);
@@ -91,4 +111,25 @@ public class DummyTestRunService implements TestRunService {
             cache.remove(uuid);
         }
     }
-}
\ No newline at end of file
+
+    @Override
+    public long purgeTestRun(String uuid) {
+        log.debug("TestRunServer: purgeTestRun()");
+        deleteTestRun(uuid);
+        return 0;
+    }
+
+    @Override
+    public PurgeProgress purgeTestRunAsync(String uuid) {
+        log.debug("TestRunServer: purgeTestRunAsync()");
+        final PurgeProgress progress = new PurgeProgress(uuid, 0);
+        deleteTestRun(uuid);
+        progress.complete();
+        return progress;
+    }
+
+    @Override
+    public PurgeProgress getPurgeProgress(String uuid) {
+        return null;
+    }
+}
@@ -30,11 +30,13 @@ import com.invariantproperties.sandbox.student.business.CourseFinderService;
 import com.invariantproperties.sandbox.student.business.DummyClassroomService;
 import com.invariantproperties.sandbox.student.business.DummyCourseService;
 import com.invariantproperties.sandbox.student.business.DummyInstructorService;
+import com.invariantproperties.sandbox.student.business.DummySearchService;
 import com.invariantproperties.sandbox.student.business.DummySectionService;
 import com.invariantproperties.sandbox.student.business.DummyStudentService;
 import com.invariantproperties.sandbox.student.business.DummyTermService;
 import com.invariantproperties.sandbox.student.business.DummyTestRunService;
 import com.invariantproperties.sandbox.student.business.InstructorFinderService;
+import com.invariantproperties.sandbox.student.business.SearchService;
 import com.invariantproperties.sandbox.student.business.SectionFinderService;
 import com.invariantproperties.sandbox.student.business.StudentFinderService;
 import com.invariantproperties.sandbox.student.business.TermFinderService;
@@ -47,6 +49,7 @@ public class TestRestApplicationContext {
     private DummyClassroomService classroomService = new DummyClassroomService();
     private DummyCourseService courseService = new DummyCourseService();
     private DummyInstructorService instructorService = new DummyInstructorService();
+    private DummySearchService searchService = new DummySearchService();
     private DummySectionService sectionService = new DummySectionService();
     private DummyStudentService studentService = new DummyStudentService();
     private DummyTermService termService = new DummyTermService();
@@ -87,6 +90,11 @@ public class TestRestApplicationContext {
     // return instructorService;
     // }
 
+    @Bean
+    SearchService searchService() {
+        return searchService;
+    }
+
     @Bean
     SectionFinderService sectionFinderService() {
         return sectionService;
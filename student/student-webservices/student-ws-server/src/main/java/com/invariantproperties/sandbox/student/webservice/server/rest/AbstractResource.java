@@ -22,9 +22,41 @@
  */
 package com.invariantproperties.sandbox.student.webservice.server.rest;
 
+import java.lang.reflect.UndeclaredThrowableException;
+import java.net.URI;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.Callable;
+
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.ResponseBuilder;
+import javax.ws.rs.core.Response.Status;
+import javax.ws.rs.core.UriInfo;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.util.DigestUtils;
+
+import com.invariantproperties.sandbox.student.business.FinderService;
+import com.invariantproperties.sandbox.student.business.KeysetPage;
+import com.invariantproperties.sandbox.student.business.ManagerService;
+import com.invariantproperties.sandbox.student.business.MultiGetResult;
+import com.invariantproperties.sandbox.student.business.NameMatch;
+import com.invariantproperties.sandbox.student.business.ObjectNotFoundException;
+import com.invariantproperties.sandbox.student.business.ServiceExecutor;
+import com.invariantproperties.sandbox.student.business.VersionConflictException;
 import com.invariantproperties.sandbox.student.domain.Classroom;
 import com.invariantproperties.sandbox.student.domain.Course;
 import com.invariantproperties.sandbox.student.domain.Instructor;
+import com.invariantproperties.sandbox.student.domain.PersistentObject;
 import com.invariantproperties.sandbox.student.domain.Section;
 import com.invariantproperties.sandbox.student.domain.Student;
 import com.invariantproperties.sandbox.student.domain.Term;
@@ -34,83 +66,727 @@ import com.invariantproperties.sandbox.student.domain.TestRun;
  * @author Bear Giles <bgiles@coyotesong.com>
  */
 public abstract class AbstractResource {
+    public static final int DEFAULT_LIMIT = KeysetPage.DEFAULT_MAX_RESULTS;
+    public static final int MAX_LIMIT = 1000;
+    public static final String ALL_FIELDS = "*";
+    public static final String MISSING_UUIDS = "X-Missing-Uuids";
+    public static final String NOT_FOUND_MESSAGE = "object not found";
+    public static final String ANY_ENTITY_TAG = "*";
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final Set<String> ROSTER_COURSE_FIELDS = fieldSet("code", "name");
+    private static final Set<String> ROSTER_STUDENT_FIELDS = fieldSet("name", "emailAddress");
+
+    @Autowired(required = false)
+    private ServiceExecutor serviceExecutor;
+
+    /**
+     * Set the executor used to run service calls. (Required due to AOP)
+     * 
+     * @param serviceExecutor
+     */
+    void setServiceExecutor(ServiceExecutor serviceExecutor) {
+        this.serviceExecutor = serviceExecutor;
+    }
+
+    /**
+     * Run a service call on the ServiceExecutor, if one is configured (see
+     * ServiceExecutorConfig), so a slow database can only tie up a bounded
+     * number of workers. The request fails quickly with a 503 (see
+     * UnexpectedResourceExceptionHandler) if every worker is busy or the call
+     * times out. By default there is no executor and the call runs on this
+     * thread.
+     * 
+     * @param task
+     * @return
+     */
+    protected <T> T call(Callable<T> task) {
+        if (serviceExecutor != null) {
+            return serviceExecutor.call(task);
+        }
+
+        try {
+            return task.call();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new UndeclaredThrowableException(e);
+        }
+    }
+
+    /**
+     * Count the objects belonging to the test run, or that aren't test data,
+     * using the ServiceExecutor.
+     * 
+     * @param finder
+     * @param testRun
+     * @return
+     */
+    protected <T extends PersistentObject> long count(final FinderService<T> finder, final TestRun testRun) {
+        return call(new Callable<Long>() {
+            @Override
+            public Long call() {
+                return (testRun == null) ? finder.count() : finder.countByTestRun(testRun);
+            }
+        });
+    }
+
+    /**
+     * Find a page of objects belonging to the test run, or that aren't test
+     * data, using the ServiceExecutor.
+     * 
+     * @param finder
+     * @param testRun
+     * @param page
+     * @return
+     */
+    protected <T extends PersistentObject> List<T> findPage(final FinderService<T> finder, final TestRun testRun,
+            final KeysetPage page) {
+        return call(new Callable<List<T>>() {
+            @Override
+            public List<T> call() {
+                return (testRun == null) ? finder.findPage(page) : finder.findPageByTestRun(testRun, page);
+            }
+        });
+    }
+
+    /**
+     * Find the objects with the specified uuids using the ServiceExecutor.
+     * 
+     * @param finder
+     * @param uuids
+     * @return
+     */
+    protected <T extends PersistentObject> MultiGetResult<T> findByUuids(final FinderService<T> finder,
+            final Collection<String> uuids) {
+        return call(new Callable<MultiGetResult<T>>() {
+            @Override
+            public MultiGetResult<T> call() {
+                return finder.findByUuids(uuids);
+            }
+        });
+    }
+
+    /**
+     * Stream every object belonging to the test run, or that isn't test data,
+     * as a JSON array. See JsonArrayStreamingOutput.
+     * 
+     * @param finder
+     * @param testRun
+     * @param fields
+     *            fields to return, or null for every selectable field
+     * @param selectable
+     * @return
+     */
+    protected <T extends PersistentObject> Response stream(FinderService<T> finder, TestRun testRun,
+            Set<String> fields, Set<String> selectable) {
+        final Set<String> projection = (fields == null) ? selectable : fields;
+        return Response.ok(new JsonArrayStreamingOutput<T>(finder, testRun, projection),
+                MediaType.APPLICATION_JSON_TYPE).build();
+    }
+
+    /**
+     * Find the object with the specified uuid using the ServiceExecutor.
+     * 
+     * @param finder
+     * @param uuid
+     * @return object, or null if it doesn't exist
+     */
+    protected <T extends PersistentObject> T findByUuidOrNull(final FinderService<T> finder, final String uuid) {
+        return call(new Callable<T>() {
+            @Override
+            public T call() {
+                return finder.findByUuidOrNull(uuid);
+            }
+        });
+    }
+
+    /**
+     * Create the set of fields that can be requested for an object. The uuid,
+     * version and creation date are common to all objects.
+     * 
+     * @param names
+     * @return
+     */
+    protected static Set<String> fieldSet(String... names) {
+        final Set<String> fields = new LinkedHashSet<String>();
+        fields.addAll(Arrays.asList("uuid", "version", "creationDate"));
+        fields.addAll(Arrays.asList(names));
+        return Collections.unmodifiableSet(fields);
+    }
+
+    /**
+     * Convert the 'match' query parameter of a name search.
+     * 
+     * @param match
+     *            'prefix', 'substring' or null
+     * @return name match, or null if the value is invalid. The default is
+     *         PREFIX.
+     */
+    protected NameMatch parseNameMatch(String match) {
+        NameMatch nameMatch = NameMatch.PREFIX;
+        if (match != null) {
+            try {
+                nameMatch = NameMatch.valueOf(match.toUpperCase(Locale.ENGLISH));
+            } catch (IllegalArgumentException e) {
+                nameMatch = null;
+            }
+        }
+        return nameMatch;
+    }
+
+    /**
+     * Convert the paging query parameters into a page request. The sort
+     * parameter is a property name, optionally prefixed by '-' for descending
+     * order, and must be one of the sortable properties. The limit is capped
+     * at MAX_LIMIT.
+     * 
+     * The fields parameter is a comma-separated list of the properties to
+     * return. If it is missing we return the summary properties and if it is
+     * '*' we return everything. The uuid and version are always returned - the
+     * version is needed for the entity tag.
+     * 
+     * @param after
+     *            cursor for last object on previous page, see KeysetPage
+     * @param limit
+     * @param sort
+     * @param fields
+     * @param sortable
+     * @param selectable
+     *            properties that may be listed in fields
+     * @param summary
+     *            properties returned if fields is not specified
+     * @return page request, or null if the parameters are invalid
+     */
+    public KeysetPage parsePage(String after, Integer limit, String sort, String fields, Set<String> sortable,
+            Set<String> selectable, Set<String> summary) {
+        if (after != null && !KeysetPage.isPossibleCursor(after)) {
+            return null;
+        }
+
+        int maxResults = DEFAULT_LIMIT;
+        if (limit != null) {
+            if (limit <= 0) {
+                return null;
+            }
+            maxResults = Math.min(limit, MAX_LIMIT);
+        }
+
+        String property = null;
+        boolean ascending = true;
+        if (sort != null && !sort.isEmpty()) {
+            if (sort.startsWith("-")) {
+                property = sort.substring(1);
+                ascending = false;
+            } else {
+                property = sort;
+            }
+            if (!sortable.contains(property)) {
+                return null;
+            }
+        }
+
+        Set<String> projection = summary;
+        if (fields != null && !fields.trim().isEmpty()) {
+            if (ALL_FIELDS.equals(fields.trim())) {
+                projection = null;
+            } else {
+                projection = parseFields(fields, selectable);
+                if (projection == null) {
+                    return null;
+                }
+            }
+        }
+
+        return new KeysetPage(after, maxResults, property, ascending,
+                (projection == null) ? null : new LinkedHashSet<String>(projection));
+    }
+
+    /**
+     * Convert the fields query parameter into a set of property names.
+     * 
+     * @param fields
+     *            comma-separated list of properties
+     * @param selectable
+     * @return set of fields, or null if the list contains an unknown property
+     */
+    Set<String> parseFields(String fields, Set<String> selectable) {
+        final Set<String> results = new LinkedHashSet<String>();
+        results.add("uuid");
+        results.add("version");
+        for (String field : fields.split(",")) {
+            final String name = field.trim();
+            if (!name.isEmpty()) {
+                if (!selectable.contains(name)) {
+                    return null;
+                }
+                results.add(name);
+            }
+        }
+
+        return results;
+    }
+
+    /**
+     * Does the projection include this field?
+     * 
+     * @param fields
+     *            projection, or null for all fields
+     * @param field
+     * @return
+     */
+    protected static boolean includes(Set<String> fields, String field) {
+        return fields == null || fields.contains(field);
+    }
+
+    /**
+     * Add a 'next' link header if there may be more results. The link is the
+     * request URI with the 'after' parameter replaced so it keeps the caller's
+     * limit and sort order.
+     * 
+     * @param builder
+     * @param uriInfo
+     *            request URI, may be null outside of the servlet container
+     * @param next
+     *            next page, or null if this was the last page
+     * @return
+     */
+    public ResponseBuilder addNextLink(ResponseBuilder builder, UriInfo uriInfo, KeysetPage next) {
+        if (next != null && uriInfo != null) {
+            final URI uri = uriInfo.getRequestUriBuilder().replaceQueryParam("after", next.getAfter()).build();
+            builder.header("Link", String.format("<%s>; rel=\"next\"", uri));
+        }
+        return builder;
+    }
+
+    /**
+     * Add a header listing the uuids in a multi-get that were not found.
+     * 
+     * @param builder
+     * @param result
+     * @return
+     */
+    public ResponseBuilder addMissingHeader(ResponseBuilder builder, MultiGetResult<?> result) {
+        if (result.hasMissing()) {
+            final StringBuilder sb = new StringBuilder();
+            for (String uuid : result.getMissing()) {
+                if (sb.length() > 0) {
+                    sb.append(',');
+                }
+                sb.append(uuid);
+            }
+            builder.header(MISSING_UUIDS, sb.toString());
+        }
+        return builder;
+    }
+
+    /**
+     * Build a 'not found' (404) response. This is the normal path for a
+     * missing object - it's much cheaper than throwing an exception and
+     * letting the AOP handler build the response.
+     * 
+     * @return
+     */
+    public Response notFound() {
+        return Response.status(Status.NOT_FOUND).entity(NOT_FOUND_MESSAGE).build();
+    }
+
+    /**
+     * Entity tag for a single object. The version is incremented on every
+     * change so the uuid and version identify the state of the object.
+     * 
+     * @param object
+     * @return
+     */
+    public static EntityTag entityTag(PersistentObject object) {
+        return new EntityTag(object.getUuid() + ":" + object.getVersion());
+    }
+
+    /**
+     * Entity tag for a page of objects. It's a digest of the uuid and version
+     * of each object so it changes if an object on the page is added, removed,
+     * reordered or modified.
+     * 
+     * @param objects
+     * @return
+     */
+    public static EntityTag entityTag(List<? extends PersistentObject> objects) {
+        final StringBuilder sb = new StringBuilder();
+        for (PersistentObject object : objects) {
+            sb.append(object.getUuid()).append(':').append(object.getVersion()).append(',');
+        }
+        return new EntityTag(DigestUtils.md5DigestAsHex(sb.toString().getBytes(UTF8)));
+    }
+
+    /**
+     * Evaluate the request preconditions (If-None-Match, If-Match) against the
+     * current entity tag. This is used by GETs so an unchanged object can be
+     * answered with a 304 without building or serializing the entity.
+     * 
+     * @param request
+     *            request, may be null outside of the servlet container
+     * @param tag
+     * @return builder for the 304 (or 412) response, or null if the entity
+     *         should be returned
+     */
+    public ResponseBuilder evaluatePreconditions(Request request, EntityTag tag) {
+        ResponseBuilder builder = null;
+        if (request != null) {
+            builder = request.evaluatePreconditions(tag);
+            if (builder != null) {
+                builder.tag(tag);
+            }
+        }
+        return builder;
+    }
+
+    /**
+     * Does the If-Match header name a specific version? If so the update or
+     * delete is done with a single conditional statement.
+     * 
+     * @param ifMatch
+     * @return
+     */
+    protected static boolean isConditional(String ifMatch) {
+        return ifMatch != null && !ANY_ENTITY_TAG.equals(ifMatch.trim());
+    }
+
+    /**
+     * Get the version named by an If-Match header. The header must contain a
+     * single entity tag, as returned by a GET of the object.
+     * 
+     * @param uuid
+     * @param ifMatch
+     * @return version, or null if the header can't match the object
+     */
+    public static Integer parseIfMatch(String uuid, String ifMatch) {
+        Integer version = null;
+        try {
+            final EntityTag tag = EntityTag.valueOf(ifMatch.trim());
+            final String prefix = uuid + ":";
+            if (!tag.isWeak() && tag.getValue().startsWith(prefix)) {
+                version = Integer.valueOf(tag.getValue().substring(prefix.length()));
+            }
+        } catch (IllegalArgumentException e) {
+            // includes NumberFormatException - not one of our tags.
+        }
+        return version;
+    }
+
+    /**
+     * Update an object if and only if it still has the version named by the
+     * If-Match header. This is a single statement - the object isn't read
+     * first - so the response has no entity, only the new entity tag.
+     * 
+     * @param manager
+     * @param changes
+     *            the uuid and the new property values
+     * @param ifMatch
+     * @return 204 on success, 412 if the object doesn't exist or has a
+     *         different version
+     */
+    protected <T extends PersistentObject> Response updateIfMatch(ManagerService<T> manager, T changes,
+            String ifMatch) {
+        Response response = null;
+
+        final Integer version = parseIfMatch(changes.getUuid(), ifMatch);
+        if (version == null) {
+            response = preconditionFailed();
+        } else {
+            changes.setVersion(version);
+            try {
+                changes.setVersion(manager.updateIfVersion(changes));
+                response = Response.noContent().tag(entityTag(changes)).build();
+            } catch (ObjectNotFoundException e) {
+                response = preconditionFailed();
+            } catch (VersionConflictException e) {
+                response = preconditionFailed();
+            }
+        }
+
+        return response;
+    }
+
+    /**
+     * Delete an object if and only if it still has the version named by the
+     * If-Match header.
+     * 
+     * @param manager
+     * @param uuid
+     * @param ifMatch
+     * @return 204 on success, 412 if the object doesn't exist or has a
+     *         different version
+     */
+    protected <T extends PersistentObject> Response deleteIfMatch(ManagerService<T> manager, String uuid,
+            String ifMatch) {
+        Response response = null;
+
+        final Integer version = parseIfMatch(uuid, ifMatch);
+        if (version == null) {
+            response = preconditionFailed();
+        } else {
+            try {
+                manager.deleteIfVersion(uuid, version);
+                response = Response.noContent().build();
+            } catch (ObjectNotFoundException e) {
+                response = preconditionFailed();
+            } catch (VersionConflictException e) {
+                response = preconditionFailed();
+            }
+        }
+
+        return response;
+    }
+
+    /**
+     * Build a 'precondition failed' (412) response.
+     * 
+     * @return
+     */
+    public Response preconditionFailed() {
+        return Response.status(Status.PRECONDITION_FAILED).build();
+    }
 
     public String scrubCount(final long count) {
         return String.format("{ \"count\": %d }", count);
     }
 
     public Classroom scrubClassroom(final Classroom dirty) {
+        return scrubClassroom(dirty, null);
+    }
+
+    /**
+     * Copy the requested fields of a Classroom.
+     * 
+     * @param dirty
+     * @param fields
+     *            fields to copy, or null to copy everything. The uuid is
+     *            always copied.
+     * @return
+     */
+    public Classroom scrubClassroom(final Classroom dirty, final Set<String> fields) {
         final Classroom clean = new Classroom();
         clean.setUuid(dirty.getUuid());
-        clean.setName(dirty.getName());
-        clean.setVersion(dirty.getVersion());
-        clean.setCreationDate(dirty.getCreationDate());
+        if (includes(fields, "name")) {
+            clean.setName(dirty.getName());
+        }
+        if (includes(fields, "version")) {
+            clean.setVersion(dirty.getVersion());
+        }
+        if (includes(fields, "creationDate")) {
+            clean.setCreationDate(dirty.getCreationDate());
+        }
         // clean.setSelf("resource/" + dirty.getUuid());
         return clean;
     }
 
     public Course scrubCourse(final Course dirty) {
+        return scrubCourse(dirty, null);
+    }
+
+    /**
+     * Copy the requested fields of a Course.
+     * 
+     * @param dirty
+     * @param fields
+     *            fields to copy, or null to copy everything. The uuid is
+     *            always copied.
+     * @return
+     */
+    public Course scrubCourse(final Course dirty, final Set<String> fields) {
         final Course clean = new Course();
         clean.setUuid(dirty.getUuid());
-        clean.setCode(dirty.getCode());
-        clean.setName(dirty.getName());
-        clean.setSummary(dirty.getSummary());
-        clean.setDescription(dirty.getDescription());
-        clean.setCreditHours(dirty.getCreditHours());
-        clean.setVersion(dirty.getVersion());
-        clean.setCreationDate(dirty.getCreationDate());
+        if (includes(fields, "code")) {
+            clean.setCode(dirty.getCode());
+        }
+        if (includes(fields, "name")) {
+            clean.setName(dirty.getName());
+        }
+        if (includes(fields, "summary")) {
+            clean.setSummary(dirty.getSummary());
+        }
+        if (includes(fields, "description")) {
+            clean.setDescription(dirty.getDescription());
+        }
+        if (includes(fields, "creditHours")) {
+            clean.setCreditHours(dirty.getCreditHours());
+        }
+        if (includes(fields, "version")) {
+            clean.setVersion(dirty.getVersion());
+        }
+        if (includes(fields, "creationDate")) {
+            clean.setCreationDate(dirty.getCreationDate());
+        }
         // clean.setSelf("resource/" + dirty.getUuid());
         return clean;
     }
 
     public Instructor scrubInstructor(final Instructor dirty) {
+        return scrubInstructor(dirty, null);
+    }
+
+    /**
+     * Copy the requested fields of a Instructor.
+     * 
+     * @param dirty
+     * @param fields
+     *            fields to copy, or null to copy everything. The uuid is
+     *            always copied.
+     * @return
+     */
+    public Instructor scrubInstructor(final Instructor dirty, final Set<String> fields) {
         final Instructor clean = new Instructor();
         clean.setUuid(dirty.getUuid());
-        clean.setName(dirty.getName());
-        clean.setEmailAddress(dirty.getEmailAddress());
-        clean.setVersion(dirty.getVersion());
-        clean.setCreationDate(dirty.getCreationDate());
+        if (includes(fields, "name")) {
+            clean.setName(dirty.getName());
+        }
+        if (includes(fields, "emailAddress")) {
+            clean.setEmailAddress(dirty.getEmailAddress());
+        }
+        if (includes(fields, "version")) {
+            clean.setVersion(dirty.getVersion());
+        }
+        if (includes(fields, "creationDate")) {
+            clean.setCreationDate(dirty.getCreationDate());
+        }
         // clean.setSelf("resource/" + dirty.getUuid());
         return clean;
     }
 
     public Section scrubSection(final Section dirty) {
+        return scrubSection(dirty, null);
+    }
+
+    /**
+     * Copy the requested fields of a Section.
+     * 
+     * @param dirty
+     * @param fields
+     *            fields to copy, or null to copy everything. The uuid is
+     *            always copied.
+     * @return
+     */
+    public Section scrubSection(final Section dirty, final Set<String> fields) {
         final Section clean = new Section();
         clean.setUuid(dirty.getUuid());
-        clean.setName(dirty.getName());
-        clean.setVersion(dirty.getVersion());
-        clean.setCreationDate(dirty.getCreationDate());
+        if (includes(fields, "name")) {
+            clean.setName(dirty.getName());
+        }
+        if (includes(fields, "version")) {
+            clean.setVersion(dirty.getVersion());
+        }
+        if (includes(fields, "creationDate")) {
+            clean.setCreationDate(dirty.getCreationDate());
+        }
         // clean.setSelf("resource/" + dirty.getUuid());
         return clean;
     }
 
+    /**
+     * Copy a Section with summaries of its course, students and classrooms.
+     * 
+     * @param dirty
+     * @return
+     */
+    public Section scrubSectionRoster(final Section dirty) {
+        final Section clean = scrubSection(dirty);
+        if (dirty.getCourse() != null) {
+            clean.setCourse(scrubCourse(dirty.getCourse(), ROSTER_COURSE_FIELDS));
+        }
+        for (Student student : dirty.getStudents()) {
+            clean.getStudents().add(scrubStudent(student, ROSTER_STUDENT_FIELDS));
+        }
+        for (Classroom classroom : dirty.getClassrooms()) {
+            clean.getClassrooms().add(scrubClassroom(classroom));
+        }
+        return clean;
+    }
+
     public Student scrubStudent(final Student dirty) {
+        return scrubStudent(dirty, null);
+    }
+
+    /**
+     * Copy the requested fields of a Student.
+     * 
+     * @param dirty
+     * @param fields
+     *            fields to copy, or null to copy everything. The uuid is
+     *            always copied.
+     * @return
+     */
+    public Student scrubStudent(final Student dirty, final Set<String> fields) {
         final Student clean = new Student();
         clean.setUuid(dirty.getUuid());
-        clean.setName(dirty.getName());
-        clean.setEmailAddress(dirty.getEmailAddress());
-        clean.setVersion(dirty.getVersion());
-        clean.setCreationDate(dirty.getCreationDate());
+        if (includes(fields, "name")) {
+            clean.setName(dirty.getName());
+        }
+        if (includes(fields, "emailAddress")) {
+            clean.setEmailAddress(dirty.getEmailAddress());
+        }
+        if (includes(fields, "version")) {
+            clean.setVersion(dirty.getVersion());
+        }
+        if (includes(fields, "creationDate")) {
+            clean.setCreationDate(dirty.getCreationDate());
+        }
         // clean.setSelf("resource/" + dirty.getUuid());
         return clean;
     }
 
     public Term scrubTerm(final Term dirty) {
+        return scrubTerm(dirty, null);
+    }
+
+    /**
+     * Copy the requested fields of a Term.
+     * 
+     * @param dirty
+     * @param fields
+     *            fields to copy, or null to copy everything. The uuid is
+     *            always copied.
+     * @return
+     */
+    public Term scrubTerm(final Term dirty, final Set<String> fields) {
         final Term clean = new Term();
         clean.setUuid(dirty.getUuid());
-        clean.setName(dirty.getName());
-        clean.setVersion(dirty.getVersion());
-        clean.setCreationDate(dirty.getCreationDate());
+        if (includes(fields, "name")) {
+            clean.setName(dirty.getName());
+        }
+        if (includes(fields, "version")) {
+            clean.setVersion(dirty.getVersion());
+        }
+        if (includes(fields, "creationDate")) {
+            clean.setCreationDate(dirty.getCreationDate());
+        }
         // clean.setSelf("resource/" + dirty.getUuid());
         return clean;
     }
 
     public TestRun scrubTestRun(final TestRun dirty) {
+        return scrubTestRun(dirty, null);
+    }
+
+    /**
+     * Copy the requested fields of a TestRun.
+     * 
+     * @param dirty
+     * @param fields
+     *            fields to copy, or null to copy everything. The uuid is
+     *            always copied.
+     * @return
+     */
+    public TestRun scrubTestRun(final TestRun dirty, final Set<String> fields) {
         final TestRun clean = new TestRun();
         clean.setUuid(dirty.getUuid());
-        clean.setName(dirty.getName());
-        clean.setVersion(dirty.getVersion());
-        clean.setCreationDate(dirty.getCreationDate());
+        if (includes(fields, "name")) {
+            clean.setName(dirty.getName());
+        }
+        if (includes(fields, "version")) {
+            clean.setVersion(dirty.getVersion());
+        }
+        if (includes(fields, "creationDate")) {
+            clean.setCreationDate(dirty.getCreationDate());
+        }
         // clean.setSelf("resource/" + dirty.getUuid());
         return clean;
     }
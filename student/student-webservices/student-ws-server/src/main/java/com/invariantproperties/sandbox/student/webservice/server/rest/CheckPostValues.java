@@ -125,7 +125,7 @@ public class CheckPostValues {
      * @return
      * @throws Throwable
      */
-    @Around("target(com.invariantproperties.sandbox.student.webservice.server.rest.AbstractResource) && args(uuid,version) && execution(* *.delete*(..))")
+    @Around("target(com.invariantproperties.sandbox.student.webservice.server.rest.AbstractResource) && args(uuid,version,..) && execution(* *.delete*(..))")
     public Object checkParametersDelete(ProceedingJoinPoint pjp, String uuid, Integer version) throws Throwable {
         final Logger log = Logger.getLogger(pjp.getSignature().getDeclaringType());
         final String name = pjp.getSignature().getName();
@@ -24,26 +24,38 @@ package com.invariantproperties.sandbox.student.webservice.server.rest;
 
 import java.net.URI;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
 
 import javax.annotation.Resource;
 import javax.ws.rs.Consumes;
 import javax.ws.rs.DELETE;
 import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.ResponseBuilder;
 import javax.ws.rs.core.Response.Status;
 import javax.ws.rs.core.UriInfo;
 
 import org.apache.log4j.Logger;
 import org.springframework.stereotype.Service;
 
+import com.invariantproperties.sandbox.student.business.KeysetPage;
+import com.invariantproperties.sandbox.student.business.MultiGetResult;
+import com.invariantproperties.sandbox.student.business.NameMatch;
 import com.invariantproperties.sandbox.student.business.CourseFinderService;
 import com.invariantproperties.sandbox.student.business.CourseManagerService;
 import com.invariantproperties.sandbox.student.business.ObjectNotFoundException;
@@ -56,6 +68,10 @@ import com.invariantproperties.sandbox.student.domain.TestRun;
 public class CourseResource extends AbstractResource {
     private static final Logger LOG = Logger.getLogger(CourseResource.class);
     private static final Course[] EMPTY_COURSE_ARRAY = new Course[0];
+    private static final Set<String> SORTABLE = Collections.unmodifiableSet(new HashSet<String>(Arrays.asList(
+            "name", "code", "creationDate")));
+    private static final Set<String> FIELDS = fieldSet("code", "name", "summary", "description", "creditHours");
+    private static final Set<String> SUMMARY = fieldSet("code", "name");
 
     @Context
     UriInfo uriInfo;
@@ -92,22 +108,161 @@ public class CourseResource extends AbstractResource {
         this.testRunService = testRunService;
     }
 
+    void setRequest(Request request) {
+        this.request = request;
+    }
+
     /**
-     * Get all Courses.
+     * Get a page of Courses. The page is selected by the 'after' (cursor for the
+     * last course on the previous page), 'limit' and 'sort' query parameters.
+     * A 'Link' header with rel="next" is added if there may be more courses.
+     * 
+     * The page has an entity tag (ETag) derived from the uuid and version of
+     * each object so polling clients can use a conditional GET
+     * (If-None-Match) and get a 304 (Not Modified) if nothing has changed.
+     * 
+     * If 'testUuid' is specified only the courses belonging to that test run
+     * are returned. If 'countOnly' is true only the number of courses is
+     * returned.
+     * 
+     * The 'fields' query parameter selects the properties that are read from
+     * the database and returned.
+     * 
+     * If 'stream' is true every course is returned, written to the response as it
+     * is read from the database. The paging and name search parameters are
+     * ignored. This is intended for exports.
+     * 
+     * If one or more 'uuid' query parameters are specified the courses with
+     * those uuids are returned instead, in the same order. The uuids that were
+     * not found are listed in the X-Missing-Uuids header.
      * 
+     * If 'name' is specified only the courses whose name starts with (or
+     * contains, if 'match' is 'substring') the search term are returned. The
+     * results are sorted by name, with the prefix matches first, and the
+     * 'sort' query parameter only selects the direction. A substring search
+     * term must have at least NameMatch.MIN_SUBSTRING_LENGTH characters.
+     * 
+     * @param after
+     * @param limit
+     * @param sort
+     *            property name, prefixed by '-' for descending order
+     * @param fields
+     *            comma-separated list of fields to return, or '*' for all
+     *            fields. Only the summary fields are returned by default.
+     * @param countOnly
+     * @param testUuid
+     * @param uuids
+     * @param name
+     *            search term for a case-insensitive name search
+     * @param match
+     *            'prefix' (default) or 'substring'
+     * @param stream
      * @return
      */
     @GET
     @Produces({ MediaType.APPLICATION_JSON, MediaType.TEXT_XML })
-    public Response findAllCourses() {
-        final List<Course> courses = finder.findAllCourses();
+    public Response findAllCourses(@QueryParam("after") String after, @QueryParam("limit") Integer limit,
+            @QueryParam("sort") String sort, @QueryParam("fields") String fields,
+            @QueryParam("countOnly") boolean countOnly,
+            @QueryParam("testUuid") String testUuid, @QueryParam("uuid") List<String> uuids,
+            @QueryParam("name") String name, @QueryParam("match") String match,
+            @QueryParam("stream") boolean stream) {
+        Response response = null;
+
+        TestRun testRun = null;
+        if (testUuid != null) {
+            // 'object not found' handled by AOP
+            testRun = testRunService.findTestRunByUuid(testUuid);
+        }
 
-        final List<Course> results = new ArrayList<Course>(courses.size());
-        for (Course course : courses) {
-            results.add(scrubCourse(course));
+        if (uuids != null && !uuids.isEmpty()) {
+            response = findCoursesByUuid(uuids, fields);
+        } else if (countOnly) {
+            final long count = count(finder, testRun);
+            response = Response.ok(scrubCount(count), MediaType.APPLICATION_JSON_TYPE).build();
+        } else {
+            final KeysetPage parsed = parsePage(after, limit, sort, fields, SORTABLE, FIELDS, SUMMARY);
+            // name searches are sorted by name so the 'next' cursor holds the name.
+            final KeysetPage page = (parsed == null || name == null) ? parsed : parsed.sortedBy("name");
+            final NameMatch nameMatch = parseNameMatch(match);
+            if (page == null) {
+                response = Response.status(Status.BAD_REQUEST).entity("invalid paging parameters").build();
+            } else if (nameMatch == null) {
+                response = Response.status(Status.BAD_REQUEST).entity("invalid match parameter").build();
+            } else if (name != null && !nameMatch.accepts(name)) {
+                response = Response.status(Status.BAD_REQUEST).entity("name is too short for a substring search")
+                        .build();
+            } else if (stream) {
+                response = stream(finder, testRun, page.getFields(), FIELDS);
+            } else {
+                List<Course> courses = null;
+                if (name != null) {
+                    courses = findByName(name, nameMatch, testRun, page);
+                } else {
+                    courses = findPage(finder, testRun, page);
+                }
+
+                final EntityTag tag = entityTag(courses);
+                ResponseBuilder builder = evaluatePreconditions(request, tag);
+                if (builder == null) {
+                    final List<Course> results = new ArrayList<Course>(courses.size());
+                    for (Course course : courses) {
+                        results.add(scrubCourse(course, page.getFields()));
+                    }
+                    builder = Response.ok(results.toArray(EMPTY_COURSE_ARRAY)).tag(tag);
+                }
+                response = addNextLink(builder, uriInfo, page.next(courses)).build();
+            }
         }
 
-        final Response response = Response.ok(results.toArray(EMPTY_COURSE_ARRAY)).build();
+        return response;
+    }
+
+    /**
+     * Search the course names using the ServiceExecutor.
+     * 
+     * @param name
+     * @param nameMatch
+     * @param testRun
+     * @param page
+     * @return
+     */
+    private List<Course> findByName(final String name, final NameMatch nameMatch, final TestRun testRun,
+            final KeysetPage page) {
+        return call(new Callable<List<Course>>() {
+            @Override
+            public List<Course> call() {
+                return finder.findCoursesByName(name, nameMatch, testRun, page);
+            }
+        });
+    }
+
+    /**
+     * Get the Courses with the specified uuids, in the same order. All fields
+     * are returned unless 'fields' is specified.
+     * 
+     * @param uuids
+     * @param fields
+     * @return
+     */
+    private Response findCoursesByUuid(List<String> uuids, String fields) {
+        Response response = null;
+
+        // there's no default projection - every field is returned
+        final KeysetPage page = parsePage(null, MAX_LIMIT, null, fields, SORTABLE, FIELDS, null);
+        if (page == null || uuids.size() > MAX_LIMIT) {
+            response = Response.status(Status.BAD_REQUEST).entity("invalid multi-get parameters").build();
+        } else {
+            final MultiGetResult<Course> result = findByUuids(finder, uuids);
+
+            final List<Course> results = new ArrayList<Course>(result.getResults().size());
+            for (Course course : result.getResults()) {
+                results.add(scrubCourse(course, page.getFields()));
+            }
+
+            final ResponseBuilder builder = Response.ok(results.toArray(EMPTY_COURSE_ARRAY));
+            response = addMissingHeader(builder, result).build();
+        }
 
         return response;
     }
@@ -144,7 +299,8 @@ public class CourseResource extends AbstractResource {
         if (course == null) {
             response = Response.status(Status.INTERNAL_SERVER_ERROR).build();
         } else {
-            response = Response.created(URI.create(course.getUuid())).entity(scrubCourse(course)).build();
+            response = Response.created(URI.create(course.getUuid())).entity(scrubCourse(course))
+                    .tag(entityTag(course)).build();
         }
 
         return response;
@@ -153,6 +309,9 @@ public class CourseResource extends AbstractResource {
     /**
      * Get a specific Course.
      * 
+     * The response has an entity tag (ETag) and a conditional GET
+     * (If-None-Match) of an unchanged course is answered with 304 (Not Modified).
+     * 
      * @param uuid
      * @return
      */
@@ -161,9 +320,19 @@ public class CourseResource extends AbstractResource {
     @Produces({ MediaType.APPLICATION_JSON, MediaType.TEXT_XML })
     public Response getCourse(@PathParam("courseId") String id) {
 
-        // 'object not found' handled by AOP
-        Course course = finder.findCourseByUuid(id);
-        final Response response = Response.ok(scrubCourse(course)).build();
+        Response response = null;
+
+        final Course course = findByUuidOrNull(finder, id);
+        if (course == null) {
+            response = notFound();
+        } else {
+            final EntityTag tag = entityTag(course);
+            ResponseBuilder builder = evaluatePreconditions(request, tag);
+            if (builder == null) {
+                builder = Response.ok(scrubCourse(course)).tag(tag);
+            }
+            response = builder.build();
+        }
 
         return response;
     }
@@ -175,21 +344,42 @@ public class CourseResource extends AbstractResource {
      * 
      * @param id
      * @param req
+     * @param ifMatch
+     *            if present the course is only updated if it still has this
+     *            entity tag. The update is a single statement and the response
+     *            is 204 (No Content) with the new entity tag, or 412
+     *            (Precondition Failed).
      * @return
      */
     @Path("/{courseId}")
     @POST
     @Consumes({ MediaType.APPLICATION_JSON, MediaType.TEXT_XML })
     @Produces({ MediaType.APPLICATION_JSON, MediaType.TEXT_XML })
-    public Response updateCourse(@PathParam("courseId") String id, CourseInfoRTO req) {
+    public Response updateCourse(@PathParam("courseId") String id, CourseInfoRTO req,
+            @HeaderParam("If-Match") String ifMatch) {
 
         final String name = req.getName();
 
-        // 'object not found' handled by AOP
-        final Course course = finder.findCourseByUuid(id);
-        final Course updatedCourse = manager.updateCourse(course, name, req.getSummary(), req.getDescription(),
-                req.getCreditHours());
-        final Response response = Response.ok(scrubCourse(updatedCourse)).build();
+        Response response = null;
+
+        if (isConditional(ifMatch)) {
+            final Course changes = new Course();
+            changes.setUuid(id);
+            changes.setName(name);
+            changes.setSummary(req.getSummary());
+            changes.setDescription(req.getDescription());
+            changes.setCreditHours(req.getCreditHours());
+            response = updateIfMatch(manager, changes, ifMatch);
+        } else {
+            final Course course = finder.findByUuidOrNull(id);
+            if (course == null) {
+                response = notFound();
+            } else {
+                final Course updatedCourse = manager.updateCourse(course, name, req.getSummary(), req.getDescription(),
+                        req.getCreditHours());
+                response = Response.ok(scrubCourse(updatedCourse)).tag(entityTag(updatedCourse)).build();
+            }
+        }
 
         return response;
     }
@@ -198,20 +388,34 @@ public class CourseResource extends AbstractResource {
      * Delete a Course.
      * 
      * @param id
+     * @param version
+     *            if present the course is only deleted if it still has this
+     *            version, otherwise the response is 409 (Conflict)
+     * @param ifMatch
+     *            if present the course is only deleted if it still has this
+     *            entity tag, otherwise the response is 412 (Precondition
+     *            Failed)
      * @return
      */
     @Path("/{courseId}")
     @DELETE
-    public Response deleteCourse(@PathParam("courseId") String id, @PathParam("version") Integer version) {
+    public Response deleteCourse(@PathParam("courseId") String id, @QueryParam("version") Integer version,
+            @HeaderParam("If-Match") String ifMatch) {
 
-        // we don't use AOP handler since it's okay for there to be no match
-        try {
-            manager.deleteCourse(id, version);
-        } catch (ObjectNotFoundException exception) {
-            LOG.debug("course not found: " + id);
-        }
+        Response response = null;
+
+        if (isConditional(ifMatch)) {
+            response = deleteIfMatch(manager, id, ifMatch);
+        } else {
+            // we don't use AOP handler since it's okay for there to be no match
+            try {
+                manager.deleteCourse(id, version);
+            } catch (ObjectNotFoundException exception) {
+                LOG.debug("course not found: " + id);
+            }
 
-        final Response response = Response.noContent().build();
+            response = Response.noContent().build();
+        }
 
         return response;
     }
@@ -0,0 +1,205 @@
+/*
+ * This code was written by Bear Giles <bgiles@coyotesong.com> and he
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Any contributions made by others are licensed to this project under
+ * one or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright (c) 2013 Bear Giles <bgiles@coyotesong.com>
+ */
+package com.invariantproperties.sandbox.student.webservice.server.rest;
+
+import java.beans.PropertyDescriptor;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import javax.ws.rs.core.StreamingOutput;
+import javax.xml.bind.DatatypeConverter;
+
+import org.codehaus.jackson.JsonEncoding;
+import org.codehaus.jackson.JsonFactory;
+import org.codehaus.jackson.JsonGenerator;
+import org.springframework.beans.BeanUtils;
+
+import com.invariantproperties.sandbox.student.business.FinderService;
+import com.invariantproperties.sandbox.student.business.ObjectHandler;
+import com.invariantproperties.sandbox.student.domain.PersistentObject;
+import com.invariantproperties.sandbox.student.domain.TestRun;
+
+/**
+ * Writes every object of a type as a JSON array, straight from the finder's
+ * database cursor to the response. Each object is written as it's read and
+ * nothing is accumulated so memory use doesn't depend on the number of
+ * objects. The requested fields are read from the entity directly - there's
+ * no scrubbed copy.
+ * 
+ * The query runs when Jersey writes the response, after the resource method
+ * has returned. If it fails the status has already been sent so the client
+ * sees a truncated document.
+ * 
+ * @author Bear Giles <bgiles@coyotesong.com>
+ * 
+ * @param <T>
+ */
+public class JsonArrayStreamingOutput<T extends PersistentObject> implements StreamingOutput {
+    public static final int FETCH_SIZE = 500;
+    private static final JsonFactory FACTORY = new JsonFactory();
+
+    private final FinderService<T> finder;
+    private final TestRun testRun;
+    private final Set<String> fields;
+    private Class<?> getterClass;
+    private Map<String, Method> getters;
+
+    /**
+     * Constructor.
+     * 
+     * @param finder
+     * @param testRun
+     *            test run, or null for objects that aren't test data
+     * @param fields
+     *            fields to write. The uuid is always written.
+     */
+    public JsonArrayStreamingOutput(FinderService<T> finder, TestRun testRun, Set<String> fields) {
+        this.finder = finder;
+        this.testRun = testRun;
+        this.fields = fields;
+    }
+
+    /**
+     * Wraps an IOException so it can be thrown from an ObjectHandler.
+     */
+    private static class WriteException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        WriteException(IOException e) {
+            super(e);
+        }
+    }
+
+    /**
+     * @see javax.ws.rs.core.StreamingOutput#write(java.io.OutputStream)
+     */
+    @Override
+    public void write(OutputStream out) throws IOException {
+        final JsonGenerator generator = FACTORY.createJsonGenerator(out, JsonEncoding.UTF8);
+        final ObjectHandler<T> handler = new ObjectHandler<T>() {
+            @Override
+            public void handle(T object) {
+                try {
+                    writeObject(generator, object);
+                } catch (IOException e) {
+                    throw new WriteException(e);
+                }
+            }
+        };
+
+        generator.writeStartArray();
+        try {
+            if (testRun == null) {
+                finder.forEach(handler, FETCH_SIZE);
+            } else {
+                finder.forEachByTestRun(testRun, handler, FETCH_SIZE);
+            }
+        } catch (WriteException e) {
+            throw (IOException) e.getCause();
+        }
+        generator.writeEndArray();
+        generator.flush();
+    }
+
+    /**
+     * Write the requested fields of a single object.
+     * 
+     * @param generator
+     * @param object
+     * @throws IOException
+     */
+    void writeObject(JsonGenerator generator, T object) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("uuid", object.getUuid());
+        for (Map.Entry<String, Method> entry : getters(object.getClass()).entrySet()) {
+            if (!"uuid".equals(entry.getKey())) {
+                generator.writeFieldName(entry.getKey());
+                writeValue(generator, invoke(entry.getValue(), object));
+            }
+        }
+        generator.writeEndObject();
+    }
+
+    /**
+     * Write a property value. Dates use the same format as JAXB.
+     * 
+     * @param generator
+     * @param value
+     * @throws IOException
+     */
+    static void writeValue(JsonGenerator generator, Object value) throws IOException {
+        if (value == null) {
+            generator.writeNull();
+        } else if (value instanceof Integer || value instanceof Long) {
+            generator.writeNumber(((Number) value).longValue());
+        } else if (value instanceof Number) {
+            generator.writeNumber(((Number) value).doubleValue());
+        } else if (value instanceof Boolean) {
+            generator.writeBoolean((Boolean) value);
+        } else if (value instanceof Date) {
+            final Calendar calendar = Calendar.getInstance();
+            calendar.setTime((Date) value);
+            generator.writeString(DatatypeConverter.printDateTime(calendar));
+        } else {
+            generator.writeString(value.toString());
+        }
+    }
+
+    /**
+     * Get the getters for the requested fields. They're looked up when the
+     * first object is written.
+     * 
+     * @param clazz
+     * @return
+     */
+    private Map<String, Method> getters(Class<?> clazz) {
+        if (clazz != getterClass) {
+            getters = new LinkedHashMap<String, Method>();
+            for (String field : fields) {
+                final PropertyDescriptor pd = BeanUtils.getPropertyDescriptor(clazz, field);
+                if (pd != null && pd.getReadMethod() != null) {
+                    getters.put(field, pd.getReadMethod());
+                }
+            }
+            getterClass = clazz;
+        }
+        return getters;
+    }
+
+    private static Object invoke(Method getter, Object object) throws IOException {
+        try {
+            return getter.invoke(object);
+        } catch (IllegalAccessException e) {
+            throw new IOException(e);
+        } catch (InvocationTargetException e) {
+            throw new IOException(e.getCause());
+        }
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * This code was written by Bear Giles <bgiles@coyotesong.com> and he
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Any contributions made by others are licensed to this project under
+ * one or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright (c) 2013 Bear Giles <bgiles@coyotesong.com>
+ */
+package com.invariantproperties.sandbox.student.webservice.server.rest;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Resource;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
+import javax.ws.rs.core.UriInfo;
+
+import org.springframework.stereotype.Service;
+
+import com.invariantproperties.sandbox.student.business.SearchHit;
+import com.invariantproperties.sandbox.student.business.SearchService;
+
+@Service
+@Path("/search")
+public class SearchResource extends AbstractResource {
+    private static final SearchHit[] EMPTY_SEARCH_HIT_ARRAY = new SearchHit[0];
+    private static final Map<String, String> TYPES;
+
+    static {
+        final Map<String, String> types = new HashMap<String, String>();
+        types.put("course", "Course");
+        types.put("instructor", "Instructor");
+        types.put("student", "Student");
+        TYPES = Collections.unmodifiableMap(types);
+    }
+
+    @Context
+    UriInfo uriInfo;
+
+    @Context
+    Request request;
+
+    @Resource
+    private SearchService service;
+
+    /**
+     * Default constructor.
+     */
+    public SearchResource() {
+
+    }
+
+    /**
+     * Set values used in unit tests. (Required due to AOP)
+     * 
+     * @param service
+     */
+    void setServices(SearchService service) {
+        this.service = service;
+    }
+
+    /**
+     * Search the course, student and instructor names and the course
+     * descriptions. The results contain the type, uuid and title of each
+     * matching object, best matches first. The objects themselves can be
+     * retrieved from the corresponding resource.
+     * 
+     * @param query
+     *            words to search for. Every word must match.
+     * @param limit
+     *            maximum number of results
+     * @param type
+     *            'course', 'student' or 'instructor' to limit the search to
+     *            one type of object
+     * @return
+     */
+    @GET
+    @Produces({ MediaType.APPLICATION_JSON, MediaType.TEXT_XML })
+    public Response search(@QueryParam("q") String query, @QueryParam("limit") Integer limit,
+            @QueryParam("type") String type) {
+        Response response = null;
+
+        String typeName = null;
+        if (type != null) {
+            typeName = TYPES.get(type);
+        }
+
+        if (query == null || query.trim().isEmpty()) {
+            response = Response.status(Status.BAD_REQUEST).entity("missing query").build();
+        } else if (limit != null && limit <= 0) {
+            response = Response.status(Status.BAD_REQUEST).entity("invalid limit parameter").build();
+        } else if (type != null && typeName == null) {
+            response = Response.status(Status.BAD_REQUEST).entity("invalid type parameter").build();
+        } else {
+            final int maxResults = (limit == null) ? DEFAULT_LIMIT : Math.min(limit, MAX_LIMIT);
+            final List<SearchHit> hits = service.search(query, typeName, maxResults);
+            response = Response.ok(hits.toArray(EMPTY_SEARCH_HIT_ARRAY)).build();
+        }
+
+        return response;
+    }
+}
@@ -24,26 +24,36 @@ package com.invariantproperties.sandbox.student.webservice.server.rest;
 
 import java.net.URI;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import javax.annotation.Resource;
 import javax.ws.rs.Consumes;
 import javax.ws.rs.DELETE;
 import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.ResponseBuilder;
 import javax.ws.rs.core.Response.Status;
 import javax.ws.rs.core.UriInfo;
 
 import org.apache.log4j.Logger;
 import org.springframework.stereotype.Service;
 
+import com.invariantproperties.sandbox.student.business.KeysetPage;
+import com.invariantproperties.sandbox.student.business.MultiGetResult;
 import com.invariantproperties.sandbox.student.business.ObjectNotFoundException;
 import com.invariantproperties.sandbox.student.business.SectionFinderService;
 import com.invariantproperties.sandbox.student.business.SectionManagerService;
@@ -56,6 +66,10 @@ import com.invariantproperties.sandbox.student.domain.TestRun;
 public class SectionResource extends AbstractResource {
     private static final Logger LOG = Logger.getLogger(SectionResource.class);
     private static final Section[] EMPTY_SECTION_ARRAY = new Section[0];
+    private static final Set<String> SORTABLE = Collections.unmodifiableSet(new HashSet<String>(Arrays.asList(
+            "name", "creationDate")));
+    private static final Set<String> FIELDS = fieldSet("name");
+    private static final Set<String> SUMMARY = fieldSet("name");
 
     @Context
     UriInfo uriInfo;
@@ -93,22 +107,113 @@ public class SectionResource extends AbstractResource {
     }
 
     /**
-     * Get all Sections.
+     * Get a page of Sections. The page is selected by the 'after' (cursor for the
+     * last section on the previous page), 'limit' and 'sort' query parameters.
+     * A 'Link' header with rel="next" is added if there may be more sections.
      * 
+     * The page has an entity tag (ETag) derived from the uuid and version of
+     * each object so polling clients can use a conditional GET
+     * (If-None-Match) and get a 304 (Not Modified) if nothing has changed.
+     * 
+     * If 'testUuid' is specified only the sections belonging to that test run
+     * are returned. If 'countOnly' is true only the number of sections is
+     * returned.
+     * 
+     * The 'fields' query parameter selects the properties that are read from
+     * the database and returned.
+     * 
+     * If 'stream' is true every section is returned, written to the response as it
+     * is read from the database. The paging and name search parameters are
+     * ignored. This is intended for exports.
+     * 
+     * If one or more 'uuid' query parameters are specified the sections with
+     * those uuids are returned instead, in the same order. The uuids that were
+     * not found are listed in the X-Missing-Uuids header.
+     * 
+     * @param after
+     * @param limit
+     * @param sort
+     *            property name, prefixed by '-' for descending order
+     * @param fields
+     *            comma-separated list of fields to return, or '*' for all
+     *            fields. Only the summary fields are returned by default.
+     * @param countOnly
+     * @param testUuid
+     * @param uuids
+     * @param stream
      * @return
      */
     @GET
     @Produces({ MediaType.APPLICATION_JSON, MediaType.TEXT_XML })
-    public Response findAllSections() {
+    public Response findAllSections(@QueryParam("after") String after, @QueryParam("limit") Integer limit,
+            @QueryParam("sort") String sort, @QueryParam("fields") String fields,
+            @QueryParam("countOnly") boolean countOnly,
+            @QueryParam("testUuid") String testUuid, @QueryParam("uuid") List<String> uuids,
+            @QueryParam("stream") boolean stream) {
+        Response response = null;
 
-        List<Section> sections = finder.findAllSections();
+        TestRun testRun = null;
+        if (testUuid != null) {
+            // 'object not found' handled by AOP
+            testRun = testService.findTestRunByUuid(testUuid);
+        }
 
-        List<Section> results = new ArrayList<Section>(sections.size());
-        for (Section section : sections) {
-            results.add(scrubSection(section));
+        if (uuids != null && !uuids.isEmpty()) {
+            response = findSectionsByUuid(uuids, fields);
+        } else if (countOnly) {
+            final long count = count(finder, testRun);
+            response = Response.ok(scrubCount(count), MediaType.APPLICATION_JSON_TYPE).build();
+        } else {
+            final KeysetPage page = parsePage(after, limit, sort, fields, SORTABLE, FIELDS, SUMMARY);
+            if (page == null) {
+                response = Response.status(Status.BAD_REQUEST).entity("invalid paging parameters").build();
+            } else if (stream) {
+                response = stream(finder, testRun, page.getFields(), FIELDS);
+            } else {
+                final List<Section> sections = findPage(finder, testRun, page);
+
+                final EntityTag tag = entityTag(sections);
+                ResponseBuilder builder = evaluatePreconditions(request, tag);
+                if (builder == null) {
+                    final List<Section> results = new ArrayList<Section>(sections.size());
+                    for (Section section : sections) {
+                        results.add(scrubSection(section, page.getFields()));
+                    }
+                    builder = Response.ok(results.toArray(EMPTY_SECTION_ARRAY)).tag(tag);
+                }
+                response = addNextLink(builder, uriInfo, page.next(sections)).build();
+            }
         }
 
-        final Response response = Response.ok(results.toArray(EMPTY_SECTION_ARRAY)).build();
+        return response;
+    }
+
+    /**
+     * Get the Sections with the specified uuids, in the same order. All fields
+     * are returned unless 'fields' is specified.
+     * 
+     * @param uuids
+     * @param fields
+     * @return
+     */
+    private Response findSectionsByUuid(List<String> uuids, String fields) {
+        Response response = null;
+
+        // there's no default projection - every field is returned
+        final KeysetPage page = parsePage(null, MAX_LIMIT, null, fields, SORTABLE, FIELDS, null);
+        if (page == null || uuids.size() > MAX_LIMIT) {
+            response = Response.status(Status.BAD_REQUEST).entity("invalid multi-get parameters").build();
+        } else {
+            final MultiGetResult<Section> result = findByUuids(finder, uuids);
+
+            final List<Section> results = new ArrayList<Section>(result.getResults().size());
+            for (Section section : result.getResults()) {
+                results.add(scrubSection(section, page.getFields()));
+            }
+
+            final ResponseBuilder builder = Response.ok(results.toArray(EMPTY_SECTION_ARRAY));
+            response = addMissingHeader(builder, result).build();
+        }
 
         return response;
     }
@@ -145,7 +250,8 @@ public class SectionResource extends AbstractResource {
         if (section == null) {
             response = Response.status(Status.INTERNAL_SERVER_ERROR).build();
         } else {
-            response = Response.created(URI.create(section.getUuid())).entity(scrubSection(section)).build();
+            response = Response.created(URI.create(section.getUuid())).entity(scrubSection(section))
+                    .tag(entityTag(section)).build();
         }
 
         return response;
@@ -154,6 +260,9 @@ public class SectionResource extends AbstractResource {
     /**
      * Get a specific Section.
      * 
+     * The response has an entity tag (ETag) and a conditional GET
+     * (If-None-Match) of an unchanged section is answered with 304 (Not Modified).
+     * 
      * @param uuid
      * @return
      */
@@ -162,9 +271,36 @@ public class SectionResource extends AbstractResource {
     @Produces({ MediaType.APPLICATION_JSON, MediaType.TEXT_XML })
     public Response getSection(@PathParam("sectionId") String id) {
 
-        // 'object not found' handled by AOP
-        Section section = finder.findSectionByUuid(id);
-        final Response response = Response.ok(scrubSection(section)).build();
+        Response response = null;
+
+        final Section section = findByUuidOrNull(finder, id);
+        if (section == null) {
+            response = notFound();
+        } else {
+            final EntityTag tag = entityTag(section);
+            ResponseBuilder builder = evaluatePreconditions(request, tag);
+            if (builder == null) {
+                builder = Response.ok(scrubSection(section)).tag(tag);
+            }
+            response = builder.build();
+        }
+
+        return response;
+    }
+
+    /**
+     * Get a specific Section with its course, students and classrooms.
+     * 
+     * @param uuid
+     * @return
+     */
+    @Path("/{sectionId}/roster")
+    @GET
+    @Produces({ MediaType.APPLICATION_JSON, MediaType.TEXT_XML })
+    public Response getSectionRoster(@PathParam("sectionId") String id) {
+
+        final Section section = finder.findSectionRosterByUuid(id);
+        final Response response = Response.ok(scrubSectionRoster(section)).build();
 
         return response;
     }
@@ -176,20 +312,38 @@ public class SectionResource extends AbstractResource {
      * 
      * @param id
      * @param req
+     * @param ifMatch
+     *            if present the section is only updated if it still has this
+     *            entity tag. The update is a single statement and the response
+     *            is 204 (No Content) with the new entity tag, or 412
+     *            (Precondition Failed).
      * @return
      */
     @Path("/{sectionId}")
     @POST
     @Consumes({ MediaType.APPLICATION_JSON, MediaType.TEXT_XML })
     @Produces({ MediaType.APPLICATION_JSON, MediaType.TEXT_XML })
-    public Response updateSection(@PathParam("sectionId") String id, NameRTO req) {
+    public Response updateSection(@PathParam("sectionId") String id, NameRTO req,
+            @HeaderParam("If-Match") String ifMatch) {
 
         final String name = req.getName();
 
-        // 'object not found' handled by AOP
-        final Section section = finder.findSectionByUuid(id);
-        final Section updatedSection = manager.updateSection(section, name);
-        final Response response = Response.ok(scrubSection(updatedSection)).build();
+        Response response = null;
+
+        if (isConditional(ifMatch)) {
+            final Section changes = new Section();
+            changes.setUuid(id);
+            changes.setName(name);
+            response = updateIfMatch(manager, changes, ifMatch);
+        } else {
+            final Section section = finder.findByUuidOrNull(id);
+            if (section == null) {
+                response = notFound();
+            } else {
+                final Section updatedSection = manager.updateSection(section, name);
+                response = Response.ok(scrubSection(updatedSection)).tag(entityTag(updatedSection)).build();
+            }
+        }
 
         return response;
     }
@@ -198,20 +352,34 @@ public class SectionResource extends AbstractResource {
      * Delete a Section.
      * 
      * @param id
+     * @param version
+     *            if present the section is only deleted if it still has this
+     *            version, otherwise the response is 409 (Conflict)
+     * @param ifMatch
+     *            if present the section is only deleted if it still has this
+     *            entity tag, otherwise the response is 412 (Precondition
+     *            Failed)
      * @return
      */
     @Path("/{sectionId}")
     @DELETE
-    public Response deleteSection(@PathParam("sectionId") String id, @PathParam("version") Integer version) {
+    public Response deleteSection(@PathParam("sectionId") String id, @QueryParam("version") Integer version,
+            @HeaderParam("If-Match") String ifMatch) {
 
-        // we don't use AOP handler since it's okay for there to be no match
-        try {
-            manager.deleteSection(id, version);
-        } catch (ObjectNotFoundException exception) {
-            LOG.debug("section not found: " + id);
-        }
+        Response response = null;
+
+        if (isConditional(ifMatch)) {
+            response = deleteIfMatch(manager, id, ifMatch);
+        } else {
+            // we don't use AOP handler since it's okay for there to be no match
+            try {
+                manager.deleteSection(id, version);
+            } catch (ObjectNotFoundException exception) {
+                LOG.debug("section not found: " + id);
+            }
 
-        final Response response = Response.noContent().build();
+            response = Response.noContent().build();
+        }
 
         return response;
     }
@@ -24,26 +24,38 @@ package com.invariantproperties.sandbox.student.webservice.server.rest;
 
 import java.net.URI;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
 
 import javax.annotation.Resource;
 import javax.ws.rs.Consumes;
 import javax.ws.rs.DELETE;
 import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.ResponseBuilder;
 import javax.ws.rs.core.Response.Status;
 import javax.ws.rs.core.UriInfo;
 
 import org.apache.log4j.Logger;
 import org.springframework.stereotype.Service;
 
+import com.invariantproperties.sandbox.student.business.KeysetPage;
+import com.invariantproperties.sandbox.student.business.MultiGetResult;
+import com.invariantproperties.sandbox.student.business.NameMatch;
 import com.invariantproperties.sandbox.student.business.ObjectNotFoundException;
 import com.invariantproperties.sandbox.student.business.StudentFinderService;
 import com.invariantproperties.sandbox.student.business.StudentManagerService;
@@ -56,6 +68,10 @@ import com.invariantproperties.sandbox.student.domain.TestRun;
 public class StudentResource extends AbstractResource {
     private static final Logger LOG = Logger.getLogger(StudentResource.class);
     private static final Student[] EMPTY_STUDENT_ARRAY = new Student[0];
+    private static final Set<String> SORTABLE = Collections.unmodifiableSet(new HashSet<String>(Arrays.asList(
+            "name", "emailAddress", "creationDate")));
+    private static final Set<String> FIELDS = fieldSet("name", "emailAddress");
+    private static final Set<String> SUMMARY = fieldSet("name", "emailAddress");
 
     @Context
     UriInfo uriInfo;
@@ -93,22 +109,156 @@ public class StudentResource extends AbstractResource {
     }
 
     /**
-     * Get all Students.
+     * Get a page of Students. The page is selected by the 'after' (cursor for the
+     * last student on the previous page), 'limit' and 'sort' query parameters.
+     * A 'Link' header with rel="next" is added if there may be more students.
      * 
+     * The page has an entity tag (ETag) derived from the uuid and version of
+     * each object so polling clients can use a conditional GET
+     * (If-None-Match) and get a 304 (Not Modified) if nothing has changed.
+     * 
+     * If 'testUuid' is specified only the students belonging to that test run
+     * are returned. If 'countOnly' is true only the number of students is
+     * returned.
+     * 
+     * The 'fields' query parameter selects the properties that are read from
+     * the database and returned.
+     * 
+     * If 'stream' is true every student is returned, written to the response as it
+     * is read from the database. The paging and name search parameters are
+     * ignored. This is intended for exports.
+     * 
+     * If one or more 'uuid' query parameters are specified the students with
+     * those uuids are returned instead, in the same order. The uuids that were
+     * not found are listed in the X-Missing-Uuids header.
+     * 
+     * If 'name' is specified only the students whose name starts with (or
+     * contains, if 'match' is 'substring') the search term are returned. The
+     * results are sorted by name, with the prefix matches first, and the
+     * 'sort' query parameter only selects the direction. A substring search
+     * term must have at least NameMatch.MIN_SUBSTRING_LENGTH characters.
+     * 
+     * @param after
+     * @param limit
+     * @param sort
+     *            property name, prefixed by '-' for descending order
+     * @param fields
+     *            comma-separated list of fields to return, or '*' for all
+     *            fields. Only the summary fields are returned by default.
+     * @param countOnly
+     * @param testUuid
+     * @param uuids
+     * @param name
+     *            search term for a case-insensitive name search
+     * @param match
+     *            'prefix' (default) or 'substring'
+     * @param stream
      * @return
      */
     @GET
     @Produces({ MediaType.APPLICATION_JSON, MediaType.TEXT_XML })
-    public Response findAllStudents() {
+    public Response findAllStudents(@QueryParam("after") String after, @QueryParam("limit") Integer limit,
+            @QueryParam("sort") String sort, @QueryParam("fields") String fields,
+            @QueryParam("countOnly") boolean countOnly,
+            @QueryParam("testUuid") String testUuid, @QueryParam("uuid") List<String> uuids,
+            @QueryParam("name") String name, @QueryParam("match") String match,
+            @QueryParam("stream") boolean stream) {
+        Response response = null;
 
-        final List<Student> students = finder.findAllStudents();
+        TestRun testRun = null;
+        if (testUuid != null) {
+            // 'object not found' handled by AOP
+            testRun = testService.findTestRunByUuid(testUuid);
+        }
 
-        final List<Student> results = new ArrayList<Student>(students.size());
-        for (Student student : students) {
-            results.add(scrubStudent(student));
+        if (uuids != null && !uuids.isEmpty()) {
+            response = findStudentsByUuid(uuids, fields);
+        } else if (countOnly) {
+            final long count = count(finder, testRun);
+            response = Response.ok(scrubCount(count), MediaType.APPLICATION_JSON_TYPE).build();
+        } else {
+            final KeysetPage parsed = parsePage(after, limit, sort, fields, SORTABLE, FIELDS, SUMMARY);
+            // name searches are sorted by name so the 'next' cursor holds the name.
+            final KeysetPage page = (parsed == null || name == null) ? parsed : parsed.sortedBy("name");
+            final NameMatch nameMatch = parseNameMatch(match);
+            if (page == null) {
+                response = Response.status(Status.BAD_REQUEST).entity("invalid paging parameters").build();
+            } else if (nameMatch == null) {
+                response = Response.status(Status.BAD_REQUEST).entity("invalid match parameter").build();
+            } else if (name != null && !nameMatch.accepts(name)) {
+                response = Response.status(Status.BAD_REQUEST).entity("name is too short for a substring search")
+                        .build();
+            } else if (stream) {
+                response = stream(finder, testRun, page.getFields(), FIELDS);
+            } else {
+                List<Student> students = null;
+                if (name != null) {
+                    students = findByName(name, nameMatch, testRun, page);
+                } else {
+                    students = findPage(finder, testRun, page);
+                }
+
+                final EntityTag tag = entityTag(students);
+                ResponseBuilder builder = evaluatePreconditions(request, tag);
+                if (builder == null) {
+                    final List<Student> results = new ArrayList<Student>(students.size());
+                    for (Student student : students) {
+                        results.add(scrubStudent(student, page.getFields()));
+                    }
+                    builder = Response.ok(results.toArray(EMPTY_STUDENT_ARRAY)).tag(tag);
+                }
+                response = addNextLink(builder, uriInfo, page.next(students)).build();
+            }
         }
 
-        final Response response = Response.ok(results.toArray(EMPTY_STUDENT_ARRAY)).build();
+        return response;
+    }
+
+    /**
+     * Search the student names using the ServiceExecutor.
+     * 
+     * @param name
+     * @param nameMatch
+     * @param testRun
+     * @param page
+     * @return
+     */
+    private List<Student> findByName(final String name, final NameMatch nameMatch, final TestRun testRun,
+            final KeysetPage page) {
+        return call(new Callable<List<Student>>() {
+            @Override
+            public List<Student> call() {
+                return finder.findStudentsByName(name, nameMatch, testRun, page);
+            }
+        });
+    }
+
+    /**
+     * Get the Students with the specified uuids, in the same order. All fields
+     * are returned unless 'fields' is specified.
+     * 
+     * @param uuids
+     * @param fields
+     * @return
+     */
+    private Response findStudentsByUuid(List<String> uuids, String fields) {
+        Response response = null;
+
+        // there's no default projection - every field is returned
+        final KeysetPage page = parsePage(null, MAX_LIMIT, null, fields, SORTABLE, FIELDS, null);
+        if (page == null || uuids.size() > MAX_LIMIT) {
+            response = Response.status(Status.BAD_REQUEST).entity("invalid multi-get parameters").build();
+        } else {
+            final MultiGetResult<Student> result = findByUuids(finder, uuids);
+
+            final List<Student> results = new ArrayList<Student>(result.getResults().size());
+            for (Student student : result.getResults()) {
+                results.add(scrubStudent(student, page.getFields()));
+            }
+
+            final ResponseBuilder builder = Response.ok(results.toArray(EMPTY_STUDENT_ARRAY));
+            response = addMissingHeader(builder, result).build();
+        }
 
         return response;
     }
@@ -147,7 +297,8 @@ public class StudentResource extends AbstractResource {
         if (student == null) {
             response = Response.status(Status.INTERNAL_SERVER_ERROR).build();
         } else {
-            response = Response.created(URI.create(student.getUuid())).entity(scrubStudent(student)).build();
+            response = Response.created(URI.create(student.getUuid())).entity(scrubStudent(student))
+                    .tag(entityTag(student)).build();
         }
 
         return response;
@@ -156,6 +307,9 @@ public class StudentResource extends AbstractResource {
     /**
      * Get a specific Student.
      * 
+     * The response has an entity tag (ETag) and a conditional GET
+     * (If-None-Match) of an unchanged student is answered with 304 (Not Modified).
+     * 
      * @param uuid
      * @return
      */
@@ -164,9 +318,19 @@ public class StudentResource extends AbstractResource {
     @Produces({ MediaType.APPLICATION_JSON, MediaType.TEXT_XML })
     public Response getStudent(@PathParam("studentId") String id) {
 
-        // 'object not found' handled by AOP
-        Student student = finder.findStudentByUuid(id);
-        final Response response = Response.ok(scrubStudent(student)).build();
+        Response response = null;
+
+        final Student student = findByUuidOrNull(finder, id);
+        if (student == null) {
+            response = notFound();
+        } else {
+            final EntityTag tag = entityTag(student);
+            ResponseBuilder builder = evaluatePreconditions(request, tag);
+            if (builder == null) {
+                builder = Response.ok(scrubStudent(student)).tag(tag);
+            }
+            response = builder.build();
+        }
 
         return response;
     }
@@ -178,21 +342,40 @@ public class StudentResource extends AbstractResource {
      * 
      * @param id
      * @param req
+     * @param ifMatch
+     *            if present the student is only updated if it still has this
+     *            entity tag. The update is a single statement and the response
+     *            is 204 (No Content) with the new entity tag, or 412
+     *            (Precondition Failed).
      * @return
      */
     @Path("/{studentId}")
     @POST
     @Consumes({ MediaType.APPLICATION_JSON, MediaType.TEXT_XML })
     @Produces({ MediaType.APPLICATION_JSON, MediaType.TEXT_XML })
-    public Response updateStudent(@PathParam("studentId") String id, NameAndEmailAddressRTO req) {
+    public Response updateStudent(@PathParam("studentId") String id, NameAndEmailAddressRTO req,
+            @HeaderParam("If-Match") String ifMatch) {
 
         final String name = req.getName();
         final String email = req.getEmailAddress();
 
-        // 'object not found' handled by AOP
-        final Student student = finder.findStudentByUuid(id);
-        final Student updatedStudent = manager.updateStudent(student, name, email);
-        final Response response = Response.ok(scrubStudent(updatedStudent)).build();
+        Response response = null;
+
+        if (isConditional(ifMatch)) {
+            final Student changes = new Student();
+            changes.setUuid(id);
+            changes.setName(name);
+            changes.setEmailAddress(email);
+            response = updateIfMatch(manager, changes, ifMatch);
+        } else {
+            final Student student = finder.findByUuidOrNull(id);
+            if (student == null) {
+                response = notFound();
+            } else {
+                final Student updatedStudent = manager.updateStudent(student, name, email);
+                response = Response.ok(scrubStudent(updatedStudent)).tag(entityTag(updatedStudent)).build();
+            }
+        }
 
         return response;
     }
@@ -201,20 +384,34 @@ public class StudentResource extends AbstractResource {
      * Delete a Student.
      * 
      * @param id
+     * @param version
+     *            if present the student is only deleted if it still has this
+     *            version, otherwise the response is 409 (Conflict)
+     * @param ifMatch
+     *            if present the student is only deleted if it still has this
+     *            entity tag, otherwise the response is 412 (Precondition
+     *            Failed)
      * @return
      */
     @Path("/{studentId}")
     @DELETE
-    public Response deleteStudent(@PathParam("studentId") String id, @PathParam("version") Integer version) {
+    public Response deleteStudent(@PathParam("studentId") String id, @QueryParam("version") Integer version,
+            @HeaderParam("If-Match") String ifMatch) {
 
-        // we don't use AOP handler since it's okay for there to be no match
-        try {
-            manager.deleteStudent(id, version);
-        } catch (ObjectNotFoundException exception) {
-            LOG.debug("student not found" + id);
-        }
+        Response response = null;
+
+        if (isConditional(ifMatch)) {
+            response = deleteIfMatch(manager, id, ifMatch);
+        } else {
+            // we don't use AOP handler since it's okay for there to be no match
+            try {
+                manager.deleteStudent(id, version);
+            } catch (ObjectNotFoundException exception) {
+                LOG.debug("student not found" + id);
+            }
 
-        final Response response = Response.noContent().build();
+            response = Response.noContent().build();
+        }
 
         return response;
     }
@@ -24,26 +24,36 @@ package com.invariantproperties.sandbox.student.webservice.server.rest;
 
 import java.net.URI;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import javax.annotation.Resource;
 import javax.ws.rs.Consumes;
 import javax.ws.rs.DELETE;
 import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.ResponseBuilder;
 import javax.ws.rs.core.Response.Status;
 import javax.ws.rs.core.UriInfo;
 
 import org.apache.log4j.Logger;
 import org.springframework.stereotype.Service;
 
+import com.invariantproperties.sandbox.student.business.KeysetPage;
+import com.invariantproperties.sandbox.student.business.MultiGetResult;
 import com.invariantproperties.sandbox.student.business.ObjectNotFoundException;
 import com.invariantproperties.sandbox.student.business.TermFinderService;
 import com.invariantproperties.sandbox.student.business.TermManagerService;
@@ -56,6 +66,10 @@ import com.invariantproperties.sandbox.student.domain.TestRun;
 public class TermResource extends AbstractResource {
     private static final Logger LOG = Logger.getLogger(TermResource.class);
     private static final Term[] EMPTY_TERM_ARRAY = new Term[0];
+    private static final Set<String> SORTABLE = Collections.unmodifiableSet(new HashSet<String>(Arrays.asList(
+            "name", "creationDate")));
+    private static final Set<String> FIELDS = fieldSet("name");
+    private static final Set<String> SUMMARY = fieldSet("name");
 
     @Context
     UriInfo uriInfo;
@@ -93,22 +107,113 @@ public class TermResource extends AbstractResource {
     }
 
     /**
-     * Get all Terms.
+     * Get a page of Terms. The page is selected by the 'after' (cursor for the
+     * last term on the previous page), 'limit' and 'sort' query parameters.
+     * A 'Link' header with rel="next" is added if there may be more terms.
      * 
+     * The page has an entity tag (ETag) derived from the uuid and version of
+     * each object so polling clients can use a conditional GET
+     * (If-None-Match) and get a 304 (Not Modified) if nothing has changed.
+     * 
+     * If 'testUuid' is specified only the terms belonging to that test run
+     * are returned. If 'countOnly' is true only the number of terms is
+     * returned.
+     * 
+     * The 'fields' query parameter selects the properties that are read from
+     * the database and returned.
+     * 
+     * If 'stream' is true every term is returned, written to the response as it
+     * is read from the database. The paging and name search parameters are
+     * ignored. This is intended for exports.
+     * 
+     * If one or more 'uuid' query parameters are specified the terms with
+     * those uuids are returned instead, in the same order. The uuids that were
+     * not found are listed in the X-Missing-Uuids header.
+     * 
+     * @param after
+     * @param limit
+     * @param sort
+     *            property name, prefixed by '-' for descending order
+     * @param fields
+     *            comma-separated list of fields to return, or '*' for all
+     *            fields. Only the summary fields are returned by default.
+     * @param countOnly
+     * @param testUuid
+     * @param uuids
+     * @param stream
      * @return
      */
     @GET
     @Produces({ MediaType.APPLICATION_JSON, MediaType.TEXT_XML })
-    public Response findAllTerms() {
+    public Response findAllTerms(@QueryParam("after") String after, @QueryParam("limit") Integer limit,
+            @QueryParam("sort") String sort, @QueryParam("fields") String fields,
+            @QueryParam("countOnly") boolean countOnly,
+            @QueryParam("testUuid") String testUuid, @QueryParam("uuid") List<String> uuids,
+            @QueryParam("stream") boolean stream) {
+        Response response = null;
 
-        final List<Term> terms = finder.findAllTerms();
+        TestRun testRun = null;
+        if (testUuid != null) {
+            // 'object not found' handled by AOP
+            testRun = testService.findTestRunByUuid(testUuid);
+        }
 
-        final List<Term> results = new ArrayList<Term>(terms.size());
-        for (Term term : terms) {
-            results.add(scrubTerm(term));
+        if (uuids != null && !uuids.isEmpty()) {
+            response = findTermsByUuid(uuids, fields);
+        } else if (countOnly) {
+            final long count = count(finder, testRun);
+            response = Response.ok(scrubCount(count), MediaType.APPLICATION_JSON_TYPE).build();
+        } else {
+            final KeysetPage page = parsePage(after, limit, sort, fields, SORTABLE, FIELDS, SUMMARY);
+            if (page == null) {
+                response = Response.status(Status.BAD_REQUEST).entity("invalid paging parameters").build();
+            } else if (stream) {
+                response = stream(finder, testRun, page.getFields(), FIELDS);
+            } else {
+                final List<Term> terms = findPage(finder, testRun, page);
+
+                final EntityTag tag = entityTag(terms);
+                ResponseBuilder builder = evaluatePreconditions(request, tag);
+                if (builder == null) {
+                    final List<Term> results = new ArrayList<Term>(terms.size());
+                    for (Term term : terms) {
+                        results.add(scrubTerm(term, page.getFields()));
+                    }
+                    builder = Response.ok(results.toArray(EMPTY_TERM_ARRAY)).tag(tag);
+                }
+                response = addNextLink(builder, uriInfo, page.next(terms)).build();
+            }
         }
 
-        final Response response = Response.ok(results.toArray(EMPTY_TERM_ARRAY)).build();
+        return response;
+    }
+
+    /**
+     * Get the Terms with the specified uuids, in the same order. All fields
+     * are returned unless 'fields' is specified.
+     * 
+     * @param uuids
+     * @param fields
+     * @return
+     */
+    private Response findTermsByUuid(List<String> uuids, String fields) {
+        Response response = null;
+
+        // there's no default projection - every field is returned
+        final KeysetPage page = parsePage(null, MAX_LIMIT, null, fields, SORTABLE, FIELDS, null);
+        if (page == null || uuids.size() > MAX_LIMIT) {
+            response = Response.status(Status.BAD_REQUEST).entity("invalid multi-get parameters").build();
+        } else {
+            final MultiGetResult<Term> result = findByUuids(finder, uuids);
+
+            final List<Term> results = new ArrayList<Term>(result.getResults().size());
+            for (Term term : result.getResults()) {
+                results.add(scrubTerm(term, page.getFields()));
+            }
+
+            final ResponseBuilder builder = Response.ok(results.toArray(EMPTY_TERM_ARRAY));
+            response = addMissingHeader(builder, result).build();
+        }
 
         return response;
     }
@@ -145,7 +250,8 @@ public class TermResource extends AbstractResource {
         if (term == null) {
             response = Response.status(Status.INTERNAL_SERVER_ERROR).build();
         } else {
-            response = Response.created(URI.create(term.getUuid())).entity(scrubTerm(term)).build();
+            response = Response.created(URI.create(term.getUuid())).entity(scrubTerm(term))
+                    .tag(entityTag(term)).build();
         }
 
         return response;
@@ -154,6 +260,9 @@ public class TermResource extends AbstractResource {
     /**
      * Get a specific Term.
      * 
+     * The response has an entity tag (ETag) and a conditional GET
+     * (If-None-Match) of an unchanged term is answered with 304 (Not Modified).
+     * 
      * @param uuid
      * @return
      */
@@ -162,9 +271,19 @@ public class TermResource extends AbstractResource {
     @Produces({ MediaType.APPLICATION_JSON, MediaType.TEXT_XML })
     public Response getTerm(@PathParam("termId") String id) {
 
-        // 'object not found' handled by AOP
-        Term term = finder.findTermByUuid(id);
-        final Response response = Response.ok(scrubTerm(term)).build();
+        Response response = null;
+
+        final Term term = findByUuidOrNull(finder, id);
+        if (term == null) {
+            response = notFound();
+        } else {
+            final EntityTag tag = entityTag(term);
+            ResponseBuilder builder = evaluatePreconditions(request, tag);
+            if (builder == null) {
+                builder = Response.ok(scrubTerm(term)).tag(tag);
+            }
+            response = builder.build();
+        }
 
         return response;
     }
@@ -176,20 +295,38 @@ public class TermResource extends AbstractResource {
      * 
      * @param id
      * @param req
+     * @param ifMatch
+     *            if present the term is only updated if it still has this
+     *            entity tag. The update is a single statement and the response
+     *            is 204 (No Content) with the new entity tag, or 412
+     *            (Precondition Failed).
      * @return
      */
     @Path("/{termId}")
     @POST
     @Consumes({ MediaType.APPLICATION_JSON, MediaType.TEXT_XML })
     @Produces({ MediaType.APPLICATION_JSON, MediaType.TEXT_XML })
-    public Response updateTerm(@PathParam("termId") String id, NameRTO req) {
+    public Response updateTerm(@PathParam("termId") String id, NameRTO req,
+            @HeaderParam("If-Match") String ifMatch) {
 
         final String name = req.getName();
 
-        // 'object not found' handled by AOP
-        final Term term = finder.findTermByUuid(id);
-        final Term updatedTerm = manager.updateTerm(term, name);
-        final Response response = Response.ok(scrubTerm(updatedTerm)).build();
+        Response response = null;
+
+        if (isConditional(ifMatch)) {
+            final Term changes = new Term();
+            changes.setUuid(id);
+            changes.setName(name);
+            response = updateIfMatch(manager, changes, ifMatch);
+        } else {
+            final Term term = finder.findByUuidOrNull(id);
+            if (term == null) {
+                response = notFound();
+            } else {
+                final Term updatedTerm = manager.updateTerm(term, name);
+                response = Response.ok(scrubTerm(updatedTerm)).tag(entityTag(updatedTerm)).build();
+            }
+        }
 
         return response;
     }
@@ -198,20 +335,34 @@ public class TermResource extends AbstractResource {
      * Delete a Term.
      * 
      * @param id
+     * @param version
+     *            if present the term is only deleted if it still has this
+     *            version, otherwise the response is 409 (Conflict)
+     * @param ifMatch
+     *            if present the term is only deleted if it still has this
+     *            entity tag, otherwise the response is 412 (Precondition
+     *            Failed)
      * @return
      */
     @Path("/{termId}")
     @DELETE
-    public Response deleteTerm(@PathParam("termId") String id, @PathParam("version") Integer version) {
+    public Response deleteTerm(@PathParam("termId") String id, @QueryParam("version") Integer version,
+            @HeaderParam("If-Match") String ifMatch) {
 
-        // we don't use AOP handler since it's okay for there to be no match
-        try {
-            manager.deleteTerm(id, version);
-        } catch (ObjectNotFoundException exception) {
-            LOG.debug("term not found: " + id);
-        }
+        Response response = null;
 
-        final Response response = Response.noContent().build();
+        if (isConditional(ifMatch)) {
+            response = deleteIfMatch(manager, id, ifMatch);
+        } else {
+            // we don't use AOP handler since it's okay for there to be no match
+            try {
+                manager.deleteTerm(id, version);
+            } catch (ObjectNotFoundException exception) {
+                LOG.debug("term not found: " + id);
+            }
+
+            response = Response.noContent().build();
+        }
 
         return response;
     }
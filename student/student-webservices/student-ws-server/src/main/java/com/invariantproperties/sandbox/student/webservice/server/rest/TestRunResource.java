@@ -24,7 +24,11 @@ package com.invariantproperties.sandbox.student.webservice.server.rest;
 
 import java.net.URI;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import javax.annotation.Resource;
 import javax.ws.rs.Consumes;
@@ -34,16 +38,19 @@ import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.ResponseBuilder;
 import javax.ws.rs.core.Response.Status;
 import javax.ws.rs.core.UriInfo;
 
 import org.apache.log4j.Logger;
 import org.springframework.stereotype.Service;
 
+import com.invariantproperties.sandbox.student.business.KeysetPage;
 import com.invariantproperties.sandbox.student.business.ObjectNotFoundException;
 import com.invariantproperties.sandbox.student.business.TestRunService;
 import com.invariantproperties.sandbox.student.domain.TestRun;
@@ -53,6 +60,10 @@ import com.invariantproperties.sandbox.student.domain.TestRun;
 public class TestRunResource extends AbstractResource {
     private static final Logger LOG = Logger.getLogger(TestRunResource.class);
     private static final TestRun[] EMPTY_TEST_RUN_ARRAY = new TestRun[0];
+    private static final Set<String> SORTABLE = Collections.unmodifiableSet(new HashSet<String>(Arrays.asList(
+            "name", "creationDate")));
+    private static final Set<String> FIELDS = fieldSet("name");
+    private static final Set<String> SUMMARY = fieldSet("name");
 
     @Context
     UriInfo uriInfo;
@@ -80,22 +91,51 @@ public class TestRunResource extends AbstractResource {
     }
 
     /**
-     * Get all TestRuns.
+     * Get a page of TestRuns. The page is selected by the 'after' (cursor for the
+     * last test run on the previous page), 'limit' and 'sort' query parameters.
+     * A 'Link' header with rel="next" is added if there may be more test runs.
      * 
+     * If 'countOnly' is true only the number of test runs is returned.
+     * 
+     * The 'fields' query parameter selects the properties that are read from
+     * the database and returned.
+     * 
+     * @param after
+     * @param limit
+     * @param sort
+     *            property name, prefixed by '-' for descending order
+     * @param fields
+     *            comma-separated list of fields to return, or '*' for all
+     *            fields. Only the summary fields are returned by default.
+     * @param countOnly
      * @return
      */
     @GET
     @Produces({ MediaType.APPLICATION_JSON, MediaType.TEXT_XML })
-    public Response findAllTestRuns() {
-        final List<TestRun> testRuns = service.findAllTestRuns();
+    public Response findAllTestRuns(@QueryParam("after") String after, @QueryParam("limit") Integer limit,
+            @QueryParam("sort") String sort, @QueryParam("fields") String fields,
+            @QueryParam("countOnly") boolean countOnly) {
+        Response response = null;
 
-        final List<TestRun> results = new ArrayList<TestRun>(testRuns.size());
-        for (TestRun testRun : testRuns) {
-            results.add(scrubTestRun(testRun));
+        if (countOnly) {
+            response = Response.ok(scrubCount(service.count()), MediaType.APPLICATION_JSON_TYPE).build();
+        } else {
+            final KeysetPage page = parsePage(after, limit, sort, fields, SORTABLE, FIELDS, SUMMARY);
+            if (page == null) {
+                response = Response.status(Status.BAD_REQUEST).entity("invalid paging parameters").build();
+            } else {
+                final List<TestRun> testRuns = service.findPage(page);
+
+                final List<TestRun> results = new ArrayList<TestRun>(testRuns.size());
+                for (TestRun testRun : testRuns) {
+                    results.add(scrubTestRun(testRun, page.getFields()));
+                }
+
+                final ResponseBuilder builder = Response.ok(results.toArray(EMPTY_TEST_RUN_ARRAY));
+                response = addNextLink(builder, uriInfo, page.next(testRuns)).build();
+            }
         }
 
-        final Response response = Response.ok(results.toArray(EMPTY_TEST_RUN_ARRAY)).build();
-
         return response;
     }
 
@@ -32,9 +32,12 @@ import org.apache.log4j.Logger;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
 import org.springframework.stereotype.Component;
 
 import com.invariantproperties.sandbox.student.business.ObjectNotFoundException;
+import com.invariantproperties.sandbox.student.business.ServiceUnavailableException;
+import com.invariantproperties.sandbox.student.business.VersionConflictException;
 
 /**
  * AOP handler for unexpected exceptions in resources.
@@ -44,6 +47,7 @@ import com.invariantproperties.sandbox.student.business.ObjectNotFoundException;
 @Aspect
 @Component
 public class UnexpectedResourceExceptionHandler {
+    public static final int RETRY_AFTER_SECONDS = 1;
 
     /**
      * Check for an unhandled exception from a REST resource. If we catch one
@@ -63,11 +67,25 @@ public class UnexpectedResourceExceptionHandler {
         try {
             results = pjp.proceed(pjp.getArgs());
         } catch (ObjectNotFoundException e) {
-            // this is safe to log since we know that we've passed filtering.
-            String args = Arrays.toString(pjp.getArgs());
-            results = Response.status(Status.NOT_FOUND).entity("object not found: " + args).build();
+            // the resources normally check for missing objects themselves so
+            // keep this cheap - don't format anything unless we're logging it.
+            results = Response.status(Status.NOT_FOUND).entity(AbstractResource.NOT_FOUND_MESSAGE).build();
             if (log.isDebugEnabled()) {
-                log.debug("object not found: " + args);
+                // this is safe to log since we know that we've passed filtering.
+                log.debug("object not found: " + Arrays.toString(pjp.getArgs()));
+            }
+        } catch (VersionConflictException e) {
+            results = Response.status(Status.CONFLICT).entity(e.getMessage()).build();
+            if (log.isDebugEnabled()) {
+                log.debug(e.getMessage());
+            }
+        } catch (ServiceUnavailableException e) {
+            // the service executor is saturated - tell the client to back off
+            // instead of holding this thread.
+            results = Response.status(Status.SERVICE_UNAVAILABLE).header("Retry-After", RETRY_AFTER_SECONDS)
+                    .entity(e.getMessage()).build();
+            if (log.isDebugEnabled()) {
+                log.debug(e.getMessage() + ": " + pjp.getSignature().getName());
             }
         } catch (Exception e) {
             // find the method we called. We can't cache this since the method
@@ -102,6 +120,12 @@ public class UnexpectedResourceExceptionHandler {
      * @return
      */
     Method findMethod(ProceedingJoinPoint pjp) {
+        // we can't look up the method from the argument types if any of the
+        // arguments, e.g., optional query parameters, are null.
+        if (pjp.getSignature() instanceof MethodSignature) {
+            return ((MethodSignature) pjp.getSignature()).getMethod();
+        }
+
         Class<?>[] argtypes = new Class[pjp.getArgs().length];
         for (int i = 0; i < argtypes.length; i++) {
             argtypes[i] = pjp.getArgs()[i].getClass();
@@ -36,6 +36,7 @@ import com.invariantproperties.sandbox.student.business.CourseFinderService;
 import com.invariantproperties.sandbox.student.business.CourseManagerService;
 import com.invariantproperties.sandbox.student.business.InstructorFinderService;
 import com.invariantproperties.sandbox.student.business.InstructorManagerService;
+import com.invariantproperties.sandbox.student.business.SearchService;
 import com.invariantproperties.sandbox.student.business.SectionFinderService;
 import com.invariantproperties.sandbox.student.business.SectionManagerService;
 import com.invariantproperties.sandbox.student.business.StudentFinderService;
@@ -83,6 +84,11 @@ public class TestRestApplicationContext1 {
         return null;
     }
 
+    @Bean
+    public SearchService searchService() {
+        return null;
+    }
+
     @Bean
     public SectionFinderService sectionFinderService() {
         return null;
@@ -24,6 +24,8 @@ package com.invariantproperties.sandbox.student.webservice.server.rest;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.when;
@@ -43,11 +45,13 @@ import org.mockito.Mockito;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 
+import com.invariantproperties.sandbox.student.business.KeysetPage;
 import com.invariantproperties.sandbox.student.business.ClassroomFinderService;
 import com.invariantproperties.sandbox.student.business.ClassroomManagerService;
 import com.invariantproperties.sandbox.student.business.ObjectNotFoundException;
 import com.invariantproperties.sandbox.student.business.TestRunService;
 import com.invariantproperties.sandbox.student.domain.Classroom;
+import com.invariantproperties.sandbox.student.domain.TestRun;
 import com.invariantproperties.sandbox.student.webservice.config.TestRestApplicationContext1;
 
 /**
@@ -80,12 +84,12 @@ public class ClassroomResourceTest {
         final List<Classroom> expected = Arrays.asList(eng201);
 
         final ClassroomFinderService finder = Mockito.mock(ClassroomFinderService.class);
-        when(finder.findAllClassrooms()).thenReturn(expected);
+        when(finder.findPage(any(KeysetPage.class))).thenReturn(expected);
 
         final TestRunService testService = Mockito.mock(TestRunService.class);
 
         resource.setServices(finder, null, testService);
-        final Response response = resource.findAllClassrooms();
+        final Response response = resource.findAllClassrooms(null, null, null, null, false, null, null, false);
 
         assertEquals(200, response.getStatus());
         final Classroom[] actual = (Classroom[]) response.getEntity();
@@ -100,12 +104,12 @@ public class ClassroomResourceTest {
         final List<Classroom> expected = new ArrayList<>();
 
         final ClassroomFinderService finder = Mockito.mock(ClassroomFinderService.class);
-        when(finder.findAllClassrooms()).thenReturn(expected);
+        when(finder.findPage(any(KeysetPage.class))).thenReturn(expected);
 
         final TestRunService testService = Mockito.mock(TestRunService.class);
 
         resource.setServices(finder, null, testService);
-        final Response response = resource.findAllClassrooms();
+        final Response response = resource.findAllClassrooms(null, null, null, null, false, null, null, false);
 
         assertEquals(200, response.getStatus());
         final Classroom[] actual = (Classroom[]) response.getEntity();
@@ -115,22 +119,97 @@ public class ClassroomResourceTest {
     @Test
     public void testFindAllClassroomsFailure() {
         final ClassroomFinderService finder = Mockito.mock(ClassroomFinderService.class);
-        when(finder.findAllClassrooms()).thenThrow(new UnitTestException());
+        when(finder.findPage(any(KeysetPage.class))).thenThrow(new UnitTestException());
 
         final TestRunService testService = Mockito.mock(TestRunService.class);
 
         resource.setServices(finder, null, testService);
-        final Response response = resource.findAllClassrooms();
+        final Response response = resource.findAllClassrooms(null, null, null, null, false, null, null, false);
 
         assertEquals(500, response.getStatus());
     }
 
+    @Test
+    public void testFindAllClassroomsBadSort() {
+        final ClassroomFinderService finder = Mockito.mock(ClassroomFinderService.class);
+        final TestRunService testService = Mockito.mock(TestRunService.class);
+
+        resource.setServices(finder, null, testService);
+        final Response response = resource.findAllClassrooms(null, null, "uuid", null, false, null, null, false);
+
+        assertEquals(400, response.getStatus());
+    }
+
+    @Test
+    public void testFindAllClassroomsBadLimit() {
+        final ClassroomFinderService finder = Mockito.mock(ClassroomFinderService.class);
+        final TestRunService testService = Mockito.mock(TestRunService.class);
+
+        resource.setServices(finder, null, testService);
+        final Response response = resource.findAllClassrooms(null, 0, null, null, false, null, null, false);
+
+        assertEquals(400, response.getStatus());
+    }
+
+    @Test
+    public void testCountClassrooms() {
+        final ClassroomFinderService finder = Mockito.mock(ClassroomFinderService.class);
+        when(finder.count()).thenReturn(3L);
+
+        final TestRunService testService = Mockito.mock(TestRunService.class);
+
+        resource.setServices(finder, null, testService);
+        final Response response = resource.findAllClassrooms(null, null, null, null, true, null, null, false);
+
+        assertEquals(200, response.getStatus());
+        assertEquals("{ \"count\": 3 }", response.getEntity());
+    }
+
+    @Test
+    public void testCountClassroomsByTestRun() {
+        final TestRun testRun = new TestRun();
+        testRun.setUuid("11111111-1111-1111-1111-111111111111");
+
+        final ClassroomFinderService finder = Mockito.mock(ClassroomFinderService.class);
+        when(finder.countByTestRun(testRun)).thenReturn(2L);
+
+        final TestRunService testService = Mockito.mock(TestRunService.class);
+        when(testService.findTestRunByUuid(testRun.getUuid())).thenReturn(testRun);
+
+        resource.setServices(finder, null, testService);
+        final Response response = resource.findAllClassrooms(null, null, null, null, true, testRun.getUuid(),
+                null, false);
+
+        assertEquals(200, response.getStatus());
+        assertEquals("{ \"count\": 2 }", response.getEntity());
+    }
+
+    @Test
+    public void testFindAllClassroomsByTestRun() {
+        final TestRun testRun = new TestRun();
+        testRun.setUuid("11111111-1111-1111-1111-111111111111");
+
+        final ClassroomFinderService finder = Mockito.mock(ClassroomFinderService.class);
+        when(finder.findPageByTestRun(eq(testRun), any(KeysetPage.class))).thenReturn(new ArrayList<Classroom>());
+
+        final TestRunService testService = Mockito.mock(TestRunService.class);
+        when(testService.findTestRunByUuid(testRun.getUuid())).thenReturn(testRun);
+
+        resource.setServices(finder, null, testService);
+        final Response response = resource.findAllClassrooms(null, null, null, null, false, testRun.getUuid(),
+                null, false);
+
+        assertEquals(200, response.getStatus());
+        final Classroom[] actual = (Classroom[]) response.getEntity();
+        assertEquals(0, actual.length);
+    }
+
     @Test
     public void testGetClassroom() {
         final Classroom expected = eng201;
 
         final ClassroomFinderService finder = Mockito.mock(ClassroomFinderService.class);
-        when(finder.findClassroomByUuid(expected.getUuid())).thenReturn(expected);
+        when(finder.findByUuidOrNull(expected.getUuid())).thenReturn(expected);
 
         final TestRunService testService = Mockito.mock(TestRunService.class);
 
@@ -147,7 +226,7 @@ public class ClassroomResourceTest {
     @Test
     public void testGetClassroomMissing() {
         final ClassroomFinderService finder = Mockito.mock(ClassroomFinderService.class);
-        when(finder.findClassroomByUuid(eng201.getUuid())).thenThrow(new ObjectNotFoundException(eng201.getUuid()));
+        when(finder.findByUuidOrNull(eng201.getUuid())).thenReturn(null);
 
         final TestRunService testService = Mockito.mock(TestRunService.class);
 
@@ -160,7 +239,7 @@ public class ClassroomResourceTest {
     @Test
     public void testGetClassroomFailure() {
         final ClassroomFinderService finder = Mockito.mock(ClassroomFinderService.class);
-        when(finder.findClassroomByUuid(eng201.getUuid())).thenThrow(new UnitTestException());
+        when(finder.findByUuidOrNull(eng201.getUuid())).thenThrow(new UnitTestException());
 
         final TestRunService testService = Mockito.mock(TestRunService.class);
 
@@ -256,13 +335,13 @@ public class ClassroomResourceTest {
 
         final ClassroomFinderService finder = Mockito.mock(ClassroomFinderService.class);
         final ClassroomManagerService manager = Mockito.mock(ClassroomManagerService.class);
-        when(finder.findClassroomByUuid(expected.getUuid())).thenReturn(expected);
+        when(finder.findByUuidOrNull(expected.getUuid())).thenReturn(expected);
         when(manager.updateClassroom(expected, name.getName())).thenReturn(updated);
 
         final TestRunService testService = Mockito.mock(TestRunService.class);
 
         resource.setServices(finder, manager, testService);
-        final Response response = resource.updateClassroom(expected.getUuid(), name);
+        final Response response = resource.updateClassroom(expected.getUuid(), name, null);
 
         assertEquals(200, response.getStatus());
         final Classroom actual = (Classroom) response.getEntity();
@@ -277,7 +356,7 @@ public class ClassroomResourceTest {
         final NameRTO name = new NameRTO();
 
         final ClassroomFinderService finder = Mockito.mock(ClassroomFinderService.class);
-        when(finder.findClassroomByUuid(expected.getUuid())).thenReturn(expected);
+        when(finder.findByUuidOrNull(expected.getUuid())).thenReturn(expected);
 
         final ClassroomManagerService manager = Mockito.mock(ClassroomManagerService.class);
         when(manager.createClassroom(name.getName())).thenReturn(null);
@@ -285,7 +364,7 @@ public class ClassroomResourceTest {
         final TestRunService testService = Mockito.mock(TestRunService.class);
 
         resource.setServices(finder, manager, testService);
-        final Response response = resource.updateClassroom(expected.getUuid(), name);
+        final Response response = resource.updateClassroom(expected.getUuid(), name, null);
 
         assertEquals(400, response.getStatus());
     }
@@ -339,7 +418,7 @@ public class ClassroomResourceTest {
         final TestRunService testService = Mockito.mock(TestRunService.class);
 
         resource.setServices(null, manager, testService);
-        final Response response = resource.deleteClassroom(expected.getUuid(), 0);
+        final Response response = resource.deleteClassroom(expected.getUuid(), 0, null);
 
         assertEquals(204, response.getStatus());
     }
@@ -356,7 +435,7 @@ public class ClassroomResourceTest {
         final TestRunService testService = Mockito.mock(TestRunService.class);
 
         resource.setServices(null, manager, testService);
-        final Response response = resource.deleteClassroom(expected.getUuid(), 0);
+        final Response response = resource.deleteClassroom(expected.getUuid(), 0, null);
 
         assertEquals(204, response.getStatus());
     }
@@ -371,7 +450,7 @@ public class ClassroomResourceTest {
         final TestRunService testService = Mockito.mock(TestRunService.class);
 
         resource.setServices(null, manager, testService);
-        final Response response = resource.deleteClassroom(expected.getUuid(), 0);
+        final Response response = resource.deleteClassroom(expected.getUuid(), 0, null);
 
         assertEquals(500, response.getStatus());
     }
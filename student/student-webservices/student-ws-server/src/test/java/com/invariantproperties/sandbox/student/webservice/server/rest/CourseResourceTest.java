@@ -24,31 +24,60 @@ package com.invariantproperties.sandbox.student.webservice.server.rest;
 
 import static com.invariantproperties.sandbox.student.matcher.CourseEquality.equalTo;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.Callable;
 
 import javax.annotation.Resource;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 
+import com.invariantproperties.sandbox.student.business.KeysetPage;
 import com.invariantproperties.sandbox.student.business.CourseFinderService;
 import com.invariantproperties.sandbox.student.business.CourseManagerService;
+import com.invariantproperties.sandbox.student.business.MultiGetResult;
+import com.invariantproperties.sandbox.student.business.NameMatch;
+import com.invariantproperties.sandbox.student.business.ObjectHandler;
 import com.invariantproperties.sandbox.student.business.ObjectNotFoundException;
+import com.invariantproperties.sandbox.student.business.ServiceExecutor;
+import com.invariantproperties.sandbox.student.business.ServiceUnavailableException;
+import com.invariantproperties.sandbox.student.business.ServiceUnavailableException.Reason;
 import com.invariantproperties.sandbox.student.business.TestRunService;
+import com.invariantproperties.sandbox.student.business.VersionConflictException;
 import com.invariantproperties.sandbox.student.domain.Course;
+import com.invariantproperties.sandbox.student.domain.TestRun;
 import com.invariantproperties.sandbox.student.webservice.config.TestRestApplicationContext1;
 
 /**
@@ -84,17 +113,24 @@ public class CourseResourceTest {
         mechanics.setUuid(UUID.randomUUID().toString());
     }
 
+    @After
+    public void cleanup() {
+        resource.setServiceExecutor(null);
+        resource.setRequest(null);
+    }
+
     @Test
     public void testFindAllCourses() {
         final List<Course> expected = Arrays.asList(physics);
 
         final CourseFinderService finder = Mockito.mock(CourseFinderService.class);
-        when(finder.findAllCourses()).thenReturn(expected);
+        when(finder.findPage(any(KeysetPage.class))).thenReturn(expected);
 
         final TestRunService testService = Mockito.mock(TestRunService.class);
 
         resource.setServices(finder, null, testService);
-        final Response response = resource.findAllCourses();
+        final Response response = resource.findAllCourses(null, null, null, AbstractResource.ALL_FIELDS, false, null,
+                null, null, null, false);
 
         assertEquals(200, response.getStatus());
         final Course[] actual = (Course[]) response.getEntity();
@@ -105,17 +141,63 @@ public class CourseResourceTest {
         assertThat(expected.get(0), equalTo(actual[0]));
     }
 
+    @Test
+    public void testFindCoursesByName() {
+        final List<Course> expected = Arrays.asList(physics);
+
+        final CourseFinderService finder = Mockito.mock(CourseFinderService.class);
+        when(finder.findCoursesByName(eq("phys"), eq(NameMatch.SUBSTRING), any(TestRun.class), any(KeysetPage.class)))
+                .thenReturn(expected);
+
+        final TestRunService testService = Mockito.mock(TestRunService.class);
+
+        resource.setServices(finder, null, testService);
+        final Response response = resource.findAllCourses(null, null, null, null, false, null, null, "phys",
+                "substring", false);
+
+        assertEquals(200, response.getStatus());
+        final Course[] actual = (Course[]) response.getEntity();
+        assertEquals(1, actual.length);
+        assertEquals(physics.getName(), actual[0].getName());
+    }
+
+    @Test
+    public void testFindCoursesByNameBadMatch() {
+        final CourseFinderService finder = Mockito.mock(CourseFinderService.class);
+        final TestRunService testService = Mockito.mock(TestRunService.class);
+
+        resource.setServices(finder, null, testService);
+        final Response response = resource.findAllCourses(null, null, null, null, false, null, null, "phys",
+                "soundex", false);
+
+        assertEquals(400, response.getStatus());
+    }
+
+    @Test
+    public void testFindCoursesByNameShortSubstring() {
+        final CourseFinderService finder = Mockito.mock(CourseFinderService.class);
+        final TestRunService testService = Mockito.mock(TestRunService.class);
+
+        resource.setServices(finder, null, testService);
+        final Response response = resource.findAllCourses(null, null, null, null, false, null, null, "ph",
+                "substring", false);
+
+        assertEquals(400, response.getStatus());
+        verify(finder, never()).findCoursesByName(any(String.class), any(NameMatch.class), any(TestRun.class),
+                any(KeysetPage.class));
+    }
+
     @Test
     public void testFindAllCoursesEmpty() {
         final List<Course> expected = new ArrayList<>();
 
         final CourseFinderService finder = Mockito.mock(CourseFinderService.class);
-        when(finder.findAllCourses()).thenReturn(expected);
+        when(finder.findPage(any(KeysetPage.class))).thenReturn(expected);
 
         final TestRunService testService = Mockito.mock(TestRunService.class);
 
         resource.setServices(finder, null, testService);
-        final Response response = resource.findAllCourses();
+        final Response response = resource.findAllCourses(null, null, null, null, false, null, null, null, null, false);
 
         assertEquals(200, response.getStatus());
         final Course[] actual = (Course[]) response.getEntity();
@@ -125,22 +207,380 @@ public class CourseResourceTest {
     @Test
     public void testFindAllCoursesFailure() {
         final CourseFinderService finder = Mockito.mock(CourseFinderService.class);
-        when(finder.findAllCourses()).thenThrow(new UnitTestException());
+        when(finder.findPage(any(KeysetPage.class))).thenThrow(new UnitTestException());
 
         final TestRunService testService = Mockito.mock(TestRunService.class);
 
         resource.setServices(finder, null, testService);
-        final Response response = resource.findAllCourses();
+        final Response response = resource.findAllCourses(null, null, null, null, false, null, null, null, null, false);
 
         assertEquals(500, response.getStatus());
     }
 
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testFindAllCoursesWithExecutor() {
+        final List<Course> expected = Arrays.asList(physics);
+
+        final CourseFinderService finder = Mockito.mock(CourseFinderService.class);
+        when(finder.findPage(any(KeysetPage.class))).thenReturn(expected);
+
+        final TestRunService testService = Mockito.mock(TestRunService.class);
+
+        final ServiceExecutor executor = Mockito.mock(ServiceExecutor.class);
+        when(executor.call(any(Callable.class))).thenAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Exception {
+                return ((Callable<?>) invocation.getArguments()[0]).call();
+            }
+        });
+
+        resource.setServices(finder, null, testService);
+        resource.setServiceExecutor(executor);
+        final Response response = resource.findAllCourses(null, null, null, null, false, null, null, null, null, false);
+
+        assertEquals(200, response.getStatus());
+        assertEquals(1, ((Course[]) response.getEntity()).length);
+        Mockito.verify(executor).call(any(Callable.class));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testFindAllCoursesBusy() {
+        final CourseFinderService finder = Mockito.mock(CourseFinderService.class);
+        final TestRunService testService = Mockito.mock(TestRunService.class);
+
+        final ServiceExecutor executor = Mockito.mock(ServiceExecutor.class);
+        when(executor.call(any(Callable.class))).thenThrow(new ServiceUnavailableException(Reason.REJECTED));
+
+        resource.setServices(finder, null, testService);
+        resource.setServiceExecutor(executor);
+        final Response response = resource.findAllCourses(null, null, null, null, false, null, null, null, null, false);
+
+        assertEquals(503, response.getStatus());
+        assertEquals(UnexpectedResourceExceptionHandler.RETRY_AFTER_SECONDS,
+                response.getMetadata().getFirst("Retry-After"));
+        Mockito.verifyZeroInteractions(finder);
+    }
+
+    @Test
+    public void testFindAllCoursesSorted() {
+        final List<Course> expected = Arrays.asList(physics, mechanics);
+        final ArgumentCaptor<KeysetPage> captor = ArgumentCaptor.forClass(KeysetPage.class);
+
+        final CourseFinderService finder = Mockito.mock(CourseFinderService.class);
+        when(finder.findPage(captor.capture())).thenReturn(expected);
+
+        final TestRunService testService = Mockito.mock(TestRunService.class);
+
+        resource.setServices(finder, null, testService);
+        final Response response = resource.findAllCourses(physics.getUuid(), 2, "-name", null, false, null, null,
+                null, null, false);
+
+        assertEquals(200, response.getStatus());
+        final Course[] actual = (Course[]) response.getEntity();
+        assertEquals(expected.size(), actual.length);
+
+        final KeysetPage page = captor.getValue();
+        assertEquals(physics.getUuid(), page.getAfter());
+        assertEquals(2, page.getMaxResults());
+        assertEquals("name", page.getSortProperty());
+        assertFalse(page.isAscending());
+    }
+
+    @Test
+    public void testFindAllCoursesBadSort() {
+        final CourseFinderService finder = Mockito.mock(CourseFinderService.class);
+        final TestRunService testService = Mockito.mock(TestRunService.class);
+
+        resource.setServices(finder, null, testService);
+        final Response response = resource.findAllCourses(null, null, "uuid", null, false, null, null, null,
+                null, false);
+
+        assertEquals(400, response.getStatus());
+    }
+
+    @Test
+    public void testFindAllCoursesSummary() {
+        final List<Course> expected = Arrays.asList(physics);
+        final ArgumentCaptor<KeysetPage> captor = ArgumentCaptor.forClass(KeysetPage.class);
+
+        final CourseFinderService finder = Mockito.mock(CourseFinderService.class);
+        when(finder.findPage(captor.capture())).thenReturn(expected);
+
+        final TestRunService testService = Mockito.mock(TestRunService.class);
+
+        resource.setServices(finder, null, testService);
+        final Response response = resource.findAllCourses(null, null, null, null, false, null, null, null, null, false);
+
+        assertEquals(200, response.getStatus());
+        final Course[] actual = (Course[]) response.getEntity();
+        assertEquals(expected.size(), actual.length);
+        assertEquals(physics.getUuid(), actual[0].getUuid());
+        assertEquals(physics.getCode(), actual[0].getCode());
+        assertEquals(physics.getName(), actual[0].getName());
+        assertNull(actual[0].getSummary());
+        assertNull(actual[0].getDescription());
+
+        final KeysetPage page = captor.getValue();
+        assertTrue(page.getFields().containsAll(Arrays.asList("uuid", "code", "name")));
+        assertFalse(page.getFields().contains("description"));
+    }
+
+    @Test
+    public void testFindAllCoursesFields() {
+        final List<Course> expected = Arrays.asList(physics);
+        final ArgumentCaptor<KeysetPage> captor = ArgumentCaptor.forClass(KeysetPage.class);
+
+        final CourseFinderService finder = Mockito.mock(CourseFinderService.class);
+        when(finder.findPage(captor.capture())).thenReturn(expected);
+
+        final TestRunService testService = Mockito.mock(TestRunService.class);
+
+        resource.setServices(finder, null, testService);
+        final Response response = resource.findAllCourses(null, null, null, "creditHours, summary", false, null, null,
+                null, null, false);
+
+        assertEquals(200, response.getStatus());
+        final Course[] actual = (Course[]) response.getEntity();
+        assertEquals(physics.getUuid(), actual[0].getUuid());
+        assertEquals(physics.getCreditHours(), actual[0].getCreditHours());
+        assertEquals(physics.getSummary(), actual[0].getSummary());
+        assertNull(actual[0].getName());
+
+        final KeysetPage page = captor.getValue();
+        assertEquals(new HashSet<String>(Arrays.asList("uuid", "version", "creditHours", "summary")),
+                page.getFields());
+    }
+
+    /**
+     * The version is always loaded so the entity tag of a projected page
+     * changes when an object on the page changes.
+     */
+    @Test
+    public void testFindAllCoursesFieldsEntityTag() {
+        final ArgumentCaptor<KeysetPage> captor = ArgumentCaptor.forClass(KeysetPage.class);
+        final Course before = new Course();
+        before.setUuid(physics.getUuid());
+        before.setVersion(1);
+        before.setName("physics");
+        final Course after = new Course();
+        after.setUuid(physics.getUuid());
+        after.setVersion(2);
+        after.setName("advanced physics");
+
+        final CourseFinderService finder = Mockito.mock(CourseFinderService.class);
+        when(finder.findPage(captor.capture())).thenReturn(Arrays.asList(before), Arrays.asList(after));
+
+        final TestRunService testService = Mockito.mock(TestRunService.class);
+
+        resource.setServices(finder, null, testService);
+        final Response first = resource.findAllCourses(null, null, null, "name", false, null, null, null, null, false);
+        assertTrue(captor.getValue().getFields().contains("version"));
+
+        final Response second = resource.findAllCourses(null, null, null, "name", false, null, null, null, null,
+                false);
+
+        assertEquals(200, second.getStatus());
+        assertFalse(first.getMetadata().getFirst("ETag").equals(second.getMetadata().getFirst("ETag")));
+    }
+
+    @Test
+    public void testFindAllCoursesAllFields() {
+        final ArgumentCaptor<KeysetPage> captor = ArgumentCaptor.forClass(KeysetPage.class);
+
+        final CourseFinderService finder = Mockito.mock(CourseFinderService.class);
+        when(finder.findPage(captor.capture())).thenReturn(Arrays.asList(physics));
+
+        final TestRunService testService = Mockito.mock(TestRunService.class);
+
+        resource.setServices(finder, null, testService);
+        final Response response = resource.findAllCourses(null, null, null, "*", false, null, null, null, null, false);
+
+        assertEquals(200, response.getStatus());
+        final Course[] actual = (Course[]) response.getEntity();
+        assertEquals(physics.getDescription(), actual[0].getDescription());
+        assertNull(captor.getValue().getFields());
+    }
+
+    @Test
+    public void testFindAllCoursesBadFields() {
+        final CourseFinderService finder = Mockito.mock(CourseFinderService.class);
+        final TestRunService testService = Mockito.mock(TestRunService.class);
+
+        resource.setServices(finder, null, testService);
+        final Response response = resource.findAllCourses(null, null, null, "name,testRun", false, null, null, null,
+                null, false);
+
+        assertEquals(400, response.getStatus());
+    }
+
+    @Test
+    public void testFindAllCoursesBadLimit() {
+        final CourseFinderService finder = Mockito.mock(CourseFinderService.class);
+        final TestRunService testService = Mockito.mock(TestRunService.class);
+
+        resource.setServices(finder, null, testService);
+        final Response response = resource.findAllCourses(null, 0, null, null, false, null, null, null, null, false);
+
+        assertEquals(400, response.getStatus());
+    }
+
+    @Test
+    public void testFindCoursesByUuid() {
+        final List<String> uuids = Arrays.asList(mechanics.getUuid(), "missing", physics.getUuid());
+
+        final CourseFinderService finder = Mockito.mock(CourseFinderService.class);
+        when(finder.findByUuids(uuids)).thenReturn(MultiGetResult.of(uuids, Arrays.asList(physics, mechanics)));
+
+        final TestRunService testService = Mockito.mock(TestRunService.class);
+
+        resource.setServices(finder, null, testService);
+        final Response response = resource.findAllCourses(null, null, null, null, false, null, uuids, null,
+                null, false);
+
+        assertEquals(200, response.getStatus());
+        final Course[] actual = (Course[]) response.getEntity();
+        assertEquals(2, actual.length);
+        assertEquals(mechanics.getUuid(), actual[0].getUuid());
+        assertEquals(mechanics.getDescription(), actual[0].getDescription());
+        assertEquals(physics.getUuid(), actual[1].getUuid());
+        assertEquals("missing", response.getMetadata().getFirst(AbstractResource.MISSING_UUIDS));
+    }
+
+    @Test
+    public void testFindCoursesByUuidBadFields() {
+        final CourseFinderService finder = Mockito.mock(CourseFinderService.class);
+        final TestRunService testService = Mockito.mock(TestRunService.class);
+
+        resource.setServices(finder, null, testService);
+        final Response response = resource.findAllCourses(null, null, null, "bogus", false, null,
+                Arrays.asList(physics.getUuid()), null, null, false);
+
+        assertEquals(400, response.getStatus());
+    }
+
+    @Test
+    public void testCountCourses() {
+        final CourseFinderService finder = Mockito.mock(CourseFinderService.class);
+        when(finder.count()).thenReturn(3L);
+
+        final TestRunService testService = Mockito.mock(TestRunService.class);
+
+        resource.setServices(finder, null, testService);
+        final Response response = resource.findAllCourses(null, null, null, null, true, null, null, null, null, false);
+
+        assertEquals(200, response.getStatus());
+        assertEquals("{ \"count\": 3 }", response.getEntity());
+    }
+
+    @Test
+    public void testCountCoursesByTestRun() {
+        final TestRun testRun = new TestRun();
+        testRun.setUuid("11111111-1111-1111-1111-111111111111");
+
+        final CourseFinderService finder = Mockito.mock(CourseFinderService.class);
+        when(finder.countByTestRun(testRun)).thenReturn(2L);
+
+        final TestRunService testService = Mockito.mock(TestRunService.class);
+        when(testService.findTestRunByUuid(testRun.getUuid())).thenReturn(testRun);
+
+        resource.setServices(finder, null, testService);
+        final Response response = resource.findAllCourses(null, null, null, null, true, testRun.getUuid(), null, null,
+                null, false);
+
+        assertEquals(200, response.getStatus());
+        assertEquals("{ \"count\": 2 }", response.getEntity());
+    }
+
+    @Test
+    public void testFindAllCoursesByTestRun() {
+        final TestRun testRun = new TestRun();
+        testRun.setUuid("11111111-1111-1111-1111-111111111111");
+
+        final CourseFinderService finder = Mockito.mock(CourseFinderService.class);
+        when(finder.findPageByTestRun(eq(testRun), any(KeysetPage.class))).thenReturn(new ArrayList<Course>());
+
+        final TestRunService testService = Mockito.mock(TestRunService.class);
+        when(testService.findTestRunByUuid(testRun.getUuid())).thenReturn(testRun);
+
+        resource.setServices(finder, null, testService);
+        final Response response = resource.findAllCourses(null, null, null, null, false, testRun.getUuid(), null,
+                null, null, false);
+
+        assertEquals(200, response.getStatus());
+        final Course[] actual = (Course[]) response.getEntity();
+        assertEquals(0, actual.length);
+    }
+
+    @Test
+    public void testFindAllCoursesStream() throws IOException {
+        final CourseFinderService finder = Mockito.mock(CourseFinderService.class);
+        doAnswer(new Answer<Integer>() {
+            @SuppressWarnings("unchecked")
+            @Override
+            public Integer answer(InvocationOnMock invocation) {
+                final ObjectHandler<Course> handler = (ObjectHandler<Course>) invocation.getArguments()[0];
+                handler.handle(physics);
+                handler.handle(mechanics);
+                return 2;
+            }
+        }).when(finder).forEach(any(ObjectHandler.class), anyInt());
+
+        final TestRunService testService = Mockito.mock(TestRunService.class);
+
+        resource.setServices(finder, null, testService);
+        final Response response = resource.findAllCourses(null, null, null, null, false, null, null, null, null, true);
+
+        assertEquals(200, response.getStatus());
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ((StreamingOutput) response.getEntity()).write(out);
+        final String json = out.toString("UTF-8");
+
+        assertTrue(json.startsWith("[{\"uuid\":\"" + physics.getUuid() + "\""));
+        assertTrue(json.endsWith("}]"));
+        assertTrue(json.contains("\"code\":\"PHYS101\""));
+        assertTrue(json.contains("\"name\":\"mechanics\""));
+        assertFalse(json.contains("description"));
+    }
+
+    @Test
+    public void testFindAllCoursesStreamByTestRun() throws IOException {
+        final TestRun testRun = new TestRun();
+        testRun.setUuid("11111111-1111-1111-1111-111111111111");
+
+        final CourseFinderService finder = Mockito.mock(CourseFinderService.class);
+        doAnswer(new Answer<Integer>() {
+            @SuppressWarnings("unchecked")
+            @Override
+            public Integer answer(InvocationOnMock invocation) {
+                ((ObjectHandler<Course>) invocation.getArguments()[1]).handle(physics);
+                return 1;
+            }
+        }).when(finder).forEachByTestRun(eq(testRun), any(ObjectHandler.class), anyInt());
+
+        final TestRunService testService = Mockito.mock(TestRunService.class);
+        when(testService.findTestRunByUuid(testRun.getUuid())).thenReturn(testRun);
+
+        resource.setServices(finder, null, testService);
+        final Response response = resource.findAllCourses(null, null, null, "creditHours", false, testRun.getUuid(),
+                null, null, null, true);
+
+        assertEquals(200, response.getStatus());
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ((StreamingOutput) response.getEntity()).write(out);
+        final String json = out.toString("UTF-8");
+
+        assertTrue(json.contains("\"creditHours\":1"));
+        assertFalse(json.contains("\"name\""));
+    }
+
     @Test
     public void testGetCourse() {
         final Course expected = physics;
 
         final CourseFinderService finder = Mockito.mock(CourseFinderService.class);
-        when(finder.findCourseByUuid(expected.getUuid())).thenReturn(expected);
+        when(finder.findByUuidOrNull(expected.getUuid())).thenReturn(expected);
 
         final TestRunService testService = Mockito.mock(TestRunService.class);
 
@@ -158,7 +598,7 @@ public class CourseResourceTest {
     @Test
     public void testGetCourseMissing() {
         final CourseFinderService finder = Mockito.mock(CourseFinderService.class);
-        when(finder.findCourseByUuid(physics.getUuid())).thenThrow(new ObjectNotFoundException(physics.getUuid()));
+        when(finder.findByUuidOrNull(physics.getUuid())).thenReturn(null);
 
         final TestRunService testService = Mockito.mock(TestRunService.class);
 
@@ -171,7 +611,7 @@ public class CourseResourceTest {
     @Test
     public void testGetCourseFailure() {
         final CourseFinderService finder = Mockito.mock(CourseFinderService.class);
-        when(finder.findCourseByUuid(physics.getUuid())).thenThrow(new UnitTestException());
+        when(finder.findByUuidOrNull(physics.getUuid())).thenThrow(new UnitTestException());
 
         final TestRunService testService = Mockito.mock(TestRunService.class);
 
@@ -278,7 +718,7 @@ public class CourseResourceTest {
 
         final CourseFinderService finder = Mockito.mock(CourseFinderService.class);
         final CourseManagerService manager = Mockito.mock(CourseManagerService.class);
-        when(finder.findCourseByUuid(expected.getUuid())).thenReturn(expected);
+        when(finder.findByUuidOrNull(expected.getUuid())).thenReturn(expected);
         when(
                 manager.updateCourse(expected, updated.getName(), updated.getSummary(), updated.getDescription(),
                         updated.getCreditHours())).thenReturn(updated);
@@ -286,7 +726,7 @@ public class CourseResourceTest {
         final TestRunService testService = Mockito.mock(TestRunService.class);
 
         resource.setServices(finder, manager, testService);
-        final Response response = resource.updateCourse(expected.getUuid(), info);
+        final Response response = resource.updateCourse(expected.getUuid(), info, null);
 
         assertEquals(200, response.getStatus());
         final Course actual = (Course) response.getEntity();
@@ -296,6 +736,125 @@ public class CourseResourceTest {
         assertThat(updated, equalTo(actual));
     }
 
+    @Test
+    public void testGetCourseEntityTag() {
+        physics.setVersion(2);
+
+        final CourseFinderService finder = Mockito.mock(CourseFinderService.class);
+        when(finder.findByUuidOrNull(physics.getUuid())).thenReturn(physics);
+
+        final TestRunService testService = Mockito.mock(TestRunService.class);
+
+        resource.setServices(finder, null, testService);
+        final Response response = resource.getCourse(physics.getUuid());
+
+        assertEquals(200, response.getStatus());
+        assertEquals(new EntityTag(physics.getUuid() + ":2"), response.getMetadata().getFirst("ETag"));
+    }
+
+    @Test
+    public void testGetCourseNotModified() {
+        physics.setVersion(2);
+        final EntityTag tag = AbstractResource.entityTag(physics);
+
+        final CourseFinderService finder = Mockito.mock(CourseFinderService.class);
+        when(finder.findByUuidOrNull(physics.getUuid())).thenReturn(physics);
+
+        final Request request = Mockito.mock(Request.class);
+        when(request.evaluatePreconditions(tag)).thenReturn(Response.notModified());
+
+        final TestRunService testService = Mockito.mock(TestRunService.class);
+
+        resource.setServices(finder, null, testService);
+        resource.setRequest(request);
+        final Response response = resource.getCourse(physics.getUuid());
+
+        assertEquals(304, response.getStatus());
+        assertNull(response.getEntity());
+        assertEquals(tag, response.getMetadata().getFirst("ETag"));
+    }
+
+    @Test
+    public void testFindAllCoursesNotModified() {
+        final List<Course> expected = Arrays.asList(physics, mechanics);
+        final EntityTag tag = AbstractResource.entityTag(expected);
+
+        final CourseFinderService finder = Mockito.mock(CourseFinderService.class);
+        when(finder.findPage(any(KeysetPage.class))).thenReturn(expected);
+
+        final Request request = Mockito.mock(Request.class);
+        when(request.evaluatePreconditions(tag)).thenReturn(Response.notModified());
+
+        final TestRunService testService = Mockito.mock(TestRunService.class);
+
+        resource.setServices(finder, null, testService);
+        resource.setRequest(request);
+        final Response response = resource.findAllCourses(null, null, null, null, false, null, null, null, null, false);
+
+        assertEquals(304, response.getStatus());
+        assertNull(response.getEntity());
+
+        // any change to the page changes the entity tag
+        mechanics.setVersion(1);
+        assertFalse(tag.equals(AbstractResource.entityTag(expected)));
+        assertFalse(tag.equals(AbstractResource.entityTag(Arrays.asList(mechanics, physics))));
+    }
+
+    @Test
+    public void testUpdateCourseIfMatch() {
+        final CourseInfoRTO info = new CourseInfoRTO(mechanics);
+        final ArgumentCaptor<Course> captor = ArgumentCaptor.forClass(Course.class);
+
+        final CourseManagerService manager = Mockito.mock(CourseManagerService.class);
+        when(manager.updateIfVersion(captor.capture())).thenReturn(3);
+
+        final TestRunService testService = Mockito.mock(TestRunService.class);
+
+        resource.setServices(null, manager, testService);
+        final Response response = resource.updateCourse(physics.getUuid(), info, "\"" + physics.getUuid() + ":2\"");
+
+        assertEquals(204, response.getStatus());
+        assertEquals(new EntityTag(physics.getUuid() + ":3"), response.getMetadata().getFirst("ETag"));
+
+        final Course changes = captor.getValue();
+        assertEquals(physics.getUuid(), changes.getUuid());
+        assertEquals(mechanics.getName(), changes.getName());
+        assertEquals(mechanics.getDescription(), changes.getDescription());
+        assertEquals(mechanics.getCreditHours(), changes.getCreditHours());
+    }
+
+    @Test
+    public void testUpdateCourseIfMatchConflict() {
+        final CourseInfoRTO info = new CourseInfoRTO(mechanics);
+
+        final CourseManagerService manager = Mockito.mock(CourseManagerService.class);
+        when(manager.updateIfVersion(any(Course.class))).thenThrow(
+                new VersionConflictException(physics.getUuid(), 2, 3));
+
+        final TestRunService testService = Mockito.mock(TestRunService.class);
+
+        resource.setServices(null, manager, testService);
+        final Response response = resource.updateCourse(physics.getUuid(), info, "\"" + physics.getUuid() + ":2\"");
+
+        assertEquals(412, response.getStatus());
+    }
+
+    @Test
+    public void testUpdateCourseIfMatchOtherObject() {
+        final CourseInfoRTO info = new CourseInfoRTO(mechanics);
+
+        final CourseManagerService manager = Mockito.mock(CourseManagerService.class);
+
+        final TestRunService testService = Mockito.mock(TestRunService.class);
+
+        resource.setServices(null, manager, testService);
+        final Response response = resource.updateCourse(physics.getUuid(), info,
+                "\"" + mechanics.getUuid() + ":2\"");
+
+        assertEquals(412, response.getStatus());
+        verify(manager, never()).updateIfVersion(any(Course.class));
+    }
+
     @Test
     public void testUpdateCourseBlankName() {
         final Course expected = physics;
@@ -309,7 +868,7 @@ public class CourseResourceTest {
         final TestRunService testService = Mockito.mock(TestRunService.class);
 
         resource.setServices(null, manager, testService);
-        final Response response = resource.updateCourse(expected.getUuid(), info);
+        final Response response = resource.updateCourse(expected.getUuid(), info, null);
 
         assertEquals(400, response.getStatus());
     }
@@ -363,7 +922,7 @@ public class CourseResourceTest {
         final TestRunService testService = Mockito.mock(TestRunService.class);
 
         resource.setServices(null, manager, testService);
-        final Response response = resource.deleteCourse(expected.getUuid(), 0);
+        final Response response = resource.deleteCourse(expected.getUuid(), 0, null);
 
         assertEquals(204, response.getStatus());
     }
@@ -378,17 +937,43 @@ public class CourseResourceTest {
         final TestRunService testService = Mockito.mock(TestRunService.class);
 
         resource.setServices(null, manager, testService);
-        final Response response = resource.deleteCourse(expected.getUuid(), 0);
+        final Response response = resource.deleteCourse(expected.getUuid(), 0, null);
 
         assertEquals(204, response.getStatus());
     }
 
+    @Test
+    public void testDeleteCourseIfMatch() {
+        final CourseManagerService manager = Mockito.mock(CourseManagerService.class);
+
+        final TestRunService testService = Mockito.mock(TestRunService.class);
+
+        resource.setServices(null, manager, testService);
+        final Response response = resource.deleteCourse(physics.getUuid(), null, "\"" + physics.getUuid() + ":2\"");
+
+        assertEquals(204, response.getStatus());
+        verify(manager).deleteIfVersion(physics.getUuid(), 2);
+    }
+
+    @Test
+    public void testDeleteCourseIfMatchMissing() {
+        final CourseManagerService manager = Mockito.mock(CourseManagerService.class);
+        doThrow(new ObjectNotFoundException(physics.getUuid())).when(manager).deleteIfVersion(physics.getUuid(), 2);
+
+        final TestRunService testService = Mockito.mock(TestRunService.class);
+
+        resource.setServices(null, manager, testService);
+        final Response response = resource.deleteCourse(physics.getUuid(), null, "\"" + physics.getUuid() + ":2\"");
+
+        assertEquals(412, response.getStatus());
+    }
+
     @Test
     public void testDeleteCourseFailure() {
         final Course expected = physics;
 
         final CourseFinderService finder = Mockito.mock(CourseFinderService.class);
-        when(finder.findCourseByUuid(expected.getUuid())).thenReturn(expected);
+        when(finder.findByUuidOrNull(expected.getUuid())).thenReturn(expected);
 
         final CourseManagerService manager = Mockito.mock(CourseManagerService.class);
         doThrow(new UnitTestException()).when(manager).deleteCourse(expected.getUuid(), 0);
@@ -396,7 +981,7 @@ public class CourseResourceTest {
         final TestRunService testService = Mockito.mock(TestRunService.class);
 
         resource.setServices(finder, manager, testService);
-        final Response response = resource.deleteCourse(expected.getUuid(), 0);
+        final Response response = resource.deleteCourse(expected.getUuid(), 0, null);
 
         assertEquals(500, response.getStatus());
     }
@@ -24,6 +24,8 @@ package com.invariantproperties.sandbox.student.webservice.server.rest;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.when;
@@ -43,11 +45,13 @@ import org.mockito.Mockito;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 
+import com.invariantproperties.sandbox.student.business.KeysetPage;
 import com.invariantproperties.sandbox.student.business.InstructorFinderService;
 import com.invariantproperties.sandbox.student.business.InstructorManagerService;
 import com.invariantproperties.sandbox.student.business.ObjectNotFoundException;
 import com.invariantproperties.sandbox.student.business.TestRunService;
 import com.invariantproperties.sandbox.student.domain.Instructor;
+import com.invariantproperties.sandbox.student.domain.TestRun;
 import com.invariantproperties.sandbox.student.webservice.config.TestRestApplicationContext1;
 
 /**
@@ -82,12 +86,13 @@ public class InstructorResourceTest {
         final List<Instructor> expected = Arrays.asList(david);
 
         final InstructorFinderService finder = Mockito.mock(InstructorFinderService.class);
-        when(finder.findAllInstructors()).thenReturn(expected);
+        when(finder.findPage(any(KeysetPage.class))).thenReturn(expected);
 
         final TestRunService testService = Mockito.mock(TestRunService.class);
 
         resource.setServices(finder, null, testService);
-        final Response response = resource.findAllInstructors();
+        final Response response = resource.findAllInstructors(null, null, null, null, false, null, null, null,
+                null, false);
 
         assertEquals(200, response.getStatus());
         final Instructor[] actual = (Instructor[]) response.getEntity();
@@ -103,12 +108,13 @@ public class InstructorResourceTest {
         final List<Instructor> expected = new ArrayList<>();
 
         final InstructorFinderService finder = Mockito.mock(InstructorFinderService.class);
-        when(finder.findAllInstructors()).thenReturn(expected);
+        when(finder.findPage(any(KeysetPage.class))).thenReturn(expected);
 
         final TestRunService testService = Mockito.mock(TestRunService.class);
 
         resource.setServices(finder, null, testService);
-        final Response response = resource.findAllInstructors();
+        final Response response = resource.findAllInstructors(null, null, null, null, false, null, null, null,
+                null, false);
 
         assertEquals(200, response.getStatus());
         final Instructor[] actual = (Instructor[]) response.getEntity();
@@ -118,22 +124,101 @@ public class InstructorResourceTest {
     @Test
     public void testFindAllInstructorsFailure() {
         final InstructorFinderService finder = Mockito.mock(InstructorFinderService.class);
-        when(finder.findAllInstructors()).thenThrow(new UnitTestException());
+        when(finder.findPage(any(KeysetPage.class))).thenThrow(new UnitTestException());
 
         final TestRunService testService = Mockito.mock(TestRunService.class);
 
         resource.setServices(finder, null, testService);
-        final Response response = resource.findAllInstructors();
+        final Response response = resource.findAllInstructors(null, null, null, null, false, null, null, null,
+                null, false);
 
         assertEquals(500, response.getStatus());
     }
 
+    @Test
+    public void testFindAllInstructorsBadSort() {
+        final InstructorFinderService finder = Mockito.mock(InstructorFinderService.class);
+        final TestRunService testService = Mockito.mock(TestRunService.class);
+
+        resource.setServices(finder, null, testService);
+        final Response response = resource.findAllInstructors(null, null, "uuid", null, false, null, null, null,
+                null, false);
+
+        assertEquals(400, response.getStatus());
+    }
+
+    @Test
+    public void testFindAllInstructorsBadLimit() {
+        final InstructorFinderService finder = Mockito.mock(InstructorFinderService.class);
+        final TestRunService testService = Mockito.mock(TestRunService.class);
+
+        resource.setServices(finder, null, testService);
+        final Response response = resource.findAllInstructors(null, 0, null, null, false, null, null, null,
+                null, false);
+
+        assertEquals(400, response.getStatus());
+    }
+
+    @Test
+    public void testCountInstructors() {
+        final InstructorFinderService finder = Mockito.mock(InstructorFinderService.class);
+        when(finder.count()).thenReturn(3L);
+
+        final TestRunService testService = Mockito.mock(TestRunService.class);
+
+        resource.setServices(finder, null, testService);
+        final Response response = resource.findAllInstructors(null, null, null, null, true, null, null, null,
+                null, false);
+
+        assertEquals(200, response.getStatus());
+        assertEquals("{ \"count\": 3 }", response.getEntity());
+    }
+
+    @Test
+    public void testCountInstructorsByTestRun() {
+        final TestRun testRun = new TestRun();
+        testRun.setUuid("11111111-1111-1111-1111-111111111111");
+
+        final InstructorFinderService finder = Mockito.mock(InstructorFinderService.class);
+        when(finder.countByTestRun(testRun)).thenReturn(2L);
+
+        final TestRunService testService = Mockito.mock(TestRunService.class);
+        when(testService.findTestRunByUuid(testRun.getUuid())).thenReturn(testRun);
+
+        resource.setServices(finder, null, testService);
+        final Response response = resource.findAllInstructors(null, null, null, null, true, testRun.getUuid(), null,
+                null, null, false);
+
+        assertEquals(200, response.getStatus());
+        assertEquals("{ \"count\": 2 }", response.getEntity());
+    }
+
+    @Test
+    public void testFindAllInstructorsByTestRun() {
+        final TestRun testRun = new TestRun();
+        testRun.setUuid("11111111-1111-1111-1111-111111111111");
+
+        final InstructorFinderService finder = Mockito.mock(InstructorFinderService.class);
+        when(finder.findPageByTestRun(eq(testRun), any(KeysetPage.class))).thenReturn(new ArrayList<Instructor>());
+
+        final TestRunService testService = Mockito.mock(TestRunService.class);
+        when(testService.findTestRunByUuid(testRun.getUuid())).thenReturn(testRun);
+
+        resource.setServices(finder, null, testService);
+        final Response response = resource.findAllInstructors(null, null, null, null, false, testRun.getUuid(), null,
+                null, null, false);
+
+        assertEquals(200, response.getStatus());
+        final Instructor[] actual = (Instructor[]) response.getEntity();
+        assertEquals(0, actual.length);
+    }
+
     @Test
     public void testGetInstructor() {
         final Instructor expected = david;
 
         final InstructorFinderService finder = Mockito.mock(InstructorFinderService.class);
-        when(finder.findInstructorByUuid(expected.getUuid())).thenReturn(expected);
+        when(finder.findByUuidOrNull(expected.getUuid())).thenReturn(expected);
 
         final TestRunService testService = Mockito.mock(TestRunService.class);
 
@@ -151,7 +236,7 @@ public class InstructorResourceTest {
     @Test
     public void testGetInstructorMissing() {
         final InstructorFinderService finder = Mockito.mock(InstructorFinderService.class);
-        when(finder.findInstructorByUuid(david.getUuid())).thenThrow(new ObjectNotFoundException(david.getUuid()));
+        when(finder.findByUuidOrNull(david.getUuid())).thenReturn(null);
 
         final TestRunService testService = Mockito.mock(TestRunService.class);
 
@@ -164,7 +249,7 @@ public class InstructorResourceTest {
     @Test
     public void testGetInstructorFailure() {
         final InstructorFinderService finder = Mockito.mock(InstructorFinderService.class);
-        when(finder.findInstructorByUuid(david.getUuid())).thenThrow(new UnitTestException());
+        when(finder.findByUuidOrNull(david.getUuid())).thenThrow(new UnitTestException());
 
         final TestRunService testService = Mockito.mock(TestRunService.class);
 
@@ -251,13 +336,13 @@ public class InstructorResourceTest {
 
         final InstructorFinderService finder = Mockito.mock(InstructorFinderService.class);
         final InstructorManagerService manager = Mockito.mock(InstructorManagerService.class);
-        when(finder.findInstructorByUuid(expected.getUuid())).thenReturn(expected);
+        when(finder.findByUuidOrNull(expected.getUuid())).thenReturn(expected);
         when(manager.updateInstructor(expected, req.getName(), req.getEmailAddress())).thenReturn(updated);
 
         final TestRunService testService = Mockito.mock(TestRunService.class);
 
         resource.setServices(finder, manager, testService);
-        final Response response = resource.updateInstructor(expected.getUuid(), req);
+        final Response response = resource.updateInstructor(expected.getUuid(), req, null);
 
         assertEquals(200, response.getStatus());
         final Instructor actual = (Instructor) response.getEntity();
@@ -318,7 +403,7 @@ public class InstructorResourceTest {
         final TestRunService testService = Mockito.mock(TestRunService.class);
 
         resource.setServices(null, manager, testService);
-        final Response response = resource.deleteInstructor(expected.getUuid(), 0);
+        final Response response = resource.deleteInstructor(expected.getUuid(), 0, null);
 
         assertEquals(204, response.getStatus());
     }
@@ -335,7 +420,7 @@ public class InstructorResourceTest {
         final TestRunService testService = Mockito.mock(TestRunService.class);
 
         resource.setServices(null, manager, testService);
-        final Response response = resource.deleteInstructor(expected.getUuid(), 0);
+        final Response response = resource.deleteInstructor(expected.getUuid(), 0, null);
 
         assertEquals(204, response.getStatus());
     }
@@ -352,7 +437,7 @@ public class InstructorResourceTest {
         final TestRunService testService = Mockito.mock(TestRunService.class);
 
         resource.setServices(finder, manager, testService);
-        final Response response = resource.deleteInstructor(expected.getUuid(), 0);
+        final Response response = resource.deleteInstructor(expected.getUuid(), 0, null);
 
         assertEquals(500, response.getStatus());
     }
@@ -0,0 +1,118 @@
+/*
+ * This code was written by Bear Giles <bgiles@coyotesong.com> and he
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Any contributions made by others are licensed to this project under
+ * one or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright (c) 2013 Bear Giles <bgiles@coyotesong.com>
+ */
+package com.invariantproperties.sandbox.student.webservice.server.rest;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.List;
+
+import javax.annotation.Resource;
+import javax.ws.rs.core.Response;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mockito;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import com.invariantproperties.sandbox.student.business.SearchHit;
+import com.invariantproperties.sandbox.student.business.SearchService;
+import com.invariantproperties.sandbox.student.webservice.config.TestRestApplicationContext1;
+
+/**
+ * Unit tests for SearchResource.
+ * 
+ * @author Bear Giles <bgiles@coyotesong.com>
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = { TestRestApplicationContext1.class })
+public class SearchResourceTest {
+    private final SearchHit physics = new SearchHit("Course", "a", "Physics I", 1.0);
+
+    @Resource
+    private SearchResource resource;
+
+    @Test
+    public void testSearch() {
+        final List<SearchHit> expected = Arrays.asList(physics);
+
+        final SearchService service = Mockito.mock(SearchService.class);
+        when(service.search("physics", null, AbstractResource.DEFAULT_LIMIT)).thenReturn(expected);
+
+        resource.setServices(service);
+        final Response response = resource.search("physics", null, null);
+
+        assertEquals(200, response.getStatus());
+        final SearchHit[] actual = (SearchHit[]) response.getEntity();
+        assertEquals(1, actual.length);
+        assertEquals(physics.getUuid(), actual[0].getUuid());
+        assertEquals(physics.getTitle(), actual[0].getTitle());
+    }
+
+    @Test
+    public void testSearchByType() {
+        final SearchService service = Mockito.mock(SearchService.class);
+        when(service.search(anyString(), anyString(), anyInt())).thenReturn(Arrays.asList(physics));
+
+        resource.setServices(service);
+        final Response response = resource.search("physics", 5000, "course");
+
+        assertEquals(200, response.getStatus());
+        verify(service).search("physics", "Course", AbstractResource.MAX_LIMIT);
+    }
+
+    @Test
+    public void testSearchMissingQuery() {
+        final SearchService service = Mockito.mock(SearchService.class);
+
+        resource.setServices(service);
+        assertEquals(400, resource.search(null, null, null).getStatus());
+        assertEquals(400, resource.search("  ", null, null).getStatus());
+    }
+
+    @Test
+    public void testSearchBadParameters() {
+        final SearchService service = Mockito.mock(SearchService.class);
+
+        resource.setServices(service);
+        assertEquals(400, resource.search("physics", 0, null).getStatus());
+        assertEquals(400, resource.search("physics", null, "term").getStatus());
+    }
+
+    @Test
+    public void testSearchFailure() {
+        final SearchService service = Mockito.mock(SearchService.class);
+        when(service.search(anyString(), eq((String) null), anyInt())).thenThrow(new UnitTestException());
+
+        resource.setServices(service);
+        final Response response = resource.search("physics", null, null);
+
+        assertEquals(500, response.getStatus());
+    }
+}
@@ -24,6 +24,8 @@ package com.invariantproperties.sandbox.student.webservice.server.rest;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.when;
@@ -43,11 +45,16 @@ import org.mockito.Mockito;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 
+import com.invariantproperties.sandbox.student.business.KeysetPage;
 import com.invariantproperties.sandbox.student.business.ObjectNotFoundException;
 import com.invariantproperties.sandbox.student.business.SectionFinderService;
 import com.invariantproperties.sandbox.student.business.SectionManagerService;
 import com.invariantproperties.sandbox.student.business.TestRunService;
+import com.invariantproperties.sandbox.student.domain.Classroom;
+import com.invariantproperties.sandbox.student.domain.Course;
 import com.invariantproperties.sandbox.student.domain.Section;
+import com.invariantproperties.sandbox.student.domain.Student;
+import com.invariantproperties.sandbox.student.domain.TestRun;
 import com.invariantproperties.sandbox.student.webservice.config.TestRestApplicationContext1;
 
 /**
@@ -80,12 +87,12 @@ public class SectionResourceTest {
         final List<Section> expected = Arrays.asList(physicsFall2013);
 
         final SectionFinderService finder = Mockito.mock(SectionFinderService.class);
-        when(finder.findAllSections()).thenReturn(expected);
+        when(finder.findPage(any(KeysetPage.class))).thenReturn(expected);
 
         final TestRunService testService = Mockito.mock(TestRunService.class);
 
         resource.setServices(finder, null, testService);
-        final Response response = resource.findAllSections();
+        final Response response = resource.findAllSections(null, null, null, null, false, null, null, false);
 
         assertEquals(200, response.getStatus());
         final Section[] actual = (Section[]) response.getEntity();
@@ -100,12 +107,12 @@ public class SectionResourceTest {
         final List<Section> expected = new ArrayList<>();
 
         final SectionFinderService finder = Mockito.mock(SectionFinderService.class);
-        when(finder.findAllSections()).thenReturn(expected);
+        when(finder.findPage(any(KeysetPage.class))).thenReturn(expected);
 
         final TestRunService testService = Mockito.mock(TestRunService.class);
 
         resource.setServices(finder, null, testService);
-        final Response response = resource.findAllSections();
+        final Response response = resource.findAllSections(null, null, null, null, false, null, null, false);
 
         assertEquals(200, response.getStatus());
         final Section[] actual = (Section[]) response.getEntity();
@@ -115,22 +122,97 @@ public class SectionResourceTest {
     @Test
     public void testFindAllSectionsFailure() {
         final SectionFinderService finder = Mockito.mock(SectionFinderService.class);
-        when(finder.findAllSections()).thenThrow(new UnitTestException());
+        when(finder.findPage(any(KeysetPage.class))).thenThrow(new UnitTestException());
 
         final TestRunService testService = Mockito.mock(TestRunService.class);
 
         resource.setServices(finder, null, testService);
-        final Response response = resource.findAllSections();
+        final Response response = resource.findAllSections(null, null, null, null, false, null, null, false);
 
         assertEquals(500, response.getStatus());
     }
 
+    @Test
+    public void testFindAllSectionsBadSort() {
+        final SectionFinderService finder = Mockito.mock(SectionFinderService.class);
+        final TestRunService testService = Mockito.mock(TestRunService.class);
+
+        resource.setServices(finder, null, testService);
+        final Response response = resource.findAllSections(null, null, "uuid", null, false, null, null, false);
+
+        assertEquals(400, response.getStatus());
+    }
+
+    @Test
+    public void testFindAllSectionsBadLimit() {
+        final SectionFinderService finder = Mockito.mock(SectionFinderService.class);
+        final TestRunService testService = Mockito.mock(TestRunService.class);
+
+        resource.setServices(finder, null, testService);
+        final Response response = resource.findAllSections(null, 0, null, null, false, null, null, false);
+
+        assertEquals(400, response.getStatus());
+    }
+
+    @Test
+    public void testCountSections() {
+        final SectionFinderService finder = Mockito.mock(SectionFinderService.class);
+        when(finder.count()).thenReturn(3L);
+
+        final TestRunService testService = Mockito.mock(TestRunService.class);
+
+        resource.setServices(finder, null, testService);
+        final Response response = resource.findAllSections(null, null, null, null, true, null, null, false);
+
+        assertEquals(200, response.getStatus());
+        assertEquals("{ \"count\": 3 }", response.getEntity());
+    }
+
+    @Test
+    public void testCountSectionsByTestRun() {
+        final TestRun testRun = new TestRun();
+        testRun.setUuid("11111111-1111-1111-1111-111111111111");
+
+        final SectionFinderService finder = Mockito.mock(SectionFinderService.class);
+        when(finder.countByTestRun(testRun)).thenReturn(2L);
+
+        final TestRunService testService = Mockito.mock(TestRunService.class);
+        when(testService.findTestRunByUuid(testRun.getUuid())).thenReturn(testRun);
+
+        resource.setServices(finder, null, testService);
+        final Response response = resource.findAllSections(null, null, null, null, true, testRun.getUuid(),
+                null, false);
+
+        assertEquals(200, response.getStatus());
+        assertEquals("{ \"count\": 2 }", response.getEntity());
+    }
+
+    @Test
+    public void testFindAllSectionsByTestRun() {
+        final TestRun testRun = new TestRun();
+        testRun.setUuid("11111111-1111-1111-1111-111111111111");
+
+        final SectionFinderService finder = Mockito.mock(SectionFinderService.class);
+        when(finder.findPageByTestRun(eq(testRun), any(KeysetPage.class))).thenReturn(new ArrayList<Section>());
+
+        final TestRunService testService = Mockito.mock(TestRunService.class);
+        when(testService.findTestRunByUuid(testRun.getUuid())).thenReturn(testRun);
+
+        resource.setServices(finder, null, testService);
+        final Response response = resource.findAllSections(null, null, null, null, false, testRun.getUuid(),
+                null, false);
+
+        assertEquals(200, response.getStatus());
+        final Section[] actual = (Section[]) response.getEntity();
+        assertEquals(0, actual.length);
+    }
+
     @Test
     public void testGetSection() {
         final Section expected = physicsFall2013;
 
         final SectionFinderService finder = Mockito.mock(SectionFinderService.class);
-        when(finder.findSectionByUuid(expected.getUuid())).thenReturn(expected);
+        when(finder.findByUuidOrNull(expected.getUuid())).thenReturn(expected);
 
         final TestRunService testService = Mockito.mock(TestRunService.class);
 
@@ -147,7 +229,7 @@ public class SectionResourceTest {
     @Test
     public void testGetSectionMissing() {
         final SectionFinderService finder = Mockito.mock(SectionFinderService.class);
-        when(finder.findSectionByUuid(physicsFall2013.getUuid())).thenThrow(
+        when(finder.findByUuidOrNull(physicsFall2013.getUuid())).thenThrow(
                 new ObjectNotFoundException(physicsFall2013.getUuid()));
 
         final TestRunService testService = Mockito.mock(TestRunService.class);
@@ -161,7 +243,7 @@ public class SectionResourceTest {
     @Test
     public void testGetSectionFailure() {
         final SectionFinderService finder = Mockito.mock(SectionFinderService.class);
-        when(finder.findSectionByUuid(physicsFall2013.getUuid())).thenThrow(new UnitTestException());
+        when(finder.findByUuidOrNull(physicsFall2013.getUuid())).thenThrow(new UnitTestException());
 
         final TestRunService testService = Mockito.mock(TestRunService.class);
 
@@ -171,6 +253,61 @@ public class SectionResourceTest {
         assertEquals(500, response.getStatus());
     }
 
+    @Test
+    public void testGetSectionRoster() {
+        final Section expected = physicsFall2013;
+        final Course course = new Course();
+        course.setId(3);
+        course.setUuid(UUID.randomUUID().toString());
+        course.setCode("PHYS 101");
+        course.setDescription("description");
+        final Student student = new Student();
+        student.setId(4);
+        student.setUuid(UUID.randomUUID().toString());
+        student.setName("Alice");
+        final Classroom classroom = new Classroom();
+        classroom.setId(5);
+        classroom.setUuid(UUID.randomUUID().toString());
+        expected.setCourse(course);
+        expected.setStudents(Arrays.asList(student));
+        expected.setClassrooms(Arrays.asList(classroom));
+
+        final SectionFinderService finder = Mockito.mock(SectionFinderService.class);
+        when(finder.findSectionRosterByUuid(expected.getUuid())).thenReturn(expected);
+
+        final TestRunService testService = Mockito.mock(TestRunService.class);
+
+        resource.setServices(finder, null, testService);
+        final Response response = resource.getSectionRoster(expected.getUuid());
+
+        assertEquals(200, response.getStatus());
+        final Section actual = (Section) response.getEntity();
+        assertNull(actual.getId());
+        assertEquals(expected.getUuid(), actual.getUuid());
+        assertNull(actual.getCourse().getId());
+        assertEquals(course.getCode(), actual.getCourse().getCode());
+        assertNull(actual.getCourse().getDescription());
+        assertEquals(1, actual.getStudents().size());
+        assertNull(actual.getStudents().get(0).getId());
+        assertEquals(student.getName(), actual.getStudents().get(0).getName());
+        assertEquals(1, actual.getClassrooms().size());
+        assertEquals(classroom.getUuid(), actual.getClassrooms().get(0).getUuid());
+    }
+
+    @Test
+    public void testGetSectionRosterMissing() {
+        final SectionFinderService finder = Mockito.mock(SectionFinderService.class);
+        when(finder.findSectionRosterByUuid(physicsFall2013.getUuid())).thenThrow(
+                new ObjectNotFoundException(physicsFall2013.getUuid()));
+
+        final TestRunService testService = Mockito.mock(TestRunService.class);
+
+        resource.setServices(finder, null, testService);
+        final Response response = resource.getSectionRoster(physicsFall2013.getUuid());
+
+        assertEquals(404, response.getStatus());
+    }
+
     @Test
     public void testCreateSection() {
         final Section expected = physicsFall2013;
@@ -257,13 +394,13 @@ public class SectionResourceTest {
 
         final SectionFinderService finder = Mockito.mock(SectionFinderService.class);
         final SectionManagerService manager = Mockito.mock(SectionManagerService.class);
-        when(finder.findSectionByUuid(expected.getUuid())).thenReturn(expected);
+        when(finder.findByUuidOrNull(expected.getUuid())).thenReturn(expected);
         when(manager.updateSection(expected, name.getName())).thenReturn(updated);
 
         final TestRunService testService = Mockito.mock(TestRunService.class);
 
         resource.setServices(finder, manager, testService);
-        final Response response = resource.updateSection(expected.getUuid(), name);
+        final Response response = resource.updateSection(expected.getUuid(), name, null);
 
         assertEquals(200, response.getStatus());
         final Section actual = (Section) response.getEntity();
@@ -283,7 +420,7 @@ public class SectionResourceTest {
         final TestRunService testService = Mockito.mock(TestRunService.class);
 
         resource.setServices(null, manager, testService);
-        final Response response = resource.updateSection(expected.getUuid(), name);
+        final Response response = resource.updateSection(expected.getUuid(), name, null);
 
         assertEquals(400, response.getStatus());
     }
@@ -337,7 +474,7 @@ public class SectionResourceTest {
         final TestRunService testService = Mockito.mock(TestRunService.class);
 
         resource.setServices(null, manager, testService);
-        final Response response = resource.deleteSection(expected.getUuid(), 0);
+        final Response response = resource.deleteSection(expected.getUuid(), 0, null);
 
         assertEquals(204, response.getStatus());
     }
@@ -354,7 +491,7 @@ public class SectionResourceTest {
         final TestRunService testService = Mockito.mock(TestRunService.class);
 
         resource.setServices(null, manager, testService);
-        final Response response = resource.deleteSection(expected.getUuid(), 0);
+        final Response response = resource.deleteSection(expected.getUuid(), 0, null);
 
         assertEquals(204, response.getStatus());
     }
@@ -364,7 +501,7 @@ public class SectionResourceTest {
         final Section expected = physicsFall2013;
 
         final SectionFinderService finder = Mockito.mock(SectionFinderService.class);
-        when(finder.findSectionByUuid(expected.getUuid())).thenReturn(expected);
+        when(finder.findByUuidOrNull(expected.getUuid())).thenReturn(expected);
 
         final SectionManagerService manager = Mockito.mock(SectionManagerService.class);
         doThrow(new UnitTestException()).when(manager).deleteSection(expected.getUuid(), 0);
@@ -372,7 +509,7 @@ public class SectionResourceTest {
         final TestRunService testService = Mockito.mock(TestRunService.class);
 
         resource.setServices(null, manager, testService);
-        final Response response = resource.deleteSection(expected.getUuid(), 0);
+        final Response response = resource.deleteSection(expected.getUuid(), 0, null);
 
         assertEquals(500, response.getStatus());
     }
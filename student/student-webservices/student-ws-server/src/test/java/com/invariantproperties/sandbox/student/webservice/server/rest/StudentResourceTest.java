@@ -24,6 +24,8 @@ package com.invariantproperties.sandbox.student.webservice.server.rest;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.when;
@@ -43,11 +45,13 @@ import org.mockito.Mockito;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 
+import com.invariantproperties.sandbox.student.business.KeysetPage;
 import com.invariantproperties.sandbox.student.business.ObjectNotFoundException;
 import com.invariantproperties.sandbox.student.business.StudentFinderService;
 import com.invariantproperties.sandbox.student.business.StudentManagerService;
 import com.invariantproperties.sandbox.student.business.TestRunService;
 import com.invariantproperties.sandbox.student.domain.Student;
+import com.invariantproperties.sandbox.student.domain.TestRun;
 import com.invariantproperties.sandbox.student.webservice.config.TestRestApplicationContext1;
 
 /**
@@ -82,12 +86,13 @@ public class StudentResourceTest {
         final List<Student> expected = Arrays.asList(david);
 
         final StudentFinderService finder = Mockito.mock(StudentFinderService.class);
-        when(finder.findAllStudents()).thenReturn(expected);
+        when(finder.findPage(any(KeysetPage.class))).thenReturn(expected);
 
         final TestRunService testService = Mockito.mock(TestRunService.class);
 
         resource.setServices(finder, null, testService);
-        final Response response = resource.findAllStudents();
+        final Response response = resource.findAllStudents(null, null, null, null, false, null, null, null,
+                null, false);
 
         assertEquals(200, response.getStatus());
         final Student[] actual = (Student[]) response.getEntity();
@@ -103,12 +108,13 @@ public class StudentResourceTest {
         final List<Student> expected = new ArrayList<>();
 
         final StudentFinderService finder = Mockito.mock(StudentFinderService.class);
-        when(finder.findAllStudents()).thenReturn(expected);
+        when(finder.findPage(any(KeysetPage.class))).thenReturn(expected);
 
         final TestRunService testService = Mockito.mock(TestRunService.class);
 
         resource.setServices(finder, null, testService);
-        final Response response = resource.findAllStudents();
+        final Response response = resource.findAllStudents(null, null, null, null, false, null, null, null,
+                null, false);
 
         assertEquals(200, response.getStatus());
         final Student[] actual = (Student[]) response.getEntity();
@@ -118,22 +124,99 @@ public class StudentResourceTest {
     @Test
     public void testFindAllStudentsFailure() {
         final StudentFinderService finder = Mockito.mock(StudentFinderService.class);
-        when(finder.findAllStudents()).thenThrow(new UnitTestException());
+        when(finder.findPage(any(KeysetPage.class))).thenThrow(new UnitTestException());
 
         final TestRunService testService = Mockito.mock(TestRunService.class);
 
         resource.setServices(finder, null, testService);
-        final Response response = resource.findAllStudents();
+        final Response response = resource.findAllStudents(null, null, null, null, false, null, null, null,
+                null, false);
 
         assertEquals(500, response.getStatus());
     }
 
+    @Test
+    public void testFindAllStudentsBadSort() {
+        final StudentFinderService finder = Mockito.mock(StudentFinderService.class);
+        final TestRunService testService = Mockito.mock(TestRunService.class);
+
+        resource.setServices(finder, null, testService);
+        final Response response = resource.findAllStudents(null, null, "uuid", null, false, null, null, null,
+                null, false);
+
+        assertEquals(400, response.getStatus());
+    }
+
+    @Test
+    public void testFindAllStudentsBadLimit() {
+        final StudentFinderService finder = Mockito.mock(StudentFinderService.class);
+        final TestRunService testService = Mockito.mock(TestRunService.class);
+
+        resource.setServices(finder, null, testService);
+        final Response response = resource.findAllStudents(null, 0, null, null, false, null, null, null, null, false);
+
+        assertEquals(400, response.getStatus());
+    }
+
+    @Test
+    public void testCountStudents() {
+        final StudentFinderService finder = Mockito.mock(StudentFinderService.class);
+        when(finder.count()).thenReturn(3L);
+
+        final TestRunService testService = Mockito.mock(TestRunService.class);
+
+        resource.setServices(finder, null, testService);
+        final Response response = resource.findAllStudents(null, null, null, null, true, null, null, null, null, false);
+
+        assertEquals(200, response.getStatus());
+        assertEquals("{ \"count\": 3 }", response.getEntity());
+    }
+
+    @Test
+    public void testCountStudentsByTestRun() {
+        final TestRun testRun = new TestRun();
+        testRun.setUuid("11111111-1111-1111-1111-111111111111");
+
+        final StudentFinderService finder = Mockito.mock(StudentFinderService.class);
+        when(finder.countByTestRun(testRun)).thenReturn(2L);
+
+        final TestRunService testService = Mockito.mock(TestRunService.class);
+        when(testService.findTestRunByUuid(testRun.getUuid())).thenReturn(testRun);
+
+        resource.setServices(finder, null, testService);
+        final Response response = resource.findAllStudents(null, null, null, null, true, testRun.getUuid(), null,
+                null, null, false);
+
+        assertEquals(200, response.getStatus());
+        assertEquals("{ \"count\": 2 }", response.getEntity());
+    }
+
+    @Test
+    public void testFindAllStudentsByTestRun() {
+        final TestRun testRun = new TestRun();
+        testRun.setUuid("11111111-1111-1111-1111-111111111111");
+
+        final StudentFinderService finder = Mockito.mock(StudentFinderService.class);
+        when(finder.findPageByTestRun(eq(testRun), any(KeysetPage.class))).thenReturn(new ArrayList<Student>());
+
+        final TestRunService testService = Mockito.mock(TestRunService.class);
+        when(testService.findTestRunByUuid(testRun.getUuid())).thenReturn(testRun);
+
+        resource.setServices(finder, null, testService);
+        final Response response = resource.findAllStudents(null, null, null, null, false, testRun.getUuid(), null,
+                null, null, false);
+
+        assertEquals(200, response.getStatus());
+        final Student[] actual = (Student[]) response.getEntity();
+        assertEquals(0, actual.length);
+    }
+
     @Test
     public void testGetStudent() {
         final Student expected = david;
 
         final StudentFinderService finder = Mockito.mock(StudentFinderService.class);
-        when(finder.findStudentByUuid(expected.getUuid())).thenReturn(expected);
+        when(finder.findByUuidOrNull(expected.getUuid())).thenReturn(expected);
 
         final TestRunService testService = Mockito.mock(TestRunService.class);
 
@@ -151,7 +234,7 @@ public class StudentResourceTest {
     @Test
     public void testGetStudentMissing() {
         final StudentFinderService finder = Mockito.mock(StudentFinderService.class);
-        when(finder.findStudentByUuid(david.getUuid())).thenThrow(new ObjectNotFoundException(david.getUuid()));
+        when(finder.findByUuidOrNull(david.getUuid())).thenReturn(null);
 
         final TestRunService testService = Mockito.mock(TestRunService.class);
 
@@ -164,7 +247,7 @@ public class StudentResourceTest {
     @Test
     public void testGetStudentFailure() {
         final StudentFinderService finder = Mockito.mock(StudentFinderService.class);
-        when(finder.findStudentByUuid(david.getUuid())).thenThrow(new UnitTestException());
+        when(finder.findByUuidOrNull(david.getUuid())).thenThrow(new UnitTestException());
 
         final TestRunService testService = Mockito.mock(TestRunService.class);
 
@@ -251,13 +334,13 @@ public class StudentResourceTest {
 
         final StudentFinderService finder = Mockito.mock(StudentFinderService.class);
         final StudentManagerService manager = Mockito.mock(StudentManagerService.class);
-        when(finder.findStudentByUuid(expected.getUuid())).thenReturn(expected);
+        when(finder.findByUuidOrNull(expected.getUuid())).thenReturn(expected);
         when(manager.updateStudent(expected, req.getName(), req.getEmailAddress())).thenReturn(updated);
 
         final TestRunService testService = Mockito.mock(TestRunService.class);
 
         resource.setServices(finder, manager, testService);
-        final Response response = resource.updateStudent(expected.getUuid(), req);
+        final Response response = resource.updateStudent(expected.getUuid(), req, null);
 
         assertEquals(200, response.getStatus());
         final Student actual = (Student) response.getEntity();
@@ -317,7 +400,7 @@ public class StudentResourceTest {
         final TestRunService testService = Mockito.mock(TestRunService.class);
 
         resource.setServices(null, manager, testService);
-        final Response response = resource.deleteStudent(expected.getUuid(), 0);
+        final Response response = resource.deleteStudent(expected.getUuid(), 0, null);
 
         assertEquals(204, response.getStatus());
     }
@@ -334,7 +417,7 @@ public class StudentResourceTest {
         final TestRunService testService = Mockito.mock(TestRunService.class);
 
         resource.setServices(null, manager, testService);
-        final Response response = resource.deleteStudent(expected.getUuid(), 0);
+        final Response response = resource.deleteStudent(expected.getUuid(), 0, null);
 
         assertEquals(204, response.getStatus());
     }
@@ -344,7 +427,7 @@ public class StudentResourceTest {
         final Student expected = david;
 
         final StudentFinderService finder = Mockito.mock(StudentFinderService.class);
-        when(finder.findStudentByUuid(expected.getUuid())).thenReturn(expected);
+        when(finder.findByUuidOrNull(expected.getUuid())).thenReturn(expected);
 
         final StudentManagerService manager = Mockito.mock(StudentManagerService.class);
         doThrow(new UnitTestException()).when(manager).deleteStudent(expected.getUuid(), 0);
@@ -352,7 +435,7 @@ public class StudentResourceTest {
         final TestRunService testService = Mockito.mock(TestRunService.class);
 
         resource.setServices(finder, manager, testService);
-        final Response response = resource.deleteStudent(expected.getUuid(), 0);
+        final Response response = resource.deleteStudent(expected.getUuid(), 0, null);
 
         assertEquals(500, response.getStatus());
     }
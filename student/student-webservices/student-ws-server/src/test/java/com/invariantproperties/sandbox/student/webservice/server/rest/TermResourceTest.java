@@ -24,6 +24,8 @@ package com.invariantproperties.sandbox.student.webservice.server.rest;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.when;
@@ -43,11 +45,13 @@ import org.mockito.Mockito;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 
+import com.invariantproperties.sandbox.student.business.KeysetPage;
 import com.invariantproperties.sandbox.student.business.ObjectNotFoundException;
 import com.invariantproperties.sandbox.student.business.TermFinderService;
 import com.invariantproperties.sandbox.student.business.TermManagerService;
 import com.invariantproperties.sandbox.student.business.TestRunService;
 import com.invariantproperties.sandbox.student.domain.Term;
+import com.invariantproperties.sandbox.student.domain.TestRun;
 import com.invariantproperties.sandbox.student.webservice.config.TestRestApplicationContext1;
 
 /**
@@ -80,12 +84,12 @@ public class TermResourceTest {
         final List<Term> expected = Arrays.asList(fall2013);
 
         final TermFinderService finder = Mockito.mock(TermFinderService.class);
-        when(finder.findAllTerms()).thenReturn(expected);
+        when(finder.findPage(any(KeysetPage.class))).thenReturn(expected);
 
         final TestRunService testService = Mockito.mock(TestRunService.class);
 
         resource.setServices(finder, null, testService);
-        final Response response = resource.findAllTerms();
+        final Response response = resource.findAllTerms(null, null, null, null, false, null, null, false);
 
         assertEquals(200, response.getStatus());
         final Term[] actual = (Term[]) response.getEntity();
@@ -100,12 +104,12 @@ public class TermResourceTest {
         final List<Term> expected = new ArrayList<>();
 
         final TermFinderService finder = Mockito.mock(TermFinderService.class);
-        when(finder.findAllTerms()).thenReturn(expected);
+        when(finder.findPage(any(KeysetPage.class))).thenReturn(expected);
 
         final TestRunService testService = Mockito.mock(TestRunService.class);
 
         resource.setServices(finder, null, testService);
-        final Response response = resource.findAllTerms();
+        final Response response = resource.findAllTerms(null, null, null, null, false, null, null, false);
 
         assertEquals(200, response.getStatus());
         final Term[] actual = (Term[]) response.getEntity();
@@ -115,22 +119,95 @@ public class TermResourceTest {
     @Test
     public void testFindAllTermsFailure() {
         final TermFinderService finder = Mockito.mock(TermFinderService.class);
-        when(finder.findAllTerms()).thenThrow(new UnitTestException());
+        when(finder.findPage(any(KeysetPage.class))).thenThrow(new UnitTestException());
 
         final TestRunService testService = Mockito.mock(TestRunService.class);
 
         resource.setServices(finder, null, testService);
-        final Response response = resource.findAllTerms();
+        final Response response = resource.findAllTerms(null, null, null, null, false, null, null, false);
 
         assertEquals(500, response.getStatus());
     }
 
+    @Test
+    public void testFindAllTermsBadSort() {
+        final TermFinderService finder = Mockito.mock(TermFinderService.class);
+        final TestRunService testService = Mockito.mock(TestRunService.class);
+
+        resource.setServices(finder, null, testService);
+        final Response response = resource.findAllTerms(null, null, "uuid", null, false, null, null, false);
+
+        assertEquals(400, response.getStatus());
+    }
+
+    @Test
+    public void testFindAllTermsBadLimit() {
+        final TermFinderService finder = Mockito.mock(TermFinderService.class);
+        final TestRunService testService = Mockito.mock(TestRunService.class);
+
+        resource.setServices(finder, null, testService);
+        final Response response = resource.findAllTerms(null, 0, null, null, false, null, null, false);
+
+        assertEquals(400, response.getStatus());
+    }
+
+    @Test
+    public void testCountTerms() {
+        final TermFinderService finder = Mockito.mock(TermFinderService.class);
+        when(finder.count()).thenReturn(3L);
+
+        final TestRunService testService = Mockito.mock(TestRunService.class);
+
+        resource.setServices(finder, null, testService);
+        final Response response = resource.findAllTerms(null, null, null, null, true, null, null, false);
+
+        assertEquals(200, response.getStatus());
+        assertEquals("{ \"count\": 3 }", response.getEntity());
+    }
+
+    @Test
+    public void testCountTermsByTestRun() {
+        final TestRun testRun = new TestRun();
+        testRun.setUuid("11111111-1111-1111-1111-111111111111");
+
+        final TermFinderService finder = Mockito.mock(TermFinderService.class);
+        when(finder.countByTestRun(testRun)).thenReturn(2L);
+
+        final TestRunService testService = Mockito.mock(TestRunService.class);
+        when(testService.findTestRunByUuid(testRun.getUuid())).thenReturn(testRun);
+
+        resource.setServices(finder, null, testService);
+        final Response response = resource.findAllTerms(null, null, null, null, true, testRun.getUuid(), null, false);
+
+        assertEquals(200, response.getStatus());
+        assertEquals("{ \"count\": 2 }", response.getEntity());
+    }
+
+    @Test
+    public void testFindAllTermsByTestRun() {
+        final TestRun testRun = new TestRun();
+        testRun.setUuid("11111111-1111-1111-1111-111111111111");
+
+        final TermFinderService finder = Mockito.mock(TermFinderService.class);
+        when(finder.findPageByTestRun(eq(testRun), any(KeysetPage.class))).thenReturn(new ArrayList<Term>());
+
+        final TestRunService testService = Mockito.mock(TestRunService.class);
+        when(testService.findTestRunByUuid(testRun.getUuid())).thenReturn(testRun);
+
+        resource.setServices(finder, null, testService);
+        final Response response = resource.findAllTerms(null, null, null, null, false, testRun.getUuid(), null, false);
+
+        assertEquals(200, response.getStatus());
+        final Term[] actual = (Term[]) response.getEntity();
+        assertEquals(0, actual.length);
+    }
+
     @Test
     public void testGetTerm() {
         final Term expected = fall2013;
 
         final TermFinderService finder = Mockito.mock(TermFinderService.class);
-        when(finder.findTermByUuid(expected.getUuid())).thenReturn(expected);
+        when(finder.findByUuidOrNull(expected.getUuid())).thenReturn(expected);
 
         final TestRunService testService = Mockito.mock(TestRunService.class);
 
@@ -147,7 +224,7 @@ public class TermResourceTest {
     @Test
     public void testGetTermMissing() {
         final TermFinderService finder = Mockito.mock(TermFinderService.class);
-        when(finder.findTermByUuid(fall2013.getUuid())).thenThrow(new ObjectNotFoundException(fall2013.getUuid()));
+        when(finder.findByUuidOrNull(fall2013.getUuid())).thenReturn(null);
 
         final TestRunService testService = Mockito.mock(TestRunService.class);
 
@@ -160,7 +237,7 @@ public class TermResourceTest {
     @Test
     public void testGetTermFailure() {
         final TermFinderService finder = Mockito.mock(TermFinderService.class);
-        when(finder.findTermByUuid(fall2013.getUuid())).thenThrow(new UnitTestException());
+        when(finder.findByUuidOrNull(fall2013.getUuid())).thenThrow(new UnitTestException());
 
         final TestRunService testService = Mockito.mock(TestRunService.class);
 
@@ -256,13 +333,13 @@ public class TermResourceTest {
 
         final TermFinderService finder = Mockito.mock(TermFinderService.class);
         final TermManagerService manager = Mockito.mock(TermManagerService.class);
-        when(finder.findTermByUuid(expected.getUuid())).thenReturn(expected);
+        when(finder.findByUuidOrNull(expected.getUuid())).thenReturn(expected);
         when(manager.updateTerm(expected, name.getName())).thenReturn(updated);
 
         final TestRunService testService = Mockito.mock(TestRunService.class);
 
         resource.setServices(finder, manager, testService);
-        final Response response = resource.updateTerm(expected.getUuid(), name);
+        final Response response = resource.updateTerm(expected.getUuid(), name, null);
 
         assertEquals(200, response.getStatus());
         final Term actual = (Term) response.getEntity();
@@ -282,7 +359,7 @@ public class TermResourceTest {
         final TestRunService testService = Mockito.mock(TestRunService.class);
 
         resource.setServices(null, manager, testService);
-        final Response response = resource.updateTerm(expected.getUuid(), name);
+        final Response response = resource.updateTerm(expected.getUuid(), name, null);
 
         assertEquals(400, response.getStatus());
     }
@@ -336,7 +413,7 @@ public class TermResourceTest {
         final TestRunService testService = Mockito.mock(TestRunService.class);
 
         resource.setServices(null, manager, testService);
-        final Response response = resource.deleteTerm(expected.getUuid(), 0);
+        final Response response = resource.deleteTerm(expected.getUuid(), 0, null);
 
         assertEquals(204, response.getStatus());
     }
@@ -353,7 +430,7 @@ public class TermResourceTest {
         final TestRunService testService = Mockito.mock(TestRunService.class);
 
         resource.setServices(null, manager, testService);
-        final Response response = resource.deleteTerm(expected.getUuid(), 0);
+        final Response response = resource.deleteTerm(expected.getUuid(), 0, null);
 
         assertEquals(204, response.getStatus());
     }
@@ -363,7 +440,7 @@ public class TermResourceTest {
         final Term expected = fall2013;
 
         final TermFinderService finder = Mockito.mock(TermFinderService.class);
-        when(finder.findTermByUuid(expected.getUuid())).thenReturn(expected);
+        when(finder.findByUuidOrNull(expected.getUuid())).thenReturn(expected);
 
         final TermManagerService manager = Mockito.mock(TermManagerService.class);
         doThrow(new UnitTestException()).when(manager).deleteTerm(expected.getUuid(), 0);
@@ -371,7 +448,7 @@ public class TermResourceTest {
         final TestRunService testService = Mockito.mock(TestRunService.class);
 
         resource.setServices(null, manager, testService);
-        final Response response = resource.deleteTerm(expected.getUuid(), 0);
+        final Response response = resource.deleteTerm(expected.getUuid(), 0, null);
 
         assertEquals(500, response.getStatus());
     }
@@ -0,0 +1,291 @@
+/*
+ * This code was written by Bear Giles <bgiles@coyotesong.com> and he
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Any contributions made by others are licensed to this project under
+ * one or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ * Copyright (c) 2013 Bear Giles <bgiles@coyotesong.com>
+ */
+package com.invariantproperties.sandbox.student.sql;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.UUID;
+
+import org.junit.AfterClass;
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Runs create.sql and partition.sql against a PostgreSQL database and checks
+ * that the partitioned tables keep the unique constraints and foreign keys
+ * of the original tables.
+ * 
+ * The test is skipped unless the database is given, e.g.
+ * '-Dtest.postgresql.url=jdbc:postgresql://localhost/test?user=postgres'.
+ * It creates and drops the schema 'partition_it'. The user must be able to
+ * create the 'student' role if it doesn't exist.
+ * 
+ * @author Bear Giles <bgiles@coyotesong.com>
+ */
+public class PartitionScriptIntegrationTest {
+    private static final String SCHEMA = "partition_it";
+    private static final String UNIQUE_VIOLATION = "23505";
+    private static final String FOREIGN_KEY_VIOLATION = "23503";
+
+    private static Connection conn;
+    private static int testRunPkey;
+
+    @BeforeClass
+    public static void createSchema() throws SQLException, IOException {
+        final String url = System.getProperty("test.postgresql.url");
+        Assume.assumeTrue(url != null && !url.isEmpty());
+
+        conn = DriverManager.getConnection(url);
+        execute("drop schema if exists " + SCHEMA + " cascade");
+        execute("create schema " + SCHEMA);
+        execute("set search_path to " + SCHEMA + ", public");
+        execute("do $$ begin create role student; exception when duplicate_object then null; end $$");
+
+        execute(read("create.sql"));
+        execute(read("partition.sql"));
+        // the script is idempotent.
+        execute(read("partition.sql"));
+
+        testRunPkey = queryInt("insert into test_run(uuid, creation_date, name, test_date, username) "
+                + "values ('" + UUID.randomUUID() + "', now(), 'test', now(), 'test') returning test_run_pkey");
+    }
+
+    @AfterClass
+    public static void dropSchema() throws SQLException {
+        if (conn != null) {
+            execute("drop schema if exists " + SCHEMA + " cascade");
+            conn.close();
+        }
+    }
+
+    @Test
+    public void testTablesArePartitioned() throws SQLException {
+        assertEquals(6, queryInt("select count(*) from pg_class c join pg_namespace n on n.oid = c.relnamespace "
+                + "where n.nspname = '" + SCHEMA + "' and c.relkind = 'p'"));
+    }
+
+    @Test
+    public void testRowsAreRouted() throws SQLException {
+        final int production = insertCourse(UUID.randomUUID(), code(), null);
+        final int test = insertCourse(UUID.randomUUID(), code(), testRunPkey);
+
+        assertEquals(1, queryInt("select count(*) from course_production where course_pkey = " + production));
+        assertEquals(1, queryInt("select count(*) from course_test where course_pkey = " + test));
+    }
+
+    @Test
+    public void testProductionQueriesSkipTestPartition() throws SQLException {
+        final StringBuilder plan = new StringBuilder();
+        try (Statement stmt = conn.createStatement();
+                ResultSet rs = stmt.executeQuery("explain select * from course where test_run_pkey is null")) {
+            while (rs.next()) {
+                plan.append(rs.getString(1)).append('\n');
+            }
+        }
+
+        assertTrue(plan.toString(), plan.indexOf("course_production") >= 0);
+        assertFalse(plan.toString(), plan.indexOf("course_test") >= 0);
+    }
+
+    @Test
+    public void testUuidUniqueAcrossPartitions() throws SQLException {
+        final UUID uuid = UUID.randomUUID();
+        insertCourse(uuid, code(), null);
+
+        try {
+            insertCourse(uuid, code(), testRunPkey);
+            fail("expected unique violation");
+        } catch (SQLException e) {
+            assertEquals(UNIQUE_VIOLATION, e.getSQLState());
+        }
+    }
+
+    @Test
+    public void testCodeUniqueAcrossPartitions() throws SQLException {
+        final String code = code();
+        insertCourse(UUID.randomUUID(), code, testRunPkey);
+
+        try {
+            insertCourse(UUID.randomUUID(), code, null);
+            fail("expected unique violation");
+        } catch (SQLException e) {
+            assertEquals(UNIQUE_VIOLATION, e.getSQLState());
+        }
+    }
+
+    @Test
+    public void testCodeUniqueAcrossPartitionsOnUpdate() throws SQLException {
+        final String code = code();
+        insertCourse(UUID.randomUUID(), code, null);
+        final int pkey = insertCourse(UUID.randomUUID(), code(), testRunPkey);
+
+        try {
+            execute("update course set code = '" + code + "' where course_pkey = " + pkey);
+            fail("expected unique violation");
+        } catch (SQLException e) {
+            assertEquals(UNIQUE_VIOLATION, e.getSQLState());
+        }
+    }
+
+    @Test
+    public void testEmailUniqueAcrossPartitions() throws SQLException {
+        final String email = code() + "@example.com";
+        insertStudent(email, null);
+
+        try {
+            insertStudent(email, testRunPkey);
+            fail("expected unique violation");
+        } catch (SQLException e) {
+            assertEquals(UNIQUE_VIOLATION, e.getSQLState());
+        }
+    }
+
+    @Test
+    public void testMissingCourse() throws SQLException {
+        try {
+            insertSection(-1, null);
+            fail("expected foreign key violation");
+        } catch (SQLException e) {
+            assertEquals(FOREIGN_KEY_VIOLATION, e.getSQLState());
+        }
+    }
+
+    @Test
+    public void testMissingStudent() throws SQLException {
+        final int section = insertSection(null, null);
+
+        try {
+            execute("insert into section_student(section_pkey, student_pkey) values (" + section + ", -1)");
+            fail("expected foreign key violation");
+        } catch (SQLException e) {
+            assertEquals(FOREIGN_KEY_VIOLATION, e.getSQLState());
+        }
+    }
+
+    @Test
+    public void testDeleteCourseClearsSection() throws SQLException {
+        final int course = insertCourse(UUID.randomUUID(), code(), testRunPkey);
+        final int section = insertSection(course, null);
+
+        execute("delete from course where course_pkey = " + course);
+
+        assertNull(queryInteger("select course_pkey from section where section_pkey = " + section));
+    }
+
+    @Test
+    public void testDeleteCascadesToRosters() throws SQLException {
+        final int section = insertSection(null, null);
+        final int student = insertStudent(code() + "@example.com", testRunPkey);
+        execute("insert into section_student(section_pkey, student_pkey) values (" + section + ", " + student + ")");
+
+        execute("delete from student where student_pkey = " + student);
+        assertEquals(0, queryInt("select count(*) from section_student where section_pkey = " + section));
+
+        final int student2 = insertStudent(code() + "@example.com", null);
+        execute("insert into section_student(section_pkey, student_pkey) values (" + section + ", " + student2 + ")");
+
+        execute("delete from section where section_pkey = " + section);
+        assertEquals(0, queryInt("select count(*) from section_student where student_pkey = " + student2));
+    }
+
+    private static String read(String name) throws IOException {
+        final File file = new File("src/main/sql/0.0.9", name);
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+
+    private static void execute(String sql) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute(sql);
+        }
+    }
+
+    private static Integer queryInteger(String sql) throws SQLException {
+        try (Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery(sql)) {
+            rs.next();
+            final int value = rs.getInt(1);
+            return rs.wasNull() ? null : value;
+        }
+    }
+
+    private static int queryInt(String sql) throws SQLException {
+        return queryInteger(sql);
+    }
+
+    private static String code() {
+        return UUID.randomUUID().toString().substring(0, 12);
+    }
+
+    private static int insertCourse(UUID uuid, String code, Integer testRun) throws SQLException {
+        return insert("insert into course(uuid, creation_date, test_run_pkey, code, name) "
+                + "values (?, ?, ?, ?, 'course') returning course_pkey", uuid, testRun, code);
+    }
+
+    private static int insertStudent(String email, Integer testRun) throws SQLException {
+        return insert("insert into student(uuid, creation_date, test_run_pkey, email, name) "
+                + "values (?, ?, ?, ?, 'student') returning student_pkey", UUID.randomUUID(), testRun, email);
+    }
+
+    private static int insertSection(Integer course, Integer testRun) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("insert into section(uuid, creation_date, "
+                + "test_run_pkey, course_pkey, name) values (?, ?, ?, ?, 'section') returning section_pkey")) {
+            stmt.setObject(1, UUID.randomUUID());
+            stmt.setTimestamp(2, new Timestamp(System.currentTimeMillis()));
+            stmt.setObject(3, testRun, Types.INTEGER);
+            stmt.setObject(4, course, Types.INTEGER);
+            try (ResultSet rs = stmt.executeQuery()) {
+                rs.next();
+                return rs.getInt(1);
+            }
+        }
+    }
+
+    private static int insert(String sql, UUID uuid, Integer testRun, String value) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setObject(1, uuid);
+            stmt.setTimestamp(2, new Timestamp(System.currentTimeMillis()));
+            stmt.setObject(3, testRun, Types.INTEGER);
+            stmt.setString(4, value);
+            try (ResultSet rs = stmt.executeQuery()) {
+                rs.next();
+                return rs.getInt(1);
+            }
+        }
+    }
+}
@@ -0,0 +1,70 @@
+--
+-- for security this must run as student-owner, not student-user!
+--
+
+--
+-- create an idempotent stored procedure that migrates a 0.0.4 database to 0.0.5.
+--
+-- The primary keys were serial columns. Hibernate can't batch inserts into
+-- identity columns since it must read back each generated key so they now
+-- come from a single pooled sequence that is incremented by 50, the
+-- allocationSize in PersistentObject.
+--
+create or replace function update_schema_0_0_5() returns void as $$
+declare
+    schema_version_rec record;
+    max_pkey int;
+begin
+    select * into strict schema_version_rec from schema_version;
+    if schema_version_rec.schema_version = '0.0.5' then
+        raise notice 'Database is already current';
+        return;
+    elsif schema_version_rec.schema_version <> '0.0.4' then
+        raise notice 'Unwilling to run updates - check prior version';
+        return;
+    end if;
+
+    -- start the new sequence above every existing key.
+    select greatest(
+        (select coalesce(max(test_run_pkey), 0) from test_run),
+        (select coalesce(max(classroom_pkey), 0) from classroom),
+        (select coalesce(max(course_pkey), 0) from course),
+        (select coalesce(max(instructor_pkey), 0) from instructor),
+        (select coalesce(max(section_pkey), 0) from section),
+        (select coalesce(max(student_pkey), 0) from student),
+        (select coalesce(max(term_pkey), 0) from term)) into max_pkey;
+
+    create sequence pkey_seq increment by 50 minvalue 1;
+    perform setval('pkey_seq', max_pkey + 50, false);
+
+    -- switch the defaults to the new sequence. The old serial sequences are
+    -- no longer referenced once the defaults change so they can be dropped.
+    alter table test_run alter column test_run_pkey set default nextval('pkey_seq');
+    alter table classroom alter column classroom_pkey set default nextval('pkey_seq');
+    alter table course alter column course_pkey set default nextval('pkey_seq');
+    alter table instructor alter column instructor_pkey set default nextval('pkey_seq');
+    alter table section alter column section_pkey set default nextval('pkey_seq');
+    alter table student alter column student_pkey set default nextval('pkey_seq');
+    alter table term alter column term_pkey set default nextval('pkey_seq');
+
+    drop sequence if exists test_run_test_run_pkey_seq;
+    drop sequence if exists classroom_classroom_pkey_seq;
+    drop sequence if exists course_course_pkey_seq;
+    drop sequence if exists instructor_instructor_pkey_seq;
+    drop sequence if exists section_section_pkey_seq;
+    drop sequence if exists student_student_pkey_seq;
+    drop sequence if exists term_term_pkey_seq;
+
+    grant usage on pkey_seq to student;
+
+    update schema_version set schema_version = '0.0.5';
+
+    return;
+end;
+$$ language plpgsql;
+
+-- update database schema
+select update_schema_0_0_5() is null;
+
+-- clean up
+drop function update_schema_0_0_5();
@@ -0,0 +1,43 @@
+--
+-- for security this must run as student-owner, not student-user!
+--
+
+--
+-- create an idempotent stored procedure that migrates a 0.0.5 database to 0.0.6.
+--
+-- The uuid columns were varchar(40). They now use the native 'uuid' type,
+-- which is 16 bytes instead of 37, so the unique indexes on them are about half
+-- the size. The indexes are rebuilt by 'alter column ... type'.
+--
+create or replace function update_schema_0_0_6() returns void as $$
+declare
+    schema_version_rec record;
+begin
+    select * into strict schema_version_rec from schema_version;
+    if schema_version_rec.schema_version = '0.0.6' then
+        raise notice 'Database is already current';
+        return;
+    elsif schema_version_rec.schema_version <> '0.0.5' then
+        raise notice 'Unwilling to run updates - check prior version';
+        return;
+    end if;
+
+    alter table test_run alter column uuid type uuid using uuid::uuid;
+    alter table classroom alter column uuid type uuid using uuid::uuid;
+    alter table course alter column uuid type uuid using uuid::uuid;
+    alter table instructor alter column uuid type uuid using uuid::uuid;
+    alter table section alter column uuid type uuid using uuid::uuid;
+    alter table student alter column uuid type uuid using uuid::uuid;
+    alter table term alter column uuid type uuid using uuid::uuid;
+
+    update schema_version set schema_version = '0.0.6';
+
+    return;
+end;
+$$ language plpgsql;
+
+-- update database schema
+select update_schema_0_0_6() is null;
+
+-- clean up
+drop function update_schema_0_0_6();
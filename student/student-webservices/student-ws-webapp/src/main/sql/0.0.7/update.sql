@@ -0,0 +1,48 @@
+--
+-- for security this must run as student-owner, not student-user!
+--
+
+--
+-- create an idempotent stored procedure that migrates a 0.0.6 database to 0.0.7.
+--
+-- Adds partial indexes for the production rows ('test_run_pkey is null') and
+-- for the test run foreign keys. Neither existed before so every list and
+-- count had to scan the table.
+--
+create or replace function update_schema_0_0_7() returns void as $$
+declare
+    schema_version_rec record;
+begin
+    select * into strict schema_version_rec from schema_version;
+    if schema_version_rec.schema_version = '0.0.7' then
+        raise notice 'Database is already current';
+        return;
+    elsif schema_version_rec.schema_version <> '0.0.6' then
+        raise notice 'Unwilling to run updates - check prior version';
+        return;
+    end if;
+
+    create index if not exists classroom_production_idx on classroom(classroom_pkey) where test_run_pkey is null;
+    create index if not exists classroom_test_run_idx on classroom(test_run_pkey) where test_run_pkey is not null;
+    create index if not exists course_production_idx on course(course_pkey) where test_run_pkey is null;
+    create index if not exists course_test_run_idx on course(test_run_pkey) where test_run_pkey is not null;
+    create index if not exists instructor_production_idx on instructor(instructor_pkey) where test_run_pkey is null;
+    create index if not exists instructor_test_run_idx on instructor(test_run_pkey) where test_run_pkey is not null;
+    create index if not exists section_production_idx on section(section_pkey) where test_run_pkey is null;
+    create index if not exists section_test_run_idx on section(test_run_pkey) where test_run_pkey is not null;
+    create index if not exists student_production_idx on student(student_pkey) where test_run_pkey is null;
+    create index if not exists student_test_run_idx on student(test_run_pkey) where test_run_pkey is not null;
+    create index if not exists term_production_idx on term(term_pkey) where test_run_pkey is null;
+    create index if not exists term_test_run_idx on term(test_run_pkey) where test_run_pkey is not null;
+
+    update schema_version set schema_version = '0.0.7';
+
+    return;
+end;
+$$ language plpgsql;
+
+-- update database schema
+select update_schema_0_0_7() is null;
+
+-- clean up
+drop function update_schema_0_0_7();
@@ -0,0 +1,172 @@
+--
+-- for security this must run as student-owner, not student-user!
+--
+
+--
+-- create an idempotent stored procedure that creates the initial database schema.
+--
+create or replace function create_schema_0_0_8() returns void as $$
+declare
+    schema_version_rec record;
+    schema_count int;
+begin
+    create table if not exists schema_version (
+        schema_version varchar(20) not null
+    );
+    
+    select count(*) into schema_count from schema_version;
+    
+    case schema_count
+        when 0 then
+            raise notice 'new table!';
+            -- we just created table
+            insert into schema_version(schema_version) values('0.0.8');
+        when 1 then
+            -- this is 'create' so we only need to make sure it's current version
+            -- normally we accept either current version or immediately prior version.
+            select * into strict schema_version_rec from schema_version;
+            -- older databases must be migrated with the update.sql scripts.
+            if schema_version_rec.schema_version <> '0.0.8' then
+                raise notice 'Unwilling to run updates - run update.sql first';
+                exit;
+            end if;      
+        else
+            raise notice 'Bad database - more than one schema versions defined!';
+            exit;
+    end case;
+
+    -- create tables!
+    -- uuids use the native 16-byte 'uuid' type. The varchar(40) columns used
+    -- 37 bytes per value and the unique indexes were twice as large.
+
+    -- all primary keys come from a single sequence. Hibernate uses a pooled
+    -- optimizer so the increment MUST match the allocationSize in
+    -- PersistentObject. The default values are only for manual inserts.
+    create sequence if not exists pkey_seq increment by 50;
+
+    create table if not exists test_run (
+        test_run_pkey int primary key default nextval('pkey_seq'),
+        version int not null default 1,
+        uuid uuid unique not null,
+        creation_date timestamp not null,
+        name varchar(80) not null,
+        test_date timestamp not null,
+        username varchar(40) not null
+    );
+    
+    create table if not exists classroom (
+        classroom_pkey int primary key default nextval('pkey_seq'),
+        version int not null default 1,
+        uuid uuid unique not null,
+        creation_date timestamp not null,
+        test_run_pkey int references test_run(test_run_pkey),
+        name varchar(80) not null
+    );
+
+    create table if not exists course (
+        course_pkey int primary key default nextval('pkey_seq'),
+        version int not null default 1,
+        uuid uuid unique not null,
+        creation_date timestamp not null,
+        test_run_pkey int references test_run(test_run_pkey),
+        code varchar(12) not null unique,
+        name varchar(80) not null,
+        summary varchar(400),
+        description text,
+        credit_hours int
+    );
+
+    create table if not exists instructor (
+        instructor_pkey int primary key default nextval('pkey_seq'),
+        version int not null default 1,
+        uuid uuid unique not null,
+        creation_date timestamp not null,
+        test_run_pkey int references test_run(test_run_pkey),
+        name varchar(80) not null,
+        email varchar(200) unique not null
+    );
+
+    create table if not exists section (
+        section_pkey int primary key default nextval('pkey_seq'),
+        version int not null default 1,
+        uuid uuid unique not null,
+        creation_date timestamp not null,
+        test_run_pkey int references test_run(test_run_pkey),
+        name varchar(80) not null,
+        course_pkey int constraint section_course_fk references course(course_pkey) on delete set null
+    );
+
+    create table if not exists student (
+        student_pkey int primary key default nextval('pkey_seq'),
+        version int not null default 1,
+        uuid uuid unique not null,
+        creation_date timestamp not null,
+        test_run_pkey int references test_run(test_run_pkey),
+        name varchar(80) not null,
+        email varchar(200) unique not null
+    );
+
+    create table if not exists term (
+        term_pkey int primary key default nextval('pkey_seq'),
+        version int not null default 1,
+        uuid uuid unique not null,
+        creation_date timestamp not null,
+        test_run_pkey int references test_run(test_run_pkey),
+        name varchar(80) not null
+    );
+
+    -- section rosters. The primary key covers the lookups by section, the
+    -- second index covers the lookups (and cascades) by student or classroom.
+    create table if not exists section_student (
+        section_pkey int not null constraint section_student_section_fk references section(section_pkey) on delete cascade,
+        student_pkey int not null constraint section_student_student_fk references student(student_pkey) on delete cascade,
+        primary key (section_pkey, student_pkey)
+    );
+
+    create table if not exists section_classroom (
+        section_pkey int not null constraint section_classroom_section_fk references section(section_pkey) on delete cascade,
+        classroom_pkey int not null constraint section_classroom_classroom_fk references classroom(classroom_pkey) on delete cascade,
+        primary key (section_pkey, classroom_pkey)
+    );
+
+    create index if not exists section_course_idx on section(course_pkey);
+    create index if not exists section_student_student_idx on section_student(student_pkey);
+    create index if not exists section_classroom_classroom_idx on section_classroom(classroom_pkey);
+
+    -- every list and count query is restricted to either the production rows
+    -- ('test_run_pkey is null') or a single test run. The partial indexes on
+    -- the production rows never contain test data and the foreign key indexes
+    -- never contain production data.
+    create index if not exists classroom_production_idx on classroom(classroom_pkey) where test_run_pkey is null;
+    create index if not exists classroom_test_run_idx on classroom(test_run_pkey) where test_run_pkey is not null;
+    create index if not exists course_production_idx on course(course_pkey) where test_run_pkey is null;
+    create index if not exists course_test_run_idx on course(test_run_pkey) where test_run_pkey is not null;
+    create index if not exists instructor_production_idx on instructor(instructor_pkey) where test_run_pkey is null;
+    create index if not exists instructor_test_run_idx on instructor(test_run_pkey) where test_run_pkey is not null;
+    create index if not exists section_production_idx on section(section_pkey) where test_run_pkey is null;
+    create index if not exists section_test_run_idx on section(test_run_pkey) where test_run_pkey is not null;
+    create index if not exists student_production_idx on student(student_pkey) where test_run_pkey is null;
+    create index if not exists student_test_run_idx on student(test_run_pkey) where test_run_pkey is not null;
+    create index if not exists term_production_idx on term(term_pkey) where test_run_pkey is null;
+    create index if not exists term_test_run_idx on term(test_run_pkey) where test_run_pkey is not null;
+
+    -- make sure nobody can truncate our tables
+    revoke truncate on classroom, course, instructor, section, section_classroom, section_student, student,
+        term, test_run from public;
+    revoke truncate on classroom, course, instructor, section, section_classroom, section_student, student,
+        term, test_run from student;
+
+    -- grant CRUD privileges to student-user.
+    grant select, insert, update, delete on classroom, course, instructor, section, section_classroom,
+        section_student, student, term, test_run to student;
+    grant usage on pkey_seq to student;
+    
+    return;
+end;
+$$ language plpgsql;
+
+-- create database schema
+select create_schema_0_0_8() is null;
+
+-- clean up
+drop function create_schema_0_0_8();
\ No newline at end of file
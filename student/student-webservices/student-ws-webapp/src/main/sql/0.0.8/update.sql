@@ -0,0 +1,57 @@
+--
+-- for security this must run as student-owner, not student-user!
+--
+
+--
+-- create an idempotent stored procedure that migrates a 0.0.7 database to 0.0.8.
+--
+-- Adds the section course and the section roster (students and classrooms)
+-- join tables. These were transient properties before.
+--
+create or replace function update_schema_0_0_8() returns void as $$
+declare
+    schema_version_rec record;
+begin
+    select * into strict schema_version_rec from schema_version;
+    if schema_version_rec.schema_version = '0.0.8' then
+        raise notice 'Database is already current';
+        return;
+    elsif schema_version_rec.schema_version <> '0.0.7' then
+        raise notice 'Unwilling to run updates - check prior version';
+        return;
+    end if;
+
+    alter table section add column if not exists course_pkey int
+        constraint section_course_fk references course(course_pkey) on delete set null;
+
+    create table if not exists section_student (
+        section_pkey int not null constraint section_student_section_fk references section(section_pkey) on delete cascade,
+        student_pkey int not null constraint section_student_student_fk references student(student_pkey) on delete cascade,
+        primary key (section_pkey, student_pkey)
+    );
+
+    create table if not exists section_classroom (
+        section_pkey int not null constraint section_classroom_section_fk references section(section_pkey) on delete cascade,
+        classroom_pkey int not null constraint section_classroom_classroom_fk references classroom(classroom_pkey) on delete cascade,
+        primary key (section_pkey, classroom_pkey)
+    );
+
+    create index if not exists section_course_idx on section(course_pkey);
+    create index if not exists section_student_student_idx on section_student(student_pkey);
+    create index if not exists section_classroom_classroom_idx on section_classroom(classroom_pkey);
+
+    revoke truncate on section_classroom, section_student from public;
+    revoke truncate on section_classroom, section_student from student;
+    grant select, insert, update, delete on section_classroom, section_student to student;
+
+    update schema_version set schema_version = '0.0.8';
+
+    return;
+end;
+$$ language plpgsql;
+
+-- update database schema
+select update_schema_0_0_8() is null;
+
+-- clean up
+drop function update_schema_0_0_8();
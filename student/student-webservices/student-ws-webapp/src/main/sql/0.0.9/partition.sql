@@ -0,0 +1,216 @@
+--
+-- for security this must run as student-owner, not student-user!
+--
+
+--
+-- create an idempotent stored procedure that moves the test data into
+-- separate partitions. This is optional and requires PostgreSQL 11 or later.
+--
+-- Each testable table becomes a table list-partitioned on test_run_pkey:
+--  - <table>_production holds the rows where test_run_pkey is null
+--  - <table>_test is the default partition and holds all test runs
+--
+-- The production queries restrict 'test_run_pkey is null' so they never read
+-- the test partitions or their indexes. The application is unchanged - the
+-- database routes each row to its partition.
+--
+-- PostgreSQL can't enforce a unique constraint or a foreign key on a
+-- partitioned table unless it includes the partition key, and test_run_pkey
+-- is nullable. This script keeps the guarantees with triggers on the parent
+-- tables:
+--  - the primary keys, uuids, codes and emails are unique in each partition
+--    (constraint) and across the partitions (check_unique_across_partitions)
+--  - the references to the partitioned tables are checked on insert and
+--    update (check_reference) and cascaded on delete (cascade_delete)
+--
+-- The checks see the rows committed by other transactions so they require
+-- the 'read committed' isolation level. The primary keys are never updated.
+--
+create or replace function check_unique_across_partitions() returns trigger as $$
+declare
+    col text;
+    val text;
+    matches int;
+begin
+    -- TG_ARGV[0] is the partitioned table, the rest are the unique columns.
+    foreach col in array TG_ARGV[1:TG_NARGS - 1] loop
+        execute format('select ($1).%I::text', col) into val using new;
+        if val is not null then
+            -- concurrent writers of the same value wait here until the first
+            -- one commits so the count below sees the other row.
+            perform pg_advisory_xact_lock(hashtext(TG_ARGV[0] || '.' || col), hashtext(val));
+            execute format('select count(*) from %I.%I where %I = ($1).%I',
+                TG_TABLE_SCHEMA, TG_ARGV[0], col, col) into matches using new;
+            if matches > 1 then
+                raise exception 'duplicate key value violates unique constraint on %(%)', TG_ARGV[0], col
+                    using errcode = 'unique_violation', detail = format('Key (%s)=(%s) already exists.', col, val);
+            end if;
+        end if;
+    end loop;
+    return null;
+end;
+$$ language plpgsql;
+
+create or replace function check_reference() returns trigger as $$
+declare
+    pkey int;
+    present int;
+begin
+    -- TG_ARGV is the referencing column, the referenced table and its column.
+    execute format('select ($1).%I', TG_ARGV[0]) into pkey using new;
+    if pkey is not null then
+        -- 'for key share' blocks a concurrent delete of the referenced row
+        -- until we commit, the same as a foreign key.
+        execute format('select 1 from %I.%I where %I = $1 for key share',
+            TG_TABLE_SCHEMA, TG_ARGV[1], TG_ARGV[2]) into present using pkey;
+        if present is null then
+            raise exception 'insert or update on table "%" violates foreign key to "%"', TG_TABLE_NAME, TG_ARGV[1]
+                using errcode = 'foreign_key_violation',
+                    detail = format('Key (%s)=(%s) is not present.', TG_ARGV[0], pkey);
+        end if;
+    end if;
+    return null;
+end;
+$$ language plpgsql;
+
+create or replace function cascade_delete() returns trigger as $$
+declare
+    pkey int;
+begin
+    -- TG_ARGV is the referenced column, the referencing table and its column
+    -- and the action - 'cascade' or 'set null'.
+    execute format('select ($1).%I', TG_ARGV[0]) into pkey using old;
+    if TG_ARGV[3] = 'set null' then
+        execute format('update %I.%I set %I = null where %I = $1',
+            TG_TABLE_SCHEMA, TG_ARGV[1], TG_ARGV[2], TG_ARGV[2]) using pkey;
+    else
+        execute format('delete from %I.%I where %I = $1',
+            TG_TABLE_SCHEMA, TG_ARGV[1], TG_ARGV[2]) using pkey;
+    end if;
+    return null;
+end;
+$$ language plpgsql;
+
+create or replace function partition_schema_0_0_9() returns void as $$
+declare
+    schema_version_rec record;
+    fk_rec record;
+    tbl text;
+    unique_cols text[];
+    col text;
+begin
+    select * into strict schema_version_rec from schema_version;
+    if schema_version_rec.schema_version <> '0.0.9' then
+        raise notice 'Unwilling to partition tables - run update.sql first';
+        return;
+    end if;
+
+    -- the foreign keys into the tables must be dropped before the tables are
+    -- replaced. The triggers below take their place.
+    for fk_rec in select conrelid::regclass as tbl, conname from pg_constraint
+            where contype = 'f' and confrelid in ('classroom'::regclass, 'course'::regclass,
+                'instructor'::regclass, 'section'::regclass, 'student'::regclass, 'term'::regclass) loop
+        execute format('alter table %s drop constraint %I', fk_rec.tbl, fk_rec.conname);
+    end loop;
+
+    foreach tbl in array array['classroom', 'course', 'instructor', 'section', 'student', 'term'] loop
+        unique_cols := array[tbl || '_pkey', 'uuid'];
+        if tbl = 'course' then
+            unique_cols := unique_cols || 'code'::text;
+        elsif tbl in ('instructor', 'student') then
+            unique_cols := unique_cols || 'email'::text;
+        end if;
+
+        if not exists (select 1 from pg_class where oid = tbl::regclass and relkind = 'p') then
+            execute format('alter table %I rename to %I', tbl, tbl || '_unpartitioned');
+            execute format('create table %I (like %I including defaults) partition by list (test_run_pkey)',
+                tbl, tbl || '_unpartitioned');
+            execute format('create table %I partition of %I for values in (null)', tbl || '_production', tbl);
+            execute format('create table %I partition of %I default', tbl || '_test', tbl);
+            execute format('alter table %I add foreign key (test_run_pkey) references test_run(test_run_pkey)',
+                tbl);
+
+            -- per-partition constraints. The trigger checks across the partitions.
+            foreach col in array unique_cols loop
+                execute format('alter table %I add %s (%I)', tbl || '_production',
+                    case when col = tbl || '_pkey' then 'primary key' else 'unique' end, col);
+                execute format('alter table %I add %s (%I)', tbl || '_test',
+                    case when col = tbl || '_pkey' then 'primary key' else 'unique' end, col);
+            end loop;
+
+            execute format('drop trigger if exists %I on %I', tbl || '_unique_trg', tbl);
+            execute format('create trigger %I after insert or update of %s on %I for each row '
+                || 'execute procedure check_unique_across_partitions(%s)', tbl || '_unique_trg',
+                array_to_string(unique_cols, ', '), tbl,
+                (select string_agg(quote_literal(arg), ', ') from unnest(tbl || unique_cols) as arg));
+
+            execute format('insert into %I select * from %I', tbl, tbl || '_unpartitioned');
+            execute format('drop table %I', tbl || '_unpartitioned');
+            execute format('create index %I on %I(test_run_pkey)', tbl || '_test_run_idx', tbl || '_test');
+
+            execute format('revoke truncate on %I, %I, %I from public', tbl, tbl || '_production', tbl || '_test');
+            execute format('revoke truncate on %I, %I, %I from student', tbl, tbl || '_production', tbl || '_test');
+            execute format('grant select, insert, update, delete on %I to student', tbl);
+        end if;
+    end loop;
+
+    -- indexes on the partitioned tables are created on each partition.
+    create index if not exists section_course_idx on section(course_pkey);
+    create index if not exists course_name_prefix_idx on course(lower(name) varchar_pattern_ops);
+    create index if not exists course_name_trgm_idx on course using gin (lower(name) gin_trgm_ops);
+    create index if not exists instructor_name_prefix_idx on instructor(lower(name) varchar_pattern_ops);
+    create index if not exists instructor_name_trgm_idx on instructor using gin (lower(name) gin_trgm_ops);
+    create index if not exists student_name_prefix_idx on student(lower(name) varchar_pattern_ops);
+    create index if not exists student_name_trgm_idx on student using gin (lower(name) gin_trgm_ops);
+    foreach tbl in array array['classroom', 'course', 'instructor', 'section', 'student', 'term'] loop
+        execute format('create index if not exists %I on %I(name, %I)', tbl || '_name_sort_idx', tbl, tbl || '_pkey');
+        execute format('create index if not exists %I on %I(creation_date, %I)', tbl || '_creation_date_sort_idx',
+            tbl, tbl || '_pkey');
+    end loop;
+
+    -- the foreign keys. The deletes are row triggers so they also run for
+    -- the bulk deletes of a test run.
+    drop trigger if exists section_course_fk on section;
+    create trigger section_course_fk after insert or update of course_pkey on section for each row
+        execute procedure check_reference('course_pkey', 'course', 'course_pkey');
+    drop trigger if exists section_course_fk_del on course;
+    create trigger section_course_fk_del after delete on course for each row
+        execute procedure cascade_delete('course_pkey', 'section', 'course_pkey', 'set null');
+
+    drop trigger if exists section_student_section_fk on section_student;
+    create trigger section_student_section_fk after insert or update on section_student for each row
+        execute procedure check_reference('section_pkey', 'section', 'section_pkey');
+    drop trigger if exists section_student_section_fk_del on section;
+    create trigger section_student_section_fk_del after delete on section for each row
+        execute procedure cascade_delete('section_pkey', 'section_student', 'section_pkey', 'cascade');
+
+    drop trigger if exists section_student_student_fk on section_student;
+    create trigger section_student_student_fk after insert or update on section_student for each row
+        execute procedure check_reference('student_pkey', 'student', 'student_pkey');
+    drop trigger if exists section_student_student_fk_del on student;
+    create trigger section_student_student_fk_del after delete on student for each row
+        execute procedure cascade_delete('student_pkey', 'section_student', 'student_pkey', 'cascade');
+
+    drop trigger if exists section_classroom_section_fk on section_classroom;
+    create trigger section_classroom_section_fk after insert or update on section_classroom for each row
+        execute procedure check_reference('section_pkey', 'section', 'section_pkey');
+    drop trigger if exists section_classroom_section_fk_del on section;
+    create trigger section_classroom_section_fk_del after delete on section for each row
+        execute procedure cascade_delete('section_pkey', 'section_classroom', 'section_pkey', 'cascade');
+
+    drop trigger if exists section_classroom_classroom_fk on section_classroom;
+    create trigger section_classroom_classroom_fk after insert or update on section_classroom for each row
+        execute procedure check_reference('classroom_pkey', 'classroom', 'classroom_pkey');
+    drop trigger if exists section_classroom_classroom_fk_del on classroom;
+    create trigger section_classroom_classroom_fk_del after delete on classroom for each row
+        execute procedure cascade_delete('classroom_pkey', 'section_classroom', 'classroom_pkey', 'cascade');
+
+    return;
+end;
+$$ language plpgsql;
+
+-- partition the tables
+select partition_schema_0_0_9() is null;
+
+-- clean up. The trigger functions stay.
+drop function partition_schema_0_0_9();
@@ -0,0 +1,60 @@
+--
+-- for security this must run as student-owner, not student-user!
+--
+
+--
+-- create an idempotent stored procedure that migrates a 0.0.8 database to 0.0.9.
+--
+-- Adds the indexes for the course, instructor and student name searches. The
+-- searches compare 'lower(name)' - a pattern index supports the prefix searches
+-- and a trigram index supports the substring searches.
+--
+-- Adds the (column, primary key) indexes for the sortable columns so the keyset
+-- pages are index range scans.
+--
+-- pg_trgm is a trusted extension on PostgreSQL 13 and later, earlier versions
+-- must create it as a superuser before running this script.
+--
+create extension if not exists pg_trgm;
+
+create or replace function update_schema_0_0_9() returns void as $$
+declare
+    schema_version_rec record;
+    tbl text;
+begin
+    select * into strict schema_version_rec from schema_version;
+    if schema_version_rec.schema_version = '0.0.9' then
+        raise notice 'Database is already current';
+        return;
+    elsif schema_version_rec.schema_version <> '0.0.8' then
+        raise notice 'Unwilling to run updates - check prior version';
+        return;
+    end if;
+
+    create index if not exists course_name_prefix_idx on course(lower(name) varchar_pattern_ops);
+    create index if not exists course_name_trgm_idx on course using gin (lower(name) gin_trgm_ops);
+    create index if not exists instructor_name_prefix_idx on instructor(lower(name) varchar_pattern_ops);
+    create index if not exists instructor_name_trgm_idx on instructor using gin (lower(name) gin_trgm_ops);
+    create index if not exists student_name_prefix_idx on student(lower(name) varchar_pattern_ops);
+    create index if not exists student_name_trgm_idx on student using gin (lower(name) gin_trgm_ops);
+
+    -- the keyset pages sort on (column, primary key) and start with a range
+    -- scan from the previous position. The code and email columns are unique
+    -- so their unique indexes already serve.
+    foreach tbl in array array['classroom', 'course', 'instructor', 'section', 'student', 'term', 'test_run'] loop
+        execute format('create index if not exists %I on %I(name, %I)', tbl || '_name_sort_idx', tbl, tbl || '_pkey');
+        execute format('create index if not exists %I on %I(creation_date, %I)', tbl || '_creation_date_sort_idx',
+            tbl, tbl || '_pkey');
+    end loop;
+
+    update schema_version set schema_version = '0.0.9';
+
+    return;
+end;
+$$ language plpgsql;
+
+-- update database schema
+select update_schema_0_0_9() is null;
+
+-- clean up
+drop function update_schema_0_0_9();